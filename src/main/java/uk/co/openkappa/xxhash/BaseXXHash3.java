@@ -0,0 +1,603 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+import static uk.co.openkappa.xxhash.XXH3.*;
+
+/**
+ * XXH3, 64 and 128 bit, with the default secret. Like {@link BaseXXHash64}, each kernel has a
+ * byte[] and a MemorySegment copy, so every read site only ever sees one kind of input; inputs
+ * over 240 bytes go through {@link #hashLarge}, which subclasses may replace.
+ */
+public abstract class BaseXXHash3 implements Hasher64, Hasher128 {
+
+  @Override
+  public long hash(byte[] input, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, input.length);
+    return hash64(input, offset, length, seed);
+  }
+
+  @Override
+  public long hash(MemorySegment input, long offset, long length, long seed) {
+    Objects.checkFromIndexSize(offset, length, input.byteSize());
+    return hash64(input, offset, length, seed);
+  }
+
+  @Override
+  public Hash128 hash(byte[] input, int offset, int length, long seed, Hash128 result) {
+    Objects.checkFromIndexSize(offset, length, input.length);
+    return hash128(input, offset, length, seed, result);
+  }
+
+  @Override
+  public Hash128 hash(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    Objects.checkFromIndexSize(offset, length, input.byteSize());
+    return hash128(input, offset, length, seed, result);
+  }
+
+  // fixed width keys take the XXH3 4-8 and 9-16 byte paths directly, and arrays are viewed as
+  // segments
+
+  @Override
+  public long hashInt(int value, long seed) {
+    seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+    long input = value & 0xFFFFFFFFL;
+    long bitflip = (secret64(8) ^ secret64(16)) - seed;
+    return rrmxmx((input + (input << 32)) ^ bitflip, 4);
+  }
+
+  @Override
+  public long hashLong(long value, long seed) {
+    seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+    long bitflip = (secret64(8) ^ secret64(16)) - seed;
+    return rrmxmx(((value >>> 32) + (value << 32)) ^ bitflip, 8);
+  }
+
+  @Override
+  public long hashLongs(long first, long second, long seed) {
+    long low = first ^ ((secret64(24) ^ secret64(32)) + seed);
+    long high = second ^ ((secret64(40) ^ secret64(48)) - seed);
+    return avalanche(16 + Long.reverseBytes(low) + high + mul128Fold64(low, high));
+  }
+
+  @Override
+  public long hashLongArray(long[] data, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return hash64(MemorySegment.ofArray(data), (long) offset * Long.BYTES, (long) length * Long.BYTES, seed);
+  }
+
+  @Override
+  public long hashIntArray(int[] data, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return hash64(MemorySegment.ofArray(data), (long) offset * Integer.BYTES, (long) length * Integer.BYTES, seed);
+  }
+
+  @Override
+  public long hashChars(CharSequence chars, long seed) {
+    return Strings.hashCharsEncoded(this, chars, seed);
+  }
+
+  @Override
+  public long hashString(String string, long seed) {
+    return Strings.hashUtf8(this, string, seed);
+  }
+
+  private long hash64(byte[] input, long offset, long length, long seed) {
+    if (length <= 16) {
+      if (length > 8) {
+        long bitflip1 = (secret64(24) ^ secret64(32)) + seed;
+        long bitflip2 = (secret64(40) ^ secret64(48)) - seed;
+        long low = read64(input, offset) ^ bitflip1;
+        long high = read64(input, offset + length - 8) ^ bitflip2;
+        return avalanche(length + Long.reverseBytes(low) + high + mul128Fold64(low, high));
+      }
+      if (length >= 4) {
+        seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+        long input1 = read32(input, offset);
+        long input2 = read32(input, offset + length - 4);
+        long bitflip = (secret64(8) ^ secret64(16)) - seed;
+        return rrmxmx((input2 + (input1 << 32)) ^ bitflip, length);
+      }
+      if (length > 0) {
+        int c1 = read8(input, offset);
+        int c2 = read8(input, offset + (length >>> 1));
+        int c3 = read8(input, offset + length - 1);
+        int combined = (c1 << 16) | (c2 << 24) | c3 | ((int) length << 8);
+        long bitflip = (secret32(0) ^ secret32(4)) + seed;
+        return XXH64.avalanche((combined & 0xFFFFFFFFL) ^ bitflip);
+      }
+      return XXH64.avalanche(seed ^ secret64(56) ^ secret64(64));
+    }
+    if (length <= 128) {
+      long acc = length * PRIME64_1;
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            acc += mix16B(input, offset + 48, 96, seed);
+            acc += mix16B(input, offset + length - 64, 112, seed);
+          }
+          acc += mix16B(input, offset + 32, 64, seed);
+          acc += mix16B(input, offset + length - 48, 80, seed);
+        }
+        acc += mix16B(input, offset + 16, 32, seed);
+        acc += mix16B(input, offset + length - 32, 48, seed);
+      }
+      acc += mix16B(input, offset, 0, seed);
+      acc += mix16B(input, offset + length - 16, 16, seed);
+      return avalanche(acc);
+    }
+    if (length <= 240) {
+      long acc = length * PRIME64_1;
+      int rounds = (int) length / 16;
+      for (int i = 0; i < 8; ++i) {
+        acc += mix16B(input, offset + 16 * i, 16 * i, seed);
+      }
+      acc = avalanche(acc);
+      for (int i = 8; i < rounds; ++i) {
+        acc += mix16B(input, offset + 16 * i, 16 * (i - 8) + 3, seed);
+      }
+      acc += mix16B(input, offset + length - 16, 119, seed);
+      return avalanche(acc);
+    }
+    return hashLarge(input, offset, length, seed, null);
+  }
+
+  private long hash64(MemorySegment input, long offset, long length, long seed) {
+    if (length <= 16) {
+      if (length > 8) {
+        long bitflip1 = (secret64(24) ^ secret64(32)) + seed;
+        long bitflip2 = (secret64(40) ^ secret64(48)) - seed;
+        long low = read64(input, offset) ^ bitflip1;
+        long high = read64(input, offset + length - 8) ^ bitflip2;
+        return avalanche(length + Long.reverseBytes(low) + high + mul128Fold64(low, high));
+      }
+      if (length >= 4) {
+        seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+        long input1 = read32(input, offset);
+        long input2 = read32(input, offset + length - 4);
+        long bitflip = (secret64(8) ^ secret64(16)) - seed;
+        return rrmxmx((input2 + (input1 << 32)) ^ bitflip, length);
+      }
+      if (length > 0) {
+        int c1 = read8(input, offset);
+        int c2 = read8(input, offset + (length >>> 1));
+        int c3 = read8(input, offset + length - 1);
+        int combined = (c1 << 16) | (c2 << 24) | c3 | ((int) length << 8);
+        long bitflip = (secret32(0) ^ secret32(4)) + seed;
+        return XXH64.avalanche((combined & 0xFFFFFFFFL) ^ bitflip);
+      }
+      return XXH64.avalanche(seed ^ secret64(56) ^ secret64(64));
+    }
+    if (length <= 128) {
+      long acc = length * PRIME64_1;
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            acc += mix16B(input, offset + 48, 96, seed);
+            acc += mix16B(input, offset + length - 64, 112, seed);
+          }
+          acc += mix16B(input, offset + 32, 64, seed);
+          acc += mix16B(input, offset + length - 48, 80, seed);
+        }
+        acc += mix16B(input, offset + 16, 32, seed);
+        acc += mix16B(input, offset + length - 32, 48, seed);
+      }
+      acc += mix16B(input, offset, 0, seed);
+      acc += mix16B(input, offset + length - 16, 16, seed);
+      return avalanche(acc);
+    }
+    if (length <= 240) {
+      long acc = length * PRIME64_1;
+      int rounds = (int) length / 16;
+      for (int i = 0; i < 8; ++i) {
+        acc += mix16B(input, offset + 16 * i, 16 * i, seed);
+      }
+      acc = avalanche(acc);
+      for (int i = 8; i < rounds; ++i) {
+        acc += mix16B(input, offset + 16 * i, 16 * (i - 8) + 3, seed);
+      }
+      acc += mix16B(input, offset + length - 16, 119, seed);
+      return avalanche(acc);
+    }
+    return hashLarge(input, offset, length, seed, null);
+  }
+
+  private Hash128 hash128(byte[] input, long offset, long length, long seed, Hash128 result) {
+    if (length <= 16) {
+      if (length > 8) {
+        long bitflipLow = (secret64(32) ^ secret64(40)) - seed;
+        long bitflipHigh = (secret64(48) ^ secret64(56)) + seed;
+        long inputLow = read64(input, offset);
+        long inputHigh = read64(input, offset + length - 8);
+        long keyed = inputLow ^ inputHigh ^ bitflipLow;
+        long mLow = keyed * PRIME64_1;
+        long mHigh = Math.unsignedMultiplyHigh(keyed, PRIME64_1);
+        mLow += (length - 1) << 54;
+        inputHigh ^= bitflipHigh;
+        mHigh += inputHigh + (inputHigh & 0xFFFFFFFFL) * ((PRIME2 & 0xFFFFFFFFL) - 1);
+        mLow ^= Long.reverseBytes(mHigh);
+        long low = mLow * PRIME64_2;
+        long high = Math.unsignedMultiplyHigh(mLow, PRIME64_2) + mHigh * PRIME64_2;
+        return result.set(avalanche(low), avalanche(high));
+      }
+      if (length >= 4) {
+        seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+        long inputLow = read32(input, offset);
+        long inputHigh = read32(input, offset + length - 4);
+        long bitflip = (secret64(16) ^ secret64(24)) + seed;
+        long keyed = (inputLow + (inputHigh << 32)) ^ bitflip;
+        long multiplier = PRIME64_1 + (length << 2);
+        long low = keyed * multiplier;
+        long high = Math.unsignedMultiplyHigh(keyed, multiplier);
+        high += low << 1;
+        low ^= high >>> 3;
+        low ^= low >>> 35;
+        low *= PRIME_MX2;
+        low ^= low >>> 28;
+        return result.set(low, avalanche(high));
+      }
+      if (length > 0) {
+        int c1 = read8(input, offset);
+        int c2 = read8(input, offset + (length >>> 1));
+        int c3 = read8(input, offset + length - 1);
+        int combinedLow = (c1 << 16) | (c2 << 24) | c3 | ((int) length << 8);
+        int combinedHigh = Integer.rotateLeft(Integer.reverseBytes(combinedLow), 13);
+        long bitflipLow = (secret32(0) ^ secret32(4)) + seed;
+        long bitflipHigh = (secret32(8) ^ secret32(12)) - seed;
+        return result.set(XXH64.avalanche((combinedLow & 0xFFFFFFFFL) ^ bitflipLow),
+                XXH64.avalanche((combinedHigh & 0xFFFFFFFFL) ^ bitflipHigh));
+      }
+      return result.set(XXH64.avalanche(seed ^ secret64(64) ^ secret64(72)),
+              XXH64.avalanche(seed ^ secret64(80) ^ secret64(88)));
+    }
+    long low = length * PRIME64_1;
+    long high = 0;
+    if (length <= 128) {
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            low += mix16B(input, offset + 48, 96, seed);
+            low ^= read64(input, offset + length - 64) + read64(input, offset + length - 56);
+            high += mix16B(input, offset + length - 64, 112, seed);
+            high ^= read64(input, offset + 48) + read64(input, offset + 56);
+          }
+          low += mix16B(input, offset + 32, 64, seed);
+          low ^= read64(input, offset + length - 48) + read64(input, offset + length - 40);
+          high += mix16B(input, offset + length - 48, 80, seed);
+          high ^= read64(input, offset + 32) + read64(input, offset + 40);
+        }
+        low += mix16B(input, offset + 16, 32, seed);
+        low ^= read64(input, offset + length - 32) + read64(input, offset + length - 24);
+        high += mix16B(input, offset + length - 32, 48, seed);
+        high ^= read64(input, offset + 16) + read64(input, offset + 24);
+      }
+      low += mix16B(input, offset, 0, seed);
+      low ^= read64(input, offset + length - 16) + read64(input, offset + length - 8);
+      high += mix16B(input, offset + length - 16, 16, seed);
+      high ^= read64(input, offset) + read64(input, offset + 8);
+    } else if (length <= 240) {
+      int rounds = (int) length / 32;
+      for (int i = 0; i < 4; ++i) {
+        long first = offset + 32 * i;
+        low += mix16B(input, first, 32 * i, seed);
+        low ^= read64(input, first + 16) + read64(input, first + 24);
+        high += mix16B(input, first + 16, 32 * i + 16, seed);
+        high ^= read64(input, first) + read64(input, first + 8);
+      }
+      low = avalanche(low);
+      high = avalanche(high);
+      for (int i = 4; i < rounds; ++i) {
+        long first = offset + 32 * i;
+        int secretOffset = 3 + 32 * (i - 4);
+        low += mix16B(input, first, secretOffset, seed);
+        low ^= read64(input, first + 16) + read64(input, first + 24);
+        high += mix16B(input, first + 16, secretOffset + 16, seed);
+        high ^= read64(input, first) + read64(input, first + 8);
+      }
+      long first = offset + length - 16;
+      long second = offset + length - 32;
+      low += mix16B(input, first, 103, -seed);
+      low ^= read64(input, second) + read64(input, second + 8);
+      high += mix16B(input, second, 119, -seed);
+      high ^= read64(input, first) + read64(input, first + 8);
+    } else {
+      hashLarge(input, offset, length, seed, result);
+      return result;
+    }
+    long h128Low = low + high;
+    long h128High = low * PRIME64_1 + high * PRIME64_4 + (length - seed) * PRIME64_2;
+    return result.set(avalanche(h128Low), -avalanche(h128High));
+  }
+
+  private Hash128 hash128(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    if (length <= 16) {
+      if (length > 8) {
+        long bitflipLow = (secret64(32) ^ secret64(40)) - seed;
+        long bitflipHigh = (secret64(48) ^ secret64(56)) + seed;
+        long inputLow = read64(input, offset);
+        long inputHigh = read64(input, offset + length - 8);
+        long keyed = inputLow ^ inputHigh ^ bitflipLow;
+        long mLow = keyed * PRIME64_1;
+        long mHigh = Math.unsignedMultiplyHigh(keyed, PRIME64_1);
+        mLow += (length - 1) << 54;
+        inputHigh ^= bitflipHigh;
+        mHigh += inputHigh + (inputHigh & 0xFFFFFFFFL) * ((PRIME2 & 0xFFFFFFFFL) - 1);
+        mLow ^= Long.reverseBytes(mHigh);
+        long low = mLow * PRIME64_2;
+        long high = Math.unsignedMultiplyHigh(mLow, PRIME64_2) + mHigh * PRIME64_2;
+        return result.set(avalanche(low), avalanche(high));
+      }
+      if (length >= 4) {
+        seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+        long inputLow = read32(input, offset);
+        long inputHigh = read32(input, offset + length - 4);
+        long bitflip = (secret64(16) ^ secret64(24)) + seed;
+        long keyed = (inputLow + (inputHigh << 32)) ^ bitflip;
+        long multiplier = PRIME64_1 + (length << 2);
+        long low = keyed * multiplier;
+        long high = Math.unsignedMultiplyHigh(keyed, multiplier);
+        high += low << 1;
+        low ^= high >>> 3;
+        low ^= low >>> 35;
+        low *= PRIME_MX2;
+        low ^= low >>> 28;
+        return result.set(low, avalanche(high));
+      }
+      if (length > 0) {
+        int c1 = read8(input, offset);
+        int c2 = read8(input, offset + (length >>> 1));
+        int c3 = read8(input, offset + length - 1);
+        int combinedLow = (c1 << 16) | (c2 << 24) | c3 | ((int) length << 8);
+        int combinedHigh = Integer.rotateLeft(Integer.reverseBytes(combinedLow), 13);
+        long bitflipLow = (secret32(0) ^ secret32(4)) + seed;
+        long bitflipHigh = (secret32(8) ^ secret32(12)) - seed;
+        return result.set(XXH64.avalanche((combinedLow & 0xFFFFFFFFL) ^ bitflipLow),
+                XXH64.avalanche((combinedHigh & 0xFFFFFFFFL) ^ bitflipHigh));
+      }
+      return result.set(XXH64.avalanche(seed ^ secret64(64) ^ secret64(72)),
+              XXH64.avalanche(seed ^ secret64(80) ^ secret64(88)));
+    }
+    long low = length * PRIME64_1;
+    long high = 0;
+    if (length <= 128) {
+      if (length > 32) {
+        if (length > 64) {
+          if (length > 96) {
+            low += mix16B(input, offset + 48, 96, seed);
+            low ^= read64(input, offset + length - 64) + read64(input, offset + length - 56);
+            high += mix16B(input, offset + length - 64, 112, seed);
+            high ^= read64(input, offset + 48) + read64(input, offset + 56);
+          }
+          low += mix16B(input, offset + 32, 64, seed);
+          low ^= read64(input, offset + length - 48) + read64(input, offset + length - 40);
+          high += mix16B(input, offset + length - 48, 80, seed);
+          high ^= read64(input, offset + 32) + read64(input, offset + 40);
+        }
+        low += mix16B(input, offset + 16, 32, seed);
+        low ^= read64(input, offset + length - 32) + read64(input, offset + length - 24);
+        high += mix16B(input, offset + length - 32, 48, seed);
+        high ^= read64(input, offset + 16) + read64(input, offset + 24);
+      }
+      low += mix16B(input, offset, 0, seed);
+      low ^= read64(input, offset + length - 16) + read64(input, offset + length - 8);
+      high += mix16B(input, offset + length - 16, 16, seed);
+      high ^= read64(input, offset) + read64(input, offset + 8);
+    } else if (length <= 240) {
+      int rounds = (int) length / 32;
+      for (int i = 0; i < 4; ++i) {
+        long first = offset + 32 * i;
+        low += mix16B(input, first, 32 * i, seed);
+        low ^= read64(input, first + 16) + read64(input, first + 24);
+        high += mix16B(input, first + 16, 32 * i + 16, seed);
+        high ^= read64(input, first) + read64(input, first + 8);
+      }
+      low = avalanche(low);
+      high = avalanche(high);
+      for (int i = 4; i < rounds; ++i) {
+        long first = offset + 32 * i;
+        int secretOffset = 3 + 32 * (i - 4);
+        low += mix16B(input, first, secretOffset, seed);
+        low ^= read64(input, first + 16) + read64(input, first + 24);
+        high += mix16B(input, first + 16, secretOffset + 16, seed);
+        high ^= read64(input, first) + read64(input, first + 8);
+      }
+      long first = offset + length - 16;
+      long second = offset + length - 32;
+      low += mix16B(input, first, 103, -seed);
+      low ^= read64(input, second) + read64(input, second + 8);
+      high += mix16B(input, second, 119, -seed);
+      high ^= read64(input, first) + read64(input, first + 8);
+    } else {
+      hashLarge(input, offset, length, seed, result);
+      return result;
+    }
+    long h128Low = low + high;
+    long h128High = low * PRIME64_1 + high * PRIME64_4 + (length - seed) * PRIME64_2;
+    return result.set(avalanche(h128Low), -avalanche(h128High));
+  }
+
+  /**
+   * Hashes an input of more than 240 bytes. Returns the 64 bit hash when {@code result} is null,
+   * otherwise writes the 128 bit hash into it. The byte[] and MemorySegment
+   * overloads are the same loop, each reading only its own kind of input.
+   */
+  long hashLarge(byte[] input, long offset, long length, long seed, Hash128 result) {
+    long a0 = INIT_ACC[0];
+    long a1 = INIT_ACC[1];
+    long a2 = INIT_ACC[2];
+    long a3 = INIT_ACC[3];
+    long a4 = INIT_ACC[4];
+    long a5 = INIT_ACC[5];
+    long a6 = INIT_ACC[6];
+    long a7 = INIT_ACC[7];
+    long blocks = (length - 1) / BLOCK_LENGTH;
+    long stripes = blocks * STRIPES_PER_BLOCK + ((length - 1) - blocks * BLOCK_LENGTH) / STRIPE_LENGTH;
+    // the stripes of every block, then one more ending at the last byte with its own secret offset
+    for (long stripe = 0; stripe <= stripes; ++stripe) {
+      long position;
+      int secretOffset;
+      if (stripe < stripes) {
+        position = offset + stripe * STRIPE_LENGTH;
+        secretOffset = (int) (stripe % STRIPES_PER_BLOCK) * 8;
+      } else {
+        position = offset + length - STRIPE_LENGTH;
+        secretOffset = LAST_STRIPE_OFFSET;
+      }
+      long d0 = read64(input, position);
+      long d1 = read64(input, position + 8);
+      long d2 = read64(input, position + 16);
+      long d3 = read64(input, position + 24);
+      long d4 = read64(input, position + 32);
+      long d5 = read64(input, position + 40);
+      long d6 = read64(input, position + 48);
+      long d7 = read64(input, position + 56);
+      long k0 = d0 ^ secret64(secretOffset, seed);
+      long k1 = d1 ^ secret64(secretOffset + 8, seed);
+      long k2 = d2 ^ secret64(secretOffset + 16, seed);
+      long k3 = d3 ^ secret64(secretOffset + 24, seed);
+      long k4 = d4 ^ secret64(secretOffset + 32, seed);
+      long k5 = d5 ^ secret64(secretOffset + 40, seed);
+      long k6 = d6 ^ secret64(secretOffset + 48, seed);
+      long k7 = d7 ^ secret64(secretOffset + 56, seed);
+      a0 += d1 + (k0 & 0xFFFFFFFFL) * (k0 >>> 32);
+      a1 += d0 + (k1 & 0xFFFFFFFFL) * (k1 >>> 32);
+      a2 += d3 + (k2 & 0xFFFFFFFFL) * (k2 >>> 32);
+      a3 += d2 + (k3 & 0xFFFFFFFFL) * (k3 >>> 32);
+      a4 += d5 + (k4 & 0xFFFFFFFFL) * (k4 >>> 32);
+      a5 += d4 + (k5 & 0xFFFFFFFFL) * (k5 >>> 32);
+      a6 += d7 + (k6 & 0xFFFFFFFFL) * (k6 >>> 32);
+      a7 += d6 + (k7 & 0xFFFFFFFFL) * (k7 >>> 32);
+      if (stripe < stripes && stripe % STRIPES_PER_BLOCK == STRIPES_PER_BLOCK - 1) {
+        a0 = scramble(a0, secretWord(SCRAMBLE_OFFSET / 8, seed));
+        a1 = scramble(a1, secretWord(SCRAMBLE_OFFSET / 8 + 1, seed));
+        a2 = scramble(a2, secretWord(SCRAMBLE_OFFSET / 8 + 2, seed));
+        a3 = scramble(a3, secretWord(SCRAMBLE_OFFSET / 8 + 3, seed));
+        a4 = scramble(a4, secretWord(SCRAMBLE_OFFSET / 8 + 4, seed));
+        a5 = scramble(a5, secretWord(SCRAMBLE_OFFSET / 8 + 5, seed));
+        a6 = scramble(a6, secretWord(SCRAMBLE_OFFSET / 8 + 6, seed));
+        a7 = scramble(a7, secretWord(SCRAMBLE_OFFSET / 8 + 7, seed));
+      }
+    }
+    return merge(a0, a1, a2, a3, a4, a5, a6, a7, length, seed, result);
+  }
+
+  long hashLarge(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    long a0 = INIT_ACC[0];
+    long a1 = INIT_ACC[1];
+    long a2 = INIT_ACC[2];
+    long a3 = INIT_ACC[3];
+    long a4 = INIT_ACC[4];
+    long a5 = INIT_ACC[5];
+    long a6 = INIT_ACC[6];
+    long a7 = INIT_ACC[7];
+    long blocks = (length - 1) / BLOCK_LENGTH;
+    long stripes = blocks * STRIPES_PER_BLOCK + ((length - 1) - blocks * BLOCK_LENGTH) / STRIPE_LENGTH;
+    // the stripes of every block, then one more ending at the last byte with its own secret offset
+    for (long stripe = 0; stripe <= stripes; ++stripe) {
+      long position;
+      int secretOffset;
+      if (stripe < stripes) {
+        position = offset + stripe * STRIPE_LENGTH;
+        secretOffset = (int) (stripe % STRIPES_PER_BLOCK) * 8;
+      } else {
+        position = offset + length - STRIPE_LENGTH;
+        secretOffset = LAST_STRIPE_OFFSET;
+      }
+      long d0 = read64(input, position);
+      long d1 = read64(input, position + 8);
+      long d2 = read64(input, position + 16);
+      long d3 = read64(input, position + 24);
+      long d4 = read64(input, position + 32);
+      long d5 = read64(input, position + 40);
+      long d6 = read64(input, position + 48);
+      long d7 = read64(input, position + 56);
+      long k0 = d0 ^ secret64(secretOffset, seed);
+      long k1 = d1 ^ secret64(secretOffset + 8, seed);
+      long k2 = d2 ^ secret64(secretOffset + 16, seed);
+      long k3 = d3 ^ secret64(secretOffset + 24, seed);
+      long k4 = d4 ^ secret64(secretOffset + 32, seed);
+      long k5 = d5 ^ secret64(secretOffset + 40, seed);
+      long k6 = d6 ^ secret64(secretOffset + 48, seed);
+      long k7 = d7 ^ secret64(secretOffset + 56, seed);
+      a0 += d1 + (k0 & 0xFFFFFFFFL) * (k0 >>> 32);
+      a1 += d0 + (k1 & 0xFFFFFFFFL) * (k1 >>> 32);
+      a2 += d3 + (k2 & 0xFFFFFFFFL) * (k2 >>> 32);
+      a3 += d2 + (k3 & 0xFFFFFFFFL) * (k3 >>> 32);
+      a4 += d5 + (k4 & 0xFFFFFFFFL) * (k4 >>> 32);
+      a5 += d4 + (k5 & 0xFFFFFFFFL) * (k5 >>> 32);
+      a6 += d7 + (k6 & 0xFFFFFFFFL) * (k6 >>> 32);
+      a7 += d6 + (k7 & 0xFFFFFFFFL) * (k7 >>> 32);
+      if (stripe < stripes && stripe % STRIPES_PER_BLOCK == STRIPES_PER_BLOCK - 1) {
+        a0 = scramble(a0, secretWord(SCRAMBLE_OFFSET / 8, seed));
+        a1 = scramble(a1, secretWord(SCRAMBLE_OFFSET / 8 + 1, seed));
+        a2 = scramble(a2, secretWord(SCRAMBLE_OFFSET / 8 + 2, seed));
+        a3 = scramble(a3, secretWord(SCRAMBLE_OFFSET / 8 + 3, seed));
+        a4 = scramble(a4, secretWord(SCRAMBLE_OFFSET / 8 + 4, seed));
+        a5 = scramble(a5, secretWord(SCRAMBLE_OFFSET / 8 + 5, seed));
+        a6 = scramble(a6, secretWord(SCRAMBLE_OFFSET / 8 + 6, seed));
+        a7 = scramble(a7, secretWord(SCRAMBLE_OFFSET / 8 + 7, seed));
+      }
+    }
+    return merge(a0, a1, a2, a3, a4, a5, a6, a7, length, seed, result);
+  }
+
+  static long scramble(long acc, long key) {
+    acc ^= acc >>> 47;
+    acc ^= key;
+    return acc * (PRIME1 & 0xFFFFFFFFL);
+  }
+
+  static long merge(long a0, long a1, long a2, long a3, long a4, long a5, long a6, long a7,
+                    long length, long seed, Hash128 result) {
+    long low = mergeAccs(a0, a1, a2, a3, a4, a5, a6, a7, MERGE_OFFSET, seed, length * PRIME64_1);
+    if (result != null) {
+      result.set(low, mergeAccs(a0, a1, a2, a3, a4, a5, a6, a7, MERGE_HIGH_OFFSET, seed, ~(length * PRIME64_2)));
+    }
+    return low;
+  }
+
+  private long mix16B(byte[] input, long offset, int secretOffset, long seed) {
+    long low = read64(input, offset);
+    long high = read64(input, offset + 8);
+    return mul128Fold64(low ^ (secret64(secretOffset) + seed), high ^ (secret64(secretOffset + 8) - seed));
+  }
+
+  private long mix16B(MemorySegment input, long offset, int secretOffset, long seed) {
+    long low = read64(input, offset);
+    long high = read64(input, offset + 8);
+    return mul128Fold64(low ^ (secret64(secretOffset) + seed), high ^ (secret64(secretOffset + 8) - seed));
+  }
+
+  // offsets into arrays are checked to fit an int before hashing, so the casts are exact
+  private long read64(byte[] input, long offset) {
+    return getLong(input, (int) offset);
+  }
+
+  private long read64(MemorySegment input, long offset) {
+    return getLong(input, offset);
+  }
+
+  private long read32(byte[] input, long offset) {
+    return getInt(input, (int) offset) & 0xFFFFFFFFL;
+  }
+
+  private long read32(MemorySegment input, long offset) {
+    return getInt(input, offset) & 0xFFFFFFFFL;
+  }
+
+  private static int read8(byte[] input, long offset) {
+    return input[(int) offset] & 0xFF;
+  }
+
+  private static int read8(MemorySegment input, long offset) {
+    return input.get(ValueLayout.JAVA_BYTE, offset) & 0xFF;
+  }
+
+  protected abstract long getLong(byte[] array, int offset);
+  protected abstract int getInt(byte[] array, int offset);
+  protected abstract long getLong(MemorySegment segment, long offset);
+  protected abstract int getInt(MemorySegment segment, long offset);
+}
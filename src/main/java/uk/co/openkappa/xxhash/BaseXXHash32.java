@@ -1,15 +1,20 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
+
 import static uk.co.openkappa.xxhash.Constants.*;
+import static uk.co.openkappa.xxhash.XXH32.*;
 
-public abstract class BaseXXHash32 implements Hasher32 {
+public abstract class BaseXXHash32 implements XXH32Hasher {
 
   @Override
-  public int hash(byte[] data, int seed) {
-    int end = data.length;
-    int offset = 0;
+  public int hash(byte[] data, int offset, int length, int seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    int end = offset + length;
     int h32;
-    if (data.length >= 16) {
+    if (length >= 16) {
       int limit = end - 16;
       int v1 = seed + PRIME1 + PRIME2;
       int v2 = seed + PRIME2;
@@ -17,30 +22,19 @@ public abstract class BaseXXHash32 implements Hasher32 {
       int v4 = seed - PRIME1;
 
       do {
-        v1 += getInt(data, offset) * PRIME2;
-        v1 = Integer.rotateLeft(v1, 13);
-        v1 *= PRIME1;
-        offset += 4;
-        v2 += getInt(data, offset) * PRIME2;
-        v2 = Integer.rotateLeft(v2, 13);
-        v2 *= PRIME1;
-        offset += 4;
-        v3 += getInt(data, offset) * PRIME2;
-        v3 = Integer.rotateLeft(v3, 13);
-        v3 *= PRIME1;
-        offset += 4;
-        v4 += getInt(data, offset) * PRIME2;
-        v4 = Integer.rotateLeft(v4, 13);
-        v4 *= PRIME1;
-        offset += 4;
+        v1 = round(v1, getInt(data, offset));
+        v2 = round(v2, getInt(data, offset + 4));
+        v3 = round(v3, getInt(data, offset + 8));
+        v4 = round(v4, getInt(data, offset + 12));
+        offset += 16;
       } while(offset <= limit);
 
-      h32 = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+      h32 = converge(v1, v2, v3, v4);
     } else {
       h32 = seed + PRIME5;
     }
 
-    for(h32 += data.length; offset <= end - 4; offset += 4) {
+    for(h32 += length; offset <= end - 4; offset += 4) {
       h32 += getInt(data, offset) * PRIME3;
       h32 = Integer.rotateLeft(h32, 17) * PRIME4;
     }
@@ -51,13 +45,98 @@ public abstract class BaseXXHash32 implements Hasher32 {
       ++offset;
     }
 
-    h32 ^= h32 >>> 15;
-    h32 *= PRIME2;
-    h32 ^= h32 >>> 13;
-    h32 *= PRIME3;
-    h32 ^= h32 >>> 16;
-    return h32;
+    return avalanche(h32);
+  }
+
+  @Override
+  public int hash(MemorySegment data, long offset, long length, int seed) {
+    Objects.checkFromIndexSize(offset, length, data.byteSize());
+    long end = offset + length;
+    int h32;
+    if (length >= 16) {
+      long limit = end - 16;
+      int v1 = seed + PRIME1 + PRIME2;
+      int v2 = seed + PRIME2;
+      int v3 = seed;
+      int v4 = seed - PRIME1;
+
+      do {
+        v1 = round(v1, getInt(data, offset));
+        v2 = round(v2, getInt(data, offset + 4));
+        v3 = round(v3, getInt(data, offset + 8));
+        v4 = round(v4, getInt(data, offset + 12));
+        offset += 16;
+      } while(offset <= limit);
+
+      h32 = converge(v1, v2, v3, v4);
+    } else {
+      h32 = seed + PRIME5;
+    }
+
+    for(h32 += (int) length; offset <= end - 4; offset += 4) {
+      h32 += getInt(data, offset) * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    }
+
+    while(offset < end) {
+      h32 += (data.get(ValueLayout.JAVA_BYTE, offset) & 255) * PRIME5;
+      h32 = Integer.rotateLeft(h32, 11) * PRIME1;
+      ++offset;
+    }
+
+    return avalanche(h32);
+  }
+
+  public StreamingXXHash32 newStreamingHash(int seed) {
+    return new StreamingXXHash32(seed) {
+      @Override
+      int accumulate(int[] acc, byte[] input, int offset, int end) {
+        return BaseXXHash32.this.accumulate(acc, input, offset, end);
+      }
+
+      @Override
+      long accumulate(int[] acc, MemorySegment input, long offset, long end) {
+        return BaseXXHash32.this.accumulate(acc, input, offset, end);
+      }
+    };
+  }
+
+  int accumulate(int[] acc, byte[] input, int offset, int end) {
+    int v1 = acc[0];
+    int v2 = acc[1];
+    int v3 = acc[2];
+    int v4 = acc[3];
+    for (; offset <= end - 16; offset += 16) {
+      v1 = round(v1, getInt(input, offset));
+      v2 = round(v2, getInt(input, offset + 4));
+      v3 = round(v3, getInt(input, offset + 8));
+      v4 = round(v4, getInt(input, offset + 12));
+    }
+    acc[0] = v1;
+    acc[1] = v2;
+    acc[2] = v3;
+    acc[3] = v4;
+    return offset;
+  }
+
+  long accumulate(int[] acc, MemorySegment input, long offset, long end) {
+    int v1 = acc[0];
+    int v2 = acc[1];
+    int v3 = acc[2];
+    int v4 = acc[3];
+    for (; offset <= end - 16; offset += 16) {
+      v1 = round(v1, getInt(input, offset));
+      v2 = round(v2, getInt(input, offset + 4));
+      v3 = round(v3, getInt(input, offset + 8));
+      v4 = round(v4, getInt(input, offset + 12));
+    }
+    acc[0] = v1;
+    acc[1] = v2;
+    acc[2] = v3;
+    acc[3] = v4;
+    return offset;
   }
 
   protected abstract int getInt(byte[] data, int offset);
+  protected abstract int getInt(MemorySegment segment, long offset);
 }
@@ -1,14 +1,19 @@
 package uk.co.openkappa.xxhash;
 
-import static uk.co.openkappa.xxhash.Constants.*;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
 
-public abstract class BaseXXHash64 implements Hasher64 {
+import static uk.co.openkappa.xxhash.Constants.*;
+import static uk.co.openkappa.xxhash.XXH64.*;
 
+public abstract class BaseXXHash64 implements XXH64Hasher {
 
-  public long hash(byte[] input, long seed) {
+  @Override
+  public long hash(byte[] input, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, input.length);
     long hash;
-    long remaining = input.length;
-    int offset = 0;
+    long remaining = length;
 
     if (remaining >= 32) {
       long v1 = seed + PRIME64_1 + PRIME64_2;
@@ -17,93 +22,149 @@ public abstract class BaseXXHash64 implements Hasher64 {
       long v4 = seed - PRIME64_1;
 
       do {
-        v1 += getLong(input, offset) * PRIME64_2;
-        v1 = Long.rotateLeft(v1, 31);
-        v1 *= PRIME64_1;
+        v1 = round(v1, getLong(input, offset));
+        v2 = round(v2, getLong(input, offset + 8));
+        v3 = round(v3, getLong(input, offset + 16));
+        v4 = round(v4, getLong(input, offset + 24));
+        offset += 32;
+        remaining -= 32;
+      } while (remaining >= 32);
 
-        v2 += getLong(input, offset + 8) * PRIME64_2;
-        v2 = Long.rotateLeft(v2, 31);
-        v2 *= PRIME64_1;
+      hash = converge(v1, v2, v3, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
 
-        v3 += getLong(input, offset + 16) * PRIME64_2;
-        v3 = Long.rotateLeft(v3, 31);
-        v3 *= PRIME64_1;
+    hash += length;
 
-        v4 += getLong(input, offset + 24) * PRIME64_2;
-        v4 = Long.rotateLeft(v4, 31);
-        v4 *= PRIME64_1;
+    while (remaining >= 8) {
+      hash ^= round(0, getLong(input, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      offset += 8;
+      remaining -= 8;
+    }
 
+    if (remaining >= 4) {
+      hash ^= (getInt(input, offset) & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 4;
+      remaining -= 4;
+    }
+
+    while (remaining != 0) {
+      hash ^= (input[offset] & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      --remaining;
+      ++offset;
+    }
+
+    return avalanche(hash);
+  }
+
+  @Override
+  public long hash(MemorySegment input, long offset, long length, long seed) {
+    Objects.checkFromIndexSize(offset, length, input.byteSize());
+    long hash;
+    long remaining = length;
+
+    if (remaining >= 32) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+
+      do {
+        v1 = round(v1, getLong(input, offset));
+        v2 = round(v2, getLong(input, offset + 8));
+        v3 = round(v3, getLong(input, offset + 16));
+        v4 = round(v4, getLong(input, offset + 24));
         offset += 32;
         remaining -= 32;
       } while (remaining >= 32);
 
-      hash = Long.rotateLeft(v1, 1)
-              + Long.rotateLeft(v2, 7)
-              + Long.rotateLeft(v3, 12)
-              + Long.rotateLeft(v4, 18);
-
-      v1 *= PRIME64_2;
-      v1 = Long.rotateLeft(v1, 31);
-      v1 *= PRIME64_1;
-      hash ^= v1;
-      hash = hash * PRIME64_1 + PRIME64_4;
-
-      v2 *= PRIME64_2;
-      v2 = Long.rotateLeft(v2, 31);
-      v2 *= PRIME64_1;
-      hash ^= v2;
-      hash = hash * PRIME64_1 + PRIME64_4;
-
-      v3 *= PRIME64_2;
-      v3 = Long.rotateLeft(v3, 31);
-      v3 *= PRIME64_1;
-      hash ^= v3;
-      hash = hash * PRIME64_1 + PRIME64_4;
-
-      v4 *= PRIME64_2;
-      v4 = Long.rotateLeft(v4, 31);
-      v4 *= PRIME64_1;
-      hash ^= v4;
-      hash = hash * PRIME64_1 + PRIME64_4;
+      hash = converge(v1, v2, v3, v4);
     } else {
       hash = seed + PRIME64_5;
     }
 
-    hash += input.length;
+    hash += length;
 
     while (remaining >= 8) {
-      long k1 = getLong(input, offset);
-      k1 *= PRIME64_2;
-      k1 = Long.rotateLeft(k1, 31);
-      k1 *= PRIME64_1;
-      hash ^= k1;
+      hash ^= round(0, getLong(input, offset));
       hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
       offset += 8;
       remaining -= 8;
     }
 
     if (remaining >= 4) {
-      hash ^= getInt(input, offset) * PRIME64_1;
+      hash ^= (getInt(input, offset) & 0xFFFFFFFFL) * PRIME64_1;
       hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
       offset += 4;
       remaining -= 4;
     }
 
     while (remaining != 0) {
-      hash ^= input[offset] * PRIME64_5;
+      hash ^= (input.get(ValueLayout.JAVA_BYTE, offset) & 0xFFL) * PRIME64_5;
       hash = Long.rotateLeft(hash, 11) * PRIME64_1;
       --remaining;
       ++offset;
     }
 
-    hash ^= hash >>> 33;
-    hash *= PRIME64_2;
-    hash ^= hash >>> 29;
-    hash *= PRIME64_3;
-    hash ^= hash >>> 32;
-    return hash;
+    return avalanche(hash);
+  }
+
+  public StreamingXXHash64 newStreamingHash(long seed) {
+    return new StreamingXXHash64(seed) {
+      @Override
+      int accumulate(long[] acc, byte[] input, int offset, int end) {
+        return BaseXXHash64.this.accumulate(acc, input, offset, end);
+      }
+
+      @Override
+      long accumulate(long[] acc, MemorySegment input, long offset, long end) {
+        return BaseXXHash64.this.accumulate(acc, input, offset, end);
+      }
+    };
   }
-  
+
+  int accumulate(long[] acc, byte[] input, int offset, int end) {
+    long v1 = acc[0];
+    long v2 = acc[1];
+    long v3 = acc[2];
+    long v4 = acc[3];
+    for (; offset <= end - 32; offset += 32) {
+      v1 = round(v1, getLong(input, offset));
+      v2 = round(v2, getLong(input, offset + 8));
+      v3 = round(v3, getLong(input, offset + 16));
+      v4 = round(v4, getLong(input, offset + 24));
+    }
+    acc[0] = v1;
+    acc[1] = v2;
+    acc[2] = v3;
+    acc[3] = v4;
+    return offset;
+  }
+
+  long accumulate(long[] acc, MemorySegment input, long offset, long end) {
+    long v1 = acc[0];
+    long v2 = acc[1];
+    long v3 = acc[2];
+    long v4 = acc[3];
+    for (; offset <= end - 32; offset += 32) {
+      v1 = round(v1, getLong(input, offset));
+      v2 = round(v2, getLong(input, offset + 8));
+      v3 = round(v3, getLong(input, offset + 16));
+      v4 = round(v4, getLong(input, offset + 24));
+    }
+    acc[0] = v1;
+    acc[1] = v2;
+    acc[2] = v3;
+    acc[3] = v4;
+    return offset;
+  }
+
   protected abstract long getLong(byte[] array, int offset);
   protected abstract int getInt(byte[] array, int offset);
+  protected abstract long getLong(MemorySegment segment, long offset);
+  protected abstract int getInt(MemorySegment segment, long offset);
 }
@@ -0,0 +1,232 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * A Bloom filter in which all of a key's bits fall in one 64 byte block, so a lookup touches one
+ * cache line. A key sets one bit in each of its block's eight words, all taken from one 64-bit
+ * hash: the high half picks the block, and the bit in word {@code i} is the top six bits of the low
+ * half times the odd constant {@code SALTS[i]}. With the Vector API the eight bits are made and
+ * tested a vector of words at a time.
+ * <p>
+ * The filter lives in a {@link MemorySegment} laid out exactly as {@link #writeTo} writes it, so a
+ * filter written to a file can be mapped and {@link #wrap wrapped} without being read, and must be
+ * wrapped with the same kind of hasher it was built with. Lookups may run concurrently; puts may not.
+ */
+public class BlockedBloomFilter {
+
+  private static final int MAGIC = 0x58584246;
+  private static final int VERSION = 1;
+  private static final long HEADER_BYTES = 64;
+  private static final long BLOCK_BYTES = 64;
+  private static final int BLOCK_WORDS = 8;
+  // unaligned, as a wrapped filter may be over a byte[] or mapped at any offset in a file
+  private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  // how many keys mightContainAll hashes before probing any of them
+  private static final int BATCH = 16;
+
+  // a block is one vector where the hardware has 512 bits, otherwise two
+  private static final boolean VECTORISED = LongVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED.length() >= BLOCK_WORDS
+          ? LongVector.SPECIES_512
+          : LongVector.SPECIES_256;
+  private static final int LANES = LONGS.length();
+  private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(32 * LANES));
+  // one multiplier per word, as in Parquet's split block filters; these keep the words' bits close
+  // to independent where double hashing from the one hash doesn't
+  private static final int[] SALTS = {
+          0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31
+  };
+
+  private final Hasher64 hasher;
+  private final MemorySegment segment;
+  private final MemorySegment blocks;
+  private final long blockCount;
+  private final boolean vectorised;
+
+  /**
+   * An empty off-heap filter sized so that once it holds {@code expectedKeys} keys, the expected
+   * rate of false positives is at most {@code falsePositiveRate}.
+   */
+  public BlockedBloomFilter(long expectedKeys, double falsePositiveRate, Hasher64 hasher) {
+    this(hasher, blocksFor(expectedKeys, falsePositiveRate));
+  }
+
+  private BlockedBloomFilter(Hasher64 hasher, long blockCount) {
+    this(hasher, allocate(blockCount), blockCount);
+  }
+
+  private BlockedBloomFilter(Hasher64 hasher, MemorySegment segment, long blockCount) {
+    this.hasher = hasher;
+    this.segment = segment;
+    this.blockCount = blockCount;
+    this.blocks = segment.asSlice(HEADER_BYTES, blockCount * BLOCK_BYTES);
+    // the vector API can only load from native segments and those over byte arrays
+    this.vectorised = VECTORISED && (blocks.isNative() || blocks.heapBase().orElse(null) instanceof byte[]);
+  }
+
+  /**
+   * A filter over bytes written by {@link #writeTo}, such as a mapped file, without copying them.
+   * Puts write through to the segment.
+   */
+  public static BlockedBloomFilter wrap(MemorySegment segment, Hasher64 hasher) {
+    if (segment.byteSize() < HEADER_BYTES || segment.get(INT_LE, 0) != MAGIC) {
+      throw new IllegalArgumentException("not a serialised BlockedBloomFilter");
+    }
+    if (segment.get(INT_LE, 4) != VERSION) {
+      throw new IllegalArgumentException("unknown BlockedBloomFilter version " + segment.get(INT_LE, 4));
+    }
+    long blockCount = segment.get(LONG_LE, 8);
+    if (blockCount <= 0 || segment.byteSize() < HEADER_BYTES + blockCount * BLOCK_BYTES) {
+      throw new IllegalArgumentException("truncated BlockedBloomFilter of " + blockCount + " blocks");
+    }
+    return new BlockedBloomFilter(hasher, segment, blockCount);
+  }
+
+  public long serializedSize() {
+    return HEADER_BYTES + blockCount * BLOCK_BYTES;
+  }
+
+  public void writeTo(MemorySegment out) {
+    MemorySegment.copy(segment, 0, out, 0, serializedSize());
+  }
+
+  public void put(byte[] key) {
+    putHash(hasher.hash(key, 0, key.length, 0));
+  }
+
+  public void put(byte[] key, int offset, int length) {
+    putHash(hasher.hash(key, offset, length, 0));
+  }
+
+  public boolean mightContain(byte[] key) {
+    return mightContainHash(hasher.hash(key, 0, key.length, 0));
+  }
+
+  public boolean mightContain(byte[] key, int offset, int length) {
+    return mightContainHash(hasher.hash(key, offset, length, 0));
+  }
+
+  /**
+   * Sets {@code results[i]} to whether {@code keys[i]} might be present. Keys are hashed a batch at
+   * a time before any is probed, so the probes' cache misses overlap.
+   */
+  public void mightContainAll(byte[][] keys, boolean[] results) {
+    Objects.checkFromIndexSize(0, keys.length, results.length);
+    long[] hashes = new long[BATCH];
+    for (int base = 0; base < keys.length; base += BATCH) {
+      int count = Math.min(BATCH, keys.length - base);
+      for (int i = 0; i < count; ++i) {
+        byte[] key = keys[base + i];
+        hashes[i] = hasher.hash(key, 0, key.length, 0);
+      }
+      for (int i = 0; i < count; ++i) {
+        results[base + i] = mightContainHash(hashes[i]);
+      }
+    }
+  }
+
+  /**
+   * Adds a key by its hash, for callers which already have one from this filter's hasher.
+   */
+  public void putHash(long hash) {
+    long offset = block(hash);
+    int low = (int) hash;
+    for (int i = 0; i < BLOCK_WORDS; ++i) {
+      long position = offset + i * 8L;
+      blocks.set(LONG_LE, position, blocks.get(LONG_LE, position) | (1L << ((low * SALTS[i]) >>> 26)));
+    }
+  }
+
+  public boolean mightContainHash(long hash) {
+    long offset = block(hash);
+    int low = (int) hash;
+    if (vectorised) {
+      for (int part = 0; part < BLOCK_WORDS; part += LANES) {
+        var shifts = IntVector.fromArray(INTS, SALTS, part).mul(low).lanewise(LSHR, 26).convertShape(I2L, LONGS, 0);
+        var bits = LongVector.broadcast(LONGS, 1L).lanewise(LSHL, shifts);
+        var words = LongVector.fromMemorySegment(LONGS, blocks, offset + part * 8L, ByteOrder.LITTLE_ENDIAN);
+        if (!words.and(bits).eq(bits).allTrue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+    for (int i = 0; i < BLOCK_WORDS; ++i) {
+      if ((blocks.get(LONG_LE, offset + i * 8L) & (1L << ((low * SALTS[i]) >>> 26))) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long block(long hash) {
+    return ((hash >>> 32) * blockCount >>> 32) * BLOCK_BYTES;
+  }
+
+  // blocking makes a filter less accurate than the standard one of the same size, so this is the
+  // fewest blocks whose expected false positive rate meets the target, searching up from the
+  // standard filter's size
+  private static long blocksFor(long expectedKeys, double falsePositiveRate) {
+    if (expectedKeys <= 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+      throw new IllegalArgumentException("need expectedKeys > 0 and 0 < falsePositiveRate < 1");
+    }
+    double bits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    long low = 0;
+    long high = Math.max(1, (long) Math.ceil(bits / (BLOCK_BYTES * 8)));
+    while (falsePositiveRate(expectedKeys, high) > falsePositiveRate) {
+      low = high;
+      high <<= 1;
+      if (high >= 1L << 32) {
+        throw new IllegalArgumentException("filter of " + expectedKeys + " keys at " + falsePositiveRate + " is too large");
+      }
+    }
+    while (high - low > 1) {
+      long middle = (low + high) >>> 1;
+      if (falsePositiveRate(expectedKeys, middle) > falsePositiveRate) {
+        low = middle;
+      } else {
+        high = middle;
+      }
+    }
+    return high;
+  }
+
+  // a query falls in a block holding some Poisson distributed number of keys L, and each of its
+  // eight bits is set with probability 1 - (63/64)^L
+  private static double falsePositiveRate(long keys, long blocks) {
+    double load = (double) keys / blocks;
+    double logLoad = Math.log(load);
+    double logProbability = -load;
+    double rate = 0;
+    long end = (long) (load + 12 * Math.sqrt(load) + 16);
+    for (long count = 0; count <= end; ++count) {
+      if (count > 0) {
+        logProbability += logLoad - Math.log(count);
+      }
+      double set = 1 - Math.pow(63.0 / 64, count);
+      rate += Math.exp(logProbability) * Math.pow(set, BLOCK_WORDS);
+    }
+    return rate;
+  }
+
+  private static MemorySegment allocate(long blockCount) {
+    MemorySegment segment = Arena.ofAuto().allocate(HEADER_BYTES + blockCount * BLOCK_BYTES, BLOCK_BYTES);
+    segment.set(INT_LE, 0, MAGIC);
+    segment.set(INT_LE, 4, VERSION);
+    segment.set(LONG_LE, 8, blockCount);
+    return segment;
+  }
+}
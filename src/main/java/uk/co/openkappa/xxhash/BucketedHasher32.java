@@ -0,0 +1,67 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static uk.co.openkappa.xxhash.XXHashProfile.*;
+
+/**
+ * The XXH32 counterpart of {@link BucketedHasher64}.
+ */
+final class BucketedHasher32 implements XXH32Hasher {
+
+  private final Hasher32 tiny;
+  private final Hasher32 small;
+  private final Hasher32 medium;
+  private final Hasher32 large;
+
+  BucketedHasher32(Hasher32 tiny, Hasher32 small, Hasher32 medium, Hasher32 large) {
+    this.tiny = tiny;
+    this.small = small;
+    this.medium = medium;
+    this.large = large;
+  }
+
+  @Override
+  public int hash(byte[] data, int offset, int length, int seed) {
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, offset, length, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, offset, length, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, offset, length, seed);
+    }
+    return large.hash(data, offset, length, seed);
+  }
+
+  @Override
+  public int hash(ByteBuffer data, int seed) {
+    int length = data.remaining();
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, seed);
+    }
+    return large.hash(data, seed);
+  }
+
+  @Override
+  public int hash(MemorySegment data, long offset, long length, int seed) {
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, offset, length, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, offset, length, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, offset, length, seed);
+    }
+    return large.hash(data, offset, length, seed);
+  }
+}
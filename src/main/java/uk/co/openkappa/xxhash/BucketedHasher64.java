@@ -0,0 +1,69 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static uk.co.openkappa.xxhash.XXHashProfile.*;
+
+/**
+ * Sends each input to the engine chosen for its length bucket. The engines are final fields, so
+ * while only one composite is in use every call site below sees a single receiver type and the
+ * JIT can inline straight through to the engine.
+ */
+final class BucketedHasher64 implements XXH64Hasher {
+
+  private final Hasher64 tiny;
+  private final Hasher64 small;
+  private final Hasher64 medium;
+  private final Hasher64 large;
+
+  BucketedHasher64(Hasher64 tiny, Hasher64 small, Hasher64 medium, Hasher64 large) {
+    this.tiny = tiny;
+    this.small = small;
+    this.medium = medium;
+    this.large = large;
+  }
+
+  @Override
+  public long hash(byte[] data, int offset, int length, long seed) {
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, offset, length, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, offset, length, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, offset, length, seed);
+    }
+    return large.hash(data, offset, length, seed);
+  }
+
+  @Override
+  public long hash(ByteBuffer data, long seed) {
+    int length = data.remaining();
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, seed);
+    }
+    return large.hash(data, seed);
+  }
+
+  @Override
+  public long hash(MemorySegment data, long offset, long length, long seed) {
+    if (length < TINY_LIMIT) {
+      return tiny.hash(data, offset, length, seed);
+    }
+    if (length < SMALL_LIMIT) {
+      return small.hash(data, offset, length, seed);
+    }
+    if (length < MEDIUM_LIMIT) {
+      return medium.hash(data, offset, length, seed);
+    }
+    return large.hash(data, offset, length, seed);
+  }
+}
@@ -0,0 +1,199 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+import static jdk.incubator.vector.VectorOperators.*;
+import static uk.co.openkappa.xxhash.Constants.*;
+
+/**
+ * Column at a time hashing: row {@code i} of a column is hashed into {@code out[i]}, giving exactly
+ * what {@link Hasher64#hashLong}, {@link Hasher64#hashInt} or {@link Hasher64#hash} (and their
+ * {@link Hasher32} counterparts) would for that row's value. Fixed width columns are hashed a
+ * vector of rows at a time. Variable width columns are Arrow style, an {@code offsets} array with
+ * one more entry than there are rows and the rows' bytes back to back, and are hashed a row at a
+ * time by the fastest engine.
+ * <p>
+ * The overloads which take no seed combine with an earlier column for multi-column keys: each
+ * row's existing hash in {@code hashes} is the seed for its value in this column, and is replaced
+ * by the result.
+ */
+public final class ColumnHasher {
+
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+  // int columns widened into long lanes
+  private static final VectorSpecies<Integer> HALF_INTS =
+          VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+  private ColumnHasher() {
+  }
+
+  public static void hashLongs(long[] column, long seed, long[] out) {
+    hashLongs(column, seed, null, out);
+  }
+
+  public static void hashLongs(long[] column, long[] hashes) {
+    hashLongs(column, 0, hashes, hashes);
+  }
+
+  public static void hashInts(int[] column, long seed, long[] out) {
+    hashInts(column, seed, null, out);
+  }
+
+  public static void hashInts(int[] column, long[] hashes) {
+    hashInts(column, 0, hashes, hashes);
+  }
+
+  public static void hashBytes(byte[] data, int[] offsets, long seed, long[] out) {
+    hashBytes(data, offsets, seed, null, out);
+  }
+
+  public static void hashBytes(byte[] data, int[] offsets, long[] hashes) {
+    hashBytes(data, offsets, 0, hashes, hashes);
+  }
+
+  public static void hashBytes(MemorySegment data, int[] offsets, long seed, long[] out) {
+    hashBytes(data, offsets, seed, null, out);
+  }
+
+  public static void hashBytes(MemorySegment data, int[] offsets, long[] hashes) {
+    hashBytes(data, offsets, 0, hashes, hashes);
+  }
+
+  public static void hashInts(int[] column, int seed, int[] out) {
+    hashInts(column, seed, null, out);
+  }
+
+  public static void hashInts(int[] column, int[] hashes) {
+    hashInts(column, 0, hashes, hashes);
+  }
+
+  public static void hashLongs(long[] column, int seed, int[] out) {
+    hashLongs(column, seed, null, out);
+  }
+
+  public static void hashLongs(long[] column, int[] hashes) {
+    hashLongs(column, 0, hashes, hashes);
+  }
+
+  public static void hashBytes(byte[] data, int[] offsets, int seed, int[] out) {
+    hashBytes(data, offsets, seed, null, out);
+  }
+
+  public static void hashBytes(byte[] data, int[] offsets, int[] hashes) {
+    hashBytes(data, offsets, 0, hashes, hashes);
+  }
+
+  // in each of these, seeds is either null, for one seed for every row, or the per-row seeds
+
+  private static void hashLongs(long[] column, long seed, long[] seeds, long[] out) {
+    int rows = column.length;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    var initial = LongVector.broadcast(LONGS, seed + PRIME64_5 + 8);
+    int i = 0;
+    for (int bound = LONGS.loopBound(rows); i < bound; i += LONGS.length()) {
+      var hash = seeds == null ? initial : LongVector.fromArray(LONGS, seeds, i).add(PRIME64_5 + 8);
+      var input = LongVector.fromArray(LONGS, column, i).mul(PRIME64_2).lanewise(ROL, 31).mul(PRIME64_1);
+      hash = hash.lanewise(XOR, input).lanewise(ROL, 27).mul(PRIME64_1).add(PRIME64_4);
+      avalanche(hash).intoArray(out, i);
+    }
+    for (; i < rows; ++i) {
+      out[i] = XXH64.hashLong(column[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashInts(int[] column, long seed, long[] seeds, long[] out) {
+    int rows = column.length;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    var initial = LongVector.broadcast(LONGS, seed + PRIME64_5 + 4);
+    int i = 0;
+    for (int bound = LONGS.loopBound(rows); i < bound; i += LONGS.length()) {
+      var hash = seeds == null ? initial : LongVector.fromArray(LONGS, seeds, i).add(PRIME64_5 + 4);
+      var input = (LongVector) IntVector.fromArray(HALF_INTS, column, i).convertShape(ZERO_EXTEND_I2L, LONGS, 0);
+      hash = hash.lanewise(XOR, input.mul(PRIME64_1)).lanewise(ROL, 23).mul(PRIME64_2).add(PRIME64_3);
+      avalanche(hash).intoArray(out, i);
+    }
+    for (; i < rows; ++i) {
+      out[i] = XXH64.hashInt(column[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashBytes(byte[] data, int[] offsets, long seed, long[] seeds, long[] out) {
+    int rows = offsets.length - 1;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    Hasher64 hasher = FastestXXHash.hasher64();
+    for (int i = 0; i < rows; ++i) {
+      out[i] = hasher.hash(data, offsets[i], offsets[i + 1] - offsets[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashBytes(MemorySegment data, int[] offsets, long seed, long[] seeds, long[] out) {
+    int rows = offsets.length - 1;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    Hasher64 hasher = FastestXXHash.hasher64();
+    for (int i = 0; i < rows; ++i) {
+      out[i] = hasher.hash(data, offsets[i], offsets[i + 1] - offsets[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashInts(int[] column, int seed, int[] seeds, int[] out) {
+    int rows = column.length;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    var initial = IntVector.broadcast(INTS, seed + PRIME5 + 4);
+    int i = 0;
+    for (int bound = INTS.loopBound(rows); i < bound; i += INTS.length()) {
+      var h32 = seeds == null ? initial : IntVector.fromArray(INTS, seeds, i).add(PRIME5 + 4);
+      h32 = h32.add(IntVector.fromArray(INTS, column, i).mul(PRIME3)).lanewise(ROL, 17).mul(PRIME4);
+      avalanche(h32).intoArray(out, i);
+    }
+    for (; i < rows; ++i) {
+      out[i] = XXH32.hashInt(column[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashLongs(long[] column, int seed, int[] seeds, int[] out) {
+    int rows = column.length;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    var initial = IntVector.broadcast(HALF_INTS, seed + PRIME5 + 8);
+    int i = 0;
+    for (int bound = LONGS.loopBound(rows); i < bound; i += LONGS.length()) {
+      var h32 = seeds == null ? initial : IntVector.fromArray(HALF_INTS, seeds, i).add(PRIME5 + 8);
+      var value = LongVector.fromArray(LONGS, column, i);
+      var low = (IntVector) value.convertShape(L2I, HALF_INTS, 0);
+      var high = (IntVector) value.lanewise(LSHR, 32).convertShape(L2I, HALF_INTS, 0);
+      h32 = h32.add(low.mul(PRIME3)).lanewise(ROL, 17).mul(PRIME4);
+      h32 = h32.add(high.mul(PRIME3)).lanewise(ROL, 17).mul(PRIME4);
+      avalanche(h32).intoArray(out, i);
+    }
+    for (; i < rows; ++i) {
+      out[i] = XXH32.hashLong(column[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static void hashBytes(byte[] data, int[] offsets, int seed, int[] seeds, int[] out) {
+    int rows = offsets.length - 1;
+    Objects.checkFromIndexSize(0, rows, out.length);
+    Hasher32 hasher = FastestXXHash.hasher32();
+    for (int i = 0; i < rows; ++i) {
+      out[i] = hasher.hash(data, offsets[i], offsets[i + 1] - offsets[i], seeds == null ? seed : seeds[i]);
+    }
+  }
+
+  private static LongVector avalanche(LongVector hash) {
+    hash = hash.lanewise(XOR, hash.lanewise(LSHR, 33)).mul(PRIME64_2);
+    hash = hash.lanewise(XOR, hash.lanewise(LSHR, 29)).mul(PRIME64_3);
+    return hash.lanewise(XOR, hash.lanewise(LSHR, 32));
+  }
+
+  private static IntVector avalanche(IntVector h32) {
+    h32 = h32.lanewise(XOR, h32.lanewise(LSHR, 15)).mul(PRIME2);
+    h32 = h32.lanewise(XOR, h32.lanewise(LSHR, 13)).mul(PRIME3);
+    return h32.lanewise(XOR, h32.lanewise(LSHR, 16));
+  }
+}
@@ -12,4 +12,7 @@ public class Constants {
   static final int PRIME3 = 0xC2B2AE3D;
   static final int PRIME4 = 0x27D4EB2F;
   static final int PRIME5 = 0x165667B1;
+
+  static final long PRIME_MX1 = 0x165667919E3779F9L;
+  static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
 }
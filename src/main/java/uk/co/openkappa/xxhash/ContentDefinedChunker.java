@@ -0,0 +1,244 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+
+/**
+ * FastCDC content defined chunking, with each chunk's XXH64 (seed zero) computed in the same scan
+ * that finds its end. The Gear rolling hash looks at each byte once, and as it passes each 32 byte
+ * stripe of the chunk, the stripe goes through the XXH64 rounds while it's still in registers, so
+ * the bytes are never read a second time to fingerprint them.
+ * <p>
+ * Chunking is normalised: no chunk is shorter than the minimum size, until the average size a cut
+ * needs more bits of the rolling hash to be zero, and after it fewer, which keeps chunk sizes close
+ * to the average; chunks are cut at the maximum size regardless. An instance chunks one source at a
+ * time.
+ */
+public class ContentDefinedChunker {
+
+  @FunctionalInterface
+  public interface ChunkListener {
+    /**
+     * @param data the chunk's bytes, only valid during the call when chunking a stream
+     */
+    void chunk(long offset, long length, long fingerprint, MemorySegment data);
+  }
+
+  public static final int DEFAULT_MIN_SIZE = 2 << 10;
+  public static final int DEFAULT_AVERAGE_SIZE = 8 << 10;
+  public static final int DEFAULT_MAX_SIZE = 64 << 10;
+
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  // how many more and fewer bits a cut needs before and after the average size
+  private static final int NORMALISATION = 2;
+  private static final long[] GEAR = new long[256];
+
+  static {
+    for (int i = 0; i < GEAR.length; ++i) {
+      GEAR[i] = XXH64.hashInt(i, PRIME64_1);
+    }
+  }
+
+  private final int minSize;
+  private final int averageSize;
+  private final int maxSize;
+  private final long smallMask;
+  private final long largeMask;
+  private long fingerprint;
+
+  public ContentDefinedChunker() {
+    this(DEFAULT_MIN_SIZE, DEFAULT_AVERAGE_SIZE, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param averageSize a power of two, between the other two sizes
+   */
+  public ContentDefinedChunker(int minSize, int averageSize, int maxSize) {
+    if (minSize < 1 || Integer.bitCount(averageSize) != 1 || averageSize < minSize || maxSize < averageSize
+            || averageSize < 1 << (NORMALISATION + 1)) {
+      throw new IllegalArgumentException("need 0 < min <= average <= max and a power of two average of at least 8");
+    }
+    this.minSize = minSize;
+    this.averageSize = averageSize;
+    this.maxSize = maxSize;
+    int bits = Integer.numberOfTrailingZeros(averageSize);
+    this.smallMask = mask(bits + NORMALISATION);
+    this.largeMask = mask(bits - NORMALISATION);
+  }
+
+  /**
+   * Chunks a segment, such as a mapped file, handing out slices of it. Returns the number of chunks.
+   */
+  public long chunk(MemorySegment data, ChunkListener listener) {
+    long chunks = 0;
+    long size = data.byteSize();
+    for (long start = 0; start < size; ++chunks) {
+      long end = cut(data, start, size);
+      listener.chunk(start, end - start, fingerprint, data.asSlice(start, end - start));
+      start = end;
+    }
+    return chunks;
+  }
+
+  public long chunk(InputStream in, ChunkListener listener) throws IOException {
+    return chunk(in::read, listener);
+  }
+
+  public long chunk(ReadableByteChannel in, ChunkListener listener) throws IOException {
+    ByteBuffer[] view = new ByteBuffer[1];
+    return chunk((buffer, offset, length) -> {
+      if (view[0] == null || view[0].array() != buffer) {
+        view[0] = ByteBuffer.wrap(buffer);
+      }
+      view[0].limit(offset + length).position(offset);
+      return in.read(view[0]);
+    }, listener);
+  }
+
+  @FunctionalInterface
+  private interface Source {
+    int read(byte[] buffer, int offset, int length) throws IOException;
+  }
+
+  // refills a buffer so a whole chunk is always in it, unless the stream ends first
+  private long chunk(Source in, ChunkListener listener) throws IOException {
+    byte[] buffer = new byte[Math.max(2 * maxSize, 1 << 20)];
+    MemorySegment segment = MemorySegment.ofArray(buffer);
+    int start = 0;
+    int end = 0;
+    long offset = 0;
+    long chunks = 0;
+    boolean eof = false;
+    while (true) {
+      while (!eof && end - start < maxSize) {
+        if (buffer.length - end < maxSize) {
+          System.arraycopy(buffer, start, buffer, 0, end - start);
+          end -= start;
+          start = 0;
+        }
+        int read = in.read(buffer, end, buffer.length - end);
+        if (read < 0) {
+          eof = true;
+        } else {
+          end += read;
+        }
+      }
+      if (start == end) {
+        return chunks;
+      }
+      int cut = (int) cut(segment, start, end);
+      listener.chunk(offset, cut - start, fingerprint, segment.asSlice(start, cut - start));
+      offset += cut - start;
+      start = cut;
+      ++chunks;
+    }
+  }
+
+  // finds the end of the chunk starting at start, leaving its XXH64 in fingerprint
+  private long cut(MemorySegment data, long start, long end) {
+    long limit = Math.min(end, start + maxSize);
+    long minEnd = Math.min(limit, start + minSize);
+    long averageEnd = Math.min(limit, start + averageSize);
+    long v1 = PRIME64_1 + PRIME64_2;
+    long v2 = PRIME64_2;
+    long v3 = 0;
+    long v4 = -PRIME64_1;
+    long gear = 0;
+    long cut = -1;
+    long position = start;
+    // no chunk ends in the minimum size, so the stripes there need no rolling hash
+    for (; position + 32 <= minEnd; position += 32) {
+      v1 = XXH64.round(v1, data.get(LONG_LE, position));
+      v2 = XXH64.round(v2, data.get(LONG_LE, position + 8));
+      v3 = XXH64.round(v3, data.get(LONG_LE, position + 16));
+      v4 = XXH64.round(v4, data.get(LONG_LE, position + 24));
+    }
+    for (; position + 32 <= limit; position += 32) {
+      long w1 = data.get(LONG_LE, position);
+      long w2 = data.get(LONG_LE, position + 8);
+      long w3 = data.get(LONG_LE, position + 16);
+      long w4 = data.get(LONG_LE, position + 24);
+      int j = 0;
+      if (position >= averageEnd || position >= minEnd && position + 32 <= averageEnd) {
+        // the whole stripe is under one mask, and its bytes come from the words already loaded
+        long mask = position >= averageEnd ? largeMask : smallMask;
+        j = ((gear = roll(gear, w1, mask)) & mask) == 0 ? (int) gear
+                : ((gear = roll(gear, w2, mask)) & mask) == 0 ? 8 + (int) gear
+                : ((gear = roll(gear, w3, mask)) & mask) == 0 ? 16 + (int) gear
+                : ((gear = roll(gear, w4, mask)) & mask) == 0 ? 24 + (int) gear
+                : 32;
+      } else {
+        // at most two stripes a chunk cross the minimum or the average size
+        for (; j < 32; ++j) {
+          long i = position + j;
+          if (i >= minEnd) {
+            gear = (gear << 1) + GEAR[data.get(ValueLayout.JAVA_BYTE, i) & 0xFF];
+            if ((gear & (i < averageEnd ? smallMask : largeMask)) == 0) {
+              break;
+            }
+          }
+        }
+      }
+      if (j < 32) {
+        cut = position + j + 1;
+        if (j < 31) {
+          break;
+        }
+      }
+      v1 = XXH64.round(v1, w1);
+      v2 = XXH64.round(v2, w2);
+      v3 = XXH64.round(v3, w3);
+      v4 = XXH64.round(v4, w4);
+      if (cut >= 0) {
+        position += 32;
+        break;
+      }
+    }
+    if (cut < 0) {
+      // the last partial stripe before the limit
+      for (long i = Math.max(position, minEnd); i < limit; ++i) {
+        gear = (gear << 1) + GEAR[data.get(ValueLayout.JAVA_BYTE, i) & 0xFF];
+        if ((gear & (i < averageEnd ? smallMask : largeMask)) == 0) {
+          cut = i + 1;
+          break;
+        }
+      }
+      if (cut < 0) {
+        cut = limit;
+      }
+    }
+    long length = cut - start;
+    long hash = length >= 32 ? XXH64.converge(v1, v2, v3, v4) : PRIME64_5;
+    fingerprint = XXH64.finish(hash + length, data, position, cut - position);
+    return cut;
+  }
+
+  // the rolling hash after a word's eight bytes, or if one of them is a cut, its index in the word;
+  // no mask covers the low bits, so the two are told apart by whether the mask's bits are zero
+  private static long roll(long gear, long word, long mask) {
+    for (int i = 0; i < 8; ++i) {
+      gear = (gear << 1) + GEAR[(int) (word >>> (i << 3)) & 0xFF];
+      if ((gear & mask) == 0) {
+        return i;
+      }
+    }
+    return gear;
+  }
+
+  // bits spread over the top 48 of the rolling hash, each of which depends on many bytes
+  private static long mask(int bits) {
+    long mask = 0;
+    int step = Math.max(1, 48 / bits);
+    for (int i = 0; i < bits; ++i) {
+      mask |= 1L << (63 - i * step);
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,123 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import static uk.co.openkappa.xxhash.Constants.PRIME64_5;
+
+/**
+ * A Count-Min sketch safe for concurrent updates and queries without locks. Each key is hashed once
+ * with XXH64 and each row's column comes from re-mixing that hash, multiplying it by the row's odd
+ * salt and taking the top bits, rather than from a hash per row. Counters are updated with
+ * {@link VarHandle} atomics, and with conservative update a key only raises the counters which are
+ * at its current minimum, which is much more accurate for skewed streams but needs a compare and
+ * set per row rather than an add.
+ * <p>
+ * The counters can be split into stripes, each a whole sketch: a thread only adds to its own
+ * stripe, so threads counting the same hot keys don't contend for the same cache lines, and a query
+ * sums the stripes' estimates. This trades memory, and query time, for update throughput.
+ * <p>
+ * Conservative update is only exact for a stripe with one writer: threads racing to count the same
+ * key in the same stripe can each raise its counters to a target which misses the other's count.
+ */
+public class CountMinSketch {
+
+  private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final Hasher64 hasher = FastestXXHash.hasher64();
+  private final int depth;
+  private final int widthBits;
+  private final int stripeMask;
+  private final boolean conservative;
+  private final long[] salts;
+  private final long[] counters;
+
+  /**
+   * @param depth the number of rows, which bounds the probability of a bad estimate
+   * @param width the number of counters per row, a power of two, which bounds the overestimate
+   * @param stripes the number of independent copies threads update, a power of two
+   * @param conservative whether to only raise the counters at a key's minimum
+   */
+  public CountMinSketch(int depth, int width, int stripes, boolean conservative) {
+    if (depth < 1 || width < 2 || Integer.bitCount(width) != 1 || Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("need a positive depth, a power of two width of at least two, and power of two stripes");
+    }
+    this.depth = depth;
+    this.widthBits = Integer.numberOfTrailingZeros(width);
+    this.stripeMask = stripes - 1;
+    this.conservative = conservative;
+    this.salts = new long[depth];
+    for (int row = 0; row < depth; ++row) {
+      salts[row] = XXH64.avalanche(row + PRIME64_5) | 1;
+    }
+    this.counters = new long[Math.multiplyExact(Math.multiplyExact(depth, width), stripes)];
+  }
+
+  public CountMinSketch(int depth, int width) {
+    this(depth, width, 1, false);
+  }
+
+  public void add(byte[] key) {
+    addHash(hasher.hash(key, 0, key.length, 0), 1);
+  }
+
+  public void add(byte[] key, long count) {
+    addHash(hasher.hash(key, 0, key.length, 0), count);
+  }
+
+  public long estimate(byte[] key) {
+    return estimateHash(hasher.hash(key, 0, key.length, 0));
+  }
+
+  /**
+   * Adds a non-negative count for a key by its XXH64 hash with seed zero.
+   */
+  public void addHash(long hash, long count) {
+    int base = stripe() * depth;
+    if (!conservative) {
+      for (int row = 0; row < depth; ++row) {
+        COUNTERS.getAndAdd(counters, index(base, row, hash), count);
+      }
+      return;
+    }
+    long target = rowMinimum(base, hash) + count;
+    for (int row = 0; row < depth; ++row) {
+      int index = index(base, row, hash);
+      long current = (long) COUNTERS.getOpaque(counters, index);
+      // other threads may have raised it past the target in the meantime, and that's fine
+      while (current < target && !COUNTERS.weakCompareAndSet(counters, index, current, target)) {
+        current = (long) COUNTERS.getOpaque(counters, index);
+      }
+    }
+  }
+
+  /**
+   * An estimate which is never less than the key's count, and exceeds it by at most a small
+   * multiple of the total count divided by the width with high probability.
+   */
+  public long estimateHash(long hash) {
+    long estimate = 0;
+    for (int stripe = 0; stripe <= stripeMask; ++stripe) {
+      estimate += rowMinimum(stripe * depth, hash);
+    }
+    return estimate;
+  }
+
+  private long rowMinimum(int base, long hash) {
+    long minimum = Long.MAX_VALUE;
+    for (int row = 0; row < depth; ++row) {
+      minimum = Math.min(minimum, (long) COUNTERS.getOpaque(counters, index(base, row, hash)));
+    }
+    return minimum;
+  }
+
+  // a different multiplier per row, so rows collide independently
+  private int index(int base, int row, long hash) {
+    return ((base + row) << widthBits) | (int) ((hash * salts[row]) >>> (64 - widthBits));
+  }
+
+  // threads spread over the stripes in the order they're created
+  private int stripe() {
+    return (int) Thread.currentThread().threadId() & stripeMask;
+  }
+}
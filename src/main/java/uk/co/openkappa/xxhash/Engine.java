@@ -0,0 +1,115 @@
+package uk.co.openkappa.xxhash;
+
+import net.jpountz.util.Native;
+
+/**
+ * The XXH32/XXH64 implementations, and whether each can run in this JVM.
+ */
+public enum Engine {
+  NO_SWAR {
+    @Override
+    boolean detect() {
+      return true;
+    }
+
+    @Override
+    public Hasher32 hasher32() {
+      return new NoSWARXXHash32();
+    }
+
+    @Override
+    public Hasher64 hasher64() {
+      return new NoSWARXXHash64();
+    }
+  },
+  UNSAFE {
+    @Override
+    boolean detect() {
+      try {
+        Class.forName("uk.co.openkappa.xxhash.UnsafeWrapper");
+        return true;
+      } catch (ClassNotFoundException | LinkageError e) {
+        return false;
+      }
+    }
+
+    @Override
+    public Hasher32 hasher32() {
+      return new UnsafeXXHash32();
+    }
+
+    @Override
+    public Hasher64 hasher64() {
+      return new UnsafeXXHash64();
+    }
+  },
+  VAR_HANDLE {
+    @Override
+    boolean detect() {
+      return true;
+    }
+
+    @Override
+    public Hasher32 hasher32() {
+      return new VarHandleXXHash32();
+    }
+
+    @Override
+    public Hasher64 hasher64() {
+      return new VarHandleXXHash64();
+    }
+  },
+  JNI {
+    // lz4-java quietly falls back to its Java implementations, so ask for the native library itself
+    @Override
+    boolean detect() {
+      try {
+        Native.load();
+        return Native.isLoaded();
+      } catch (RuntimeException | LinkageError e) {
+        return false;
+      }
+    }
+
+    @Override
+    public Hasher32 hasher32() {
+      return new JNIXXHash32();
+    }
+
+    @Override
+    public Hasher64 hasher64() {
+      return new JNIXXHash64();
+    }
+  },
+  VECTOR {
+    @Override
+    boolean detect() {
+      return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && UNSAFE.isAvailable();
+    }
+
+    @Override
+    public Hasher32 hasher32() {
+      return new VectorXXHash32();
+    }
+
+    @Override
+    public Hasher64 hasher64() {
+      return new VectorXXHash64();
+    }
+  };
+
+  private Boolean available;
+
+  abstract boolean detect();
+
+  public abstract Hasher32 hasher32();
+
+  public abstract Hasher64 hasher64();
+
+  public synchronized boolean isAvailable() {
+    if (available == null) {
+      available = detect();
+    }
+    return available;
+  }
+}
@@ -0,0 +1,69 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The fastest available XXH32 and XXH64 for each input length, chosen once per JVM. The profile
+ * comes from the file named by {@code -Dxxhash.profile} if it exists; otherwise
+ * {@code -Dxxhash.calibrate=true} times the engines at startup (saving the result to that file
+ * when one is named), and failing both the built in defaults are used. A profile which can't be
+ * read is logged and the defaults used instead, as a hash is no reason to stop a JVM starting.
+ */
+public final class FastestXXHash {
+
+  private static final String PROFILE_PROPERTY = "xxhash.profile";
+  private static final String CALIBRATE_PROPERTY = "xxhash.calibrate";
+  private static final long CALIBRATION_MILLIS = 20;
+  private static final System.Logger LOGGER = System.getLogger(FastestXXHash.class.getName());
+
+  private FastestXXHash() {
+  }
+
+  public static Hasher32 hasher32() {
+    return Holder.HASHER_32;
+  }
+
+  public static Hasher64 hasher64() {
+    return Holder.HASHER_64;
+  }
+
+  public static XXHashProfile profile() {
+    return Holder.PROFILE;
+  }
+
+  private static final class Holder {
+    private static final XXHashProfile PROFILE = selectProfile();
+    private static final Hasher32 HASHER_32 = PROFILE.hasher32();
+    private static final Hasher64 HASHER_64 = PROFILE.hasher64();
+  }
+
+  private static XXHashProfile selectProfile() {
+    String location = System.getProperty(PROFILE_PROPERTY);
+    return selectProfile(location == null ? null : Path.of(location), Boolean.getBoolean(CALIBRATE_PROPERTY));
+  }
+
+  static XXHashProfile selectProfile(Path path, boolean calibrate) {
+    if (path != null && Files.exists(path)) {
+      try {
+        return XXHashProfile.load(path);
+      } catch (IOException | IllegalArgumentException e) {
+        LOGGER.log(System.Logger.Level.WARNING, "can't read the xxhash profile " + path + ", using the defaults", e);
+        return XXHashProfile.defaults();
+      }
+    }
+    if (calibrate) {
+      XXHashProfile profile = XXHashProfile.calibrate(CALIBRATION_MILLIS);
+      if (path != null) {
+        try {
+          profile.store(path);
+        } catch (IOException e) {
+          LOGGER.log(System.Logger.Level.WARNING, "can't save the xxhash profile to " + path, e);
+        }
+      }
+      return profile;
+    }
+    return XXHashProfile.defaults();
+  }
+}
@@ -0,0 +1,101 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Hashes files by mapping them rather than reading them, so no bytes are copied onto the heap.
+ * The hasher is given the whole mapping, or whole chunks of it, however large; a JNI hasher can't
+ * give native code 2GB or more, nor a mapping shared between threads, and hashes those in Java.
+ * <p>
+ * {@link #hash} is the hash of the file's contents, the same as hashing the whole file as one
+ * array. {@link #hashParallel} is a different hash: the file is cut into fixed size chunks, each
+ * chunk is hashed on its own, and the chunk hashes are combined up a binary tree in which each left
+ * subtree holds the largest power of two number of chunks that leaves the right one non-empty. The
+ * shape depends only on the file and chunk sizes, so the result doesn't depend on the pool, and
+ * the root is hashed with the file length, so files which are prefixes of one another differ.
+ */
+public class FileHasher {
+
+  public static final long DEFAULT_CHUNK_SIZE = 1 << 24;
+
+  private final Hasher64 hasher;
+
+  public FileHasher() {
+    this(FastestXXHash.hasher64());
+  }
+
+  public FileHasher(Hasher64 hasher) {
+    this.hasher = hasher;
+  }
+
+  public long hash(Path path, long seed) throws IOException {
+    try (Arena arena = Arena.ofConfined();
+         FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      return hasher.hash(file, 0, file.byteSize(), seed);
+    }
+  }
+
+  public long hashParallel(Path path, long seed) throws IOException {
+    return hashParallel(path, seed, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+  }
+
+  public long hashParallel(Path path, long seed, long chunkSize, ForkJoinPool pool) throws IOException {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+    }
+    try (Arena arena = Arena.ofShared();
+         FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      long chunks = Math.max(1, (file.byteSize() + chunkSize - 1) / chunkSize);
+      long root = pool.invoke(new ChunkTask(file, chunkSize, seed, 0, chunks));
+      return hasher.hashLongs(root, file.byteSize(), seed);
+    }
+  }
+
+  private final class ChunkTask extends RecursiveTask<Long> {
+
+    private final MemorySegment file;
+    private final long chunkSize;
+    private final long seed;
+    private final long from;
+    private final long to;
+
+    ChunkTask(MemorySegment file, long chunkSize, long seed, long from, long to) {
+      this.file = file;
+      this.chunkSize = chunkSize;
+      this.seed = seed;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Long compute() {
+      if (to - from == 1) {
+        long offset = from * chunkSize;
+        return hasher.hash(file, offset, Math.min(chunkSize, file.byteSize() - offset), seed);
+      }
+      long split = from + Long.highestOneBit(to - from - 1);
+      var right = new ChunkTask(file, chunkSize, seed, split, to);
+      right.fork();
+      long left;
+      try {
+        left = new ChunkTask(file, chunkSize, seed, from, split).compute();
+      } catch (RuntimeException | Error e) {
+        // the arena is closed once the failure reaches hashParallel, so the right half must be done
+        // reading the mapping first. Cancelling it wouldn't do: a task cancelled while it runs keeps
+        // running, and joining it would return straight away
+        right.quietlyJoin();
+        throw e;
+      }
+      return hasher.hashLongs(left, right.join(), seed);
+    }
+  }
+}
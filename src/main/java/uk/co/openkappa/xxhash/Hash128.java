@@ -0,0 +1,48 @@
+package uk.co.openkappa.xxhash;
+
+/**
+ * A mutable 128 bit hash value. {@link Hasher128} writes into one supplied by the caller, so a
+ * single instance can be reused for every hash a thread computes.
+ */
+public final class Hash128 {
+
+  private long low;
+  private long high;
+
+  public Hash128() {
+  }
+
+  public Hash128(long low, long high) {
+    this.low = low;
+    this.high = high;
+  }
+
+  public long low() {
+    return low;
+  }
+
+  public long high() {
+    return high;
+  }
+
+  public Hash128 set(long low, long high) {
+    this.low = low;
+    this.high = high;
+    return this;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof Hash128 that && low == that.low && high == that.high;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(low) * 31 + Long.hashCode(high);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
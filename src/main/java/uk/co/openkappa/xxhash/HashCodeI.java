@@ -2,6 +2,10 @@ package uk.co.openkappa.xxhash;
 
 import java.nio.ByteBuffer;
 
+/**
+ * Hashes the bytes between a buffer's position and limit, leaving both as they were. Heap, direct
+ * and read-only buffers must all be accepted.
+ */
 @FunctionalInterface
 public interface HashCodeI {
     int hash(ByteBuffer data);
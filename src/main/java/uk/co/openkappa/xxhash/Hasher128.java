@@ -0,0 +1,14 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+
+public interface Hasher128 {
+
+  default Hash128 hash(byte[] data, long seed, Hash128 result) {
+    return hash(data, 0, data.length, seed, result);
+  }
+
+  Hash128 hash(byte[] data, int offset, int length, long seed, Hash128 result);
+
+  Hash128 hash(MemorySegment data, long offset, long length, long seed, Hash128 result);
+}
@@ -1,6 +1,37 @@
 package uk.co.openkappa.xxhash;
 
-@FunctionalInterface
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
 public interface Hasher32 {
-  int hash(byte[] data, int seed);
+
+  default int hash(byte[] data, int seed) {
+    return hash(data, 0, data.length, seed);
+  }
+
+  int hash(byte[] data, int offset, int length, int seed);
+
+  /**
+   * Hashes the bytes between the buffer's position and limit, without moving its position.
+   */
+  default int hash(ByteBuffer data, int seed) {
+    if (data.hasArray()) {
+      return hash(data.array(), data.arrayOffset() + data.position(), data.remaining(), seed);
+    }
+    return hash(Views.of(data), data.position(), data.remaining(), seed);
+  }
+
+  int hash(MemorySegment data, long offset, long length, int seed);
+
+  // fixed width keys, hashed as their little-endian encodings would be without building them
+
+  int hashInt(int value, int seed);
+
+  int hashLong(long value, int seed);
+
+  int hashLongs(long first, long second, int seed);
+
+  int hashLongArray(long[] data, int offset, int length, int seed);
+
+  int hashIntArray(int[] data, int offset, int length, int seed);
 }
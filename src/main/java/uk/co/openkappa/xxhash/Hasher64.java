@@ -1,6 +1,48 @@
 package uk.co.openkappa.xxhash;
 
-@FunctionalInterface
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
 public interface Hasher64 {
-  long hash(byte[] data, long seed);
+
+  default long hash(byte[] data, long seed) {
+    return hash(data, 0, data.length, seed);
+  }
+
+  long hash(byte[] data, int offset, int length, long seed);
+
+  /**
+   * Hashes the bytes between the buffer's position and limit, without moving its position.
+   */
+  default long hash(ByteBuffer data, long seed) {
+    if (data.hasArray()) {
+      return hash(data.array(), data.arrayOffset() + data.position(), data.remaining(), seed);
+    }
+    return hash(Views.of(data), data.position(), data.remaining(), seed);
+  }
+
+  long hash(MemorySegment data, long offset, long length, long seed);
+
+  // fixed width keys, hashed as their little-endian encodings would be without building them
+
+  long hashInt(int value, long seed);
+
+  long hashLong(long value, long seed);
+
+  long hashLongs(long first, long second, long seed);
+
+  long hashLongArray(long[] data, int offset, int length, long seed);
+
+  long hashIntArray(int[] data, int offset, int length, long seed);
+
+  /**
+   * Hashes the string's UTF-16 code units as little-endian pairs of bytes. Unlike
+   * {@code getBytes(UTF_16LE)}, unpaired surrogates are hashed as they are.
+   */
+  long hashChars(CharSequence chars, long seed);
+
+  /**
+   * Hashes the string's UTF-8 encoding, giving the same hash as {@code getBytes(UTF_8)} would.
+   */
+  long hashString(String string, long seed);
 }
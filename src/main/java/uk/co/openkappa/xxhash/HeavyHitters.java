@@ -0,0 +1,120 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The keys with the largest counts in a stream, tracked over a {@link CountMinSketch}. Every key is
+ * counted in the sketch; a key becomes a candidate when its estimate exceeds that of the smallest of
+ * the current candidates, displacing it once there are more than {@code k}. Candidates are known by
+ * their XXH64 hash, and the hot path only takes a lock to change the candidates, so updates of keys
+ * which are already candidates, or far from becoming one, don't contend.
+ */
+public class HeavyHitters {
+
+  private final Hasher64 hasher = FastestXXHash.hasher64();
+  private final CountMinSketch sketch;
+  private final int k;
+  // guarded by this for writes
+  private final Map<Long, byte[]> candidates = new ConcurrentHashMap<>();
+  // the smallest candidate's estimate when it was last computed, once there are k
+  private volatile long threshold;
+
+  public HeavyHitters(CountMinSketch sketch, int k) {
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be positive: " + k);
+    }
+    this.sketch = sketch;
+    this.k = k;
+  }
+
+  public void add(byte[] key) {
+    add(key, 1);
+  }
+
+  public void add(byte[] key, long count) {
+    long hash = hasher.hash(key, 0, key.length, 0);
+    sketch.addHash(hash, count);
+    long estimate = sketch.estimateHash(hash);
+    if (estimate > threshold && !candidates.containsKey(hash)) {
+      offer(hash, key, estimate);
+    }
+  }
+
+  /**
+   * The candidates, largest estimate first.
+   */
+  public List<Entry> top() {
+    List<Entry> top = new ArrayList<>(k + 1);
+    for (var candidate : candidates.entrySet()) {
+      top.add(new Entry(candidate.getValue(), sketch.estimateHash(candidate.getKey())));
+    }
+    top.sort(Comparator.comparingLong(Entry::count).reversed());
+    return top.size() > k ? top.subList(0, k) : top;
+  }
+
+  public CountMinSketch sketch() {
+    return sketch;
+  }
+
+  private synchronized void offer(long hash, byte[] key, long estimate) {
+    if (candidates.containsKey(hash)) {
+      return;
+    }
+    if (candidates.size() < k) {
+      candidates.put(hash, key.clone());
+      if (candidates.size() == k) {
+        threshold = smallest(Long.MAX_VALUE)[1];
+      }
+      return;
+    }
+    // the candidates' estimates have grown since the threshold was computed
+    long[] smallest = smallest(estimate);
+    if (smallest[1] < estimate) {
+      candidates.remove(smallest[0]);
+      candidates.put(hash, key.clone());
+      threshold = smallest(Long.MAX_VALUE)[1];
+    } else {
+      threshold = smallest[1];
+    }
+  }
+
+  // the hash and estimate of the candidate with the smallest estimate, or the given bound if less
+  private long[] smallest(long bound) {
+    long hash = 0;
+    long minimum = bound;
+    for (long candidate : candidates.keySet()) {
+      long estimate = sketch.estimateHash(candidate);
+      if (estimate < minimum) {
+        hash = candidate;
+        minimum = estimate;
+      }
+    }
+    return new long[] {hash, minimum};
+  }
+
+  public static final class Entry {
+
+    private final byte[] key;
+    private final long count;
+
+    Entry(byte[] key, long count) {
+      this.key = key;
+      this.count = count;
+    }
+
+    public byte[] key() {
+      return key;
+    }
+
+    /**
+     * The sketch's estimate of the key's count, an overestimate.
+     */
+    public long count() {
+      return count;
+    }
+  }
+}
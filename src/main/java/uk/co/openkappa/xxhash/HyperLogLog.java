@@ -0,0 +1,331 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static jdk.incubator.vector.VectorOperators.*;
+
+/**
+ * A HyperLogLog++ distinct count sketch over 64-bit XXH64 hashes, so it needs no 32-bit correction
+ * at large cardinalities. Small sketches are sparse, as in HLL++: the registers which have been set
+ * are kept as a sorted list at precision 25, and estimated by linear counting, until the list would
+ * outgrow the dense registers, one byte each. HLL++'s empirical bias tables are replaced by Ertl's
+ * improved estimator, which corrects the raw estimate's bias over the whole range analytically.
+ * <p>
+ * Keys are hashed by {@link FastestXXHash}, and since every engine computes the same XXH64, sketches
+ * built anywhere with the same precision can be merged. Not thread-safe.
+ */
+public class HyperLogLog {
+
+  public static final int MIN_PRECISION = 4;
+  public static final int MAX_PRECISION = 18;
+  private static final int SPARSE_PRECISION = 25;
+  // sparse entries are the index at sparse precision above six bits of register value
+  private static final int VALUE_BITS = 6;
+  // below this the dense registers are already small, so there's no sparse phase
+  private static final int MIN_SPARSE_PRECISION = 10;
+  private static final byte VERSION = 1;
+  private static final byte SPARSE = 0;
+  private static final byte DENSE = 1;
+  private static final double ALPHA_INF = 1 / (2 * Math.log(2));
+  private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(BYTES.vectorBitSize()));
+  private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(float.class, VectorShape.forBitSize(BYTES.vectorBitSize()));
+  private static final IntVector EXPONENT_BIAS = IntVector.broadcast(INTS, 127);
+  // vectors of registers summed in float lanes before the lanes are added to the total
+  private static final int SUM_BLOCKS = 16;
+
+  private final int precision;
+  private final Hasher64 hasher = FastestXXHash.hasher64();
+
+  // while sparse: sorted entries with unique indexes, and recent entries not yet merged into them
+  private int[] sparse;
+  private int sparseSize;
+  private int[] buffer;
+  private int bufferSize;
+  // once dense, the registers and nothing else
+  private byte[] registers;
+
+  public HyperLogLog(int precision) {
+    if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+      throw new IllegalArgumentException("precision must be in [" + MIN_PRECISION + ", " + MAX_PRECISION + "]: " + precision);
+    }
+    this.precision = precision;
+    if (precision < MIN_SPARSE_PRECISION) {
+      registers = new byte[1 << precision];
+    } else {
+      sparse = new int[0];
+      buffer = new int[Math.min(256, (1 << precision) / 16)];
+    }
+  }
+
+  public int precision() {
+    return precision;
+  }
+
+  public boolean isSparse() {
+    return registers == null;
+  }
+
+  /**
+   * The bytes held by the sketch's arrays.
+   */
+  public long sizeInBytes() {
+    return registers != null ? registers.length : 4L * (sparse.length + buffer.length);
+  }
+
+  public void add(byte[] key) {
+    addHash(hasher.hash(key, 0, key.length, 0));
+  }
+
+  public void add(byte[] key, int offset, int length) {
+    addHash(hasher.hash(key, offset, length, 0));
+  }
+
+  public void addAll(byte[][] keys) {
+    Hasher64 hasher = this.hasher;
+    for (byte[] key : keys) {
+      addHash(hasher.hash(key, 0, key.length, 0));
+    }
+  }
+
+  /**
+   * Adds a key by its XXH64 hash with seed zero.
+   */
+  public void addHash(long hash) {
+    byte[] registers = this.registers;
+    if (registers != null) {
+      int index = (int) (hash >>> (64 - precision));
+      byte value = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+      if (value > registers[index]) {
+        registers[index] = value;
+      }
+    } else {
+      int index = (int) (hash >>> (64 - SPARSE_PRECISION));
+      int value = Long.numberOfLeadingZeros((hash << SPARSE_PRECISION) | (1L << (SPARSE_PRECISION - 1))) + 1;
+      addSparse((index << VALUE_BITS) | value);
+    }
+  }
+
+  public long estimate() {
+    flush();
+    if (registers == null) {
+      // linear counting over the 2^25 registers at sparse precision
+      double m = 1 << SPARSE_PRECISION;
+      return Math.round(m * Math.log(m / (m - sparseSize)));
+    }
+    // Ertl's estimator, the registers from 1 to q summing as in the raw estimate
+    int q = 64 - precision;
+    double m = registers.length;
+    double[] sum = harmonicSum(registers, q + 1);
+    double zeros = sum[1];
+    double saturated = sum[2];
+    double z = m * Math.scalb(tau(1 - saturated / m), -q)
+            + (sum[0] - zeros - Math.scalb(saturated, -(q + 1)))
+            + m * sigma(zeros / m);
+    return Math.round(ALPHA_INF * m * m / z);
+  }
+
+  /**
+   * Adds every key added to {@code other}, which must have the same precision, to this sketch.
+   */
+  public void merge(HyperLogLog other) {
+    if (other.precision != precision) {
+      throw new IllegalArgumentException("can't merge precision " + other.precision + " into " + precision);
+    }
+    other.flush();
+    flush();
+    if (other.registers == null) {
+      if (registers == null) {
+        mergeSparse(other.sparse, other.sparseSize);
+      } else {
+        for (int i = 0; i < other.sparseSize; ++i) {
+          setDense(other.sparse[i]);
+        }
+      }
+      return;
+    }
+    if (registers == null) {
+      densify();
+    }
+    byte[] registers = this.registers;
+    byte[] theirs = other.registers;
+    int i = 0;
+    for (int bound = BYTES.loopBound(registers.length); i < bound; i += BYTES.length()) {
+      ByteVector.fromArray(BYTES, registers, i).max(ByteVector.fromArray(BYTES, theirs, i)).intoArray(registers, i);
+    }
+    for (; i < registers.length; ++i) {
+      registers[i] = (byte) Math.max(registers[i], theirs[i]);
+    }
+  }
+
+  public byte[] toBytes() {
+    flush();
+    ByteBuffer out;
+    if (registers != null) {
+      out = ByteBuffer.allocate(3 + registers.length).order(ByteOrder.LITTLE_ENDIAN);
+      out.put(VERSION).put((byte) precision).put(DENSE).put(registers);
+    } else {
+      out = ByteBuffer.allocate(7 + 4 * sparseSize).order(ByteOrder.LITTLE_ENDIAN);
+      out.put(VERSION).put((byte) precision).put(SPARSE).putInt(sparseSize);
+      out.asIntBuffer().put(sparse, 0, sparseSize);
+    }
+    return out.array();
+  }
+
+  public static HyperLogLog fromBytes(byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    if (in.remaining() < 3 || in.get() != VERSION) {
+      throw new IllegalArgumentException("not a serialised HyperLogLog");
+    }
+    var sketch = new HyperLogLog(in.get());
+    byte mode = in.get();
+    if (mode == DENSE) {
+      if (sketch.registers == null) {
+        sketch.sparse = null;
+        sketch.buffer = null;
+        sketch.registers = new byte[1 << sketch.precision];
+      }
+      in.get(sketch.registers);
+    } else if (mode == SPARSE && sketch.registers == null) {
+      int size = in.getInt();
+      sketch.sparse = new int[size];
+      in.asIntBuffer().get(sketch.sparse);
+      sketch.sparseSize = size;
+    } else {
+      throw new IllegalArgumentException("unknown HyperLogLog representation " + mode);
+    }
+    return sketch;
+  }
+
+  private void addSparse(int entry) {
+    buffer[bufferSize++] = entry;
+    if (bufferSize == buffer.length) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    if (registers != null || bufferSize == 0) {
+      return;
+    }
+    Arrays.sort(buffer, 0, bufferSize);
+    int size = bufferSize;
+    bufferSize = 0;
+    mergeSparse(buffer, size);
+  }
+
+  // merges sorted entries into the sparse ones, going dense when they'd be larger than the registers
+  private void mergeSparse(int[] entries, int count) {
+    int[] merged = new int[sparseSize + count];
+    int size = 0;
+    for (int i = 0, j = 0; i < sparseSize || j < count; ) {
+      int next = j == count || i < sparseSize && sparse[i] < entries[j] ? sparse[i++] : entries[j++];
+      // entries for an index sort by value, so the last is the largest
+      if (size > 0 && merged[size - 1] >>> VALUE_BITS == next >>> VALUE_BITS) {
+        merged[size - 1] = next;
+      } else {
+        merged[size++] = next;
+      }
+    }
+    sparse = merged;
+    sparseSize = size;
+    if (4L * sparseSize > 1L << precision) {
+      densify();
+    }
+  }
+
+  private void densify() {
+    int[] entries = sparse;
+    int size = sparseSize;
+    registers = new byte[1 << precision];
+    sparse = null;
+    buffer = null;
+    sparseSize = 0;
+    for (int i = 0; i < size; ++i) {
+      setDense(entries[i]);
+    }
+  }
+
+  // the sparse index's bits below the dense index are the leading bits the dense value counts
+  private void setDense(int entry) {
+    int extraBits = SPARSE_PRECISION - precision;
+    int index = entry >>> (VALUE_BITS + extraBits);
+    int extra = (entry >>> VALUE_BITS) & ((1 << extraBits) - 1);
+    int value = extra != 0
+            ? Integer.numberOfLeadingZeros(extra) - (32 - extraBits) + 1
+            : extraBits + (entry & ((1 << VALUE_BITS) - 1));
+    if (value > registers[index]) {
+      registers[index] = (byte) value;
+    }
+  }
+
+  // the sum of 2^-r over the registers, and how many are empty and saturated; 2^-r is built as a
+  // float from its exponent, a vector of registers at a time, and each lane only adds a few before
+  // they're summed as a double, so little precision is lost
+  private static double[] harmonicSum(byte[] registers, int saturated) {
+    double sum = 0;
+    int zeros = 0;
+    int full = 0;
+    int lanes = BYTES.length();
+    int i = 0;
+    while (i < BYTES.loopBound(registers.length)) {
+      var floats = FloatVector.zero(FLOATS);
+      for (int end = Math.min(BYTES.loopBound(registers.length), i + SUM_BLOCKS * lanes); i < end; i += lanes) {
+        var block = ByteVector.fromArray(BYTES, registers, i);
+        zeros += block.eq((byte) 0).trueCount();
+        full += block.eq((byte) saturated).trueCount();
+        for (int part = 0; part < lanes / INTS.length(); ++part) {
+          var values = (IntVector) block.convertShape(B2I, INTS, part);
+          floats = floats.add(EXPONENT_BIAS.sub(values).lanewise(LSHL, 23).reinterpretAsFloats());
+        }
+      }
+      sum += floats.reduceLanes(ADD);
+    }
+    for (; i < registers.length; ++i) {
+      sum += Math.scalb(1.0, -registers[i]);
+      zeros += registers[i] == 0 ? 1 : 0;
+      full += registers[i] == saturated ? 1 : 0;
+    }
+    return new double[] {sum, zeros, full};
+  }
+
+  private static double sigma(double x) {
+    if (x == 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double y = 1;
+    double z = x;
+    double previous;
+    do {
+      x *= x;
+      previous = z;
+      z += x * y;
+      y += y;
+    } while (z != previous);
+    return z;
+  }
+
+  private static double tau(double x) {
+    if (x == 0 || x == 1) {
+      return 0;
+    }
+    double y = 1;
+    double z = 1 - x;
+    double previous;
+    do {
+      x = Math.sqrt(x);
+      previous = z;
+      y *= 0.5;
+      z -= (1 - x) * (1 - x) * y;
+    } while (z != previous);
+    return z / 3;
+  }
+}
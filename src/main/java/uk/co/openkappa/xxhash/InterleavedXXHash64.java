@@ -0,0 +1,128 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.Objects;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+import static uk.co.openkappa.xxhash.UnsafeWrapper.getLong;
+import static uk.co.openkappa.xxhash.XXH64.*;
+
+/**
+ * Hashes many independent keys with XXH64, two at a time in the same loop, so that the multiply
+ * chains of one key fill the latency of the other's without needing the Vector API. The keys a few
+ * places ahead are touched as each pair is hashed, so the cache misses of scattered keys overlap
+ * with hashing rather than following it. Requires Unsafe.
+ */
+public class InterleavedXXHash64 {
+
+  // how many keys ahead to touch; far enough for a miss to resolve in the time taken to hash a pair
+  private static final int LOOKAHEAD = 8;
+
+  // keeps the touches observable so they aren't eliminated
+  private long touched;
+
+  /**
+   * Writes the hash of {@code keys[i]} with {@code seeds[i]} to {@code out[i]}.
+   */
+  public void hashBatch(byte[][] keys, long[] seeds, long[] out) {
+    int count = keys.length;
+    Objects.checkFromIndexSize(0, count, seeds.length);
+    Objects.checkFromIndexSize(0, count, out.length);
+    long touch = 0;
+    for (int i = 0; i < Math.min(LOOKAHEAD, count); ++i) {
+      touch += keys[i].length;
+    }
+    int i = 0;
+    for (; i + 1 < count; i += 2) {
+      if (i + LOOKAHEAD + 1 < count) {
+        touch += keys[i + LOOKAHEAD].length + keys[i + LOOKAHEAD + 1].length;
+      }
+      hashPair(keys[i], seeds[i], keys[i + 1], seeds[i + 1], out, i);
+    }
+    if (i < count) {
+      byte[] key = keys[i];
+      out[i] = finish(stripes(key, seeds[i]) + key.length, key, key.length & ~31, key.length & 31);
+    }
+    touched += touch;
+  }
+
+  private static void hashPair(byte[] a, long seedA, byte[] b, long seedB, long[] out, int index) {
+    int lengthA = a.length;
+    int lengthB = b.length;
+    int offsetA = lengthA & ~31;
+    int offsetB = lengthB & ~31;
+    long hashA;
+    long hashB;
+    if (offsetA != 0 && offsetB != 0) {
+      long a1 = seedA + PRIME64_1 + PRIME64_2;
+      long a2 = seedA + PRIME64_2;
+      long a3 = seedA;
+      long a4 = seedA - PRIME64_1;
+      long b1 = seedB + PRIME64_1 + PRIME64_2;
+      long b2 = seedB + PRIME64_2;
+      long b3 = seedB;
+      long b4 = seedB - PRIME64_1;
+      int common = Math.min(offsetA, offsetB);
+      int position = 0;
+      for (; position < common; position += 32) {
+        a1 = round(a1, getLong(a, position));
+        b1 = round(b1, getLong(b, position));
+        a2 = round(a2, getLong(a, position + 8));
+        b2 = round(b2, getLong(b, position + 8));
+        a3 = round(a3, getLong(a, position + 16));
+        b3 = round(b3, getLong(b, position + 16));
+        a4 = round(a4, getLong(a, position + 24));
+        b4 = round(b4, getLong(b, position + 24));
+      }
+      // at most one of these runs
+      for (int p = position; p < offsetA; p += 32) {
+        a1 = round(a1, getLong(a, p));
+        a2 = round(a2, getLong(a, p + 8));
+        a3 = round(a3, getLong(a, p + 16));
+        a4 = round(a4, getLong(a, p + 24));
+      }
+      for (int p = position; p < offsetB; p += 32) {
+        b1 = round(b1, getLong(b, p));
+        b2 = round(b2, getLong(b, p + 8));
+        b3 = round(b3, getLong(b, p + 16));
+        b4 = round(b4, getLong(b, p + 24));
+      }
+      hashA = converge(a1, a2, a3, a4);
+      hashB = converge(b1, b2, b3, b4);
+    } else {
+      hashA = stripes(a, seedA);
+      hashB = stripes(b, seedB);
+    }
+    hashA += lengthA;
+    hashB += lengthB;
+
+    // the tails' whole words, in step while both have one
+    int wordsEnd = Math.min(lengthA - offsetA, lengthB - offsetB) & ~7;
+    for (int i = 0; i < wordsEnd; i += 8) {
+      hashA ^= round(0, getLong(a, offsetA + i));
+      hashB ^= round(0, getLong(b, offsetB + i));
+      hashA = Long.rotateLeft(hashA, 27) * PRIME64_1 + PRIME64_4;
+      hashB = Long.rotateLeft(hashB, 27) * PRIME64_1 + PRIME64_4;
+    }
+    out[index] = finish(hashA, a, offsetA + wordsEnd, lengthA - offsetA - wordsEnd);
+    out[index + 1] = finish(hashB, b, offsetB + wordsEnd, lengthB - offsetB - wordsEnd);
+  }
+
+  // the converged stripes of one key, or the empty state for keys too short to have any
+  private static long stripes(byte[] input, long seed) {
+    int end = input.length & ~31;
+    if (end == 0) {
+      return seed + PRIME64_5;
+    }
+    long v1 = seed + PRIME64_1 + PRIME64_2;
+    long v2 = seed + PRIME64_2;
+    long v3 = seed;
+    long v4 = seed - PRIME64_1;
+    for (int position = 0; position < end; position += 32) {
+      v1 = round(v1, getLong(input, position));
+      v2 = round(v2, getLong(input, position + 8));
+      v3 = round(v3, getLong(input, position + 16));
+      v4 = round(v4, getLong(input, position + 24));
+    }
+    return converge(v1, v2, v3, v4);
+  }
+}
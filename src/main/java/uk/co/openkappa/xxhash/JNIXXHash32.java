@@ -3,13 +3,38 @@ package uk.co.openkappa.xxhash;
 import net.jpountz.xxhash.XXHash32;
 import net.jpountz.xxhash.XXHashFactory;
 
-public class JNIXXHash32 implements Hasher32 {
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+public class JNIXXHash32 implements XXH32Hasher {
 
   private static final XXHash32 IMPL = XXHashFactory.fastestInstance().hash32();
+  private static final Hasher32 FALLBACK = new VarHandleXXHash32();
+
+  @Override
+  public int hash(byte[] data, int offset, int length, int seed) {
+    return IMPL.hash(data, offset, length, seed);
+  }
 
+  @Override
+  public int hash(ByteBuffer data, int seed) {
+    return IMPL.hash(data, data.position(), data.remaining(), seed);
+  }
 
+  // lz4-java reads direct buffers natively, so a segment is handed over as a buffer view of itself,
+  // kept from call to call while the segment stays the same, when JNIXXHash64.readsNatively allows,
+  // and hashed in Java otherwise
   @Override
-  public int hash(byte[] data, int seed) {
-    return IMPL.hash(data, 0, data.length, seed);
+  public int hash(MemorySegment data, long offset, long length, int seed) {
+    if (!JNIXXHash64.readsNatively(data, length)) {
+      return FALLBACK.hash(data, offset, length, seed);
+    }
+    Objects.checkFromIndexSize(offset, length, data.byteSize());
+    JNIXXHash64.checkAccess(data);
+    if (data.byteSize() <= Integer.MAX_VALUE) {
+      return IMPL.hash(Views.of(data), (int) offset, (int) length, seed);
+    }
+    return IMPL.hash(data.asSlice(offset, length).asByteBuffer(), seed);
   }
 }
@@ -3,12 +3,76 @@ package uk.co.openkappa.xxhash;
 import net.jpountz.xxhash.XXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 
-public class JNIXXHash64 implements Hasher64 {
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+public class JNIXXHash64 implements XXH64Hasher {
 
   private static final XXHash64 IMPL = XXHashFactory.fastestInstance().hash64();
+  // segments native code can't be given are hashed in Java, through the segment's own checked reads
+  private static final Hasher64 FALLBACK = new VarHandleXXHash64();
+  // owns nothing, so only segments which any thread may read are accessible by it
+  private static final Thread NO_OWNER = new Thread(() -> { });
+  // the kind of scope a shared arena gives its segments, the only kind another thread can close
+  private static final Class<?> SHARED_SCOPE;
+
+  static {
+    try (Arena arena = Arena.ofShared()) {
+      SHARED_SCOPE = arena.scope().getClass();
+    }
+  }
 
   @Override
-  public long hash(byte[] input, long seed) {
-    return IMPL.hash(input, 0, input.length, seed);
+  public long hash(byte[] input, int offset, int length, long seed) {
+    return IMPL.hash(input, offset, length, seed);
+  }
+
+  @Override
+  public long hash(ByteBuffer input, long seed) {
+    return IMPL.hash(input, input.position(), input.remaining(), seed);
+  }
+
+  // lz4-java reads direct buffers natively, so a segment is handed over as a buffer view of itself,
+  // kept from call to call while the segment stays the same
+  @Override
+  public long hash(MemorySegment input, long offset, long length, long seed) {
+    if (!readsNatively(input, length)) {
+      return FALLBACK.hash(input, offset, length, seed);
+    }
+    Objects.checkFromIndexSize(offset, length, input.byteSize());
+    checkAccess(input);
+    if (input.byteSize() <= Integer.MAX_VALUE) {
+      return IMPL.hash(Views.of(input), (int) offset, (int) length, seed);
+    }
+    return IMPL.hash(input.asSlice(offset, length).asByteBuffer(), seed);
+  }
+
+  /**
+   * Whether a buffer view of the segment can be handed to native code. A view can't be made over
+   * 2GB or more, nor over a heap array other than a byte[], which read-only heap segments don't
+   * show. Native code isn't stopped by a shared arena closing under it, so a shared arena's segments
+   * aren't given to it; confined ones are, as checkAccess then requires this thread to own them, and
+   * so are global and automatic ones, which nothing can free while the segment is reachable.
+   */
+  static boolean readsNatively(MemorySegment segment, long length) {
+    if (length > Integer.MAX_VALUE) {
+      return false;
+    }
+    if (!segment.isNative()) {
+      return segment.heapBase().orElse(null) instanceof byte[];
+    }
+    return !segment.isAccessibleBy(NO_OWNER) || segment.scope().getClass() != SHARED_SCOPE;
+  }
+
+  // a buffer view doesn't check the segment is alive, and native code would read freed memory
+  static void checkAccess(MemorySegment segment) {
+    if (!segment.scope().isAlive()) {
+      throw new IllegalStateException("Already closed");
+    }
+    if (!segment.isAccessibleBy(Thread.currentThread())) {
+      throw new WrongThreadException("Attempted access outside owning thread");
+    }
   }
 }
@@ -0,0 +1,41 @@
+package uk.co.openkappa.xxhash;
+
+/**
+ * Lamping and Veach's jump consistent hash: no memory and near perfect balance, but shards can only
+ * be added or removed at the end.
+ */
+public class JumpHashRouter implements ShardRouter {
+
+  private final Hasher64 hasher;
+  private final int shards;
+
+  public JumpHashRouter(Hasher64 hasher, int shards) {
+    if (shards < 1) {
+      throw new IllegalArgumentException("need at least one shard: " + shards);
+    }
+    this.hasher = hasher;
+    this.shards = shards;
+  }
+
+  @Override
+  public int shards() {
+    return shards;
+  }
+
+  @Override
+  public Hasher64 hasher() {
+    return hasher;
+  }
+
+  @Override
+  public int routeHash(long hash) {
+    long bucket = -1;
+    long next = 0;
+    while (next < shards) {
+      bucket = next;
+      hash = hash * 2862933555777941757L + 1;
+      next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((hash >>> 33) + 1)));
+    }
+    return (int) bucket;
+  }
+}
@@ -1,5 +1,8 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
 public class NoSWARXXHash32 extends BaseXXHash32 {
 
   @Override
@@ -9,4 +12,12 @@ public class NoSWARXXHash32 extends BaseXXHash32 {
             | ((bytes[pos + 2] & 0xFF) << 16)
             | ((bytes[pos + 3] & 0xFF) << 24);
   }
+
+  @Override
+  protected int getInt(MemorySegment segment, long pos) {
+    return (segment.get(ValueLayout.JAVA_BYTE, pos) & 0xFF)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 1) & 0xFF) << 8)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 2) & 0xFF) << 16)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 3) & 0xFF) << 24);
+  }
 }
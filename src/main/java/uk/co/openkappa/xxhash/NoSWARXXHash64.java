@@ -1,5 +1,8 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
 public class NoSWARXXHash64 extends BaseXXHash64 {
 
   @Override
@@ -21,4 +24,24 @@ public class NoSWARXXHash64 extends BaseXXHash64 {
             | ((bytes[pos + 2] & 0xFF) << 16)
             | ((bytes[pos + 3] & 0xFF) << 24);
   }
+
+  @Override
+  protected long getLong(MemorySegment segment, long offset) {
+    return (segment.get(ValueLayout.JAVA_BYTE, offset) & 0xFFL)
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 1) & 0xFFL) << 8
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 2) & 0xFFL) << 16
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 3) & 0xFFL) << 24
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 4) & 0xFFL) << 32
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 5) & 0xFFL) << 40
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 6) & 0xFFL) << 48
+            | (segment.get(ValueLayout.JAVA_BYTE, offset + 7) & 0xFFL) << 56;
+  }
+
+  @Override
+  protected int getInt(MemorySegment segment, long pos) {
+    return (segment.get(ValueLayout.JAVA_BYTE, pos) & 0xFF)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 1) & 0xFF) << 8)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 2) & 0xFF) << 16)
+            | ((segment.get(ValueLayout.JAVA_BYTE, pos + 3) & 0xFF) << 24);
+  }
 }
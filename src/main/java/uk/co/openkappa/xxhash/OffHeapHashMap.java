@@ -0,0 +1,289 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An open addressing map from byte sequence keys to longs, held entirely off-heap, so the map adds
+ * nothing for the collector to trace however large it grows, and once sized puts and gets don't
+ * allocate.
+ * <p>
+ * Each slot is sixteen bytes: the key's 64-bit hash, which doubles as a tag rejecting almost every
+ * non-matching slot without touching its key, and the position of the entry's record. Records
+ * (value, key length, key bytes) are appended to fixed size chunks. A slot's home is the top bits
+ * of the hash, and probing is linear, optionally Robin Hood. Growing the table doesn't stop the
+ * world: the old table is kept and moved to the new one a few slots per operation, lookups checking
+ * both until it is gone.
+ * <p>
+ * Entries can't be removed. Not thread-safe; {@link #close} frees the memory.
+ */
+public class OffHeapHashMap implements AutoCloseable {
+
+  public enum Probing {
+    LINEAR,
+    /** entries further from home displace those nearer theirs, which lets misses stop early */
+    ROBIN_HOOD
+  }
+
+  private static final long SLOT_BYTES = 16;
+  private static final long RECORD_KEY = 12;
+  private static final int CHUNK_BITS = 24;
+  private static final long CHUNK_BYTES = 1L << CHUNK_BITS;
+  public static final int MAX_KEY_LENGTH = (int) (CHUNK_BYTES - RECORD_KEY);
+  // old slots moved per operation while growing; the old table is gone long before the new one fills
+  private static final int MIGRATION_STEP = 16;
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private final Hasher64 hasher;
+  private final Probing probing;
+  private final Arena records = Arena.ofShared();
+  private MemorySegment[] chunks = new MemorySegment[4];
+  private int chunkCount;
+  private long chunkPosition = CHUNK_BYTES;
+
+  private Table table;
+  private Table old;
+  private long migrated;
+  private long size;
+
+  public OffHeapHashMap(Hasher64 hasher, Probing probing, long expectedSize) {
+    this.hasher = hasher;
+    this.probing = probing;
+    this.table = new Table(Math.max(16, Long.highestOneBit(Math.max(1, expectedSize + expectedSize / 3)) << 1));
+  }
+
+  public OffHeapHashMap(Hasher64 hasher) {
+    this(hasher, Probing.LINEAR, 16);
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public void put(byte[] key, long value) {
+    put(key, 0, key.length, value);
+  }
+
+  public void put(byte[] key, int offset, int length, long value) {
+    Objects.checkFromIndexSize(offset, length, key.length);
+    if (length > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("key longer than " + MAX_KEY_LENGTH + " bytes: " + length);
+    }
+    migrate();
+    long hash = tag(hasher.hash(key, offset, length, 0));
+    long record = find(table, hash, key, offset, length);
+    if (record < 0 && old != null) {
+      // a key still in the old table is updated there, and moved with its new value
+      record = find(old, hash, key, offset, length);
+    }
+    if (record >= 0) {
+      chunk(record).set(ValueLayout.JAVA_LONG, offset(record), value);
+      return;
+    }
+    insert(table, hash, append(key, offset, length, value));
+    ++size;
+    if (table.size > table.threshold) {
+      grow();
+    }
+  }
+
+  public long get(byte[] key, long missing) {
+    return get(key, 0, key.length, missing);
+  }
+
+  public long get(byte[] key, int offset, int length, long missing) {
+    long record = lookup(key, offset, length);
+    return record < 0 ? missing : chunk(record).get(ValueLayout.JAVA_LONG, offset(record));
+  }
+
+  public boolean containsKey(byte[] key) {
+    return containsKey(key, 0, key.length);
+  }
+
+  public boolean containsKey(byte[] key, int offset, int length) {
+    return lookup(key, offset, length) >= 0;
+  }
+
+  @Override
+  public void close() {
+    table.arena.close();
+    if (old != null) {
+      old.arena.close();
+    }
+    records.close();
+  }
+
+  // reads move the migration on too, so a map which is only read after growing still frees its old table
+  private long lookup(byte[] key, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, key.length);
+    migrate();
+    long hash = tag(hasher.hash(key, offset, length, 0));
+    long record = find(table, hash, key, offset, length);
+    if (record < 0 && old != null) {
+      record = find(old, hash, key, offset, length);
+    }
+    return record;
+  }
+
+  private long find(Table table, long hash, byte[] key, int offset, int length) {
+    MemorySegment slots = table.slots;
+    long mask = table.mask;
+    long index = hash >>> table.shift;
+    for (long distance = 0; ; ++distance) {
+      long slot = index * SLOT_BYTES;
+      long stored = slots.get(ValueLayout.JAVA_LONG, slot);
+      if (stored == 0) {
+        return -1;
+      }
+      if (stored == hash) {
+        long record = slots.get(ValueLayout.JAVA_LONG, slot + 8);
+        if (matches(record, key, offset, length)) {
+          return record;
+        }
+      } else if (probing == Probing.ROBIN_HOOD && ((index - (stored >>> table.shift)) & mask) < distance) {
+        // the key would have displaced this entry had it been present
+        return -1;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  // places an entry known not to be in the table
+  private void insert(Table table, long hash, long record) {
+    MemorySegment slots = table.slots;
+    long mask = table.mask;
+    long index = hash >>> table.shift;
+    long distance = 0;
+    while (true) {
+      long slot = index * SLOT_BYTES;
+      long stored = slots.get(ValueLayout.JAVA_LONG, slot);
+      if (stored == 0) {
+        slots.set(ValueLayout.JAVA_LONG, slot, hash);
+        slots.set(ValueLayout.JAVA_LONG, slot + 8, record);
+        ++table.size;
+        return;
+      }
+      if (probing == Probing.ROBIN_HOOD) {
+        long storedDistance = (index - (stored >>> table.shift)) & mask;
+        if (storedDistance < distance) {
+          long storedRecord = slots.get(ValueLayout.JAVA_LONG, slot + 8);
+          slots.set(ValueLayout.JAVA_LONG, slot, hash);
+          slots.set(ValueLayout.JAVA_LONG, slot + 8, record);
+          hash = stored;
+          record = storedRecord;
+          distance = storedDistance;
+        }
+      }
+      index = (index + 1) & mask;
+      ++distance;
+    }
+  }
+
+  private void grow() {
+    while (old != null) {
+      migrate();
+    }
+    old = table;
+    table = new Table(old.capacity << 1);
+    migrated = 0;
+  }
+
+  boolean migrating() {
+    return old != null;
+  }
+
+  private void migrate() {
+    Table old = this.old;
+    if (old == null) {
+      return;
+    }
+    long end = Math.min(old.capacity, migrated + MIGRATION_STEP);
+    for (long index = migrated; index < end; ++index) {
+      long hash = old.slots.get(ValueLayout.JAVA_LONG, index * SLOT_BYTES);
+      if (hash != 0) {
+        insert(table, hash, old.slots.get(ValueLayout.JAVA_LONG, index * SLOT_BYTES + 8));
+      }
+    }
+    migrated = end;
+    if (end == old.capacity) {
+      old.arena.close();
+      this.old = null;
+    }
+  }
+
+  private long append(byte[] key, int offset, int length, long value) {
+    long bytes = (RECORD_KEY + length + 7) & ~7L;
+    if (chunkPosition + bytes > CHUNK_BYTES) {
+      if (chunkCount == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunkCount * 2);
+      }
+      chunks[chunkCount++] = records.allocate(CHUNK_BYTES, 8);
+      chunkPosition = 0;
+    }
+    MemorySegment chunk = chunks[chunkCount - 1];
+    chunk.set(ValueLayout.JAVA_LONG, chunkPosition, value);
+    chunk.set(ValueLayout.JAVA_INT, chunkPosition + 8, length);
+    MemorySegment.copy(key, offset, chunk, ValueLayout.JAVA_BYTE, chunkPosition + RECORD_KEY, length);
+    long record = ((long) (chunkCount - 1) << CHUNK_BITS) | chunkPosition;
+    chunkPosition += bytes;
+    return record;
+  }
+
+  private boolean matches(long record, byte[] key, int offset, int length) {
+    MemorySegment chunk = chunk(record);
+    long position = offset(record);
+    if (chunk.get(ValueLayout.JAVA_INT, position + 8) != length) {
+      return false;
+    }
+    position += RECORD_KEY;
+    int i = 0;
+    for (; i <= length - 8; i += 8) {
+      if (chunk.get(ValueLayout.JAVA_LONG_UNALIGNED, position + i) != (long) LONG_HANDLE.get(key, offset + i)) {
+        return false;
+      }
+    }
+    for (; i < length; ++i) {
+      if (chunk.get(ValueLayout.JAVA_BYTE, position + i) != key[offset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private MemorySegment chunk(long record) {
+    return chunks[(int) (record >>> CHUNK_BITS)];
+  }
+
+  private static long offset(long record) {
+    return record & (CHUNK_BYTES - 1);
+  }
+
+  // zero marks an empty slot, and the low bit is below any table's home bits
+  private static long tag(long hash) {
+    return hash | 1;
+  }
+
+  private static final class Table {
+    final Arena arena = Arena.ofShared();
+    final long capacity;
+    final long mask;
+    final int shift;
+    final long threshold;
+    final MemorySegment slots;
+    long size;
+
+    Table(long capacity) {
+      this.capacity = capacity;
+      this.mask = capacity - 1;
+      this.shift = 64 - Long.numberOfTrailingZeros(capacity);
+      this.threshold = capacity - capacity / 4;
+      this.slots = arena.allocate(capacity * SLOT_BYTES, 8);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import static jdk.incubator.vector.VectorOperators.*;
+import static uk.co.openkappa.xxhash.Constants.PRIME64_2;
+import static uk.co.openkappa.xxhash.Constants.PRIME64_3;
+
+/**
+ * Rendezvous, or highest random weight, hashing: a key goes to the node whose seed scores highest
+ * with it, the score being the XXH64 avalanche of the key's hash xor the seed. Any node can be added
+ * or removed, moving only the keys it wins or held, and the nodes' scores are computed a vector of
+ * seeds at a time, but routing is linear in the number of nodes.
+ */
+public class RendezvousRouter implements ShardRouter {
+
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+  private static final LongVector LANE_NODES = LongVector.zero(LONGS).addIndex(1);
+
+  private final Hasher64 hasher;
+  private final long[] seeds;
+
+  /**
+   * @param seeds one per node, identifying it independently of its position in the array
+   */
+  public RendezvousRouter(Hasher64 hasher, long[] seeds) {
+    if (seeds.length == 0) {
+      throw new IllegalArgumentException("need at least one node");
+    }
+    this.hasher = hasher;
+    this.seeds = seeds.clone();
+  }
+
+  @Override
+  public int shards() {
+    return seeds.length;
+  }
+
+  @Override
+  public Hasher64 hasher() {
+    return hasher;
+  }
+
+  /**
+   * The index of the winning node's seed; ties, which need equal 64-bit scores, go to the lowest.
+   */
+  @Override
+  public int routeHash(long hash) {
+    long[] seeds = this.seeds;
+    long best = Long.MIN_VALUE;
+    int node = 0;
+    int i = 0;
+    int bound = LONGS.loopBound(seeds.length);
+    if (bound > 0) {
+      var bestScores = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+      var bestNodes = LongVector.zero(LONGS);
+      var nodes = LANE_NODES;
+      for (; i < bound; i += LONGS.length()) {
+        var scores = score(LongVector.fromArray(LONGS, seeds, i).lanewise(XOR, hash));
+        var better = scores.compare(GT, bestScores);
+        bestScores = bestScores.blend(scores, better);
+        bestNodes = bestNodes.blend(nodes, better);
+        nodes = nodes.add(LONGS.length());
+      }
+      best = bestScores.reduceLanes(MAX);
+      node = (int) bestNodes.reduceLanes(MIN, bestScores.eq(best));
+    }
+    for (; i < seeds.length; ++i) {
+      long score = XXH64.avalanche(hash ^ seeds[i]);
+      if (score > best || i == 0) {
+        best = score;
+        node = i;
+      }
+    }
+    return node;
+  }
+
+  private static LongVector score(LongVector x) {
+    x = x.lanewise(XOR, x.lanewise(LSHR, 33)).mul(PRIME64_2);
+    x = x.lanewise(XOR, x.lanewise(LSHR, 29)).mul(PRIME64_3);
+    return x.lanewise(XOR, x.lanewise(LSHR, 32));
+  }
+}
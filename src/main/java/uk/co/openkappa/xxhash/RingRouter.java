@@ -0,0 +1,73 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import static uk.co.openkappa.xxhash.Constants.PRIME64_1;
+
+/**
+ * A consistent hash ring: each node owns a number of virtual nodes, points on the ring derived from
+ * its seed, and a key goes to the owner of the first point at or after its hash. The points are a
+ * sorted {@code long[]} searched without branches on the comparisons, so a lookup costs a
+ * logarithmic number of loads but no mispredictions.
+ */
+public class RingRouter implements ShardRouter {
+
+  private final Hasher64 hasher;
+  private final int shards;
+  private final long[] points;
+  private final int[] owners;
+
+  /**
+   * @param seeds one per node, identifying it independently of its position in the array
+   * @param virtualNodes points per node; more balance the load better
+   */
+  public RingRouter(Hasher64 hasher, long[] seeds, int virtualNodes) {
+    if (seeds.length == 0 || virtualNodes < 1) {
+      throw new IllegalArgumentException("need at least one node and one virtual node per node");
+    }
+    this.hasher = hasher;
+    this.shards = seeds.length;
+    int count = Math.multiplyExact(seeds.length, virtualNodes);
+    long[] unsorted = new long[count];
+    for (int node = 0; node < seeds.length; ++node) {
+      for (int v = 0; v < virtualNodes; ++v) {
+        unsorted[node * virtualNodes + v] = XXH64.avalanche(seeds[node] + v * PRIME64_1);
+      }
+    }
+    Integer[] order = IntStream.range(0, count).boxed().toArray(Integer[]::new);
+    Arrays.sort(order, Comparator.comparingLong(i -> unsorted[i]));
+    this.points = new long[count];
+    this.owners = new int[count];
+    for (int i = 0; i < count; ++i) {
+      points[i] = unsorted[order[i]];
+      owners[i] = order[i] / virtualNodes;
+    }
+  }
+
+  @Override
+  public int shards() {
+    return shards;
+  }
+
+  @Override
+  public Hasher64 hasher() {
+    return hasher;
+  }
+
+  @Override
+  public int routeHash(long hash) {
+    long[] points = this.points;
+    int base = 0;
+    int length = points.length;
+    while (length > 1) {
+      int half = length >>> 1;
+      // a conditional move, as the comparison is unpredictable
+      base = points[base + half - 1] < hash ? base + half : base;
+      length -= half;
+    }
+    int index = base + (points[base] < hash ? 1 : 0);
+    return owners[index == points.length ? 0 : index];
+  }
+}
@@ -0,0 +1,43 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.Objects;
+
+/**
+ * Maps keys to shards {@code 0} to {@code shards() - 1} by their 64-bit hash, such that when shards
+ * are added or removed only the keys which must move do.
+ */
+public interface ShardRouter {
+
+  int shards();
+
+  Hasher64 hasher();
+
+  /**
+   * The shard of a key whose hash, with seed zero, is {@code hash}.
+   */
+  int routeHash(long hash);
+
+  default int route(byte[] key) {
+    return routeHash(hasher().hash(key, 0, key.length, 0));
+  }
+
+  /**
+   * Writes the shard of {@code keys[i]} to {@code out[i]}. A batch of keys is hashed before any is
+   * routed, so lookups in the router's tables overlap.
+   */
+  default void route(byte[][] keys, int[] out) {
+    Objects.checkFromIndexSize(0, keys.length, out.length);
+    Hasher64 hasher = hasher();
+    long[] hashes = new long[Math.min(keys.length, 64)];
+    for (int base = 0; base < keys.length; base += hashes.length) {
+      int count = Math.min(hashes.length, keys.length - base);
+      for (int i = 0; i < count; ++i) {
+        byte[] key = keys[base + i];
+        hashes[i] = hasher.hash(key, 0, key.length, 0);
+      }
+      for (int i = 0; i < count; ++i) {
+        out[base + i] = routeHash(hashes[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static uk.co.openkappa.xxhash.Constants.PRIME64_5;
+
+/**
+ * Incremental XXH64: feed the input in any number of pieces and read the digest at any point.
+ * Instances are obtained from an engine, e.g. {@link BaseXXHash64#newStreamingHash(long)}, which
+ * supplies the stripe loop; this class only deals with buffering the bytes which don't fill a
+ * 32 byte stripe. Updates never allocate, except the first through each direct or read-only
+ * buffer, which makes a view of it. Not thread safe.
+ */
+public abstract class StreamingXXHash64 {
+
+  private final long[] acc = new long[4];
+  private final byte[] buffer = new byte[32];
+  private int buffered;
+  private ByteBuffer viewed;
+  private MemorySegment view;
+  private long length;
+  private long seed;
+
+  StreamingXXHash64(long seed) {
+    reset(seed);
+  }
+
+  public void reset(long seed) {
+    this.seed = seed;
+    XXH64.init(acc, seed);
+    buffered = 0;
+    length = 0;
+  }
+
+  public void update(byte[] data, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    this.length += length;
+    int end = offset + length;
+    if (buffered + length < 32) {
+      System.arraycopy(data, offset, buffer, buffered, length);
+      buffered += length;
+      return;
+    }
+    if (buffered != 0) {
+      int fill = 32 - buffered;
+      System.arraycopy(data, offset, buffer, buffered, fill);
+      accumulate(acc, buffer, 0, 32);
+      offset += fill;
+    }
+    offset = accumulate(acc, data, offset, end);
+    buffered = end - offset;
+    System.arraycopy(data, offset, buffer, 0, buffered);
+  }
+
+  public void update(MemorySegment data) {
+    update(data, 0, data.byteSize());
+  }
+
+  private void update(MemorySegment data, long offset, long length) {
+    long end = offset + length;
+    this.length += length;
+    if (buffered + length < 32) {
+      MemorySegment.copy(data, ValueLayout.JAVA_BYTE, offset, buffer, buffered, (int) length);
+      buffered += (int) length;
+      return;
+    }
+    if (buffered != 0) {
+      int fill = 32 - buffered;
+      MemorySegment.copy(data, ValueLayout.JAVA_BYTE, offset, buffer, buffered, fill);
+      accumulate(acc, buffer, 0, 32);
+      offset += fill;
+    }
+    offset = accumulate(acc, data, offset, end);
+    buffered = (int) (end - offset);
+    MemorySegment.copy(data, ValueLayout.JAVA_BYTE, offset, buffer, 0, buffered);
+  }
+
+  /**
+   * Consumes the buffer's remaining bytes, leaving its position at its limit.
+   */
+  public void update(ByteBuffer data) {
+    int position = data.position();
+    int limit = data.limit();
+    if (data.hasArray()) {
+      update(data.array(), data.arrayOffset() + position, limit - position);
+    } else {
+      // direct and read-only buffers are read in place through a segment view, which leaves the
+      // buffer's byte order alone. The view spans the whole buffer and is kept for the next update,
+      // as callers such as channels hash through the same buffer again and again
+      if (data != viewed) {
+        view = MemorySegment.ofBuffer(data.duplicate().clear());
+        viewed = data;
+      }
+      update(view, position, limit - position);
+    }
+    data.position(limit);
+  }
+
+  public long digest() {
+    long hash = length >= 32
+            ? XXH64.converge(acc[0], acc[1], acc[2], acc[3])
+            : seed + PRIME64_5;
+    hash += length;
+    return XXH64.finish(hash, buffer, 0, buffered);
+  }
+
+  /**
+   * Consumes every whole stripe in [offset, end) and returns the offset after the last one.
+   */
+  abstract int accumulate(long[] acc, byte[] input, int offset, int end);
+
+  abstract long accumulate(long[] acc, MemorySegment input, long offset, long end);
+}
@@ -0,0 +1,87 @@
+package uk.co.openkappa.xxhash;
+
+/**
+ * String hashing without {@code getBytes}. XXH64 reads the UTF-16LE encoding of a char sequence
+ * straight from {@code charAt}; other engines, and UTF-8, take the encoding from {@code charAt}
+ * into a per-thread scratch array.
+ */
+final class Strings {
+
+  // bigger encodings get a throwaway array rather than pinning a large one to the thread
+  private static final int MAX_SCRATCH = 1 << 16;
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+  private Strings() {
+  }
+
+  // the XXH64 hash of the UTF-16LE encoding
+  static long hashChars(CharSequence chars, long seed) {
+    return XXH64.hashCharsAsUtf16(chars, seed);
+  }
+
+  // the UTF-16LE encoding hashed by any engine, for those which aren't XXH64
+  static long hashCharsEncoded(Hasher64 hasher, CharSequence chars, long seed) {
+    int length = chars.length();
+    byte[] buffer = scratch(2 * length);
+    for (int i = 0; i < length; ++i) {
+      char c = chars.charAt(i);
+      buffer[2 * i] = (byte) c;
+      buffer[2 * i + 1] = (byte) (c >>> 8);
+    }
+    return hasher.hash(buffer, 0, 2 * length, seed);
+  }
+
+  static long hashUtf8(Hasher64 hasher, String string, long seed) {
+    byte[] buffer = scratch(3 * string.length());
+    return hasher.hash(buffer, 0, encodeUtf8(string, buffer), seed);
+  }
+
+  // encodes as String.getBytes(UTF_8) does, including '?' for unpaired surrogates
+  private static int encodeUtf8(String string, byte[] buffer) {
+    int length = string.length();
+    int position = 0;
+    int i = 0;
+    // most keys are ASCII, which is copied across until the first wider char
+    for (char c; i < length && (c = string.charAt(i)) < 0x80; ++i) {
+      buffer[position++] = (byte) c;
+    }
+    for (; i < length; ++i) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        buffer[position++] = (byte) (0xC0 | (c >>> 6));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        char next = i + 1 < length ? string.charAt(i + 1) : 0;
+        if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+          int codePoint = Character.toCodePoint(c, next);
+          buffer[position++] = (byte) (0xF0 | (codePoint >>> 18));
+          buffer[position++] = (byte) (0x80 | ((codePoint >>> 12) & 0x3F));
+          buffer[position++] = (byte) (0x80 | ((codePoint >>> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+          ++i;
+        } else {
+          buffer[position++] = '?';
+        }
+      } else {
+        buffer[position++] = (byte) (0xE0 | (c >>> 12));
+        buffer[position++] = (byte) (0x80 | ((c >>> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return position;
+  }
+
+  private static byte[] scratch(int size) {
+    if (size > MAX_SCRATCH) {
+      return new byte[size];
+    }
+    byte[] scratch = SCRATCH.get();
+    if (scratch.length < size) {
+      scratch = new byte[Math.min(MAX_SCRATCH, Math.max(size, 2 * scratch.length))];
+      SCRATCH.set(scratch);
+    }
+    return scratch;
+  }
+}
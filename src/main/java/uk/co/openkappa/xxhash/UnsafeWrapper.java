@@ -2,12 +2,17 @@ package uk.co.openkappa.xxhash;
 
 import sun.misc.Unsafe;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.lang.reflect.Field;
+import java.nio.ByteOrder;
 
 public class UnsafeWrapper {
 
   private static final Unsafe UNSAFE;
   private static final long BYTE_ARRAY_OFFSET;
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
 
   static {
     try {
@@ -30,4 +35,14 @@ public class UnsafeWrapper {
   public static int getInt(byte[] array, int offset) {
     return UNSAFE.getInt(array, BYTE_ARRAY_OFFSET + offset);
   }
+
+  // segments are read through their own accessors, which check the segment is alive and owned by
+  // this thread, and compile to the same load as a raw address would
+  public static long getLong(MemorySegment segment, long offset) {
+    return segment.get(LONG_LE, offset);
+  }
+
+  public static int getInt(MemorySegment segment, long offset) {
+    return segment.get(INT_LE, offset);
+  }
 }
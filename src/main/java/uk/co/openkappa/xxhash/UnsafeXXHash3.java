@@ -0,0 +1,27 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+
+public class UnsafeXXHash3 extends BaseXXHash3 {
+
+
+  @Override
+  protected long getLong(byte[] array, int offset) {
+    return UnsafeWrapper.getLong(array, offset);
+  }
+
+  @Override
+  protected int getInt(byte[] array, int offset) {
+    return UnsafeWrapper.getInt(array, offset);
+  }
+
+  @Override
+  protected long getLong(MemorySegment segment, long offset) {
+    return UnsafeWrapper.getLong(segment, offset);
+  }
+
+  @Override
+  protected int getInt(MemorySegment segment, long offset) {
+    return UnsafeWrapper.getInt(segment, offset);
+  }
+}
@@ -1,9 +1,16 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+
 public class UnsafeXXHash32 extends BaseXXHash32 {
 
   @Override
   protected int getInt(byte[] array, int offset) {
     return UnsafeWrapper.getInt(array, offset);
   }
+
+  @Override
+  protected int getInt(MemorySegment segment, long offset) {
+    return UnsafeWrapper.getInt(segment, offset);
+  }
 }
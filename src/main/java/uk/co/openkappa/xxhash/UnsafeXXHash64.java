@@ -1,5 +1,7 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+
 public class UnsafeXXHash64 extends BaseXXHash64 {
 
 
@@ -12,4 +14,14 @@ public class UnsafeXXHash64 extends BaseXXHash64 {
   protected int getInt(byte[] array, int offset) {
     return UnsafeWrapper.getInt(array, offset);
   }
+
+  @Override
+  protected long getLong(MemorySegment segment, long offset) {
+    return UnsafeWrapper.getLong(segment, offset);
+  }
+
+  @Override
+  protected int getInt(MemorySegment segment, long offset) {
+    return UnsafeWrapper.getInt(segment, offset);
+  }
 }
@@ -1,5 +1,7 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.nio.ByteOrder;
@@ -7,9 +9,16 @@ import java.nio.ByteOrder;
 public class VarHandleXXHash32 extends BaseXXHash32 {
 
   private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle SEGMENT_INT_HANDLE = MethodHandles.memorySegmentViewVarHandle(
+          ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN));
 
   @Override
   protected int getInt(byte[] array, int offset) {
     return (int)INT_HANDLE.get(array, offset);
   }
+
+  @Override
+  protected int getInt(MemorySegment segment, long offset) {
+    return (int)SEGMENT_INT_HANDLE.get(segment, offset);
+  }
 }
@@ -1,5 +1,7 @@
 package uk.co.openkappa.xxhash;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.nio.ByteOrder;
@@ -8,6 +10,10 @@ public class VarHandleXXHash64 extends BaseXXHash64 {
 
   private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
   private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle SEGMENT_LONG_HANDLE = MethodHandles.memorySegmentViewVarHandle(
+          ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN));
+  private static final VarHandle SEGMENT_INT_HANDLE = MethodHandles.memorySegmentViewVarHandle(
+          ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN));
 
   @Override
   protected long getLong(byte[] array, int offset) {
@@ -18,4 +24,14 @@ public class VarHandleXXHash64 extends BaseXXHash64 {
   protected int getInt(byte[] array, int offset) {
     return (int)INT_HANDLE.get(array, offset);
   }
+
+  @Override
+  protected long getLong(MemorySegment segment, long offset) {
+    return (long)SEGMENT_LONG_HANDLE.get(segment, offset);
+  }
+
+  @Override
+  protected int getInt(MemorySegment segment, long offset) {
+    return (int)SEGMENT_INT_HANDLE.get(segment, offset);
+  }
 }
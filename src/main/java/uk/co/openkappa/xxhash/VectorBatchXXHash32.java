@@ -0,0 +1,162 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Objects;
+
+import static jdk.incubator.vector.VectorOperators.*;
+import static uk.co.openkappa.xxhash.Constants.*;
+
+/**
+ * Hashes many independent keys with XXH32, one key per lane of the preferred int vector, so the
+ * rounds run across keys rather than within one. Keys of different lengths are handled by masking
+ * lanes out of the steps they have no input for. Each group of keys is transposed into scratch
+ * arrays owned by the instance, so an instance must not be shared between threads.
+ */
+public class VectorBatchXXHash32 {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+
+  private final byte[][] sources = new byte[LANES][];
+  private final int[] starts = new int[LANES];
+  private final int[] lengths = new int[LANES];
+  private final int[] tails = new int[3 * LANES];
+  private final int[] last = new int[LANES];
+  private int[] columns = new int[0];
+
+  /**
+   * Writes the hash of {@code keys[i]} with {@code seeds[i]} to {@code out[i]}.
+   */
+  public void hashBatch(byte[][] keys, int[] seeds, int[] out) {
+    int count = keys.length;
+    Objects.checkFromIndexSize(0, count, seeds.length);
+    Objects.checkFromIndexSize(0, count, out.length);
+    for (int base = 0; base < count; base += LANES) {
+      int lanes = Math.min(LANES, count - base);
+      for (int i = 0; i < lanes; ++i) {
+        byte[] key = keys[base + i];
+        sources[i] = key;
+        starts[i] = 0;
+        lengths[i] = key.length;
+      }
+      hashLanes(base, lanes, seeds, out);
+    }
+  }
+
+  /**
+   * Hashes keys packed into one buffer: key {@code i} is {@code data[offsets[i]..offsets[i + 1])},
+   * so there is one more offset than there are keys.
+   */
+  public void hashBatch(byte[] data, int[] offsets, int[] seeds, int[] out) {
+    int count = offsets.length - 1;
+    Objects.checkFromIndexSize(0, count, seeds.length);
+    Objects.checkFromIndexSize(0, count, out.length);
+    for (int base = 0; base < count; base += LANES) {
+      int lanes = Math.min(LANES, count - base);
+      for (int i = 0; i < lanes; ++i) {
+        int start = offsets[base + i];
+        int length = offsets[base + i + 1] - start;
+        Objects.checkFromIndexSize(start, length, data.length);
+        sources[i] = data;
+        starts[i] = start;
+        lengths[i] = length;
+      }
+      hashLanes(base, lanes, seeds, out);
+    }
+  }
+
+  private void hashLanes(int base, int lanes, int[] seeds, int[] out) {
+    int maxLength = 0;
+    for (int i = 0; i < lanes; ++i) {
+      maxLength = Math.max(maxLength, lengths[i]);
+    }
+    for (int i = lanes; i < LANES; ++i) {
+      lengths[i] = 0;
+    }
+    int maxStripes = maxLength >>> 4;
+    if (columns.length < maxStripes * 4 * LANES) {
+      columns = new int[maxStripes * 4 * LANES];
+    }
+    transpose(lanes);
+
+    VectorMask<Integer> valid = SPECIES.indexInRange(0, lanes);
+    var seed = IntVector.fromArray(SPECIES, seeds, base, valid);
+    var length = IntVector.fromArray(SPECIES, lengths, 0);
+    var stripes = length.lanewise(LSHR, 4);
+
+    var v1 = seed.add(PRIME1 + PRIME2);
+    var v2 = seed.add(PRIME2);
+    var v3 = seed;
+    var v4 = seed.sub(PRIME1);
+    for (int stripe = 0; stripe < maxStripes; ++stripe) {
+      var active = stripes.compare(GT, stripe);
+      int row = stripe * 4 * LANES;
+      v1 = v1.blend(round(v1, IntVector.fromArray(SPECIES, columns, row)), active);
+      v2 = v2.blend(round(v2, IntVector.fromArray(SPECIES, columns, row + LANES)), active);
+      v3 = v3.blend(round(v3, IntVector.fromArray(SPECIES, columns, row + 2 * LANES)), active);
+      v4 = v4.blend(round(v4, IntVector.fromArray(SPECIES, columns, row + 3 * LANES)), active);
+    }
+    var converged = v1.lanewise(ROL, 1)
+            .add(v2.lanewise(ROL, 7))
+            .add(v3.lanewise(ROL, 12))
+            .add(v4.lanewise(ROL, 18));
+    var h32 = seed.add(PRIME5).blend(converged, stripes.compare(GT, 0)).add(length);
+
+    var tail = length.and(15);
+    for (int word = 0; word < 3; ++word) {
+      var active = tail.compare(GE, 4 * (word + 1));
+      if (!active.anyTrue()) {
+        break;
+      }
+      var input = IntVector.fromArray(SPECIES, tails, word * LANES);
+      h32 = h32.blend(h32.add(input.mul(PRIME3)).lanewise(ROL, 17).mul(PRIME4), active);
+    }
+
+    var bytes = length.and(3);
+    var last = IntVector.fromArray(SPECIES, this.last, 0);
+    for (int b = 0; b < 3; ++b) {
+      var active = bytes.compare(GT, b);
+      if (!active.anyTrue()) {
+        break;
+      }
+      var input = last.lanewise(LSHR, 8 * b).and(0xFF);
+      h32 = h32.blend(h32.add(input.mul(PRIME5)).lanewise(ROL, 11).mul(PRIME1), active);
+    }
+
+    h32 = h32.lanewise(XOR, h32.lanewise(LSHR, 15)).mul(PRIME2);
+    h32 = h32.lanewise(XOR, h32.lanewise(LSHR, 13)).mul(PRIME3);
+    h32 = h32.lanewise(XOR, h32.lanewise(LSHR, 16));
+    h32.intoArray(out, base, valid);
+  }
+
+  // lays each key out down a column, so that a row holds the same word of every key: stripe words
+  // go in columns, the (< 16 byte) tail words in tails and the final partial word in last
+  private void transpose(int lanes) {
+    int[] columns = this.columns;
+    for (int i = 0; i < lanes; ++i) {
+      byte[] source = sources[i];
+      int position = starts[i];
+      int length = lengths[i];
+      int stripeEnd = position + (length & ~15);
+      for (int index = i; position < stripeEnd; position += 4, index += LANES) {
+        columns[index] = UnsafeWrapper.getInt(source, position);
+      }
+      int wordEnd = stripeEnd + (length & 12);
+      for (int index = i; position < wordEnd; position += 4, index += LANES) {
+        tails[index] = UnsafeWrapper.getInt(source, position);
+      }
+      int word = 0;
+      for (int shift = 0; shift < (length & 3) * 8; shift += 8) {
+        word |= (source[position++] & 0xFF) << shift;
+      }
+      last[i] = word;
+    }
+  }
+
+  private static IntVector round(IntVector acc, IntVector input) {
+    return acc.add(input.mul(PRIME2)).lanewise(ROL, 13).mul(PRIME1);
+  }
+}
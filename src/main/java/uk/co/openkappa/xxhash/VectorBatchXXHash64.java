@@ -0,0 +1,179 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Objects;
+
+import static jdk.incubator.vector.VectorOperators.*;
+import static uk.co.openkappa.xxhash.Constants.*;
+
+/**
+ * The XXH64 counterpart of {@link VectorBatchXXHash32}: one key per lane of the preferred long
+ * vector. Not thread-safe, for the same reason.
+ */
+public class VectorBatchXXHash64 {
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+  private static final int LANES = SPECIES.length();
+
+  private final byte[][] sources = new byte[LANES][];
+  private final int[] starts = new int[LANES];
+  private final int[] lengths = new int[LANES];
+  private final long[] widths = new long[LANES];
+  private final long[] tails = new long[3 * LANES];
+  private final long[] ints = new long[LANES];
+  private final long[] last = new long[LANES];
+  private long[] columns = new long[0];
+
+  public void hashBatch(byte[][] keys, long[] seeds, long[] out) {
+    int count = keys.length;
+    Objects.checkFromIndexSize(0, count, seeds.length);
+    Objects.checkFromIndexSize(0, count, out.length);
+    for (int base = 0; base < count; base += LANES) {
+      int lanes = Math.min(LANES, count - base);
+      for (int i = 0; i < lanes; ++i) {
+        byte[] key = keys[base + i];
+        sources[i] = key;
+        starts[i] = 0;
+        lengths[i] = key.length;
+      }
+      hashLanes(base, lanes, seeds, out);
+    }
+  }
+
+  public void hashBatch(byte[] data, int[] offsets, long[] seeds, long[] out) {
+    int count = offsets.length - 1;
+    Objects.checkFromIndexSize(0, count, seeds.length);
+    Objects.checkFromIndexSize(0, count, out.length);
+    for (int base = 0; base < count; base += LANES) {
+      int lanes = Math.min(LANES, count - base);
+      for (int i = 0; i < lanes; ++i) {
+        int start = offsets[base + i];
+        int length = offsets[base + i + 1] - start;
+        Objects.checkFromIndexSize(start, length, data.length);
+        sources[i] = data;
+        starts[i] = start;
+        lengths[i] = length;
+      }
+      hashLanes(base, lanes, seeds, out);
+    }
+  }
+
+  private void hashLanes(int base, int lanes, long[] seeds, long[] out) {
+    int maxLength = 0;
+    for (int i = 0; i < lanes; ++i) {
+      maxLength = Math.max(maxLength, lengths[i]);
+    }
+    for (int i = lanes; i < LANES; ++i) {
+      lengths[i] = 0;
+    }
+    int maxStripes = maxLength >>> 5;
+    if (columns.length < maxStripes * 4 * LANES) {
+      columns = new long[maxStripes * 4 * LANES];
+    }
+    transpose(lanes);
+
+    VectorMask<Long> valid = SPECIES.indexInRange(0, lanes);
+    var seed = LongVector.fromArray(SPECIES, seeds, base, valid);
+    var length = LongVector.fromArray(SPECIES, widths, 0);
+    var stripes = length.lanewise(LSHR, 5);
+
+    var v1 = seed.add(PRIME64_1 + PRIME64_2);
+    var v2 = seed.add(PRIME64_2);
+    var v3 = seed;
+    var v4 = seed.sub(PRIME64_1);
+    for (int stripe = 0; stripe < maxStripes; ++stripe) {
+      var active = stripes.compare(GT, stripe);
+      int row = stripe * 4 * LANES;
+      v1 = v1.blend(round(v1, LongVector.fromArray(SPECIES, columns, row)), active);
+      v2 = v2.blend(round(v2, LongVector.fromArray(SPECIES, columns, row + LANES)), active);
+      v3 = v3.blend(round(v3, LongVector.fromArray(SPECIES, columns, row + 2 * LANES)), active);
+      v4 = v4.blend(round(v4, LongVector.fromArray(SPECIES, columns, row + 3 * LANES)), active);
+    }
+    var converged = v1.lanewise(ROL, 1)
+            .add(v2.lanewise(ROL, 7))
+            .add(v3.lanewise(ROL, 12))
+            .add(v4.lanewise(ROL, 18));
+    converged = mergeRound(converged, v1);
+    converged = mergeRound(converged, v2);
+    converged = mergeRound(converged, v3);
+    converged = mergeRound(converged, v4);
+    var hash = seed.add(PRIME64_5).blend(converged, stripes.compare(GT, 0)).add(length);
+
+    var tail = length.and(31);
+    for (int word = 0; word < 3; ++word) {
+      var active = tail.compare(GE, 8 * (word + 1));
+      if (!active.anyTrue()) {
+        break;
+      }
+      var input = LongVector.fromArray(SPECIES, tails, word * LANES);
+      var mixed = hash.lanewise(XOR, round(LongVector.zero(SPECIES), input))
+              .lanewise(ROL, 27).mul(PRIME64_1).add(PRIME64_4);
+      hash = hash.blend(mixed, active);
+    }
+
+    var active = length.and(7).compare(GE, 4);
+    if (active.anyTrue()) {
+      var input = LongVector.fromArray(SPECIES, ints, 0);
+      var mixed = hash.lanewise(XOR, input.mul(PRIME64_1))
+              .lanewise(ROL, 23).mul(PRIME64_2).add(PRIME64_3);
+      hash = hash.blend(mixed, active);
+    }
+
+    var bytes = length.and(3);
+    var last = LongVector.fromArray(SPECIES, this.last, 0);
+    for (int b = 0; b < 3; ++b) {
+      active = bytes.compare(GT, b);
+      if (!active.anyTrue()) {
+        break;
+      }
+      var input = last.lanewise(LSHR, 8 * b).and(0xFFL);
+      var mixed = hash.lanewise(XOR, input.mul(PRIME64_5)).lanewise(ROL, 11).mul(PRIME64_1);
+      hash = hash.blend(mixed, active);
+    }
+
+    hash = hash.lanewise(XOR, hash.lanewise(LSHR, 33)).mul(PRIME64_2);
+    hash = hash.lanewise(XOR, hash.lanewise(LSHR, 29)).mul(PRIME64_3);
+    hash = hash.lanewise(XOR, hash.lanewise(LSHR, 32));
+    hash.intoArray(out, base, valid);
+  }
+
+  private static LongVector round(LongVector acc, LongVector input) {
+    return acc.add(input.mul(PRIME64_2)).lanewise(ROL, 31).mul(PRIME64_1);
+  }
+
+  private static LongVector mergeRound(LongVector hash, LongVector acc) {
+    return hash.lanewise(XOR, round(LongVector.zero(SPECIES), acc)).mul(PRIME64_1).add(PRIME64_4);
+  }
+
+  private void transpose(int lanes) {
+    long[] columns = this.columns;
+    for (int i = 0; i < LANES; ++i) {
+      widths[i] = lengths[i];
+    }
+    for (int i = 0; i < lanes; ++i) {
+      byte[] source = sources[i];
+      int position = starts[i];
+      int length = lengths[i];
+      int stripeEnd = position + (length & ~31);
+      for (int index = i; position < stripeEnd; position += 8, index += LANES) {
+        columns[index] = UnsafeWrapper.getLong(source, position);
+      }
+      int wordEnd = stripeEnd + (length & 24);
+      for (int index = i; position < wordEnd; position += 8, index += LANES) {
+        tails[index] = UnsafeWrapper.getLong(source, position);
+      }
+      if ((length & 4) != 0) {
+        ints[i] = UnsafeWrapper.getInt(source, position) & 0xFFFFFFFFL;
+        position += 4;
+      }
+      long word = 0;
+      for (int shift = 0; shift < (length & 3) * 8; shift += 8) {
+        word |= (source[position++] & 0xFFL) << shift;
+      }
+      last[i] = word;
+    }
+  }
+}
@@ -0,0 +1,269 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static jdk.incubator.vector.VectorOperators.ADD;
+import static jdk.incubator.vector.VectorOperators.ZERO_EXTEND_S2I;
+
+/**
+ * The polynomial hash {@code h = 31 * h + x} of {@link java.util.Arrays#hashCode(byte[])} and
+ * {@link String#hashCode()}, with each group of elements widened to ints and multiplied by the
+ * matching powers of 31 in one go. Every method gives exactly the result of the corresponding
+ * {@code Arrays.hashCode}; buffers and segments hash like the byte array of their contents.
+ * <p>
+ * Runs on 512-bit vectors where the hardware has them, 256-bit vectors otherwise, and the scalar
+ * loop on machines narrower than that, where the vectors would be emulated.
+ */
+public class VectorHashCode implements HashCodeI, uk.co.openkappa.xxhash.MemorySegment {
+
+  private static final boolean VECTORISED = IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED.vectorBitSize() >= 512
+          ? IntVector.SPECIES_512
+          : IntVector.SPECIES_256;
+  private static final int LANES = INTS.length();
+  private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(8 * LANES));
+  private static final VectorSpecies<Short> SHORTS = VectorSpecies.of(short.class, VectorShape.forBitSize(16 * LANES));
+  // the main loop takes four vectors at a time, so that four multiplies are in flight
+  private static final int BLOCK = 4 * LANES;
+
+  // COEFFICIENTS[i] = 31^(BLOCK - 1 - i), then a vector of zeros: loading from BLOCK - r gives the
+  // coefficients of an r element tail, with zeros in the lanes past its end
+  private static final int[] COEFFICIENTS = new int[BLOCK + LANES];
+  // POWERS[i] = 31^i
+  private static final int[] POWERS = new int[BLOCK + 1];
+
+  static {
+    POWERS[0] = 1;
+    for (int i = 1; i < POWERS.length; ++i) {
+      POWERS[i] = 31 * POWERS[i - 1];
+    }
+    for (int i = 0; i < BLOCK; ++i) {
+      COEFFICIENTS[i] = POWERS[BLOCK - 1 - i];
+    }
+  }
+
+  private static final int BLOCK_POWER = POWERS[BLOCK];
+  private static final int LANES_POWER = POWERS[LANES];
+  private static final IntVector C1 = IntVector.fromArray(INTS, COEFFICIENTS, 0);
+  private static final IntVector C2 = IntVector.fromArray(INTS, COEFFICIENTS, LANES);
+  private static final IntVector C3 = IntVector.fromArray(INTS, COEFFICIENTS, 2 * LANES);
+  private static final IntVector C4 = IntVector.fromArray(INTS, COEFFICIENTS, 3 * LANES);
+
+  public int hash(byte[] data) {
+    return hash(1, data, 0, data.length);
+  }
+
+  public int hash(byte[] data, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return hash(1, data, offset, length);
+  }
+
+  public int hash(char[] data) {
+    return hash(1, data, 0, data.length);
+  }
+
+  public int hash(int[] data) {
+    return hash(1, data, 0, data.length);
+  }
+
+  /**
+   * The hash code of a String with these chars, which unlike {@code Arrays.hashCode} starts from
+   * zero.
+   */
+  public int stringHashCode(char[] data, int offset, int length) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return hash(0, data, offset, length);
+  }
+
+  /**
+   * Hashes the bytes between position and limit without moving either. This is not
+   * {@link ByteBuffer#hashCode()}, which runs over the bytes backwards.
+   */
+  @Override
+  public int hash(ByteBuffer data) {
+    if (data.hasArray()) {
+      return hash(1, data.array(), data.arrayOffset() + data.position(), data.remaining());
+    }
+    // a buffer's segment is native or over a byte[], even when a read-only one hides its array
+    return hash(1, MemorySegment.ofBuffer(data));
+  }
+
+  @Override
+  public int hash(MemorySegment data) {
+    // the vector API can only load from native segments and those over byte arrays; read-only heap
+    // segments don't show their array, so take the scalar loop too
+    if (!data.isNative() && !(data.heapBase().orElse(null) instanceof byte[])) {
+      int h = 1;
+      for (long i = 0; i < data.byteSize(); ++i) {
+        h = 31 * h + data.get(ValueLayout.JAVA_BYTE, i);
+      }
+      return h;
+    }
+    return hash(1, data);
+  }
+
+  // data must be native or over a byte[], which are the segments the vector API loads from
+  private static int hash(int h, MemorySegment data) {
+    long i = 0;
+    long end = data.byteSize();
+    if (!VECTORISED) {
+      for (; i < end; ++i) {
+        h = 31 * h + data.get(ValueLayout.JAVA_BYTE, i);
+      }
+      return h;
+    }
+    var h1 = IntVector.zero(INTS);
+    var h2 = IntVector.zero(INTS);
+    var h3 = IntVector.zero(INTS);
+    var h4 = IntVector.zero(INTS);
+    for (; i <= end - BLOCK; i += BLOCK) {
+      h *= BLOCK_POWER;
+      h1 = h1.mul(BLOCK_POWER).add(load(data, i).mul(C1));
+      h2 = h2.mul(BLOCK_POWER).add(load(data, i + LANES).mul(C2));
+      h3 = h3.mul(BLOCK_POWER).add(load(data, i + 2 * LANES).mul(C3));
+      h4 = h4.mul(BLOCK_POWER).add(load(data, i + 3 * LANES).mul(C4));
+    }
+    h += h1.add(h2).add(h3).add(h4).reduceLanes(ADD);
+    for (; i <= end - LANES; i += LANES) {
+      h = h * LANES_POWER + load(data, i).mul(C4).reduceLanes(ADD);
+    }
+    int remaining = (int) (end - i);
+    if (remaining > 0) {
+      var x = (IntVector) ByteVector.fromMemorySegment(BYTES, data, i, ByteOrder.nativeOrder(), BYTES.indexInRange(i, end))
+              .castShape(INTS, 0);
+      h = h * POWERS[remaining] + tail(x, remaining);
+    }
+    return h;
+  }
+
+  private static int hash(int h, byte[] data, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    if (!VECTORISED) {
+      for (; i < end; ++i) {
+        h = 31 * h + data[i];
+      }
+      return h;
+    }
+    var h1 = IntVector.zero(INTS);
+    var h2 = IntVector.zero(INTS);
+    var h3 = IntVector.zero(INTS);
+    var h4 = IntVector.zero(INTS);
+    for (; i <= end - BLOCK; i += BLOCK) {
+      h *= BLOCK_POWER;
+      h1 = h1.mul(BLOCK_POWER).add(load(data, i).mul(C1));
+      h2 = h2.mul(BLOCK_POWER).add(load(data, i + LANES).mul(C2));
+      h3 = h3.mul(BLOCK_POWER).add(load(data, i + 2 * LANES).mul(C3));
+      h4 = h4.mul(BLOCK_POWER).add(load(data, i + 3 * LANES).mul(C4));
+    }
+    h += h1.add(h2).add(h3).add(h4).reduceLanes(ADD);
+    for (; i <= end - LANES; i += LANES) {
+      h = h * LANES_POWER + load(data, i).mul(C4).reduceLanes(ADD);
+    }
+    int remaining = end - i;
+    if (remaining > 0) {
+      // the tail's zero coefficients cancel whatever follows the range, so only mask at the end of the array
+      var x = i + LANES <= data.length
+              ? load(data, i)
+              : ByteVector.fromArray(BYTES, data, i, BYTES.indexInRange(i, data.length)).castShape(INTS, 0);
+      h = h * POWERS[remaining] + tail((IntVector) x, remaining);
+    }
+    return h;
+  }
+
+  private static int hash(int h, char[] data, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    if (!VECTORISED) {
+      for (; i < end; ++i) {
+        h = 31 * h + data[i];
+      }
+      return h;
+    }
+    var h1 = IntVector.zero(INTS);
+    var h2 = IntVector.zero(INTS);
+    var h3 = IntVector.zero(INTS);
+    var h4 = IntVector.zero(INTS);
+    for (; i <= end - BLOCK; i += BLOCK) {
+      h *= BLOCK_POWER;
+      h1 = h1.mul(BLOCK_POWER).add(load(data, i).mul(C1));
+      h2 = h2.mul(BLOCK_POWER).add(load(data, i + LANES).mul(C2));
+      h3 = h3.mul(BLOCK_POWER).add(load(data, i + 2 * LANES).mul(C3));
+      h4 = h4.mul(BLOCK_POWER).add(load(data, i + 3 * LANES).mul(C4));
+    }
+    h += h1.add(h2).add(h3).add(h4).reduceLanes(ADD);
+    for (; i <= end - LANES; i += LANES) {
+      h = h * LANES_POWER + load(data, i).mul(C4).reduceLanes(ADD);
+    }
+    int remaining = end - i;
+    if (remaining > 0) {
+      var x = i + LANES <= data.length
+              ? load(data, i)
+              : ShortVector.fromCharArray(SHORTS, data, i, SHORTS.indexInRange(i, data.length))
+                      .convertShape(ZERO_EXTEND_S2I, INTS, 0);
+      h = h * POWERS[remaining] + tail((IntVector) x, remaining);
+    }
+    return h;
+  }
+
+  private static int hash(int h, int[] data, int offset, int length) {
+    int i = offset;
+    int end = offset + length;
+    if (!VECTORISED) {
+      for (; i < end; ++i) {
+        h = 31 * h + data[i];
+      }
+      return h;
+    }
+    var h1 = IntVector.zero(INTS);
+    var h2 = IntVector.zero(INTS);
+    var h3 = IntVector.zero(INTS);
+    var h4 = IntVector.zero(INTS);
+    for (; i <= end - BLOCK; i += BLOCK) {
+      h *= BLOCK_POWER;
+      h1 = h1.mul(BLOCK_POWER).add(IntVector.fromArray(INTS, data, i).mul(C1));
+      h2 = h2.mul(BLOCK_POWER).add(IntVector.fromArray(INTS, data, i + LANES).mul(C2));
+      h3 = h3.mul(BLOCK_POWER).add(IntVector.fromArray(INTS, data, i + 2 * LANES).mul(C3));
+      h4 = h4.mul(BLOCK_POWER).add(IntVector.fromArray(INTS, data, i + 3 * LANES).mul(C4));
+    }
+    h += h1.add(h2).add(h3).add(h4).reduceLanes(ADD);
+    for (; i <= end - LANES; i += LANES) {
+      h = h * LANES_POWER + IntVector.fromArray(INTS, data, i).mul(C4).reduceLanes(ADD);
+    }
+    int remaining = end - i;
+    if (remaining > 0) {
+      var x = i + LANES <= data.length
+              ? IntVector.fromArray(INTS, data, i)
+              : IntVector.fromArray(INTS, data, i, INTS.indexInRange(i, data.length));
+      h = h * POWERS[remaining] + tail(x, remaining);
+    }
+    return h;
+  }
+
+  private static IntVector load(byte[] data, int offset) {
+    return (IntVector) ByteVector.fromArray(BYTES, data, offset).castShape(INTS, 0);
+  }
+
+  private static IntVector load(char[] data, int offset) {
+    return (IntVector) ShortVector.fromCharArray(SHORTS, data, offset).convertShape(ZERO_EXTEND_S2I, INTS, 0);
+  }
+
+  private static IntVector load(MemorySegment data, long offset) {
+    return (IntVector) ByteVector.fromMemorySegment(BYTES, data, offset, ByteOrder.nativeOrder()).castShape(INTS, 0);
+  }
+
+  // the first remaining lanes of x as a polynomial in 31, ignoring the lanes after them
+  private static int tail(IntVector x, int remaining) {
+    return x.mul(IntVector.fromArray(INTS, COEFFICIENTS, BLOCK - remaining)).reduceLanes(ADD);
+  }
+}
@@ -0,0 +1,196 @@
+package uk.co.openkappa.xxhash;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+import static jdk.incubator.vector.VectorOperators.LSHL;
+import static jdk.incubator.vector.VectorOperators.LSHR;
+import static jdk.incubator.vector.VectorOperators.XOR;
+import static uk.co.openkappa.xxhash.Constants.PRIME1;
+import static uk.co.openkappa.xxhash.XXH3.*;
+
+/**
+ * XXH3 with the eight accumulators of inputs over 240 bytes held in vector lanes: one 512 bit
+ * vector, or two 256 bit vectors when that is the widest available. Shorter inputs, and hardware
+ * with only 128 bit vectors, use the scalar code.
+ */
+public class VectorXXHash3 extends UnsafeXXHash3 {
+
+  private static final int BITS = LongVector.SPECIES_PREFERRED.vectorBitSize();
+
+  private static final VectorSpecies<Long> L512 = LongVector.SPECIES_512;
+  private static final VectorSpecies<Byte> B512 = ByteVector.SPECIES_512;
+  private static final VectorSpecies<Long> L256 = LongVector.SPECIES_256;
+  private static final VectorSpecies<Byte> B256 = ByteVector.SPECIES_256;
+  private static final VectorShuffle<Long> SWAP512 = VectorShuffle.fromValues(L512, 1, 0, 3, 2, 5, 4, 7, 6);
+  private static final VectorShuffle<Long> SWAP256 = VectorShuffle.fromValues(L256, 1, 0, 3, 2);
+
+  // the seed is added to even words of the secret and subtracted from odd ones
+  private static final long[] SIGNS = {1, -1, 1, -1, 1, -1, 1, -1};
+  private static final int SCRAMBLE_WORD = SCRAMBLE_OFFSET >>> 3;
+  private static final int LAST_STRIPE_WORD = LAST_STRIPE_OFFSET >>> 3;
+  private static final int LAST_STRIPE_SHIFT = (LAST_STRIPE_OFFSET & 7) << 3;
+
+  @Override
+  long hashLarge(byte[] input, long offset, long length, long seed, Hash128 result) {
+    if (BITS >= 512) {
+      return hashLarge512(input, offset, length, seed, result);
+    }
+    if (BITS >= 256) {
+      return hashLarge256(input, offset, length, seed, result);
+    }
+    return super.hashLarge(input, offset, length, seed, result);
+  }
+
+  @Override
+  long hashLarge(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    // the vector API only loads from native segments and segments backed by a byte[]
+    if (!input.isNative() && !(input.heapBase().orElse(null) instanceof byte[])) {
+      return super.hashLarge(input, offset, length, seed, result);
+    }
+    if (BITS >= 512) {
+      return hashLarge512(input, offset, length, seed, result);
+    }
+    if (BITS >= 256) {
+      return hashLarge256(input, offset, length, seed, result);
+    }
+    return super.hashLarge(input, offset, length, seed, result);
+  }
+
+  private static long hashLarge512(byte[] input, long offset, long length, long seed, Hash128 result) {
+    var acc = LongVector.fromArray(L512, INIT_ACC, 0);
+    var even = LongVector.fromArray(L512, SIGNS, 0).mul(seed);
+    var signs = even;
+    long stripes = stripes(length);
+    for (long stripe = 0; stripe < stripes; ++stripe) {
+      int word = (int) (stripe % STRIPES_PER_BLOCK);
+      acc = accumulate(acc, load(L512, B512, input, offset + stripe * STRIPE_LENGTH), key(L512, word, signs), SWAP512);
+      if (word == STRIPES_PER_BLOCK - 1) {
+        acc = scramble(acc, key(L512, SCRAMBLE_WORD, signs(SCRAMBLE_WORD, even)));
+      }
+      signs = signs.neg();
+    }
+    acc = accumulate(acc, load(L512, B512, input, offset + length - STRIPE_LENGTH),
+            lastStripeKey(L512, LAST_STRIPE_WORD, even), SWAP512);
+    return BaseXXHash3.merge(acc.lane(0), acc.lane(1), acc.lane(2), acc.lane(3),
+            acc.lane(4), acc.lane(5), acc.lane(6), acc.lane(7), length, seed, result);
+  }
+
+  private static long hashLarge256(byte[] input, long offset, long length, long seed, Hash128 result) {
+    var lo = LongVector.fromArray(L256, INIT_ACC, 0);
+    var hi = LongVector.fromArray(L256, INIT_ACC, 4);
+    var even = LongVector.fromArray(L256, SIGNS, 0).mul(seed);
+    var signs = even;
+    long stripes = stripes(length);
+    for (long stripe = 0; stripe < stripes; ++stripe) {
+      int word = (int) (stripe % STRIPES_PER_BLOCK);
+      long position = offset + stripe * STRIPE_LENGTH;
+      lo = accumulate(lo, load(L256, B256, input, position), key(L256, word, signs), SWAP256);
+      hi = accumulate(hi, load(L256, B256, input, position + 32), key(L256, word + 4, signs), SWAP256);
+      if (word == STRIPES_PER_BLOCK - 1) {
+        var scrambleSigns = signs(SCRAMBLE_WORD, even);
+        lo = scramble(lo, key(L256, SCRAMBLE_WORD, scrambleSigns));
+        hi = scramble(hi, key(L256, SCRAMBLE_WORD + 4, scrambleSigns));
+      }
+      signs = signs.neg();
+    }
+    long position = offset + length - STRIPE_LENGTH;
+    lo = accumulate(lo, load(L256, B256, input, position), lastStripeKey(L256, LAST_STRIPE_WORD, even), SWAP256);
+    hi = accumulate(hi, load(L256, B256, input, position + 32), lastStripeKey(L256, LAST_STRIPE_WORD + 4, even), SWAP256);
+    return BaseXXHash3.merge(lo.lane(0), lo.lane(1), lo.lane(2), lo.lane(3),
+            hi.lane(0), hi.lane(1), hi.lane(2), hi.lane(3), length, seed, result);
+  }
+
+  private static long hashLarge512(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    var acc = LongVector.fromArray(L512, INIT_ACC, 0);
+    var even = LongVector.fromArray(L512, SIGNS, 0).mul(seed);
+    var signs = even;
+    long stripes = stripes(length);
+    for (long stripe = 0; stripe < stripes; ++stripe) {
+      int word = (int) (stripe % STRIPES_PER_BLOCK);
+      acc = accumulate(acc, load(L512, B512, input, offset + stripe * STRIPE_LENGTH), key(L512, word, signs), SWAP512);
+      if (word == STRIPES_PER_BLOCK - 1) {
+        acc = scramble(acc, key(L512, SCRAMBLE_WORD, signs(SCRAMBLE_WORD, even)));
+      }
+      signs = signs.neg();
+    }
+    acc = accumulate(acc, load(L512, B512, input, offset + length - STRIPE_LENGTH),
+            lastStripeKey(L512, LAST_STRIPE_WORD, even), SWAP512);
+    return BaseXXHash3.merge(acc.lane(0), acc.lane(1), acc.lane(2), acc.lane(3),
+            acc.lane(4), acc.lane(5), acc.lane(6), acc.lane(7), length, seed, result);
+  }
+
+  private static long hashLarge256(MemorySegment input, long offset, long length, long seed, Hash128 result) {
+    var lo = LongVector.fromArray(L256, INIT_ACC, 0);
+    var hi = LongVector.fromArray(L256, INIT_ACC, 4);
+    var even = LongVector.fromArray(L256, SIGNS, 0).mul(seed);
+    var signs = even;
+    long stripes = stripes(length);
+    for (long stripe = 0; stripe < stripes; ++stripe) {
+      int word = (int) (stripe % STRIPES_PER_BLOCK);
+      long position = offset + stripe * STRIPE_LENGTH;
+      lo = accumulate(lo, load(L256, B256, input, position), key(L256, word, signs), SWAP256);
+      hi = accumulate(hi, load(L256, B256, input, position + 32), key(L256, word + 4, signs), SWAP256);
+      if (word == STRIPES_PER_BLOCK - 1) {
+        var scrambleSigns = signs(SCRAMBLE_WORD, even);
+        lo = scramble(lo, key(L256, SCRAMBLE_WORD, scrambleSigns));
+        hi = scramble(hi, key(L256, SCRAMBLE_WORD + 4, scrambleSigns));
+      }
+      signs = signs.neg();
+    }
+    long position = offset + length - STRIPE_LENGTH;
+    lo = accumulate(lo, load(L256, B256, input, position), lastStripeKey(L256, LAST_STRIPE_WORD, even), SWAP256);
+    hi = accumulate(hi, load(L256, B256, input, position + 32), lastStripeKey(L256, LAST_STRIPE_WORD + 4, even), SWAP256);
+    return BaseXXHash3.merge(lo.lane(0), lo.lane(1), lo.lane(2), lo.lane(3),
+            hi.lane(0), hi.lane(1), hi.lane(2), hi.lane(3), length, seed, result);
+  }
+
+  // the stripes before the last one, which always ends at the last byte of the input
+  private static long stripes(long length) {
+    long blocks = (length - 1) / BLOCK_LENGTH;
+    return blocks * STRIPES_PER_BLOCK + ((length - 1) - blocks * BLOCK_LENGTH) / STRIPE_LENGTH;
+  }
+
+  private static LongVector accumulate(LongVector acc, LongVector data, LongVector key, VectorShuffle<Long> swap) {
+    var keyed = data.lanewise(XOR, key);
+    var product = keyed.and(0xFFFFFFFFL).mul(keyed.lanewise(LSHR, 32));
+    return acc.add(data.rearrange(swap)).add(product);
+  }
+
+  private static LongVector scramble(LongVector acc, LongVector key) {
+    acc = acc.lanewise(XOR, acc.lanewise(LSHR, 47));
+    acc = acc.lanewise(XOR, key);
+    return acc.mul(PRIME1 & 0xFFFFFFFFL);
+  }
+
+  // signs is the seed times the signs of the word's lanes, which alternate with the word, so the
+  // loops negate it every stripe. Keys are kept this small because C2 may decline to inline a larger
+  // helper that has already been compiled on its own, and then every vector it returns is boxed;
+  // selecting between two vectors with a branch can likewise force them into boxes
+  private static LongVector key(VectorSpecies<Long> species, int word, LongVector signs) {
+    return LongVector.fromArray(species, SECRET_WORDS, word).add(signs);
+  }
+
+  // for a constant word, which folds the branch away
+  private static LongVector signs(int word, LongVector even) {
+    return (word & 1) == 0 ? even : even.neg();
+  }
+
+  private static LongVector lastStripeKey(VectorSpecies<Long> species, int word, LongVector even) {
+    return key(species, word, signs(word, even)).lanewise(LSHR, LAST_STRIPE_SHIFT)
+            .or(key(species, word + 1, signs(word + 1, even)).lanewise(LSHL, 64 - LAST_STRIPE_SHIFT));
+  }
+
+  private static LongVector load(VectorSpecies<Long> species, VectorSpecies<Byte> bytes, byte[] input, long offset) {
+    return ByteVector.fromArray(bytes, input, (int) offset).reinterpretAsLongs();
+  }
+
+  private static LongVector load(VectorSpecies<Long> species, VectorSpecies<Byte> bytes, MemorySegment input, long offset) {
+    return LongVector.fromMemorySegment(species, input, offset, ByteOrder.LITTLE_ENDIAN);
+  }
+}
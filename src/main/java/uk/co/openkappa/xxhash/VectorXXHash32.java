@@ -1,28 +1,37 @@
 package uk.co.openkappa.xxhash;
 
+import jdk.incubator.vector.ByteVector;
 import jdk.incubator.vector.IntVector;
 import jdk.incubator.vector.VectorShape;
 import jdk.incubator.vector.VectorSpecies;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
 import static jdk.incubator.vector.VectorOperators.*;
 import static uk.co.openkappa.xxhash.Constants.*;
 import static uk.co.openkappa.xxhash.UnsafeWrapper.getInt;
 
-public class VectorXXHash32 implements Hasher32 {
+public class VectorXXHash32 implements XXH32Hasher {
 
   private static final VectorSpecies<Integer> I128 = VectorSpecies.of(int.class, VectorShape.S_128_BIT);
   private static final VectorSpecies<Byte> B128 = VectorSpecies.of(byte.class, VectorShape.S_128_BIT);
 
   private static final int[] SEEDS = {PRIME1 + PRIME2, PRIME2, 0, -PRIME1};
 
+  // segments the vector API can't load from, see VectorXXHash64.loadable, take the scalar kernel
+  private static final VarHandleXXHash32 SCALAR = new VarHandleXXHash32();
+
   @Override
-  public int hash(byte[] data, int seed) {
-    int end = data.length;
-    int offset = 0;
+  public int hash(byte[] data, int offset, int length, int seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    int end = offset + length;
     int h32;
-    if (data.length >= 16) {
+    if (length >= 16) {
       int limit = end - 16;
-      var vector = ((IntVector) I128.fromArray(SEEDS, 0)).add(seed);
+      var vector = IntVector.fromArray(I128, SEEDS, 0).add(seed);
       do {
         vector = vector.add(B128.fromArray(data, offset).reinterpretAsInts().mul(PRIME2))
                 .lanewise(ROL, 13)
@@ -38,7 +47,7 @@ public class VectorXXHash32 implements Hasher32 {
       h32 = seed + PRIME5;
     }
 
-    for(h32 += data.length; offset <= end - 4; offset += 4) {
+    for(h32 += length; offset <= end - 4; offset += 4) {
       h32 += getInt(data, offset) * PRIME3;
       h32 = Integer.rotateLeft(h32, 17) * PRIME4;
     }
@@ -56,4 +65,72 @@ public class VectorXXHash32 implements Hasher32 {
     h32 ^= h32 >>> 16;
     return h32;
   }
+
+  @Override
+  public int hash(MemorySegment data, long offset, long length, int seed) {
+    if (!VectorXXHash64.loadable(data)) {
+      return SCALAR.hash(data, offset, length, seed);
+    }
+    Objects.checkFromIndexSize(offset, length, data.byteSize());
+    long end = offset + length;
+    int h32;
+    if (length >= 16) {
+      long limit = end - 16;
+      var vector = IntVector.fromArray(I128, SEEDS, 0).add(seed);
+      do {
+        vector = vector.add(IntVector.fromMemorySegment(I128, data, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME2))
+                .lanewise(ROL, 13)
+                .mul(PRIME1);
+        offset += 16;
+      } while(offset <= limit);
+
+      h32 = XXH32.converge(vector.lane(0), vector.lane(1), vector.lane(2), vector.lane(3));
+    } else {
+      h32 = seed + PRIME5;
+    }
+
+    for(h32 += (int) length; offset <= end - 4; offset += 4) {
+      h32 += getInt(data, offset) * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    }
+
+    while(offset < end) {
+      h32 += (data.get(ValueLayout.JAVA_BYTE, offset) & 255) * PRIME5;
+      h32 = Integer.rotateLeft(h32, 11) * PRIME1;
+      ++offset;
+    }
+
+    return XXH32.avalanche(h32);
+  }
+
+  public StreamingXXHash32 newStreamingHash(int seed) {
+    return new StreamingXXHash32(seed) {
+      @Override
+      int accumulate(int[] acc, byte[] input, int offset, int end) {
+        var vector = IntVector.fromArray(I128, acc, 0);
+        for (; offset <= end - 16; offset += 16) {
+          vector = vector.add(ByteVector.fromArray(B128, input, offset).reinterpretAsInts().mul(PRIME2))
+                  .lanewise(ROL, 13)
+                  .mul(PRIME1);
+        }
+        vector.intoArray(acc, 0);
+        return offset;
+      }
+
+      @Override
+      long accumulate(int[] acc, MemorySegment input, long offset, long end) {
+        if (!VectorXXHash64.loadable(input)) {
+          return SCALAR.accumulate(acc, input, offset, end);
+        }
+        var vector = IntVector.fromArray(I128, acc, 0);
+        for (; offset <= end - 16; offset += 16) {
+          vector = vector.add(IntVector.fromMemorySegment(I128, input, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME2))
+                  .lanewise(ROL, 13)
+                  .mul(PRIME1);
+        }
+        vector.intoArray(acc, 0);
+        return offset;
+      }
+    };
+  }
 }
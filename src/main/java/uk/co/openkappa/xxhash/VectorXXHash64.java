@@ -1,110 +1,174 @@
 package uk.co.openkappa.xxhash;
 
 import jdk.incubator.vector.LongVector;
-import jdk.incubator.vector.VectorMask;
-import jdk.incubator.vector.VectorShape;
 import jdk.incubator.vector.VectorSpecies;
 
-import static java.lang.reflect.Array.getInt;
-import static java.lang.reflect.Array.getLong;
-import static jdk.incubator.vector.VectorOperators.LSHL;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
 import static jdk.incubator.vector.VectorOperators.ROL;
-import static uk.co.openkappa.xxhash.Constants.PRIME64_2;
-import static uk.co.openkappa.xxhash.Constants.PRIME64_1;
 import static uk.co.openkappa.xxhash.Constants.*;
 
-public class VectorXXHash64 implements Hasher64 {
-
-  private static final VectorSpecies<Byte> B256 = VectorSpecies.of(byte.class, VectorShape.S_256_BIT);
-  private static final VectorSpecies<Long> L256 = VectorSpecies.of(long.class, VectorShape.S_256_BIT);
-
-
-  @Override
-  public long hash(byte[] input, long seed) {
-    long hash;
-    long remaining = input.length;
-    int offset = 0;
-
-    if (remaining >= 32) {
-//      var vector = ((LongVector) L256.fromValues(PRIME64_1 + PRIME64_2, PRIME64_2, 0L, -PRIME64_1)).add(seed);
-      var vector = LongVector.fromArray(L256, new long[] {PRIME64_1 + PRIME64_2, PRIME64_2, 0L, -PRIME64_1}, 0).add(seed);
-      do {
-        vector = vector.add(B256.fromArray(input, offset).reinterpretAsLongs().mul(PRIME64_2))
-                .lanewise(ROL, 31)
-                .mul(PRIME64_1);
-        offset += 32;
-        remaining -= 32;
-      } while (remaining >= 32);
-
-      long v1 = vector.lane(0);
-      long v2 = vector.lane(1);
-      long v3 = vector.lane(2);
-      long v4 = vector.lane(3);
+/**
+ * XXH64 with the four stripe accumulators held in vector lanes. A stripe is exactly four 64 bit
+ * lanes, so the accumulators can't be spread over a wider vector: when the preferred species is
+ * 512 bits the 256 bit kernel is used (such hardware multiplies 64 bit lanes natively), and when
+ * it is 128 bits the accumulators are split over two vectors. Rounds are written out rather than
+ * called: once C2 has compiled a helper taking and returning vectors on its own, it may decline
+ * to inline it, and then every vector passed to it is boxed. Arrays are read through a segment
+ * view made in the kernel itself, so their stripes load exactly as a segment's do.
+ */
+public class VectorXXHash64 implements XXH64Hasher {
 
-      hash = Long.rotateLeft(v1, 1)
-              + Long.rotateLeft(v2, 7)
-              + Long.rotateLeft(v3, 12)
-              + Long.rotateLeft(v4, 18);
+  static final boolean WIDE = LongVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
 
-      v1 *= PRIME64_2;
-      v1 = Long.rotateLeft(v1, 31);
-      v1 *= PRIME64_1;
-      hash ^= v1;
-      hash = hash * PRIME64_1 + PRIME64_4;
+  private static final VectorSpecies<Long> L256 = LongVector.SPECIES_256;
+  private static final VectorSpecies<Long> L128 = LongVector.SPECIES_128;
 
-      v2 *= PRIME64_2;
-      v2 = Long.rotateLeft(v2, 31);
-      v2 *= PRIME64_1;
-      hash ^= v2;
-      hash = hash * PRIME64_1 + PRIME64_4;
+  private static final long[] SEEDS = {PRIME64_1 + PRIME64_2, PRIME64_2, 0L, -PRIME64_1};
 
-      v3 *= PRIME64_2;
-      v3 = Long.rotateLeft(v3, 31);
-      v3 *= PRIME64_1;
-      hash ^= v3;
-      hash = hash * PRIME64_1 + PRIME64_4;
+  // the vector API only loads from native segments and segments backed by a byte[], so any other
+  // heap segment is hashed by the scalar kernel
+  private static final VarHandleXXHash64 SCALAR = new VarHandleXXHash64();
 
-      v4 *= PRIME64_2;
-      v4 = Long.rotateLeft(v4, 31);
-      v4 *= PRIME64_1;
-      hash ^= v4;
-      hash = hash * PRIME64_1 + PRIME64_4;
+  @Override
+  public long hash(byte[] input, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, input.length);
+    var segment = MemorySegment.ofArray(input);
+    int end = offset + length;
+    long hash;
+    if (length >= 32) {
+      if (WIDE) {
+        var acc = LongVector.fromArray(L256, SEEDS, 0).add(seed);
+        do {
+          acc = acc.add(LongVector.fromMemorySegment(L256, segment, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          offset += 32;
+        } while (offset <= end - 32);
+        hash = XXH64.converge(acc.lane(0), acc.lane(1), acc.lane(2), acc.lane(3));
+      } else {
+        var lo = LongVector.fromArray(L128, SEEDS, 0).add(seed);
+        var hi = LongVector.fromArray(L128, SEEDS, 2).add(seed);
+        do {
+          lo = lo.add(LongVector.fromMemorySegment(L128, segment, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          hi = hi.add(LongVector.fromMemorySegment(L128, segment, offset + 16, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          offset += 32;
+        } while (offset <= end - 32);
+        hash = XXH64.converge(lo.lane(0), lo.lane(1), hi.lane(0), hi.lane(1));
+      }
     } else {
       hash = seed + PRIME64_5;
     }
+    return XXH64.finish(hash + length, input, offset, end - offset);
+  }
 
-    hash += input.length;
-
-    while (remaining >= 8) {
-      long k1 = getLong(input, offset);
-      k1 *= PRIME64_2;
-      k1 = Long.rotateLeft(k1, 31);
-      k1 *= PRIME64_1;
-      hash ^= k1;
-      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
-      offset += 8;
-      remaining -= 8;
+  @Override
+  public long hash(MemorySegment input, long offset, long length, long seed) {
+    if (!loadable(input)) {
+      return SCALAR.hash(input, offset, length, seed);
     }
-
-    if (remaining >= 4) {
-      hash ^= getInt(input, offset) * PRIME64_1;
-      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
-      offset += 4;
-      remaining -= 4;
+    Objects.checkFromIndexSize(offset, length, input.byteSize());
+    long end = offset + length;
+    long hash;
+    if (length >= 32) {
+      if (WIDE) {
+        var acc = LongVector.fromArray(L256, SEEDS, 0).add(seed);
+        do {
+          acc = acc.add(LongVector.fromMemorySegment(L256, input, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          offset += 32;
+        } while (offset <= end - 32);
+        hash = XXH64.converge(acc.lane(0), acc.lane(1), acc.lane(2), acc.lane(3));
+      } else {
+        var lo = LongVector.fromArray(L128, SEEDS, 0).add(seed);
+        var hi = LongVector.fromArray(L128, SEEDS, 2).add(seed);
+        do {
+          lo = lo.add(LongVector.fromMemorySegment(L128, input, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          hi = hi.add(LongVector.fromMemorySegment(L128, input, offset + 16, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                  .lanewise(ROL, 31)
+                  .mul(PRIME64_1);
+          offset += 32;
+        } while (offset <= end - 32);
+        hash = XXH64.converge(lo.lane(0), lo.lane(1), hi.lane(0), hi.lane(1));
+      }
+    } else {
+      hash = seed + PRIME64_5;
     }
+    return XXH64.finish(hash + length, input, offset, end - offset);
+  }
 
-    while (remaining != 0) {
-      hash ^= input[offset] * PRIME64_5;
-      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
-      --remaining;
-      ++offset;
-    }
+  public StreamingXXHash64 newStreamingHash(long seed) {
+    return new StreamingXXHash64(seed) {
+      @Override
+      int accumulate(long[] acc, byte[] input, int offset, int end) {
+        var segment = MemorySegment.ofArray(input);
+        if (WIDE) {
+          var vector = LongVector.fromArray(L256, acc, 0);
+          for (; offset <= end - 32; offset += 32) {
+            vector = vector.add(LongVector.fromMemorySegment(L256, segment, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+          }
+          vector.intoArray(acc, 0);
+        } else {
+          var lo = LongVector.fromArray(L128, acc, 0);
+          var hi = LongVector.fromArray(L128, acc, 2);
+          for (; offset <= end - 32; offset += 32) {
+            lo = lo.add(LongVector.fromMemorySegment(L128, segment, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+            hi = hi.add(LongVector.fromMemorySegment(L128, segment, offset + 16, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+          }
+          lo.intoArray(acc, 0);
+          hi.intoArray(acc, 2);
+        }
+        return offset;
+      }
+
+      @Override
+      long accumulate(long[] acc, MemorySegment input, long offset, long end) {
+        if (!loadable(input)) {
+          return SCALAR.accumulate(acc, input, offset, end);
+        }
+        if (WIDE) {
+          var vector = LongVector.fromArray(L256, acc, 0);
+          for (; offset <= end - 32; offset += 32) {
+            vector = vector.add(LongVector.fromMemorySegment(L256, input, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+          }
+          vector.intoArray(acc, 0);
+        } else {
+          var lo = LongVector.fromArray(L128, acc, 0);
+          var hi = LongVector.fromArray(L128, acc, 2);
+          for (; offset <= end - 32; offset += 32) {
+            lo = lo.add(LongVector.fromMemorySegment(L128, input, offset, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+            hi = hi.add(LongVector.fromMemorySegment(L128, input, offset + 16, ByteOrder.LITTLE_ENDIAN).mul(PRIME64_2))
+                    .lanewise(ROL, 31)
+                    .mul(PRIME64_1);
+          }
+          lo.intoArray(acc, 0);
+          hi.intoArray(acc, 2);
+        }
+        return offset;
+      }
+    };
+  }
 
-    hash ^= hash >>> 33;
-    hash *= PRIME64_2;
-    hash ^= hash >>> 29;
-    hash *= PRIME64_3;
-    hash ^= hash >>> 32;
-    return hash;
+  static boolean loadable(MemorySegment segment) {
+    return segment.isNative() || segment.heapBase().orElse(null) instanceof byte[];
   }
 }
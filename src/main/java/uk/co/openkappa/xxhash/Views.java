@@ -0,0 +1,50 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Each thread's view of the last buffer it hashed as a segment, and of the last segment it gave
+ * lz4-java as a buffer. Views span the whole buffer or segment, so they serve any range of it, and
+ * are made again only when a different one comes along; callers mostly hash through the same
+ * buffer again and again, and a view made per call is an allocation escape analysis can't remove
+ * once the hash is too large to inline. A thread's last buffer and segment are kept reachable
+ * until it hashes another.
+ */
+final class Views {
+
+  private static final ThreadLocal<Views> VIEWS = ThreadLocal.withInitial(Views::new);
+
+  private ByteBuffer buffer;
+  private MemorySegment bufferView;
+  private MemorySegment segment;
+  private ByteBuffer segmentView;
+
+  private Views() {
+  }
+
+  /**
+   * A segment over the buffer from index 0 to its capacity, whatever its position and limit.
+   */
+  static MemorySegment of(ByteBuffer buffer) {
+    Views views = VIEWS.get();
+    if (views.buffer != buffer) {
+      views.bufferView = MemorySegment.ofBuffer(buffer.duplicate().clear());
+      views.buffer = buffer;
+    }
+    return views.bufferView;
+  }
+
+  /**
+   * A buffer over the whole segment, which must be under 2GB, leaving the caller to check the
+   * segment is still alive before native code reads through it.
+   */
+  static ByteBuffer of(MemorySegment segment) {
+    Views views = VIEWS.get();
+    if (views.segment != segment) {
+      views.segmentView = segment.asByteBuffer();
+      views.segment = segment;
+    }
+    return views.segmentView;
+  }
+}
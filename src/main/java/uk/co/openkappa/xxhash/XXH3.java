@@ -0,0 +1,114 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+
+final class XXH3 {
+
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  static final byte[] SECRET = {
+          (byte) 0xb8, (byte) 0xfe, (byte) 0x6c, (byte) 0x39, (byte) 0x23, (byte) 0xa4, (byte) 0x4b, (byte) 0xbe,
+          (byte) 0x7c, (byte) 0x01, (byte) 0x81, (byte) 0x2c, (byte) 0xf7, (byte) 0x21, (byte) 0xad, (byte) 0x1c,
+          (byte) 0xde, (byte) 0xd4, (byte) 0x6d, (byte) 0xe9, (byte) 0x83, (byte) 0x90, (byte) 0x97, (byte) 0xdb,
+          (byte) 0x72, (byte) 0x40, (byte) 0xa4, (byte) 0xa4, (byte) 0xb7, (byte) 0xb3, (byte) 0x67, (byte) 0x1f,
+          (byte) 0xcb, (byte) 0x79, (byte) 0xe6, (byte) 0x4e, (byte) 0xcc, (byte) 0xc0, (byte) 0xe5, (byte) 0x78,
+          (byte) 0x82, (byte) 0x5a, (byte) 0xd0, (byte) 0x7d, (byte) 0xcc, (byte) 0xff, (byte) 0x72, (byte) 0x21,
+          (byte) 0xb8, (byte) 0x08, (byte) 0x46, (byte) 0x74, (byte) 0xf7, (byte) 0x43, (byte) 0x24, (byte) 0x8e,
+          (byte) 0xe0, (byte) 0x35, (byte) 0x90, (byte) 0xe6, (byte) 0x81, (byte) 0x3a, (byte) 0x26, (byte) 0x4c,
+          (byte) 0x3c, (byte) 0x28, (byte) 0x52, (byte) 0xbb, (byte) 0x91, (byte) 0xc3, (byte) 0x00, (byte) 0xcb,
+          (byte) 0x88, (byte) 0xd0, (byte) 0x65, (byte) 0x8b, (byte) 0x1b, (byte) 0x53, (byte) 0x2e, (byte) 0xa3,
+          (byte) 0x71, (byte) 0x64, (byte) 0x48, (byte) 0x97, (byte) 0xa2, (byte) 0x0d, (byte) 0xf9, (byte) 0x4e,
+          (byte) 0x38, (byte) 0x19, (byte) 0xef, (byte) 0x46, (byte) 0xa9, (byte) 0xde, (byte) 0xac, (byte) 0xd8,
+          (byte) 0xa8, (byte) 0xfa, (byte) 0x76, (byte) 0x3f, (byte) 0xe3, (byte) 0x9c, (byte) 0x34, (byte) 0x3f,
+          (byte) 0xf9, (byte) 0xdc, (byte) 0xbb, (byte) 0xc7, (byte) 0xc7, (byte) 0x0b, (byte) 0x4f, (byte) 0x1d,
+          (byte) 0x8a, (byte) 0x51, (byte) 0xe0, (byte) 0x4b, (byte) 0xcd, (byte) 0xb4, (byte) 0x59, (byte) 0x31,
+          (byte) 0xc8, (byte) 0x9f, (byte) 0x7e, (byte) 0xc9, (byte) 0xd9, (byte) 0x78, (byte) 0x73, (byte) 0x64,
+          (byte) 0xea, (byte) 0xc5, (byte) 0xac, (byte) 0x83, (byte) 0x34, (byte) 0xd3, (byte) 0xeb, (byte) 0xc3,
+          (byte) 0xc5, (byte) 0x81, (byte) 0xa0, (byte) 0xff, (byte) 0xfa, (byte) 0x13, (byte) 0x63, (byte) 0xeb,
+          (byte) 0x17, (byte) 0x0d, (byte) 0xdd, (byte) 0x51, (byte) 0xb7, (byte) 0xf0, (byte) 0xda, (byte) 0x49,
+          (byte) 0xd3, (byte) 0x16, (byte) 0x55, (byte) 0x26, (byte) 0x29, (byte) 0xd4, (byte) 0x68, (byte) 0x9e,
+          (byte) 0x2b, (byte) 0x16, (byte) 0xbe, (byte) 0x58, (byte) 0x7d, (byte) 0x47, (byte) 0xa1, (byte) 0xfc,
+          (byte) 0x8f, (byte) 0xf8, (byte) 0xb8, (byte) 0xd1, (byte) 0x7a, (byte) 0xd0, (byte) 0x31, (byte) 0xce,
+          (byte) 0x45, (byte) 0xcb, (byte) 0x3a, (byte) 0x8f, (byte) 0x95, (byte) 0x16, (byte) 0x04, (byte) 0x28,
+          (byte) 0xaf, (byte) 0xd7, (byte) 0xfb, (byte) 0xca, (byte) 0xbb, (byte) 0x4b, (byte) 0x40, (byte) 0x7e
+  };
+
+  static final long[] SECRET_WORDS = new long[SECRET.length / 8];
+
+  static final long[] INIT_ACC = {
+          PRIME3 & 0xFFFFFFFFL, PRIME64_1, PRIME64_2, PRIME64_3,
+          PRIME64_4, PRIME2 & 0xFFFFFFFFL, PRIME64_5, PRIME1 & 0xFFFFFFFFL
+  };
+
+  static final int STRIPE_LENGTH = 64;
+  static final int STRIPES_PER_BLOCK = (SECRET.length - STRIPE_LENGTH) / 8;
+  static final int BLOCK_LENGTH = STRIPE_LENGTH * STRIPES_PER_BLOCK;
+  static final int SCRAMBLE_OFFSET = SECRET.length - STRIPE_LENGTH;
+  static final int LAST_STRIPE_OFFSET = SECRET.length - STRIPE_LENGTH - 7;
+  static final int MERGE_OFFSET = 11;
+  static final int MERGE_HIGH_OFFSET = SECRET.length - STRIPE_LENGTH - MERGE_OFFSET;
+
+  static {
+    for (int i = 0; i < SECRET_WORDS.length; ++i) {
+      SECRET_WORDS[i] = secret64(i * 8);
+    }
+  }
+
+  private XXH3() {
+  }
+
+  static long secret64(int offset) {
+    return (long) LONG_HANDLE.get(SECRET, offset);
+  }
+
+  static long secret32(int offset) {
+    return (int) INT_HANDLE.get(SECRET, offset) & 0xFFFFFFFFL;
+  }
+
+  // a seeded hash of a long input uses a secret derived from the seed (XXH3_initCustomSecret):
+  // even words have the seed added, odd words have it subtracted. Deriving words on demand
+  // saves building the 192 byte secret on every call.
+  static long secretWord(int index, long seed) {
+    return SECRET_WORDS[index] + ((index & 1) == 0 ? seed : -seed);
+  }
+
+  static long secret64(int offset, long seed) {
+    int index = offset >>> 3;
+    int shift = (offset & 7) << 3;
+    long word = secretWord(index, seed);
+    return shift == 0 ? word : (word >>> shift) | (secretWord(index + 1, seed) << (64 - shift));
+  }
+
+  static long avalanche(long hash) {
+    hash ^= hash >>> 37;
+    hash *= PRIME_MX1;
+    return hash ^ (hash >>> 32);
+  }
+
+  static long rrmxmx(long hash, long length) {
+    hash ^= Long.rotateLeft(hash, 49) ^ Long.rotateLeft(hash, 24);
+    hash *= PRIME_MX2;
+    hash ^= (hash >>> 35) + length;
+    hash *= PRIME_MX2;
+    return hash ^ (hash >>> 28);
+  }
+
+  static long mul128Fold64(long lhs, long rhs) {
+    return lhs * rhs ^ Math.unsignedMultiplyHigh(lhs, rhs);
+  }
+
+  static long mergeAccs(long a0, long a1, long a2, long a3, long a4, long a5, long a6, long a7,
+                        int secretOffset, long seed, long start) {
+    long result = start;
+    result += mul128Fold64(a0 ^ secret64(secretOffset, seed), a1 ^ secret64(secretOffset + 8, seed));
+    result += mul128Fold64(a2 ^ secret64(secretOffset + 16, seed), a3 ^ secret64(secretOffset + 24, seed));
+    result += mul128Fold64(a4 ^ secret64(secretOffset + 32, seed), a5 ^ secret64(secretOffset + 40, seed));
+    result += mul128Fold64(a6 ^ secret64(secretOffset + 48, seed), a7 ^ secret64(secretOffset + 56, seed));
+    return avalanche(result);
+  }
+}
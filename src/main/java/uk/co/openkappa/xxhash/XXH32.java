@@ -0,0 +1,143 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+
+final class XXH32 {
+
+  private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private XXH32() {
+  }
+
+  static int round(int acc, int input) {
+    acc += input * PRIME2;
+    acc = Integer.rotateLeft(acc, 13);
+    return acc * PRIME1;
+  }
+
+  static int converge(int v1, int v2, int v3, int v4) {
+    return Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7) + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+  }
+
+  static int avalanche(int h32) {
+    h32 ^= h32 >>> 15;
+    h32 *= PRIME2;
+    h32 ^= h32 >>> 13;
+    h32 *= PRIME3;
+    h32 ^= h32 >>> 16;
+    return h32;
+  }
+
+  static void init(int[] acc, int seed) {
+    acc[0] = seed + PRIME1 + PRIME2;
+    acc[1] = seed + PRIME2;
+    acc[2] = seed;
+    acc[3] = seed - PRIME1;
+  }
+
+  // hashes the (< 16 byte) tail of an input, which for streaming hashes lives in a heap buffer
+  static int finish(int h32, byte[] input, int offset, int remaining) {
+    int end = offset + remaining;
+    for (; offset <= end - 4; offset += 4) {
+      h32 += (int) INT_HANDLE.get(input, offset) * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    }
+
+    while (offset < end) {
+      h32 += (input[offset] & 255) * PRIME5;
+      h32 = Integer.rotateLeft(h32, 11) * PRIME1;
+      ++offset;
+    }
+    return avalanche(h32);
+  }
+
+  // fixed width inputs, hashed exactly as their little-endian encodings would be
+
+  static int hashInt(int value, int seed) {
+    int h32 = seed + PRIME5 + 4;
+    h32 += value * PRIME3;
+    h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    return avalanche(h32);
+  }
+
+  static int hashLong(long value, int seed) {
+    int h32 = seed + PRIME5 + 8;
+    h32 += (int) value * PRIME3;
+    h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    h32 += (int) (value >>> 32) * PRIME3;
+    h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    return avalanche(h32);
+  }
+
+  // sixteen bytes are exactly one stripe
+  static int hashLongs(long first, long second, int seed) {
+    int v1 = round(seed + PRIME1 + PRIME2, (int) first);
+    int v2 = round(seed + PRIME2, (int) (first >>> 32));
+    int v3 = round(seed, (int) second);
+    int v4 = round(seed - PRIME1, (int) (second >>> 32));
+    return avalanche(converge(v1, v2, v3, v4) + 16);
+  }
+
+  static int hashIntArray(int[] input, int offset, int length, int seed) {
+    int end = offset + length;
+    int h32;
+    if (length >= 4) {
+      int v1 = seed + PRIME1 + PRIME2;
+      int v2 = seed + PRIME2;
+      int v3 = seed;
+      int v4 = seed - PRIME1;
+      do {
+        v1 = round(v1, input[offset]);
+        v2 = round(v2, input[offset + 1]);
+        v3 = round(v3, input[offset + 2]);
+        v4 = round(v4, input[offset + 3]);
+        offset += 4;
+      } while (offset <= end - 4);
+      h32 = converge(v1, v2, v3, v4);
+    } else {
+      h32 = seed + PRIME5;
+    }
+    h32 += length * 4;
+    for (; offset < end; ++offset) {
+      h32 += input[offset] * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    }
+    return avalanche(h32);
+  }
+
+  static int hashLongArray(long[] input, int offset, int length, int seed) {
+    int end = offset + length;
+    int h32;
+    if (length >= 2) {
+      int v1 = seed + PRIME1 + PRIME2;
+      int v2 = seed + PRIME2;
+      int v3 = seed;
+      int v4 = seed - PRIME1;
+      do {
+        long first = input[offset];
+        long second = input[offset + 1];
+        v1 = round(v1, (int) first);
+        v2 = round(v2, (int) (first >>> 32));
+        v3 = round(v3, (int) second);
+        v4 = round(v4, (int) (second >>> 32));
+        offset += 2;
+      } while (offset <= end - 2);
+      h32 = converge(v1, v2, v3, v4);
+    } else {
+      h32 = seed + PRIME5;
+    }
+    h32 += length * 8;
+    if (offset < end) {
+      long value = input[offset];
+      h32 += (int) value * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+      h32 += (int) (value >>> 32) * PRIME3;
+      h32 = Integer.rotateLeft(h32, 17) * PRIME4;
+    }
+    return avalanche(h32);
+  }
+}
@@ -0,0 +1,37 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.Objects;
+
+/**
+ * The fixed width hashes every XXH32 engine gives, whichever way it reads bytes, kept here once
+ * rather than in each engine.
+ */
+interface XXH32Hasher extends Hasher32 {
+
+  @Override
+  default int hashInt(int value, int seed) {
+    return XXH32.hashInt(value, seed);
+  }
+
+  @Override
+  default int hashLong(long value, int seed) {
+    return XXH32.hashLong(value, seed);
+  }
+
+  @Override
+  default int hashLongs(long first, long second, int seed) {
+    return XXH32.hashLongs(first, second, seed);
+  }
+
+  @Override
+  default int hashLongArray(long[] data, int offset, int length, int seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return XXH32.hashLongArray(data, offset, length, seed);
+  }
+
+  @Override
+  default int hashIntArray(int[] data, int offset, int length, int seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return XXH32.hashIntArray(data, offset, length, seed);
+  }
+}
@@ -0,0 +1,242 @@
+package uk.co.openkappa.xxhash;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+import static uk.co.openkappa.xxhash.Constants.*;
+
+final class XXH64 {
+
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_HANDLE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private XXH64() {
+  }
+
+  static long round(long acc, long input) {
+    acc += input * PRIME64_2;
+    acc = Long.rotateLeft(acc, 31);
+    return acc * PRIME64_1;
+  }
+
+  static long mergeRound(long hash, long acc) {
+    hash ^= round(0, acc);
+    return hash * PRIME64_1 + PRIME64_4;
+  }
+
+  static long converge(long v1, long v2, long v3, long v4) {
+    long hash = Long.rotateLeft(v1, 1)
+            + Long.rotateLeft(v2, 7)
+            + Long.rotateLeft(v3, 12)
+            + Long.rotateLeft(v4, 18);
+    hash = mergeRound(hash, v1);
+    hash = mergeRound(hash, v2);
+    hash = mergeRound(hash, v3);
+    return mergeRound(hash, v4);
+  }
+
+  static long avalanche(long hash) {
+    hash ^= hash >>> 33;
+    hash *= PRIME64_2;
+    hash ^= hash >>> 29;
+    hash *= PRIME64_3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  static void init(long[] acc, long seed) {
+    acc[0] = seed + PRIME64_1 + PRIME64_2;
+    acc[1] = seed + PRIME64_2;
+    acc[2] = seed;
+    acc[3] = seed - PRIME64_1;
+  }
+
+  // hashes the (< 32 byte) tail of an input, for engines which have no getters of their own
+  static long finish(long hash, byte[] input, int offset, int remaining) {
+    while (remaining >= 8) {
+      hash ^= round(0, (long) LONG_HANDLE.get(input, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      offset += 8;
+      remaining -= 8;
+    }
+
+    if (remaining >= 4) {
+      hash ^= ((int) INT_HANDLE.get(input, offset) & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 4;
+      remaining -= 4;
+    }
+
+    while (remaining != 0) {
+      hash ^= (input[offset] & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      --remaining;
+      ++offset;
+    }
+    return avalanche(hash);
+  }
+
+  static long finish(long hash, MemorySegment input, long offset, long remaining) {
+    while (remaining >= 8) {
+      hash ^= round(0, input.get(LONG_LE, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+      offset += 8;
+      remaining -= 8;
+    }
+
+    if (remaining >= 4) {
+      hash ^= (input.get(INT_LE, offset) & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 4;
+      remaining -= 4;
+    }
+
+    while (remaining != 0) {
+      hash ^= (input.get(ValueLayout.JAVA_BYTE, offset) & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      --remaining;
+      ++offset;
+    }
+    return avalanche(hash);
+  }
+
+  // fixed width inputs, hashed exactly as their little-endian encodings would be
+
+  static long hashInt(int value, long seed) {
+    long hash = seed + PRIME64_5 + 4;
+    hash ^= (value & 0xFFFFFFFFL) * PRIME64_1;
+    hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+    return avalanche(hash);
+  }
+
+  static long hashLong(long value, long seed) {
+    long hash = seed + PRIME64_5 + 8;
+    hash ^= round(0, value);
+    hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    return avalanche(hash);
+  }
+
+  static long hashLongs(long first, long second, long seed) {
+    long hash = seed + PRIME64_5 + 16;
+    hash ^= round(0, first);
+    hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    hash ^= round(0, second);
+    hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    return avalanche(hash);
+  }
+
+  static long hashLongArray(long[] input, int offset, int length, long seed) {
+    int end = offset + length;
+    long hash;
+    if (length >= 4) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+      do {
+        v1 = round(v1, input[offset]);
+        v2 = round(v2, input[offset + 1]);
+        v3 = round(v3, input[offset + 2]);
+        v4 = round(v4, input[offset + 3]);
+        offset += 4;
+      } while (offset <= end - 4);
+      hash = converge(v1, v2, v3, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
+    hash += (long) length * 8;
+    for (; offset < end; ++offset) {
+      hash ^= round(0, input[offset]);
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    }
+    return avalanche(hash);
+  }
+
+  static long hashIntArray(int[] input, int offset, int length, long seed) {
+    int end = offset + length;
+    long hash;
+    if (length >= 8) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+      do {
+        v1 = round(v1, pair(input[offset], input[offset + 1]));
+        v2 = round(v2, pair(input[offset + 2], input[offset + 3]));
+        v3 = round(v3, pair(input[offset + 4], input[offset + 5]));
+        v4 = round(v4, pair(input[offset + 6], input[offset + 7]));
+        offset += 8;
+      } while (offset <= end - 8);
+      hash = converge(v1, v2, v3, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
+    hash += (long) length * 4;
+    for (; offset <= end - 2; offset += 2) {
+      hash ^= round(0, pair(input[offset], input[offset + 1]));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    }
+    if (offset < end) {
+      hash ^= (input[offset] & 0xFFFFFFFFL) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+    }
+    return avalanche(hash);
+  }
+
+  private static long pair(int low, int high) {
+    return (low & 0xFFFFFFFFL) | ((long) high << 32);
+  }
+
+  // the UTF-16LE encoding of any char sequence
+  static long hashCharsAsUtf16(CharSequence input, long seed) {
+    int chars = input.length();
+    int offset = 0;
+    long hash;
+    if (chars >= 16) {
+      long v1 = seed + PRIME64_1 + PRIME64_2;
+      long v2 = seed + PRIME64_2;
+      long v3 = seed;
+      long v4 = seed - PRIME64_1;
+      do {
+        v1 = round(v1, quad(input, offset));
+        v2 = round(v2, quad(input, offset + 4));
+        v3 = round(v3, quad(input, offset + 8));
+        v4 = round(v4, quad(input, offset + 12));
+        offset += 16;
+      } while (offset <= chars - 16);
+      hash = converge(v1, v2, v3, v4);
+    } else {
+      hash = seed + PRIME64_5;
+    }
+    hash += 2L * chars;
+    for (; offset <= chars - 4; offset += 4) {
+      hash ^= round(0, quad(input, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    }
+    if (offset <= chars - 2) {
+      hash ^= ((long) input.charAt(offset) | (long) input.charAt(offset + 1) << 16) * PRIME64_1;
+      hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+      offset += 2;
+    }
+    if (offset < chars) {
+      char c = input.charAt(offset);
+      hash ^= (c & 0xFFL) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+      hash ^= (c >>> 8) * PRIME64_5;
+      hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+    }
+    return avalanche(hash);
+  }
+
+  private static long quad(CharSequence input, int offset) {
+    return (long) input.charAt(offset)
+            | (long) input.charAt(offset + 1) << 16
+            | (long) input.charAt(offset + 2) << 32
+            | (long) input.charAt(offset + 3) << 48;
+  }
+}
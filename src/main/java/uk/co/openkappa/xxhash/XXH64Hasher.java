@@ -0,0 +1,48 @@
+package uk.co.openkappa.xxhash;
+
+import java.util.Objects;
+
+/**
+ * The fixed width and string hashes every XXH64 engine gives, whichever way it reads bytes, kept
+ * here once rather than in each engine. Other {@link Hasher64}s, such as XXH3, define their own.
+ */
+interface XXH64Hasher extends Hasher64 {
+
+  @Override
+  default long hashInt(int value, long seed) {
+    return XXH64.hashInt(value, seed);
+  }
+
+  @Override
+  default long hashLong(long value, long seed) {
+    return XXH64.hashLong(value, seed);
+  }
+
+  @Override
+  default long hashLongs(long first, long second, long seed) {
+    return XXH64.hashLongs(first, second, seed);
+  }
+
+  @Override
+  default long hashLongArray(long[] data, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return XXH64.hashLongArray(data, offset, length, seed);
+  }
+
+  @Override
+  default long hashIntArray(int[] data, int offset, int length, long seed) {
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return XXH64.hashIntArray(data, offset, length, seed);
+  }
+
+  @Override
+  default long hashChars(CharSequence chars, long seed) {
+    return Strings.hashChars(chars, seed);
+  }
+
+  // the UTF-8 length is only known once encoded, and the encoding is then hashed as an array
+  @Override
+  default long hashString(String string, long seed) {
+    return Strings.hashUtf8(this, string, seed);
+  }
+}
@@ -0,0 +1,127 @@
+package uk.co.openkappa.xxhash;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.zip.Checksum;
+
+/**
+ * A {@link Checksum} over a streaming XXH32 or XXH64, so either can stand in for a CRC32, e.g. in
+ * {@link java.util.zip.CheckedOutputStream}. {@link #getValue()} is the digest so far, XXH32's zero
+ * extended, and {@link #reset()} goes back to the seed the checksum was created with. Buffers,
+ * direct ones included, are hashed in place, where {@link Checksum}'s default copies them out.
+ * Updates never allocate, except the first through each direct or read-only buffer. Not thread safe.
+ */
+public abstract class XXHashChecksum implements Checksum {
+
+  private final byte[] single = new byte[1];
+
+  XXHashChecksum() {
+  }
+
+  public static XXHashChecksum xxh32(int seed) {
+    return xxh32(Engine.UNSAFE.isAvailable() ? new UnsafeXXHash32()::newStreamingHash
+            : new VarHandleXXHash32()::newStreamingHash, seed);
+  }
+
+  /**
+   * A checksum over the streaming hash of an engine, e.g. {@code new VectorXXHash32()::newStreamingHash}.
+   */
+  public static XXHashChecksum xxh32(IntFunction<StreamingXXHash32> engine, int seed) {
+    return new XXH32Checksum(engine.apply(seed), seed);
+  }
+
+  public static XXHashChecksum xxh64(long seed) {
+    return xxh64(Engine.UNSAFE.isAvailable() ? new UnsafeXXHash64()::newStreamingHash
+            : new VarHandleXXHash64()::newStreamingHash, seed);
+  }
+
+  public static XXHashChecksum xxh64(LongFunction<StreamingXXHash64> engine, long seed) {
+    return new XXH64Checksum(engine.apply(seed), seed);
+  }
+
+  @Override
+  public void update(int b) {
+    single[0] = (byte) b;
+    update(single, 0, 1);
+  }
+
+  /**
+   * Consumes the buffer's remaining bytes, leaving its position at its limit.
+   */
+  @Override
+  public abstract void update(ByteBuffer buffer);
+
+  /**
+   * Hashes the bytes of the buffer from start up to its position, which a read or write has just
+   * moved past them, leaving the buffer as it was.
+   */
+  void updateBefore(ByteBuffer buffer, int start) {
+    int limit = buffer.limit();
+    buffer.limit(buffer.position()).position(start);
+    update(buffer);
+    buffer.limit(limit);
+  }
+
+  private static final class XXH32Checksum extends XXHashChecksum {
+
+    private final StreamingXXHash32 hash;
+    private final int seed;
+
+    XXH32Checksum(StreamingXXHash32 hash, int seed) {
+      this.hash = hash;
+      this.seed = seed;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+      hash.update(b, off, len);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+      hash.update(buffer);
+    }
+
+    @Override
+    public long getValue() {
+      return hash.digest() & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+      hash.reset(seed);
+    }
+  }
+
+  private static final class XXH64Checksum extends XXHashChecksum {
+
+    private final StreamingXXHash64 hash;
+    private final long seed;
+
+    XXH64Checksum(StreamingXXHash64 hash, long seed) {
+      this.hash = hash;
+      this.seed = seed;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+      hash.update(b, off, len);
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+      hash.update(buffer);
+    }
+
+    @Override
+    public long getValue() {
+      return hash.digest();
+    }
+
+    @Override
+    public void reset() {
+      hash.reset(seed);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Hashes the bytes read through it as they pass, like {@link java.util.zip.CheckedInputStream}.
+ * Skipped bytes are read and hashed too, so the checksum covers the whole stream, and marks aren't
+ * supported, since bytes can't be unhashed.
+ */
+public class XXHashInputStream extends FilterInputStream {
+
+  private final XXHashChecksum checksum;
+  private byte[] skipped;
+
+  public XXHashInputStream(InputStream in, XXHashChecksum checksum) {
+    super(in);
+    this.checksum = checksum;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = in.read();
+    if (b != -1) {
+      checksum.update(b);
+    }
+    return b;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int read = in.read(b, off, len);
+    if (read > 0) {
+      checksum.update(b, off, read);
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    if (skipped == null) {
+      skipped = new byte[512];
+    }
+    long total = 0;
+    while (total < n) {
+      int read = read(skipped, 0, (int) Math.min(skipped.length, n - total));
+      if (read < 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+  }
+
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("mark/reset not supported");
+  }
+
+  public XXHashChecksum getChecksum() {
+    return checksum;
+  }
+}
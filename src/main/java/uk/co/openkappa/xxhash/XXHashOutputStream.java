@@ -0,0 +1,35 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Hashes the bytes written through it as they pass, like {@link java.util.zip.CheckedOutputStream}.
+ * Arrays go to the underlying stream whole and are hashed where they are, with no copy.
+ */
+public class XXHashOutputStream extends FilterOutputStream {
+
+  private final XXHashChecksum checksum;
+
+  public XXHashOutputStream(OutputStream out, XXHashChecksum checksum) {
+    super(out);
+    this.checksum = checksum;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    out.write(b);
+    checksum.update(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    checksum.update(b, off, len);
+  }
+
+  public XXHashChecksum getChecksum() {
+    return checksum;
+  }
+}
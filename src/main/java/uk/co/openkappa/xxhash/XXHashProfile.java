@@ -0,0 +1,345 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The engine to use for each length bucket, for XXH32 and XXH64. Profiles come from the built in
+ * defaults, a timing run on this machine, or a properties file saved from an earlier timing run.
+ */
+public final class XXHashProfile {
+
+  public static final int TINY_LIMIT = 16;
+  public static final int SMALL_LIMIT = 64;
+  public static final int MEDIUM_LIMIT = 256;
+
+  static final int BUCKETS = 4;
+  private static final String[] BUCKET_NAMES = {"tiny", "small", "medium", "large"};
+  // the input length each bucket is timed with
+  private static final int[] SAMPLE_LENGTHS = {8, 32, 128, 1024};
+  private static final int BATCH = 1000;
+  // each engine's best of this many timings, so no engine is judged only by its place in the order
+  private static final int ROUNDS = 3;
+  // keeps the timed hashes observable so they aren't eliminated
+  private static volatile long SINK;
+
+  // in order of preference, from results.csv; the first available engine wins
+  private static final Engine[][] DEFAULTS_32 = {
+          {Engine.VECTOR, Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.VAR_HANDLE, Engine.JNI}
+  };
+  private static final Engine[][] DEFAULTS_64 = {
+          {Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.VAR_HANDLE},
+          {Engine.UNSAFE, Engine.JNI, Engine.VAR_HANDLE}
+  };
+
+  private final Engine[] xxh32;
+  private final Engine[] xxh64;
+
+  private XXHashProfile(Engine[] xxh32, Engine[] xxh64) {
+    this.xxh32 = xxh32;
+    this.xxh64 = xxh64;
+  }
+
+  public static XXHashProfile defaults() {
+    Engine[] xxh32 = new Engine[BUCKETS];
+    Engine[] xxh64 = new Engine[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      xxh32[bucket] = firstAvailable(DEFAULTS_32[bucket]);
+      xxh64[bucket] = firstAvailable(DEFAULTS_64[bucket]);
+    }
+    return new XXHashProfile(xxh32, xxh64);
+  }
+
+  /**
+   * Times every available engine on one input length per bucket and keeps the fastest. This
+   * runs each engine for roughly {@code millisPerEngine} per bucket, split over a few rounds which
+   * visit the engines in a random order, so it is meant for startup or for producing a profile to
+   * {@link #store}, and is only as good as the JIT state at the time it runs.
+   */
+  public static XXHashProfile calibrate(long millisPerEngine) {
+    List<Engine> engines = new ArrayList<>();
+    for (Engine engine : Engine.values()) {
+      if (engine.isAvailable()) {
+        engines.add(engine);
+      }
+    }
+    Batch[] batches32 = new Batch[Engine.values().length];
+    Batch[] batches64 = new Batch[Engine.values().length];
+    for (Engine engine : engines) {
+      batches32[engine.ordinal()] = batch32(engine);
+      batches64[engine.ordinal()] = batch64(engine);
+    }
+    Engine[] xxh32 = new Engine[BUCKETS];
+    Engine[] xxh64 = new Engine[BUCKETS];
+    long budget = millisPerEngine * 1_000_000L / ROUNDS;
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      byte[] data = BenchmarkUtils.newByteArray(SAMPLE_LENGTHS[bucket]);
+      double[] times32 = new double[batches32.length];
+      double[] times64 = new double[batches64.length];
+      Arrays.fill(times32, Double.MAX_VALUE);
+      Arrays.fill(times64, Double.MAX_VALUE);
+      for (int round = 0; round < ROUNDS; ++round) {
+        Collections.shuffle(engines);
+        for (Engine engine : engines) {
+          int i = engine.ordinal();
+          times32[i] = Math.min(times32[i], time(batches32[i], data, budget));
+          times64[i] = Math.min(times64[i], time(batches64[i], data, budget));
+        }
+      }
+      double best32 = Double.MAX_VALUE;
+      double best64 = Double.MAX_VALUE;
+      for (Engine engine : engines) {
+        if (times32[engine.ordinal()] < best32) {
+          best32 = times32[engine.ordinal()];
+          xxh32[bucket] = engine;
+        }
+        if (times64[engine.ordinal()] < best64) {
+          best64 = times64[engine.ordinal()];
+          xxh64[bucket] = engine;
+        }
+      }
+    }
+    return new XXHashProfile(xxh32, xxh64);
+  }
+
+  /**
+   * Reads a profile written by {@link #store}. Buckets which are missing, or which name an engine
+   * not available in this JVM, keep their defaults.
+   */
+  public static XXHashProfile load(Path path) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path)) {
+      properties.load(reader);
+    }
+    XXHashProfile profile = defaults();
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      profile.xxh32[bucket] = parse(properties.getProperty("xxh32." + BUCKET_NAMES[bucket]), profile.xxh32[bucket]);
+      profile.xxh64[bucket] = parse(properties.getProperty("xxh64." + BUCKET_NAMES[bucket]), profile.xxh64[bucket]);
+    }
+    return profile;
+  }
+
+  public void store(Path path) throws IOException {
+    Properties properties = new Properties();
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      properties.setProperty("xxh32." + BUCKET_NAMES[bucket], xxh32[bucket].name());
+      properties.setProperty("xxh64." + BUCKET_NAMES[bucket], xxh64[bucket].name());
+    }
+    try (Writer writer = Files.newBufferedWriter(path)) {
+      properties.store(writer, "xxhash engines by input length: tiny < " + TINY_LIMIT
+              + " <= small < " + SMALL_LIMIT + " <= medium < " + MEDIUM_LIMIT + " <= large");
+    }
+  }
+
+  public Engine engine32(int bucket) {
+    return xxh32[bucket];
+  }
+
+  public Engine engine64(int bucket) {
+    return xxh64[bucket];
+  }
+
+  /**
+   * A hasher which dispatches on input length, or the engine itself when one engine won every
+   * bucket. Buckets won by the same engine share an instance.
+   */
+  public Hasher32 hasher32() {
+    Hasher32[] hashers = new Hasher32[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      int same = Arrays.asList(xxh32).indexOf(xxh32[bucket]);
+      hashers[bucket] = same < bucket ? hashers[same] : xxh32[bucket].hasher32();
+    }
+    if (hashers[0] == hashers[1] && hashers[1] == hashers[2] && hashers[2] == hashers[3]) {
+      return hashers[0];
+    }
+    return new BucketedHasher32(hashers[0], hashers[1], hashers[2], hashers[3]);
+  }
+
+  public Hasher64 hasher64() {
+    Hasher64[] hashers = new Hasher64[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+      int same = Arrays.asList(xxh64).indexOf(xxh64[bucket]);
+      hashers[bucket] = same < bucket ? hashers[same] : xxh64[bucket].hasher64();
+    }
+    if (hashers[0] == hashers[1] && hashers[1] == hashers[2] && hashers[2] == hashers[3]) {
+      return hashers[0];
+    }
+    return new BucketedHasher64(hashers[0], hashers[1], hashers[2], hashers[3]);
+  }
+
+  @Override
+  public String toString() {
+    return "xxh32=" + Arrays.toString(xxh32) + ", xxh64=" + Arrays.toString(xxh64);
+  }
+
+  private static Engine firstAvailable(Engine[] preferences) {
+    for (Engine engine : preferences) {
+      if (engine.isAvailable()) {
+        return engine;
+      }
+    }
+    return Engine.NO_SWAR;
+  }
+
+  private static Engine parse(String name, Engine fallback) {
+    if (name == null) {
+      return fallback;
+    }
+    try {
+      Engine engine = Engine.valueOf(name.trim());
+      return engine.isAvailable() ? engine : fallback;
+    } catch (IllegalArgumentException e) {
+      return fallback;
+    }
+  }
+
+  // BATCH hashes of the data, each with a different seed; every engine has its own lambda, so the
+  // hash call inside each stays monomorphic, where one loop shared by all engines would turn
+  // megamorphic after the first and handicap the engines timed after it
+  private interface Batch {
+    long run(byte[] data);
+  }
+
+  private static Batch batch32(Engine engine) {
+    return switch (engine) {
+      case NO_SWAR -> {
+        NoSWARXXHash32 hasher = new NoSWARXXHash32();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case UNSAFE -> {
+        UnsafeXXHash32 hasher = new UnsafeXXHash32();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case VAR_HANDLE -> {
+        VarHandleXXHash32 hasher = new VarHandleXXHash32();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case JNI -> {
+        JNIXXHash32 hasher = new JNIXXHash32();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case VECTOR -> {
+        VectorXXHash32 hasher = new VectorXXHash32();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+    };
+  }
+
+  private static Batch batch64(Engine engine) {
+    return switch (engine) {
+      case NO_SWAR -> {
+        NoSWARXXHash64 hasher = new NoSWARXXHash64();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case UNSAFE -> {
+        UnsafeXXHash64 hasher = new UnsafeXXHash64();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case VAR_HANDLE -> {
+        VarHandleXXHash64 hasher = new VarHandleXXHash64();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case JNI -> {
+        JNIXXHash64 hasher = new JNIXXHash64();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+      case VECTOR -> {
+        VectorXXHash64 hasher = new VectorXXHash64();
+        yield data -> {
+          long sink = 0;
+          for (int i = 0; i < BATCH; ++i) {
+            sink += hasher.hash(data, i);
+          }
+          return sink;
+        };
+      }
+    };
+  }
+
+  // nanoseconds per hash over the second half of the budget, the first half being warmup; at
+  // least one batch is always timed, so every available engine gets a finite time
+  private static double time(Batch batch, byte[] data, long budget) {
+    long sink = 0;
+    long start = System.nanoTime();
+    do {
+      sink += batch.run(data);
+    } while (System.nanoTime() - start < budget / 2);
+    long measuredStart = System.nanoTime();
+    long count = 0;
+    long now;
+    do {
+      sink += batch.run(data);
+      count += BATCH;
+      now = System.nanoTime();
+    } while (now - start < budget);
+    SINK ^= sink;
+    return (double) (now - measuredStart) / count;
+  }
+}
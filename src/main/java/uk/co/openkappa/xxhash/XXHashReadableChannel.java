@@ -0,0 +1,43 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Hashes the bytes read through it, in the caller's buffer, direct or not, with no copy.
+ */
+public class XXHashReadableChannel implements ReadableByteChannel {
+
+  private final ReadableByteChannel channel;
+  private final XXHashChecksum checksum;
+
+  public XXHashReadableChannel(ReadableByteChannel channel, XXHashChecksum checksum) {
+    this.channel = channel;
+    this.checksum = checksum;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    int start = dst.position();
+    int read = channel.read(dst);
+    if (read > 0) {
+      checksum.updateBefore(dst, start);
+    }
+    return read;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  public XXHashChecksum getChecksum() {
+    return checksum;
+  }
+}
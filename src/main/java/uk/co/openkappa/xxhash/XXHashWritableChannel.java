@@ -0,0 +1,45 @@
+package uk.co.openkappa.xxhash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Hashes the bytes written through it, once the underlying channel has taken them, so a partial
+ * write hashes only what was written. They are hashed in the caller's buffer, direct or not, with
+ * no copy.
+ */
+public class XXHashWritableChannel implements WritableByteChannel {
+
+  private final WritableByteChannel channel;
+  private final XXHashChecksum checksum;
+
+  public XXHashWritableChannel(WritableByteChannel channel, XXHashChecksum checksum) {
+    this.channel = channel;
+    this.checksum = checksum;
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    int start = src.position();
+    int written = channel.write(src);
+    if (written > 0) {
+      checksum.updateBefore(src, start);
+    }
+    return written;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  public XXHashChecksum getChecksum() {
+    return checksum;
+  }
+}
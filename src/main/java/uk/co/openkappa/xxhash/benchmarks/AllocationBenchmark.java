@@ -0,0 +1,76 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import uk.co.openkappa.xxhash.Hash128;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// the XXHashBenchmark hashes, to run under -prof gc, or run main which adds the profiler and
+// prints the bytes allocated per call; direct buffers and lz4-java's segments pay for a view
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class AllocationBenchmark {
+
+  @Benchmark
+  public long xxhash64(XXHash64State state) {
+    return state.hash(0L);
+  }
+
+  @Benchmark
+  public long xxhash32(XXHash32State state) {
+    return state.hash(0);
+  }
+
+  @Benchmark
+  public long xxh3(XXHash3State state) {
+    return state.hash(0L);
+  }
+
+  @Benchmark
+  public Hash128 xxh128(XXHash128State state) {
+    return state.hasher.hash(state.data, 0L, state.result);
+  }
+
+  /**
+   * Runs the suite with the GC profiler and prints the bytes allocated per call, marking any which
+   * allocate. Other JMH options, such as -p impl=VECTOR, are passed on.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    var run = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .include(AllocationBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+    List<String> rows = new ArrayList<>();
+    for (RunResult result : new Runner(run).run()) {
+      var params = result.getParams();
+      double allocated = Double.NaN;
+      for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+        if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+          allocated = secondary.getValue().getScore();
+        }
+      }
+      String layout = params.getParam("layout");
+      rows.add(String.format("%-9s %-10s %-13s %6s %10.1f%s",
+              params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+              params.getParam("impl"), layout == null ? "ARRAY" : layout, params.getParam("size"),
+              allocated, allocated >= 1 ? "  *" : ""));
+    }
+    System.out.printf("%n%-9s %-10s %-13s %6s %10s%n", "hash", "impl", "layout", "size", "B/op");
+    rows.forEach(System.out::println);
+  }
+}
@@ -0,0 +1,55 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// scores are keys hashed per microsecond
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+@OperationsPerInvocation(BatchState.KEYS)
+public class BatchBenchmark {
+
+  @Benchmark
+  public int[] loop32(BatchState state) {
+    for (int i = 0; i < BatchState.KEYS; ++i) {
+      state.out32[i] = state.scalar32.hash(state.keys[i], state.seeds32[i]);
+    }
+    return state.out32;
+  }
+
+  @Benchmark
+  public int[] batch32(BatchState state) {
+    state.batch32.hashBatch(state.keys, state.seeds32, state.out32);
+    return state.out32;
+  }
+
+  @Benchmark
+  public int[] packedBatch32(BatchState state) {
+    state.batch32.hashBatch(state.packed, state.offsets, state.seeds32, state.out32);
+    return state.out32;
+  }
+
+  @Benchmark
+  public long[] loop64(BatchState state) {
+    for (int i = 0; i < BatchState.KEYS; ++i) {
+      state.out64[i] = state.scalar64.hash(state.keys[i], state.seeds64[i]);
+    }
+    return state.out64;
+  }
+
+  @Benchmark
+  public long[] batch64(BatchState state) {
+    state.batch64.hashBatch(state.keys, state.seeds64, state.out64);
+    return state.out64;
+  }
+
+  @Benchmark
+  public long[] packedBatch64(BatchState state) {
+    state.batch64.hashBatch(state.packed, state.offsets, state.seeds64, state.out64);
+    return state.out64;
+  }
+}
@@ -0,0 +1,55 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class BatchState {
+
+  static final int KEYS = 1024;
+
+  // keys are exactly this long, or when mixed uniformly distributed in [1, size]
+  @Param({"4", "8", "16", "25", "50", "100"})
+  int size;
+
+  @Param({"false", "true"})
+  boolean mixed;
+
+  byte[][] keys;
+  byte[] packed;
+  int[] offsets;
+  int[] seeds32;
+  long[] seeds64;
+  int[] out32;
+  long[] out64;
+
+  UnsafeXXHash32 scalar32;
+  UnsafeXXHash64 scalar64;
+  VectorBatchXXHash32 batch32;
+  VectorBatchXXHash64 batch64;
+
+  @Setup(Level.Trial)
+  public void init() {
+    var random = new SplittableRandom(size);
+    keys = new byte[KEYS][];
+    offsets = new int[KEYS + 1];
+    for (int i = 0; i < KEYS; ++i) {
+      keys[i] = BenchmarkUtils.newByteArray(mixed ? 1 + random.nextInt(size) : size);
+      offsets[i + 1] = offsets[i] + keys[i].length;
+    }
+    packed = new byte[offsets[KEYS]];
+    for (int i = 0; i < KEYS; ++i) {
+      System.arraycopy(keys[i], 0, packed, offsets[i], keys[i].length);
+    }
+    seeds32 = new int[KEYS];
+    seeds64 = new long[KEYS];
+    out32 = new int[KEYS];
+    out64 = new long[KEYS];
+    scalar32 = new UnsafeXXHash32();
+    scalar64 = new UnsafeXXHash64();
+    batch32 = new VectorBatchXXHash32();
+    batch64 = new VectorBatchXXHash64();
+  }
+}
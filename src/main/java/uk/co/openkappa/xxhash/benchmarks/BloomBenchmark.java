@@ -0,0 +1,31 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// lookups per microsecond in a filter holding keyCount keys; setup prints the measured false positive rate
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class BloomBenchmark {
+
+  @Benchmark
+  public boolean hit(BloomState state) {
+    return state.filter.mightContain(state.key(state.nextIndex()));
+  }
+
+  @Benchmark
+  public boolean miss(BloomState state) {
+    return state.filter.mightContain(state.key(state.keyCount + state.nextIndex()));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BloomState.BATCH)
+  public boolean[] batch(BloomState state) {
+    state.filter.mightContainAll(state.nextBatch(), state.results);
+    return state.results;
+  }
+}
@@ -0,0 +1,109 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+@State(Scope.Thread)
+public class BloomState {
+
+  static final int BATCH = 1024;
+  private static final int BATCHES = 64;
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  public enum Kind {
+    BLOCKED, NAIVE
+  }
+
+  interface Filter {
+    void put(byte[] key);
+
+    boolean mightContain(byte[] key);
+
+    void mightContainAll(byte[][] keys, boolean[] results);
+  }
+
+  // 1M keys fit in cache at 1%, 10M don't
+  @Param({"1000000", "10000000"})
+  long keyCount;
+
+  @Param({"0.01", "0.001"})
+  double falsePositiveRate;
+
+  @Param({"BLOCKED", "NAIVE"})
+  Kind kind;
+
+  Filter filter;
+  // keys are generated into this from their index, so that no key is held on the heap
+  byte[] key = new byte[16];
+  // batches of keys half present and half absent
+  byte[][][] batches;
+  boolean[] results = new boolean[BATCH];
+  int next;
+  private long random = 0x9E3779B97F4A7C15L;
+
+  @Setup(Level.Trial)
+  public void init() {
+    Hasher64 hasher = new UnsafeXXHash64();
+    if (kind == Kind.BLOCKED) {
+      var blocked = new BlockedBloomFilter(keyCount, falsePositiveRate, hasher);
+      filter = new Filter() {
+        @Override
+        public void put(byte[] key) {
+          blocked.put(key);
+        }
+
+        @Override
+        public boolean mightContain(byte[] key) {
+          return blocked.mightContain(key);
+        }
+
+        @Override
+        public void mightContainAll(byte[][] keys, boolean[] results) {
+          blocked.mightContainAll(keys, results);
+        }
+      };
+    } else {
+      filter = new NaiveBloomFilter(keyCount, falsePositiveRate, hasher);
+    }
+    for (long i = 0; i < keyCount; ++i) {
+      filter.put(key(i));
+    }
+    batches = new byte[BATCHES][BATCH][];
+    for (int i = 0; i < BATCHES * BATCH; ++i) {
+      batches[i / BATCH][i % BATCH] = key(((i & 1) == 0 ? 0 : keyCount) + nextIndex()).clone();
+    }
+    long falsePositives = 0;
+    for (long i = 0; i < 1_000_000; ++i) {
+      if (filter.mightContain(key(keyCount + i))) {
+        ++falsePositives;
+      }
+    }
+    System.out.printf("%n%s filter false positive rate %.5f for a target of %s%n",
+            kind, falsePositives / 1e6, falsePositiveRate);
+  }
+
+  // key i, for i in [0, keyCount) present and in [keyCount, 2 * keyCount) absent
+  byte[] key(long index) {
+    long word = index * 0x9E3779B97F4A7C15L;
+    LONG_HANDLE.set(key, 0, word);
+    LONG_HANDLE.set(key, 8, Long.rotateLeft(word, 17) + index);
+    return key;
+  }
+
+  long nextIndex() {
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    return (random >>> 1) % keyCount;
+  }
+
+  byte[][] nextBatch() {
+    byte[][] batch = batches[next];
+    next = next + 1 == batches.length ? 0 : next + 1;
+    return batch;
+  }
+}
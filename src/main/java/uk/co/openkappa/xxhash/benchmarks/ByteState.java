@@ -1,11 +1,7 @@
 package uk.co.openkappa.xxhash.benchmarks;
 
-import jdk.incubator.vector.IntVector;
 import org.openjdk.jmh.annotations.*;
 import uk.co.openkappa.xxhash.*;
-import jdk.incubator.vector.ByteVector;
-import jdk.incubator.vector.VectorOperators;
-import jdk.incubator.vector.VectorSpecies;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
@@ -15,7 +11,7 @@ import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.util.Arrays;
+import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 
 @State(Scope.Benchmark)
@@ -47,104 +43,101 @@ public class ByteState {
         VECTOR {
             @Override
             Hasher32 create() {
-                return new SIMDHasher();
+                return new VectorHasher();
             }
         };
         abstract Hasher32 create();
     }
 
 
-    static final VectorSpecies<Integer> INT_256_SPECIES = IntVector.SPECIES_256;
-
-    static final VectorSpecies<Byte> BYTE_64_SPECIES = ByteVector.SPECIES_64;
-    static final VectorSpecies<Byte> BYTE_128_SPECIES = ByteVector.SPECIES_128;
-    static final VectorSpecies<Byte> BYTE_256_SPECIES = ByteVector.SPECIES_256;
-
-    static final int COEFF_31_TO_8;
-    static final int COEFF_31_TO_16;
-    static final int COEFF_31_TO_32;
+    // the polynomial hashers read ranges and segments in place, so no copy is hashed
+    abstract static class RangeHasher implements Hasher32 {
+        @Override
+        public int hash(byte[] data, int seed) {
+            return hash(data, 0, data.length, seed);
+        }
 
-    static final IntVector H_COEFF_31_TO_8;
-    static final IntVector H_COEFF_31_TO_16;
-    static final IntVector H_COEFF_31_TO_32;
+        // fixed width keys are only here for completeness, so they are simply encoded little-endian
 
-    static final IntVector H_COEFF_8;
-    static final IntVector H_COEFF_16;
-    static final IntVector H_COEFF_24;
-    static final IntVector H_COEFF_32;
+        @Override
+        public int hashInt(int value, int seed) {
+            return hash(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array(), seed);
+        }
 
-    static {
-        int[] x = new int[INT_256_SPECIES.length() * 4];
-        x[x.length - 1] = 1;
-        for (int i = 1; i < x.length; i++) {
-            x[x.length - 1 - i] = x[x.length - 1 - i + 1] * 31;
+        @Override
+        public int hashLong(long value, int seed) {
+            return hash(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array(), seed);
         }
 
-        COEFF_31_TO_8 = x[24] * 31;
-        COEFF_31_TO_16 = x[16] * 31;
-        COEFF_31_TO_32 = x[0] * 31;
+        @Override
+        public int hashLongs(long first, long second, int seed) {
+            return hash(ByteBuffer.allocate(2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putLong(first).putLong(second).array(), seed);
+        }
 
-        H_COEFF_31_TO_8 = IntVector.broadcast(INT_256_SPECIES, COEFF_31_TO_8);
-        H_COEFF_31_TO_16 = IntVector.broadcast(INT_256_SPECIES, COEFF_31_TO_16);
-        H_COEFF_31_TO_32 = IntVector.broadcast(INT_256_SPECIES, COEFF_31_TO_32);
+        @Override
+        public int hashLongArray(long[] data, int offset, int length, int seed) {
+            var buffer = ByteBuffer.allocate(length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asLongBuffer().put(data, offset, length);
+            return hash(buffer.array(), seed);
+        }
 
-        H_COEFF_8 = IntVector.fromArray(INT_256_SPECIES, x, 24);
-        H_COEFF_16 = IntVector.fromArray(INT_256_SPECIES, x, 16);
-        H_COEFF_24 = IntVector.fromArray(INT_256_SPECIES, x, 8);
-        H_COEFF_32 = IntVector.fromArray(INT_256_SPECIES, x, 0);
+        @Override
+        public int hashIntArray(int[] data, int offset, int length, int seed) {
+            var buffer = ByteBuffer.allocate(length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.asIntBuffer().put(data, offset, length);
+            return hash(buffer.array(), seed);
+        }
     }
 
-    static class HashCodeHasher implements Hasher32 {
+    static class HashCodeHasher extends RangeHasher {
         @Override
-        public int hash(byte[] data, int seed) {
+        public int hash(byte[] data, int offset, int length, int seed) {
             return data.hashCode();
         }
-    }
 
-    static class ScalarHasher implements  Hasher32 {
         @Override
-        public int hash(byte[] data, int seed) {
-            return Arrays.hashCode(data);
+        public int hash(MemorySegment data, long offset, long length, int seed) {
+            return System.identityHashCode(data);
         }
     }
 
-    static class SIMDHasher implements Hasher32 {
+    static class ScalarHasher extends RangeHasher {
         @Override
-        public int hash(byte[] data, int seed) {
-            IntVector h1 = IntVector.fromArray(INT_256_SPECIES, new int[]{1, 0, 0, 0, 0, 0, 0, 0}, 0);
-            IntVector h2 = IntVector.zero(INT_256_SPECIES);
-            IntVector h3 = IntVector.zero(INT_256_SPECIES);
-            IntVector h4 = IntVector.zero(INT_256_SPECIES);
-            int i = 0;
-            for (; i < (data.length & ~(BYTE_256_SPECIES.length() - 1)); i += BYTE_256_SPECIES.length()) {
-                ByteVector b = ByteVector.fromArray(BYTE_64_SPECIES, data, i);
-                IntVector x = (IntVector) b.castShape(INT_256_SPECIES, 0);
-                h1 = h1.mul(H_COEFF_31_TO_32).add(x.mul(H_COEFF_32));
-
-                b = ByteVector.fromArray(BYTE_64_SPECIES, data, i + BYTE_64_SPECIES.length());
-                x = (IntVector) b.castShape(INT_256_SPECIES, 0);
-                h2 = h2.mul(H_COEFF_31_TO_32).add(x.mul(H_COEFF_24));
-
-                b = ByteVector.fromArray(BYTE_64_SPECIES, data, i + BYTE_64_SPECIES.length() * 2);
-                x = (IntVector) b.castShape(INT_256_SPECIES, 0);
-                h3 = h3.mul(H_COEFF_31_TO_32).add(x.mul(H_COEFF_16));
-
-                b = ByteVector.fromArray(BYTE_64_SPECIES, data, i + BYTE_64_SPECIES.length() * 3);
-                x = (IntVector) b.castShape(INT_256_SPECIES, 0);
-                h4 = h4.mul(H_COEFF_31_TO_32).add(x.mul(H_COEFF_8));
+        public int hash(byte[] data, int offset, int length, int seed) {
+            Objects.checkFromIndexSize(offset, length, data.length);
+            int h = 1;
+            for (int i = offset; i < offset + length; ++i) {
+                h = 31 * h + data[i];
             }
+            return h;
+        }
 
-            int sh = h1.reduceLanes(VectorOperators.ADD) +
-                    h2.reduceLanes(VectorOperators.ADD) +
-                    h3.reduceLanes(VectorOperators.ADD) +
-                    h4.reduceLanes(VectorOperators.ADD);
-            for (; i < data.length; i++) {
-                sh = 31 * sh + data[i];
+        @Override
+        public int hash(MemorySegment data, long offset, long length, int seed) {
+            Objects.checkFromIndexSize(offset, length, data.byteSize());
+            int h = 1;
+            for (long i = offset; i < offset + length; ++i) {
+                h = 31 * h + data.get(ValueLayout.JAVA_BYTE, i);
             }
-            return sh;
+            return h;
         }
     }
 
+    static class VectorHasher extends RangeHasher {
+        private final VectorHashCode hashCode = new VectorHashCode();
+
+        @Override
+        public int hash(byte[] data, int offset, int length, int seed) {
+            return hashCode.hash(data, offset, length);
+        }
+
+        @Override
+        public int hash(MemorySegment data, long offset, long length, int seed) {
+            // a slice is a view over the same memory
+            return hashCode.hash(data.asSlice(offset, length));
+        }
+    }
 
     @Setup(Level.Trial)
     public void init() {
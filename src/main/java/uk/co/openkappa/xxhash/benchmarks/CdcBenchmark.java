@@ -0,0 +1,45 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+// the megabytes counter is the throughput in MB/s of chunking and fingerprinting
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class CdcBenchmark {
+
+  @Benchmark
+  public long segment(CdcState state, CdcState.Megabytes counter) {
+    counter.add(state.bytes());
+    state.chunker.chunk(state.segment, state.listener);
+    return state.digest;
+  }
+
+  @Benchmark
+  public long inputStream(CdcState state, CdcState.Megabytes counter) throws IOException {
+    counter.add(state.bytes());
+    state.chunker.chunk(new ByteArrayInputStream(state.data), state.listener);
+    return state.digest;
+  }
+
+  @Benchmark
+  public long channel(CdcState state, CdcState.Megabytes counter) throws IOException {
+    counter.add(state.bytes());
+    state.chunker.chunk(Channels.newChannel(new ByteArrayInputStream(state.data)), state.listener);
+    return state.digest;
+  }
+
+  @Benchmark
+  public long naive(CdcState state, CdcState.Megabytes counter) {
+    counter.add(state.bytes());
+    state.naive.chunk(state.data, state.listener);
+    return state.digest;
+  }
+}
@@ -0,0 +1,63 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.BenchmarkUtils;
+import uk.co.openkappa.xxhash.ContentDefinedChunker;
+import uk.co.openkappa.xxhash.FastestXXHash;
+
+import java.lang.foreign.MemorySegment;
+
+@State(Scope.Thread)
+public class CdcState {
+
+  @Param({"64"})
+  int megabytes;
+
+  // chunks are at least a quarter and at most eight times the average
+  @Param({"4096", "8192", "65536"})
+  int averageSize;
+
+  byte[] data;
+  MemorySegment segment;
+  ContentDefinedChunker chunker;
+  NaiveChunker naive;
+  // folds the fingerprints, so none of them is dead code
+  long digest;
+  final ContentDefinedChunker.ChunkListener listener = (offset, length, fingerprint, chunk) -> digest += fingerprint;
+
+  @Setup(Level.Trial)
+  public void init() {
+    data = BenchmarkUtils.newByteArray(megabytes << 20);
+    segment = MemorySegment.ofArray(data);
+    chunker = new ContentDefinedChunker(averageSize / 4, averageSize, averageSize * 8);
+    naive = new NaiveChunker(averageSize / 4, averageSize, averageSize * 8, FastestXXHash.hasher64());
+    digest = 0;
+    long chunks = chunker.chunk(segment, listener);
+    long expected = digest;
+    digest = 0;
+    if (naive.chunk(data, listener) != chunks || digest != expected) {
+      throw new IllegalStateException("the naive chunker disagrees");
+    }
+    System.out.printf("%n%d chunks, a mean of %d bytes%n", chunks, data.length / chunks);
+  }
+
+  long bytes() {
+    return data.length;
+  }
+
+  // reports MB/s alongside the invocation rate
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Megabytes {
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      megabytes = 0;
+    }
+
+    void add(long bytes) {
+      megabytes += bytes / 1e6;
+    }
+  }
+}
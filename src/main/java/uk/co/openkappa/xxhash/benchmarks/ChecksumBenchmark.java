@@ -0,0 +1,42 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// the megabytes counter is the pass-through rate in MB/s of checksumming writes to a sink which
+// discards them, through a stream from an array or through a channel from a direct buffer
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class ChecksumBenchmark {
+
+  @Benchmark
+  public long stream(ChecksumState state, ChecksumState.Megabytes counter) throws IOException {
+    counter.add(state.bytes());
+    state.checksum.reset();
+    byte[] data = state.data;
+    for (int offset = 0; offset < data.length; offset += state.chunk) {
+      state.stream.write(data, offset, Math.min(state.chunk, data.length - offset));
+    }
+    return state.checksum.getValue();
+  }
+
+  @Benchmark
+  public long directChannel(ChecksumState state, ChecksumState.Megabytes counter) throws IOException {
+    counter.add(state.bytes());
+    state.checksum.reset();
+    ByteBuffer direct = state.direct;
+    for (int offset = 0; offset < direct.capacity(); offset += state.chunk) {
+      direct.limit(Math.min(offset + state.chunk, direct.capacity())).position(offset);
+      while (direct.hasRemaining()) {
+        state.channel.write(direct);
+      }
+    }
+    return state.checksum.getValue();
+  }
+}
@@ -0,0 +1,158 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.BenchmarkUtils;
+import uk.co.openkappa.xxhash.XXHashChecksum;
+import uk.co.openkappa.xxhash.XXHashOutputStream;
+import uk.co.openkappa.xxhash.XXHashWritableChannel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+@State(Scope.Thread)
+public class ChecksumState {
+
+  public enum Impl {
+    CRC32C {
+      @Override
+      Checksum create() {
+        return new CRC32C();
+      }
+
+      @Override
+      OutputStream stream(OutputStream out, Checksum checksum) {
+        return new CheckedOutputStream(out, checksum);
+      }
+
+      @Override
+      WritableByteChannel channel(WritableByteChannel channel, Checksum checksum) {
+        return new CheckedChannel(channel, checksum);
+      }
+    },
+    XXH32 {
+      @Override
+      Checksum create() {
+        return XXHashChecksum.xxh32(0);
+      }
+    },
+    XXH64 {
+      @Override
+      Checksum create() {
+        return XXHashChecksum.xxh64(0L);
+      }
+    };
+
+    abstract Checksum create();
+
+    OutputStream stream(OutputStream out, Checksum checksum) {
+      return new XXHashOutputStream(out, (XXHashChecksum) checksum);
+    }
+
+    WritableByteChannel channel(WritableByteChannel channel, Checksum checksum) {
+      return new XXHashWritableChannel(channel, (XXHashChecksum) checksum);
+    }
+  }
+
+  @Param({"1"})
+  int megabytes;
+
+  // the size of each write
+  @Param({"64", "4096", "65536"})
+  int chunk;
+
+  @Param({"CRC32C", "XXH32", "XXH64"})
+  Impl impl;
+
+  byte[] data;
+  ByteBuffer direct;
+  Checksum checksum;
+  OutputStream stream;
+  WritableByteChannel channel;
+
+  @Setup(Level.Trial)
+  public void init() {
+    data = BenchmarkUtils.newByteArray(megabytes << 20);
+    direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+    checksum = impl.create();
+    // the sinks discard what they're given, so only the wrapper and checksum are measured
+    stream = impl.stream(OutputStream.nullOutputStream(), checksum);
+    channel = impl.channel(new NullChannel(), checksum);
+  }
+
+  long bytes() {
+    return data.length;
+  }
+
+  // the JDK has no checked channel, so this is the CRC32C counterpart of XXHashWritableChannel
+  static final class CheckedChannel implements WritableByteChannel {
+
+    private final WritableByteChannel channel;
+    private final Checksum checksum;
+
+    CheckedChannel(WritableByteChannel channel, Checksum checksum) {
+      this.channel = channel;
+      this.checksum = checksum;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      int start = src.position();
+      int written = channel.write(src);
+      int limit = src.limit();
+      src.limit(src.position()).position(start);
+      checksum.update(src);
+      src.limit(limit);
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  static final class NullChannel implements WritableByteChannel {
+
+    @Override
+    public int write(ByteBuffer src) {
+      int written = src.remaining();
+      src.position(src.limit());
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  // reports MB/s alongside the invocation rate
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Megabytes {
+    public double megabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      megabytes = 0;
+    }
+
+    void add(long bytes) {
+      megabytes += bytes / 1e6;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.ColumnHasher;
+
+import java.util.concurrent.TimeUnit;
+
+// scores are rows hashed per second
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+@OperationsPerInvocation(ColumnState.ROWS)
+public class ColumnBenchmark {
+
+  @Benchmark
+  public long[] longColumn(ColumnState state) {
+    ColumnHasher.hashLongs(state.longs, 0L, state.out);
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] longRows(ColumnState state) {
+    for (int i = 0; i < ColumnState.ROWS; ++i) {
+      state.out[i] = state.hasher.hashLong(state.longs[i], 0L);
+    }
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] intColumn(ColumnState state) {
+    ColumnHasher.hashInts(state.ints, 0L, state.out);
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] intRows(ColumnState state) {
+    for (int i = 0; i < ColumnState.ROWS; ++i) {
+      state.out[i] = state.hasher.hashInt(state.ints[i], 0L);
+    }
+    return state.out;
+  }
+
+  // a two column key, the long column then the int column
+  @Benchmark
+  public long[] combinedColumns(ColumnState state) {
+    ColumnHasher.hashLongs(state.longs, 0L, state.out);
+    ColumnHasher.hashInts(state.ints, state.out);
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] combinedRows(ColumnState state) {
+    for (int i = 0; i < ColumnState.ROWS; ++i) {
+      state.out[i] = state.hasher.hashInt(state.ints[i], state.hasher.hashLong(state.longs[i], 0L));
+    }
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] bytesColumn(ColumnState state) {
+    ColumnHasher.hashBytes(state.data, state.offsets, 0L, state.out);
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] bytesRows(ColumnState state) {
+    for (int i = 0; i < ColumnState.ROWS; ++i) {
+      state.out[i] = state.hasher.hash(state.data, state.offsets[i], state.offsets[i + 1] - state.offsets[i], 0L);
+    }
+    return state.out;
+  }
+}
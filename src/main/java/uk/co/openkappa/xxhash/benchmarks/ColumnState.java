@@ -0,0 +1,37 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class ColumnState {
+
+  static final int ROWS = 4096;
+
+  // variable width rows are uniformly distributed in [0, width]
+  @Param({"8", "32"})
+  int width;
+
+  long[] longs;
+  int[] ints;
+  byte[] data;
+  int[] offsets;
+  long[] out;
+  Hasher64 hasher;
+
+  @Setup(Level.Trial)
+  public void init() {
+    var random = new SplittableRandom(width);
+    longs = random.longs(ROWS).toArray();
+    ints = random.ints(ROWS).toArray();
+    offsets = new int[ROWS + 1];
+    for (int i = 0; i < ROWS; ++i) {
+      offsets[i + 1] = offsets[i] + random.nextInt(width + 1);
+    }
+    data = BenchmarkUtils.newByteArray(offsets[ROWS]);
+    out = new long[ROWS];
+    hasher = FastestXXHash.hasher64();
+  }
+}
@@ -0,0 +1,56 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// updates per microsecond summed over the threads, so flat scores across thread counts mean no scaling
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class CountMinBenchmark {
+
+  @Benchmark
+  @Threads(1)
+  public void add1(CountMinState state, CountMinState.Source source) {
+    state.sketch.add(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(2)
+  public void add2(CountMinState state, CountMinState.Source source) {
+    state.sketch.add(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void add4(CountMinState state, CountMinState.Source source) {
+    state.sketch.add(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void addMax(CountMinState state, CountMinState.Source source) {
+    state.sketch.add(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long estimate1(CountMinState state, CountMinState.Source source) {
+    return state.sketch.estimate(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void heavyHitters1(CountMinState state, CountMinState.Source source) {
+    state.hitters.add(source.next(state));
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public void heavyHittersMax(CountMinState state, CountMinState.Source source) {
+    state.hitters.add(source.next(state));
+  }
+}
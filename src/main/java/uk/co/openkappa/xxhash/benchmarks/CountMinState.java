@@ -0,0 +1,66 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.CountMinSketch;
+import uk.co.openkappa.xxhash.HeavyHitters;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// one sketch shared by every thread
+@State(Scope.Benchmark)
+public class CountMinState {
+
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  public enum Keys {
+    // every thread counts the same few keys, so they fight over the same counters
+    HOT,
+    // each thread counts its own million keys, so they rarely touch the same cache line
+    SPREAD
+  }
+
+  @Param({"1", "16"})
+  int stripes;
+
+  @Param({"false", "true"})
+  boolean conservative;
+
+  @Param({"HOT", "SPREAD"})
+  Keys keys;
+
+  CountMinSketch sketch;
+  HeavyHitters hitters;
+  private final AtomicInteger threads = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void init() {
+    sketch = new CountMinSketch(4, 1 << 16, stripes, conservative);
+    hitters = new HeavyHitters(new CountMinSketch(4, 1 << 16, stripes, conservative), 100);
+  }
+
+  @State(Scope.Thread)
+  public static class Source {
+    byte[] key = new byte[16];
+    long base;
+    long random = 0x9E3779B97F4A7C15L;
+
+    @Setup(Level.Trial)
+    public void init(CountMinState state) {
+      base = (long) state.threads.getAndIncrement() << 20;
+    }
+
+    byte[] next(CountMinState state) {
+      random ^= random << 13;
+      random ^= random >>> 7;
+      random ^= random << 17;
+      long index = state.keys == Keys.HOT ? random & 15 : base + ((random >>> 1) & ((1 << 20) - 1));
+      long word = index * 0x9E3779B97F4A7C15L;
+      LONG_HANDLE.set(key, 0, word);
+      LONG_HANDLE.set(key, 8, Long.rotateLeft(word, 17) + index);
+      return key;
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// the gigabytes counter is the throughput in GB/s
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class FileBenchmark {
+
+  @Benchmark
+  public long mapped(FileState state, FileState.Gigabytes counter) throws IOException {
+    counter.add(state.bytes());
+    return state.fileHasher.hash(state.file, 0);
+  }
+
+  @Benchmark
+  public long mappedParallel(FileState state, FileState.Chunks chunks, FileState.Gigabytes counter) throws IOException {
+    counter.add(state.bytes());
+    return state.fileHasher.hashParallel(state.file, 0, chunks.chunkSize, ForkJoinPool.commonPool());
+  }
+
+  @Benchmark
+  public long readIntoArray(FileState state, FileState.Gigabytes counter) throws IOException {
+    counter.add(state.bytes());
+    byte[] data = Files.readAllBytes(state.file);
+    return state.hasher.hash(data, 0, data.length, 0);
+  }
+}
@@ -0,0 +1,70 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.FileHasher;
+import uk.co.openkappa.xxhash.Hasher64;
+import uk.co.openkappa.xxhash.UnsafeXXHash64;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+@State(Scope.Benchmark)
+public class FileState {
+
+  @Param({"16", "256", "1024"})
+  int megabytes;
+
+  Path file;
+  Hasher64 hasher;
+  FileHasher fileHasher;
+
+  @Setup(Level.Trial)
+  public void init() throws IOException {
+    file = Files.createTempFile("xxhash-benchmark", ".bin");
+    byte[] block = new byte[1 << 20];
+    var random = new SplittableRandom(megabytes);
+    try (OutputStream out = Files.newOutputStream(file)) {
+      for (int i = 0; i < megabytes; ++i) {
+        random.nextBytes(block);
+        out.write(block);
+      }
+    }
+    hasher = new UnsafeXXHash64();
+    fileHasher = new FileHasher(hasher);
+  }
+
+  @TearDown(Level.Trial)
+  public void delete() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  long bytes() {
+    return (long) megabytes << 20;
+  }
+
+  // only the parallel hash reads the chunk size, so only it is run once per chunk size
+  @State(Scope.Benchmark)
+  public static class Chunks {
+    @Param({"4194304", "16777216"})
+    long chunkSize;
+  }
+
+  // reports GB/s alongside the invocation rate
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Gigabytes {
+    public double gigabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      gigabytes = 0;
+    }
+
+    void add(long bytes) {
+      gigabytes += bytes / 1e9;
+    }
+  }
+}
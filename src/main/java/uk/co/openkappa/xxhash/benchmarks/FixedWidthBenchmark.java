@@ -0,0 +1,59 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class FixedWidthBenchmark {
+
+  @Benchmark
+  public long hashLong(FixedWidthState state) {
+    return state.hasher.hashLong(state.value, 0L);
+  }
+
+  @Benchmark
+  public long hashLongBytes(FixedWidthState state) {
+    return state.hasher.hash(state.longBytes, 0L);
+  }
+
+  // what callers do today: encode the key, then hash the encoding
+  @Benchmark
+  public long hashLongEncoded(FixedWidthState state) {
+    return state.hasher.hash(FixedWidthState.encode(state.value), 0L);
+  }
+
+  @Benchmark
+  public long hashLongs(FixedWidthState state) {
+    return state.hasher.hashLongs(state.value, state.second, 0L);
+  }
+
+  @Benchmark
+  public long hashLongsBytes(FixedWidthState state) {
+    return state.hasher.hash(state.longsBytes, 0L);
+  }
+
+  @Benchmark
+  public long hashLongArray(FixedWidthState state) {
+    return state.hasher.hashLongArray(state.longs, 0, state.size, 0L);
+  }
+
+  @Benchmark
+  public long hashLongArrayBytes(FixedWidthState state) {
+    return state.hasher.hash(state.longArrayBytes, 0L);
+  }
+
+  @Benchmark
+  public long hashIntArray(FixedWidthState state) {
+    return state.hasher.hashIntArray(state.ints, 0, state.size, 0L);
+  }
+
+  @Benchmark
+  public long hashIntArrayBytes(FixedWidthState state) {
+    return state.hasher.hash(state.intArrayBytes, 0L);
+  }
+}
@@ -0,0 +1,52 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+@State(Scope.Thread)
+public class FixedWidthState {
+
+  // number of elements in the long[] and int[] keys
+  @Param({"2", "4", "8", "32"})
+  int size;
+
+  @Param({"UNSAFE", "VAR_HANDLE", "VECTOR"})
+  Engine engine;
+
+  long value;
+  long second;
+  long[] longs;
+  int[] ints;
+
+  // the same keys as their little-endian encodings
+  byte[] longBytes;
+  byte[] longsBytes;
+  byte[] longArrayBytes;
+  byte[] intArrayBytes;
+
+  Hasher64 hasher;
+
+  @Setup(Level.Trial)
+  public void init() {
+    longArrayBytes = BenchmarkUtils.newByteArray(size * Long.BYTES);
+    intArrayBytes = BenchmarkUtils.newByteArray(size * Integer.BYTES);
+    longs = new long[size];
+    ByteBuffer.wrap(longArrayBytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(longs);
+    ints = new int[size];
+    ByteBuffer.wrap(intArrayBytes).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(ints);
+    value = longs[0];
+    second = longs[1];
+    longBytes = encode(value);
+    longsBytes = encode(value, second);
+    hasher = engine.hasher64();
+  }
+
+  static byte[] encode(long... values) {
+    ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asLongBuffer().put(values);
+    return buffer.array();
+  }
+}
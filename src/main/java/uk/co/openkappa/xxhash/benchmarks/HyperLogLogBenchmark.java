@@ -0,0 +1,51 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.HyperLogLog;
+
+import java.util.concurrent.TimeUnit;
+
+// operations per microsecond; the state prints the memory of a sketch of cardinality keys
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class HyperLogLogBenchmark {
+
+  // adds keys never seen before to the filled sketch
+  @Benchmark
+  public void add(HyperLogLogState state) {
+    state.sketch.add(state.nextKey());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(HyperLogLogState.BATCH)
+  public void addAll(HyperLogLogState state) {
+    state.sketch.addAll(state.batch);
+  }
+
+  @Benchmark
+  public HyperLogLog merge(HyperLogLogState state) {
+    state.sketch.merge(state.other);
+    return state.sketch;
+  }
+
+  @Benchmark
+  public long estimate(HyperLogLogState state) {
+    return state.other.estimate();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 3)
+  public long build(HyperLogLogState state) {
+    var sketch = new HyperLogLog(state.precision);
+    for (int i = 0; i < state.cardinality; ++i) {
+      sketch.add(state.key(i));
+    }
+    return sketch.estimate();
+  }
+}
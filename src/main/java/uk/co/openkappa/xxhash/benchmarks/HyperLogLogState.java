@@ -0,0 +1,67 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.HyperLogLog;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+@State(Scope.Thread)
+public class HyperLogLogState {
+
+  static final int BATCH = 1024;
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  @Param({"11", "14", "16"})
+  int precision;
+
+  // distinct keys in the sketches merged and estimated, and in each sketch the build benchmark makes
+  @Param({"1000", "100000", "10000000"})
+  int cardinality;
+
+  HyperLogLog sketch;
+  HyperLogLog other;
+  byte[] key = new byte[16];
+  byte[][] batch;
+  long index;
+
+  @Setup(Level.Trial)
+  public void init() {
+    sketch = new HyperLogLog(precision);
+    other = new HyperLogLog(precision);
+    for (int i = 0; i < cardinality; ++i) {
+      sketch.add(key(i));
+      other.add(key(cardinality / 2 + i));
+    }
+    batch = new byte[BATCH][];
+    for (int i = 0; i < BATCH; ++i) {
+      batch[i] = key(i).clone();
+    }
+    // the keys from here on were never added, so add sees only new keys
+    index = cardinality;
+  }
+
+  // a distinct key per index
+  byte[] key(long index) {
+    long word = index * 0x9E3779B97F4A7C15L;
+    LONG_HANDLE.set(key, 0, word);
+    LONG_HANDLE.set(key, 8, Long.rotateLeft(word, 17) + index);
+    return key;
+  }
+
+  byte[] nextKey() {
+    return key(index++);
+  }
+
+  // the memory of a sketch of cardinality keys, printed once rather than measured
+  @TearDown(Level.Trial)
+  public void printSize() {
+    var sketch = new HyperLogLog(precision);
+    for (int i = 0; i < cardinality; ++i) {
+      sketch.add(key(i));
+    }
+    System.out.printf("%nprecision %d, %d keys: %d bytes in memory, %d serialised%n",
+            precision, cardinality, sketch.sizeInBytes(), sketch.toBytes().length);
+  }
+}
@@ -0,0 +1,30 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// scores are keys hashed per microsecond
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+@OperationsPerInvocation(InterleavedState.BATCH)
+public class InterleavedBenchmark {
+
+  @Benchmark
+  public long[] loop(InterleavedState state) {
+    byte[][] keys = state.nextBatch();
+    for (int i = 0; i < InterleavedState.BATCH; ++i) {
+      state.out[i] = state.scalar.hash(keys[i], state.seeds[i]);
+    }
+    return state.out;
+  }
+
+  @Benchmark
+  public long[] interleaved(InterleavedState state) {
+    state.interleaved.hashBatch(state.nextBatch(), state.seeds, state.out);
+    return state.out;
+  }
+}
@@ -0,0 +1,58 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class InterleavedState {
+
+  static final int BATCH = 1024;
+
+  // keys are uniformly distributed in [1, size]
+  @Param({"8", "16", "32", "64"})
+  int size;
+
+  // 1K keys stay in cache; 1M keys of any size don't
+  @Param({"1024", "1048576"})
+  int keyCount;
+
+  // the working set, cut into batches in a shuffled order so consecutive keys are far apart
+  byte[][][] batches;
+  long[] seeds;
+  long[] out;
+  int next;
+
+  UnsafeXXHash64 scalar;
+  InterleavedXXHash64 interleaved;
+
+  @Setup(Level.Trial)
+  public void init() {
+    var random = new SplittableRandom(size);
+    byte[][] keys = new byte[keyCount][];
+    for (int i = 0; i < keyCount; ++i) {
+      keys[i] = BenchmarkUtils.newByteArray(1 + random.nextInt(size));
+    }
+    for (int i = keyCount - 1; i > 0; --i) {
+      int j = random.nextInt(i + 1);
+      byte[] key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+    }
+    batches = new byte[keyCount / BATCH][BATCH][];
+    for (int i = 0; i < keyCount; ++i) {
+      batches[i / BATCH][i % BATCH] = keys[i];
+    }
+    seeds = random.longs(BATCH).toArray();
+    out = new long[BATCH];
+    scalar = new UnsafeXXHash64();
+    interleaved = new InterleavedXXHash64();
+  }
+
+  byte[][] nextBatch() {
+    byte[][] batch = batches[next];
+    next = next + 1 == batches.length ? 0 : next + 1;
+    return batch;
+  }
+}
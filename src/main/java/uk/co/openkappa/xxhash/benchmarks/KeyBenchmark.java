@@ -0,0 +1,33 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes a key from a working set of many lengths, rather than the one array of one size. By
+ * default the working sets fit in cache; the DRAM-sized ones need a larger heap:
+ * <pre>
+ * java --enable-preview --add-modules jdk.incubator.vector -jar target/benchmarks.jar KeyBenchmark \
+ *   -p workingSet=1000000,10000000 -jvmArgsAppend -Xmx4g
+ * </pre>
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class KeyBenchmark {
+
+  @Benchmark
+  public long xxhash64(KeyState.Hash64 state) {
+    byte[] key = state.next();
+    return state.hasher.hash(key, 0L);
+  }
+
+  @Benchmark
+  public long xxhash32(KeyState.Hash32 state) {
+    byte[] key = state.next();
+    return state.hasher.hash(key, 0);
+  }
+}
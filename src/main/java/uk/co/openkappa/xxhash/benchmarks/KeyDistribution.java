@@ -0,0 +1,111 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How the lengths of the keys in a working set are distributed.
+ */
+public enum KeyDistribution {
+  /** every length from 1 to the maximum equally likely */
+  UNIFORM,
+  /** length n has weight 1/n, so short keys dominate but long ones keep turning up */
+  ZIPF,
+  /** four in five keys up to a sixteenth of the maximum, the rest from half the maximum up */
+  BIMODAL,
+  /** recorded lengths, from a file of "length count" lines */
+  HISTOGRAM;
+
+  /**
+   * Draws {@code count} lengths; the histogram's file is ignored unless this is {@link #HISTOGRAM},
+   * as the maximum length is if it is.
+   */
+  int[] lengths(int count, int maxLength, String histogram, SplittableRandom random) {
+    double[] cumulative = cumulative(weights(maxLength, histogram));
+    double total = cumulative[cumulative.length - 1];
+    int[] lengths = new int[count];
+    for (int i = 0; i < count; ++i) {
+      // the first length whose cumulative weight exceeds the draw, so none of weight zero is drawn
+      double draw = random.nextDouble() * total;
+      int low = 0;
+      int high = cumulative.length - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (cumulative[middle] > draw) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      lengths[i] = low + 1;
+    }
+    return lengths;
+  }
+
+  // the weight of length n is at index n - 1
+  private double[] weights(int maxLength, String histogram) {
+    if (this == HISTOGRAM) {
+      return histogram(histogram);
+    }
+    if (maxLength < 1) {
+      throw new IllegalArgumentException("maxLength must be positive: " + maxLength);
+    }
+    double[] weights = new double[maxLength];
+    for (int length = 1; length <= maxLength; ++length) {
+      weights[length - 1] = switch (this) {
+        case UNIFORM -> 1;
+        case ZIPF -> 1.0 / length;
+        case BIMODAL -> length <= Math.max(1, maxLength / 16)
+                ? 0.8 / Math.max(1, maxLength / 16)
+                : length >= maxLength / 2 ? 0.2 / (maxLength - maxLength / 2 + 1) : 0;
+        case HISTOGRAM -> throw new AssertionError();
+      };
+    }
+    return weights;
+  }
+
+  private static double[] histogram(String file) {
+    if (file == null || file.isBlank()) {
+      throw new IllegalArgumentException("HISTOGRAM needs a file of lengths, -p histogram=<path>");
+    }
+    double[] weights = new double[0];
+    try {
+      for (String line : Files.readAllLines(Path.of(file))) {
+        line = line.strip();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split("[\\s,]+");
+        int length = Integer.parseInt(fields[0]);
+        double count = Double.parseDouble(fields[1]);
+        if (length < 1 || count < 0) {
+          throw new IllegalArgumentException("bad histogram line in " + file + ": " + line);
+        }
+        if (length > weights.length) {
+          weights = Arrays.copyOf(weights, length);
+        }
+        weights[length - 1] += count;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    if (Arrays.stream(weights).sum() <= 0) {
+      throw new IllegalArgumentException("empty histogram " + file);
+    }
+    return weights;
+  }
+
+  private static double[] cumulative(double[] weights) {
+    double[] cumulative = new double[weights.length];
+    double sum = 0;
+    for (int i = 0; i < weights.length; ++i) {
+      sum += weights[i];
+      cumulative[i] = sum;
+    }
+    return cumulative;
+  }
+}
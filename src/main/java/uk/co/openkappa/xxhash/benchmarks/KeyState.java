@@ -0,0 +1,103 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.Hasher32;
+import uk.co.openkappa.xxhash.Hasher64;
+
+import java.util.SplittableRandom;
+
+/**
+ * A working set of distinct keys with lengths drawn from a distribution, visited in a random order,
+ * so that unlike a single array of one size, the keys needn't be in cache and the length doesn't
+ * repeat. The working set's size decides where it lives: a thousand keys of a few dozen bytes stay
+ * in L2 and a hundred thousand mostly in L3, which are the defaults. A million or ten million are in DRAM
+ * and need a larger heap than the default, e.g. {@code -p workingSet=10000000 -jvmArgsAppend -Xmx4g}.
+ * A histogram of recorded lengths is given by
+ * {@code -p distribution=HISTOGRAM -p histogram=<file>}.
+ */
+@State(Scope.Thread)
+public class KeyState {
+
+  @Param({"UNIFORM", "ZIPF", "BIMODAL"})
+  KeyDistribution distribution;
+
+  @Param({"1000", "100000"})
+  int workingSet;
+
+  @Param({"256"})
+  int maxLength;
+
+  @Param({""})
+  String histogram;
+
+  byte[][] keys;
+  // visiting the keys in a shuffled order defeats the prefetcher, however the collector lays them out
+  int[] order;
+  int next;
+
+  @Setup(Level.Trial)
+  public void init() {
+    var random = new SplittableRandom(workingSet);
+    int[] lengths = distribution.lengths(workingSet, maxLength, histogram, random);
+    long total = 0;
+    long bytes = 0;
+    for (int length : lengths) {
+      total += length;
+      // an array's header and padding, and its references from keys and order
+      bytes += ((16 + length + 7) & ~7L) + 8;
+    }
+    if (bytes > Runtime.getRuntime().maxMemory() * 0.8) {
+      throw new IllegalStateException(String.format("%d keys need %dMB, more than the heap has; "
+              + "run with a larger -Xmx", workingSet, bytes >> 20));
+    }
+    keys = new byte[workingSet][];
+    order = new int[workingSet];
+    for (int i = 0; i < workingSet; ++i) {
+      keys[i] = new byte[lengths[i]];
+      random.nextBytes(keys[i]);
+      order[i] = i;
+    }
+    for (int i = workingSet - 1; i > 0; --i) {
+      int j = random.nextInt(i + 1);
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+    System.out.printf("%n%d %s keys of mean length %.1f, %.1fMB%n",
+            workingSet, distribution, (double) total / workingSet, bytes / 1e6);
+  }
+
+  byte[] next() {
+    byte[] key = keys[order[next]];
+    next = next + 1 == order.length ? 0 : next + 1;
+    return key;
+  }
+
+  @State(Scope.Thread)
+  public static class Hash64 extends KeyState {
+
+    @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI", "FASTEST"})
+    XXHash64State.Impl impl;
+
+    Hasher64 hasher;
+
+    @Setup(Level.Trial)
+    public void create() {
+      hasher = impl.create();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Hash32 extends KeyState {
+
+    @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI", "FASTEST"})
+    XXHash32State.Impl impl;
+
+    Hasher32 hasher;
+
+    @Setup(Level.Trial)
+    public void create() {
+      hasher = impl.create();
+    }
+  }
+}
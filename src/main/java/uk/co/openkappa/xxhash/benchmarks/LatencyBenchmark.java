@@ -0,0 +1,43 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// SampleTime reports the percentiles of sampled call times, which show the tail that throughput
+// hides; SingleShotTime times single calls in a fresh JVM, so they include interpretation and
+// compilation. LatencyHarness times every call of a batch instead.
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class LatencyBenchmark {
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  public long xxhash64(XXHash64State state) {
+    return state.hash(0L);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  public int xxhash32(XXHash32State state) {
+    return state.hash(0);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1000, batchSize = 1)
+  public long xxhash64Cold(XXHash64State state) {
+    return state.hash(0L);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1000, batchSize = 1)
+  public int xxhash32Cold(XXHash32State state) {
+    return state.hash(0);
+  }
+}
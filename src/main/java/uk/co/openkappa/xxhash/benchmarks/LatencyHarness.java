@@ -0,0 +1,149 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import uk.co.openkappa.xxhash.BenchmarkUtils;
+import uk.co.openkappa.xxhash.Hasher32;
+import uk.co.openkappa.xxhash.Hasher64;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times each of a batch of calls to a hasher, after a warmup, into a {@link LatencyHistogram}, and
+ * writes p50, p99, p99.9 and the maximum per hash, impl and size as rows shaped like JMH's CSV
+ * output, as in results.csv. Each hash and impl is measured in its own JVM, so the call site only
+ * ever sees one hasher, as under a JMH fork. Latencies include the cost of reading the clock twice,
+ * which is printed for reference.
+ * <pre>
+ * java --enable-preview --add-modules jdk.incubator.vector -cp target/benchmarks.jar \
+ *   uk.co.openkappa.xxhash.benchmarks.LatencyHarness [--hashes xxhash64,xxhash32] [--impls VECTOR,JNI]
+ *   [--sizes 25,50,100,200] [--calls 1000000] [--warmup 200000] [--out latency.csv]
+ * </pre>
+ */
+public class LatencyHarness {
+
+  private static final double[] PERCENTILES = {50, 99, 99.9, 100};
+  private static final String[] LABELS = {"p0.50", "p0.99", "p0.999", "p1.00"};
+  private static final String HEADER =
+          "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\",\"Param: impl\",\"Param: size\"";
+
+  static long sink;
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Map<String, String> options = new HashMap<>(Map.of(
+            "hashes", "xxhash64,xxhash32",
+            "impls", "VECTOR,NO_SWAR,UNSAFE,VAR_HANDLE,JNI,FASTEST",
+            "sizes", "25,50,100,200",
+            "calls", "1000000",
+            "warmup", "200000",
+            "out", "latency.csv"));
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (!args[i].startsWith("--")) {
+        throw new IllegalArgumentException("expected an option, got " + args[i]);
+      }
+      options.put(args[i].substring(2), args[i + 1]);
+    }
+    if (options.containsKey("hash")) {
+      measure(options);
+      return;
+    }
+    List<String> rows = new ArrayList<>();
+    rows.add(HEADER);
+    for (String hash : options.get("hashes").split(",")) {
+      for (String impl : options.get("impls").split(",")) {
+        rows.addAll(fork(hash, impl, options));
+      }
+    }
+    Files.write(Path.of(options.get("out")), rows, StandardCharsets.UTF_8);
+    rows.forEach(System.out::println);
+  }
+
+  // runs one hash and impl in a new JVM with this one's options, returning its rows
+  private static List<String> fork(String hash, String impl, Map<String, String> options)
+          throws IOException, InterruptedException {
+    List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.addAll(List.of("-cp", System.getProperty("java.class.path"), LatencyHarness.class.getName(),
+            "--hash", hash, "--impl", impl, "--sizes", options.get("sizes"),
+            "--calls", options.get("calls"), "--warmup", options.get("warmup")));
+    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    List<String> rows = new ArrayList<>();
+    try (var out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      for (String line = out.readLine(); line != null; line = out.readLine()) {
+        rows.add(line);
+      }
+    }
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException(hash + " " + impl + " failed with exit code " + process.exitValue());
+    }
+    return rows;
+  }
+
+  private static void measure(Map<String, String> options) {
+    String hash = options.get("hash");
+    String impl = options.get("impl");
+    int calls = Integer.parseInt(options.get("calls"));
+    int warmup = Integer.parseInt(options.get("warmup"));
+    // rows name percentiles as JMH does, with a character the platform's encoding may not have
+    var out = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+    var histogram = new LatencyHistogram();
+    clock(histogram, warmup + calls);
+    System.err.printf("%s %s: reading the clock twice takes %dns at p50, %dns at p99.9%n",
+            hash, impl, histogram.valueAtPercentile(50), histogram.valueAtPercentile(99.9));
+    for (String size : options.get("sizes").split(",")) {
+      byte[] data = BenchmarkUtils.newByteArray(Integer.parseInt(size));
+      histogram.reset();
+      switch (hash) {
+        case "xxhash64" -> measure(XXHash64State.Impl.valueOf(impl).create(), data, warmup, calls, histogram);
+        case "xxhash32" -> measure(XXHash32State.Impl.valueOf(impl).create(), data, warmup, calls, histogram);
+        default -> throw new IllegalArgumentException("unknown hash " + hash);
+      }
+      for (int i = 0; i < PERCENTILES.length; ++i) {
+        out.printf("\"%s.%s:%s·%s\",\"sample\",1,%d,%f,NaN,\"ns/op\",%s,%s%n",
+                LatencyHarness.class.getName(), hash, hash, LABELS[i], histogram.count(),
+                (double) histogram.valueAtPercentile(PERCENTILES[i]), impl, size);
+      }
+    }
+  }
+
+  private static void measure(Hasher64 hasher, byte[] data, int warmup, int calls, LatencyHistogram histogram) {
+    for (int i = 0; i < warmup + calls; ++i) {
+      if (i == warmup) {
+        histogram.reset();
+      }
+      long start = System.nanoTime();
+      sink ^= hasher.hash(data, i);
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+
+  private static void measure(Hasher32 hasher, byte[] data, int warmup, int calls, LatencyHistogram histogram) {
+    for (int i = 0; i < warmup + calls; ++i) {
+      if (i == warmup) {
+        histogram.reset();
+      }
+      long start = System.nanoTime();
+      sink ^= hasher.hash(data, i);
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+
+  private static void clock(LatencyHistogram histogram, int calls) {
+    for (int i = 0; i < calls; ++i) {
+      long start = System.nanoTime();
+      histogram.record(System.nanoTime() - start);
+    }
+  }
+}
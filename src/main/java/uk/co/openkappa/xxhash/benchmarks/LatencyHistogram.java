@@ -0,0 +1,98 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of non-negative latencies, as in HdrHistogram: values below 2^8 are counted
+ * exactly, and above that each power of two is split into 128 equal buckets, so a value is known
+ * to within 1%. Percentiles report the top of their bucket, never more than the largest value
+ * recorded. Not thread-safe.
+ */
+public class LatencyHistogram {
+
+  private static final int PRECISION = 8;
+  private static final int HALF = 1 << (PRECISION - 1);
+
+  private final long[] counts = new long[index(Long.MAX_VALUE) + 1];
+  private long count;
+  private long max;
+  private long sum;
+
+  public void record(long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("negative latency " + value);
+    }
+    ++counts[index(value)];
+    ++count;
+    sum += value;
+    max = Math.max(max, value);
+  }
+
+  public long count() {
+    return count;
+  }
+
+  public long max() {
+    return max;
+  }
+
+  public double mean() {
+    return count == 0 ? Double.NaN : (double) sum / count;
+  }
+
+  /**
+   * The smallest recorded value, to the histogram's precision, which at least {@code percentile}
+   * percent of the values don't exceed.
+   */
+  public long valueAtPercentile(double percentile) {
+    if (!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; ++i) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highest(i), max);
+      }
+    }
+    return max;
+  }
+
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; ++i) {
+      counts[i] += other.counts[i];
+    }
+    count += other.count;
+    sum += other.sum;
+    max = Math.max(max, other.max);
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    max = 0;
+  }
+
+  // beyond the exact values, a power of two's bucket is its top PRECISION bits
+  static int index(long value) {
+    if (value < 1 << PRECISION) {
+      return (int) value;
+    }
+    int shift = 64 - Long.numberOfLeadingZeros(value) - PRECISION;
+    return shift * HALF + (int) (value >>> shift);
+  }
+
+  static long highest(int index) {
+    if (index < 1 << PRECISION) {
+      return index;
+    }
+    int shift = index / HALF - 1;
+    long top = index - shift * HALF;
+    return ((top + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,37 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * Where the bytes being hashed live.
+ */
+public enum Layout {
+  /** a byte[] holding exactly the key */
+  ARRAY,
+  /** the key at an unaligned offset inside a larger page */
+  SLICE,
+  HEAP_BUFFER,
+  DIRECT_BUFFER,
+  /** a native segment */
+  SEGMENT;
+
+  static final int SLICE_OFFSET = 4093;
+
+  static byte[] page(byte[] data) {
+    byte[] page = new byte[SLICE_OFFSET + data.length + 4096];
+    System.arraycopy(data, 0, page, SLICE_OFFSET, data.length);
+    return page;
+  }
+
+  static ByteBuffer buffer(Layout layout, byte[] data) {
+    return layout == DIRECT_BUFFER
+            ? ByteBuffer.allocateDirect(data.length).put(data).flip()
+            : ByteBuffer.wrap(page(data), SLICE_OFFSET, data.length).slice();
+  }
+
+  static MemorySegment segment(byte[] data) {
+    return Arena.ofAuto().allocate(data.length, 8).copyFrom(MemorySegment.ofArray(data));
+  }
+}
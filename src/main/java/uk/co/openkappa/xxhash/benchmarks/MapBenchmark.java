@@ -0,0 +1,43 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// operations per microsecond on a map already holding every present key
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class MapBenchmark {
+
+  @Benchmark
+  public long getHit(MapState state) {
+    return state.map.get(state.key(state.nextIndex()), -1);
+  }
+
+  @Benchmark
+  public long getMiss(MapState state) {
+    return state.map.get(state.key(state.entries + state.nextIndex()), -1);
+  }
+
+  // overwrites present keys, so the map doesn't grow during the run
+  @Benchmark
+  public void put(MapState state) {
+    long index = state.nextIndex();
+    state.map.put(state.key(index), index);
+  }
+
+  // inserting every key into an empty map, growing it as it goes
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 3)
+  public long fill(MapState state) {
+    try (var map = state.fill()) {
+      return map.size();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+@State(Scope.Thread)
+public class MapState {
+
+  private static final VarHandle LONG_HANDLE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  @Param({"1000000", "10000000", "100000000"})
+  long entries;
+
+  @Param({"16", "40"})
+  int keyLength;
+
+  @Param({"NO_SWAR", "UNSAFE", "VAR_HANDLE", "VECTOR", "JNI"})
+  Engine engine;
+
+  @Param({"LINEAR", "ROBIN_HOOD"})
+  OffHeapHashMap.Probing probing;
+
+  Hasher64 hasher;
+  OffHeapHashMap map;
+  // keys are generated into this from their index, so that no key is held on the heap
+  byte[] key;
+  private long random = 0x9E3779B97F4A7C15L;
+
+  @Setup(Level.Trial)
+  public void init() {
+    hasher = engine.hasher64();
+    key = new byte[keyLength];
+    map = fill();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    map.close();
+  }
+
+  OffHeapHashMap fill() {
+    var map = new OffHeapHashMap(hasher, probing, 16);
+    for (long i = 0; i < entries; ++i) {
+      map.put(key(i), i);
+    }
+    return map;
+  }
+
+  // key i, for i in [0, entries) present and in [entries, 2 * entries) absent
+  byte[] key(long index) {
+    long word = index * 0x9E3779B97F4A7C15L;
+    for (int i = 0; i <= keyLength - 8; i += 8) {
+      LONG_HANDLE.set(key, i, word);
+      word = Long.rotateLeft(word, 17) + index;
+    }
+    return key;
+  }
+
+  long nextIndex() {
+    random ^= random << 13;
+    random ^= random >>> 7;
+    random ^= random << 17;
+    return (random >>> 1) % entries;
+  }
+}
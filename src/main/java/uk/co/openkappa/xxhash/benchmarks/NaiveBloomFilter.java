@@ -0,0 +1,51 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import uk.co.openkappa.xxhash.Hasher64;
+
+// the textbook filter BlockedBloomFilter is measured against: k independently seeded hashes, each
+// setting a bit anywhere in one flat bitset, so a lookup can miss the cache k times
+class NaiveBloomFilter implements BloomState.Filter {
+
+  private final Hasher64 hasher;
+  private final long[] words;
+  private final long bits;
+  private final int k;
+
+  NaiveBloomFilter(long expectedKeys, double falsePositiveRate, Hasher64 hasher) {
+    this.hasher = hasher;
+    long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.words = new long[(int) ((bits + 63) >>> 6)];
+    this.bits = words.length * 64L;
+    this.k = Math.max(1, (int) Math.round((double) this.bits / expectedKeys * Math.log(2)));
+  }
+
+  @Override
+  public void put(byte[] key) {
+    for (int i = 0; i < k; ++i) {
+      long bit = index(hasher.hash(key, 0, key.length, i));
+      words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  @Override
+  public boolean mightContain(byte[] key) {
+    for (int i = 0; i < k; ++i) {
+      long bit = index(hasher.hash(key, 0, key.length, i));
+      if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void mightContainAll(byte[][] keys, boolean[] results) {
+    for (int i = 0; i < keys.length; ++i) {
+      results[i] = mightContain(keys[i]);
+    }
+  }
+
+  private long index(long hash) {
+    return Math.unsignedMultiplyHigh(hash, bits);
+  }
+}
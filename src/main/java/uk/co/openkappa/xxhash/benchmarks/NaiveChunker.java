@@ -0,0 +1,70 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import uk.co.openkappa.xxhash.ContentDefinedChunker;
+import uk.co.openkappa.xxhash.Hasher64;
+
+// the textbook pipeline ContentDefinedChunker is measured against: FastCDC finds each chunk's end,
+// then the chunk is hashed, reading its bytes a second time. The gear table and masks are the same,
+// so it cuts the same chunks
+class NaiveChunker {
+
+  private final Hasher64 hasher;
+  private final long[] gear = new long[256];
+  private final int minSize;
+  private final int averageSize;
+  private final int maxSize;
+  private final long smallMask;
+  private final long largeMask;
+
+  NaiveChunker(int minSize, int averageSize, int maxSize, Hasher64 hasher) {
+    this.hasher = hasher;
+    this.minSize = minSize;
+    this.averageSize = averageSize;
+    this.maxSize = maxSize;
+    for (int i = 0; i < gear.length; ++i) {
+      gear[i] = hasher.hashInt(i, 0x9E3779B185EBCA87L);
+    }
+    int bits = Integer.numberOfTrailingZeros(averageSize);
+    this.smallMask = mask(bits + 2);
+    this.largeMask = mask(bits - 2);
+  }
+
+  long chunk(byte[] data, ContentDefinedChunker.ChunkListener listener) {
+    long chunks = 0;
+    for (int start = 0; start < data.length; ++chunks) {
+      int end = cut(data, start);
+      listener.chunk(start, end - start, hasher.hash(data, start, end - start, 0), null);
+      start = end;
+    }
+    return chunks;
+  }
+
+  private int cut(byte[] data, int start) {
+    int limit = Math.min(data.length, start + maxSize);
+    int averageEnd = Math.min(limit, start + averageSize);
+    long fingerprint = 0;
+    int i = Math.min(limit, start + minSize);
+    for (; i < averageEnd; ++i) {
+      fingerprint = (fingerprint << 1) + gear[data[i] & 0xFF];
+      if ((fingerprint & smallMask) == 0) {
+        return i + 1;
+      }
+    }
+    for (; i < limit; ++i) {
+      fingerprint = (fingerprint << 1) + gear[data[i] & 0xFF];
+      if ((fingerprint & largeMask) == 0) {
+        return i + 1;
+      }
+    }
+    return limit;
+  }
+
+  private static long mask(int bits) {
+    long mask = 0;
+    int step = Math.max(1, 48 / bits);
+    for (int i = 0; i < bits; ++i) {
+      mask |= 1L << (63 - i * step);
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,66 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import uk.co.openkappa.xxhash.quality.Candidate;
+import uk.co.openkappa.xxhash.quality.Scoreboard;
+import uk.co.openkappa.xxhash.results.JmhFormat;
+import uk.co.openkappa.xxhash.results.Result;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the quality checks over every Hasher32, Hasher64 and HashCodeI that XXHashBenchmark measures,
+ * named as its methods and impls are, and prints them beside their throughput at one size from a
+ * JMH results file, CSV or JSON, if one is given. The checks run in parallel, one thread per core
+ * by default; a scale below 1 hashes fewer keys, finding only larger flaws.
+ * <pre>
+ * java --enable-preview --add-modules jdk.incubator.vector -cp target/benchmarks.jar \
+ *   uk.co.openkappa.xxhash.benchmarks.QualityHarness [--results results.csv] [--size 100]
+ *   [--scale 1] [--threads 4]
+ * </pre>
+ */
+public class QualityHarness {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    Map<String, String> options = new HashMap<>(Map.of(
+            "size", "100",
+            "scale", "1",
+            "threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (!args[i].startsWith("--")) {
+        throw new IllegalArgumentException("expected an option, got " + args[i]);
+      }
+      options.put(args[i].substring(2), args[i + 1]);
+    }
+    Map<String, Result> throughput = options.containsKey("results")
+            ? Scoreboard.throughput(JmhFormat.read(Path.of(options.get("results"))), options.get("size"))
+            : Map.of();
+    var scoreboard = Scoreboard.run(candidates(), Double.parseDouble(options.get("scale")),
+            Integer.parseInt(options.get("threads")));
+    System.out.print(scoreboard.render(throughput));
+  }
+
+  static List<Candidate> candidates() {
+    List<Candidate> candidates = new ArrayList<>();
+    for (XXHash64State.Impl impl : XXHash64State.Impl.values()) {
+      candidates.add(Candidate.of64("xxhash64 " + impl, impl::create));
+    }
+    for (XXHash32State.Impl impl : XXHash32State.Impl.values()) {
+      candidates.add(Candidate.of32("xxhash32 " + impl, impl::create));
+    }
+    for (XXHash3State.Impl impl : XXHash3State.Impl.values()) {
+      candidates.add(Candidate.of64("xxh3 " + impl, impl::create));
+    }
+    for (ByteState.Impl impl : ByteState.Impl.values()) {
+      candidates.add(Candidate.of32("bytes " + impl, impl::create));
+    }
+    for (ByteBufferState.Impl impl : ByteBufferState.Impl.values()) {
+      candidates.add(Candidate.ofHashCode("ByteBuffer " + impl, impl::create));
+    }
+    return candidates;
+  }
+}
@@ -0,0 +1,26 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// keys routed per microsecond; setup prints how many keys adding a node moves
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class RouterBenchmark {
+
+  @Benchmark
+  public int route(RouterState state) {
+    return state.router.route(state.nextKey());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RouterState.BATCH)
+  public int[] routeBatch(RouterState state) {
+    state.router.route(state.keys, state.out);
+    return state.out;
+  }
+}
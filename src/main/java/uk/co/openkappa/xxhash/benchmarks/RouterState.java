@@ -0,0 +1,82 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class RouterState {
+
+  static final int BATCH = 1024;
+  private static final int VIRTUAL_NODES = 100;
+
+  public enum Kind {
+    JUMP, RENDEZVOUS, RING
+  }
+
+  @Param({"8", "64", "512", "4096"})
+  int nodes;
+
+  @Param({"JUMP", "RENDEZVOUS", "RING"})
+  Kind kind;
+
+  ShardRouter router;
+  byte[][] keys;
+  int[] out;
+  int next;
+
+  @Setup(Level.Trial)
+  public void init() {
+    Hasher64 hasher = new UnsafeXXHash64();
+    router = router(hasher, nodes);
+    var random = new SplittableRandom(nodes);
+    keys = new byte[BATCH][];
+    for (int i = 0; i < BATCH; ++i) {
+      keys[i] = BenchmarkUtils.newByteArray(16);
+      random.nextBytes(keys[i]);
+    }
+    out = new int[BATCH];
+    printRebalancing(hasher);
+  }
+
+  private ShardRouter router(Hasher64 hasher, int nodes) {
+    long[] seeds = new long[nodes];
+    for (int i = 0; i < nodes; ++i) {
+      seeds[i] = hasher.hashInt(i, 0);
+    }
+    return switch (kind) {
+      case JUMP -> new JumpHashRouter(hasher, nodes);
+      case RENDEZVOUS -> new RendezvousRouter(hasher, seeds);
+      case RING -> new RingRouter(hasher, seeds, VIRTUAL_NODES);
+    };
+  }
+
+  // how many keys adding a node moves, against the 1 / (nodes + 1) that must, and how uneven the load is
+  private void printRebalancing(Hasher64 hasher) {
+    ShardRouter grown = router(hasher, nodes + 1);
+    int samples = 1 << 20;
+    int moved = 0;
+    int[] load = new int[nodes];
+    for (int i = 0; i < samples; ++i) {
+      long hash = hasher.hashInt(i, 1);
+      int shard = router.routeHash(hash);
+      ++load[shard];
+      if (grown.routeHash(hash) != shard) {
+        ++moved;
+      }
+    }
+    int max = 0;
+    for (int count : load) {
+      max = Math.max(max, count);
+    }
+    System.out.printf("%n%s over %d nodes: adding one moves %.4f of keys (ideal %.4f), busiest node %.2fx the mean%n",
+            kind, nodes, (double) moved / samples, 1.0 / (nodes + 1), max / ((double) samples / nodes));
+  }
+
+  byte[] nextKey() {
+    byte[] key = keys[next];
+    next = (next + 1) & (BATCH - 1);
+    return key;
+  }
+}
@@ -0,0 +1,68 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// scores are ops/us and the bytes counter MB/s, both summed over the threads; run with -t to pick
+// the thread count, or run main to sweep it from one thread to one per core
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class ScalingBenchmark {
+
+  @Benchmark
+  public long xxhash64(ScalingState.Input64 input, ScalingState.Bytes bytes) {
+    bytes.bytes += input.data.length;
+    return input.publish(input.hasher.hash(input.data, 0L));
+  }
+
+  @Benchmark
+  public long xxhash32(ScalingState.Input32 input, ScalingState.Bytes bytes) {
+    bytes.bytes += input.data.length;
+    return input.publish(input.hasher.hash(input.data, 0));
+  }
+
+  /**
+   * Runs the suite at 1, 2, 4... threads and then one per core, and prints the aggregate rates.
+   * Other JMH options, such as -p impl=VECTOR, are passed on.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    var options = new CommandLineOptions(args);
+    int cores = Runtime.getRuntime().availableProcessors();
+    List<Integer> threads = new ArrayList<>();
+    for (int count = 1; count < cores; count <<= 1) {
+      threads.add(count);
+    }
+    threads.add(cores);
+    List<String> rows = new ArrayList<>();
+    for (int count : threads) {
+      var run = new OptionsBuilder()
+              .parent(options)
+              .include(ScalingBenchmark.class.getSimpleName())
+              .threads(count)
+              .build();
+      for (RunResult result : new Runner(run).run()) {
+        var params = result.getParams();
+        rows.add(String.format("%-9s %-10s %8s %-13s %7d %12.4f %10.2f",
+                params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1),
+                params.getParam("impl"), params.getParam("size"), params.getParam("sharing"), count,
+                result.getPrimaryResult().getScore(),
+                result.getSecondaryResults().get("bytes").getScore() / 1e3));
+      }
+    }
+    System.out.printf("%n%-9s %-10s %8s %-13s %7s %12s %10s%n",
+            "hash", "impl", "size", "sharing", "threads", "ops/us", "GB/s");
+    rows.forEach(System.out::println);
+  }
+}
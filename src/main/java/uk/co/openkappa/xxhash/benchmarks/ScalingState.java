@@ -0,0 +1,103 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import uk.co.openkappa.xxhash.BenchmarkUtils;
+import uk.co.openkappa.xxhash.Hasher32;
+import uk.co.openkappa.xxhash.Hasher64;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// what the threads share; each has its own hasher and, unless the input is shared, its own data
+@State(Scope.Benchmark)
+public class ScalingState {
+
+  public enum Sharing {
+    // each thread hashes its own array, allocated by that thread
+    NONE,
+    // every thread hashes the same array, so its lines are read from other cores' caches
+    SHARED_INPUT,
+    // each thread stores its hashes next to the others', eight threads to a cache line
+    FALSE_SHARING,
+    // as FALSE_SHARING, but each thread's slot is on its own pair of cache lines
+    PADDED
+  }
+
+  // in L1, in L2, and past the caches once there are a few threads
+  @Param({"64", "4096", "1048576"})
+  int size;
+
+  @Param({"NONE", "SHARED_INPUT", "FALSE_SHARING", "PADDED"})
+  Sharing sharing;
+
+  byte[] input;
+  long[] results;
+  private final AtomicInteger threads = new AtomicInteger();
+
+  @Setup(Level.Trial)
+  public void init(BenchmarkParams params) {
+    input = BenchmarkUtils.newByteArray(size);
+    results = new long[16 * (params.getThreads() + 1)];
+  }
+
+  public abstract static class Input {
+    byte[] data;
+    long[] results;
+    int slot;
+
+    @Setup(Level.Trial)
+    public void init(ScalingState state) {
+      data = state.sharing == Sharing.SHARED_INPUT ? state.input : BenchmarkUtils.newByteArray(state.size);
+      int thread = state.threads.getAndIncrement();
+      results = state.sharing == Sharing.FALSE_SHARING || state.sharing == Sharing.PADDED ? state.results : null;
+      slot = state.sharing == Sharing.PADDED ? 16 * (thread + 1) : thread;
+    }
+
+    long publish(long hash) {
+      if (results != null) {
+        results[slot] = hash;
+      }
+      return hash;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Input64 extends Input {
+
+    @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI", "FASTEST"})
+    XXHash64State.Impl impl;
+
+    Hasher64 hasher;
+
+    @Setup(Level.Trial)
+    public void create() {
+      hasher = impl.create();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Input32 extends Input {
+
+    @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI", "FASTEST"})
+    XXHash32State.Impl impl;
+
+    Hasher32 hasher;
+
+    @Setup(Level.Trial)
+    public void create() {
+      hasher = impl.create();
+    }
+  }
+
+  // reports bytes per microsecond, that is MB/s, summed over the threads
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Bytes {
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      bytes = 0;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
+public class StringBenchmark {
+
+  @Benchmark
+  public long getBytesUtf8(StringState state) {
+    return state.hasher.hash(state.key().getBytes(StandardCharsets.UTF_8), 0L);
+  }
+
+  @Benchmark
+  public long hashString(StringState state) {
+    return state.hasher.hashString(state.key(), 0L);
+  }
+
+  @Benchmark
+  public long getBytesUtf16(StringState state) {
+    return state.hasher.hash(state.key().getBytes(StandardCharsets.UTF_16LE), 0L);
+  }
+
+  @Benchmark
+  public long hashChars(StringState state) {
+    return state.hasher.hashChars(state.key(), 0L);
+  }
+}
@@ -0,0 +1,57 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class StringState {
+
+  public enum Alphabet {
+    ASCII("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-_./"),
+    LATIN1("abcdefghijklmnopqrstuvwxyzàáâäçèéêëìíîïñòóôöùúûüß"),
+    UTF16("abcdefghijklmnopqrstuvwxyzабвгдежзийклмнопрстуфхцчшщ漢字仮名");
+
+    final String characters;
+
+    Alphabet(String characters) {
+      this.characters = characters;
+    }
+  }
+
+  static final int KEYS = 256;
+
+  // typical key lengths: identifiers, URLs and paths
+  @Param({"8", "16", "32", "64", "128"})
+  int length;
+
+  @Param({"ASCII", "LATIN1", "UTF16"})
+  Alphabet alphabet;
+
+  @Param({"UNSAFE", "VAR_HANDLE"})
+  Engine engine;
+
+  String[] keys;
+  Hasher64 hasher;
+  int next;
+
+  @Setup(Level.Trial)
+  public void init() {
+    var random = new SplittableRandom(length);
+    keys = new String[KEYS];
+    for (int i = 0; i < KEYS; ++i) {
+      StringBuilder key = new StringBuilder(length);
+      for (int j = 0; j < length; ++j) {
+        key.append(alphabet.characters.charAt(random.nextInt(alphabet.characters.length())));
+      }
+      keys[i] = key.toString();
+    }
+    hasher = engine.hasher64();
+  }
+
+  // cycles through distinct keys, so String's cached hash code and any JIT constant folding don't apply
+  String key() {
+    return keys[next++ & (KEYS - 1)];
+  }
+}
@@ -0,0 +1,28 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+@State(Scope.Benchmark)
+public class XXHash128State {
+
+  @Param({"25", "50", "100", "200", "1000"})
+  int size;
+
+  @Param({"VECTOR", "UNSAFE", "VAR_HANDLE"})
+  XXHash3State.Impl impl;
+
+  byte[] data;
+  // reused by every invocation, so the benchmark measures the hash and not the allocation
+  Hash128 result;
+
+  Hasher128 hasher;
+
+
+  @Setup(Level.Trial)
+  public void init() {
+    data = BenchmarkUtils.newByteArray(size);
+    result = new Hash128();
+    hasher = impl.create();
+  }
+}
@@ -0,0 +1,68 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.*;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+@State(Scope.Benchmark)
+public class XXHash3State {
+
+  public enum Impl {
+    UNSAFE {
+      @Override
+      BaseXXHash3 create() {
+        return new UnsafeXXHash3();
+      }
+    },
+    VAR_HANDLE {
+      @Override
+      BaseXXHash3 create() {
+        return new VarHandleXXHash3();
+      }
+    },
+    VECTOR {
+      @Override
+      BaseXXHash3 create() {
+        return new VectorXXHash3();
+      }
+    };
+    abstract BaseXXHash3 create();
+  }
+
+  @Param({"25", "50", "100", "200", "1000"})
+  int size;
+
+  @Param({"VECTOR", "UNSAFE", "VAR_HANDLE"})
+  Impl impl;
+
+  @Param({"ARRAY", "SLICE", "HEAP_BUFFER", "DIRECT_BUFFER", "SEGMENT"})
+  Layout layout;
+
+  byte[] data;
+  byte[] page;
+  ByteBuffer buffer;
+  MemorySegment segment;
+
+  Hasher64 hasher;
+
+
+  @Setup(Level.Trial)
+  public void init() {
+    data = BenchmarkUtils.newByteArray(size);
+    page = Layout.page(data);
+    buffer = Layout.buffer(layout, data);
+    segment = Layout.segment(data);
+    hasher = impl.create();
+  }
+
+  long hash(long seed) {
+    return switch (layout) {
+      case ARRAY -> hasher.hash(data, seed);
+      case SLICE -> hasher.hash(page, Layout.SLICE_OFFSET, size, seed);
+      case HEAP_BUFFER, DIRECT_BUFFER -> hasher.hash(buffer, seed);
+      case SEGMENT -> hasher.hash(segment, 0, size, seed);
+    };
+  }
+}
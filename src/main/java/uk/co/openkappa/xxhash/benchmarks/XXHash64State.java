@@ -3,6 +3,9 @@ package uk.co.openkappa.xxhash.benchmarks;
 import org.openjdk.jmh.annotations.*;
 import uk.co.openkappa.xxhash.*;
 
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
 @State(Scope.Benchmark)
 public class XXHash64State {
 
@@ -36,6 +39,12 @@ public class XXHash64State {
       Hasher64 create() {
         return new VectorXXHash64();
       }
+    },
+    FASTEST {
+      @Override
+      Hasher64 create() {
+        return FastestXXHash.hasher64();
+      }
     };
     abstract Hasher64 create();
   }
@@ -43,10 +52,16 @@ public class XXHash64State {
   @Param({"25", "50", "100", "200"})
   int size;
 
-  @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI"})
+  @Param({"VECTOR", "NO_SWAR", "UNSAFE", "VAR_HANDLE", "JNI", "FASTEST"})
   Impl impl;
 
+  @Param({"ARRAY", "SLICE", "HEAP_BUFFER", "DIRECT_BUFFER", "SEGMENT"})
+  Layout layout;
+
   byte[] data;
+  byte[] page;
+  ByteBuffer buffer;
+  MemorySegment segment;
 
   Hasher64 hasher;
 
@@ -54,6 +69,18 @@ public class XXHash64State {
   @Setup(Level.Trial)
   public void init() {
     data = BenchmarkUtils.newByteArray(size);
+    page = Layout.page(data);
+    buffer = Layout.buffer(layout, data);
+    segment = Layout.segment(data);
     hasher = impl.create();
   }
+
+  long hash(long seed) {
+    return switch (layout) {
+      case ARRAY -> hasher.hash(data, seed);
+      case SLICE -> hasher.hash(page, Layout.SLICE_OFFSET, size, seed);
+      case HEAP_BUFFER, DIRECT_BUFFER -> hasher.hash(buffer, seed);
+      case SEGMENT -> hasher.hash(segment, 0, size, seed);
+    };
+  }
 }
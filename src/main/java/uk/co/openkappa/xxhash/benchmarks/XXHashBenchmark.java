@@ -1,6 +1,7 @@
 package uk.co.openkappa.xxhash.benchmarks;
 
 import org.openjdk.jmh.annotations.*;
+import uk.co.openkappa.xxhash.Hash128;
 
 import java.util.concurrent.TimeUnit;
 
@@ -8,18 +9,28 @@ import java.util.concurrent.TimeUnit;
 @BenchmarkMode(Mode.Throughput)
 @Warmup(iterations = 3, time = 1)
 @Measurement(iterations = 5, time = 1)
-@Fork(value = 1, jvmArgsPrepend = {"--add-modules=jdk.incubator.vector"})
+@Fork(value = 1, jvmArgsPrepend = {"--enable-preview", "--add-modules=jdk.incubator.vector"})
 //@Fork(value = 1, jvmArgsPrepend = {"--add-modules=jdk.incubator.vector", "-Djdk.incubator.vector.VECTOR_ACCESS_OOB_CHECK=0"})
 public class XXHashBenchmark {
 
  @Benchmark
  public long xxhash64(XXHash64State state) {
-   return state.hasher.hash(state.data, 0L);
+   return state.hash(0L);
  }
 
  @Benchmark
  public long xxhash32(XXHash32State state) {
-   return state.hasher.hash(state.data, 0);
+   return state.hash(0);
+ }
+
+ @Benchmark
+ public long xxh3(XXHash3State state) {
+   return state.hash(0L);
+ }
+
+ @Benchmark
+ public Hash128 xxh128(XXHash128State state) {
+   return state.hasher.hash(state.data, 0L, state.result);
  }
 
   @Benchmark
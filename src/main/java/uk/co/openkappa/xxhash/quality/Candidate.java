@@ -0,0 +1,67 @@
+package uk.co.openkappa.xxhash.quality;
+
+import uk.co.openkappa.xxhash.HashCodeI;
+import uk.co.openkappa.xxhash.Hasher32;
+import uk.co.openkappa.xxhash.Hasher64;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A hash to score, with the width of its output, seeded with zero. Each check creates a hasher of
+ * its own, so a candidate's checks can run in parallel.
+ */
+public final class Candidate {
+
+  private final String name;
+  private final int bits;
+  private final Supplier<ToLongFunction<byte[]>> hasher;
+
+  private Candidate(String name, int bits, Supplier<ToLongFunction<byte[]>> hasher) {
+    this.name = name;
+    this.bits = bits;
+    this.hasher = hasher;
+  }
+
+  public static Candidate of32(String name, Supplier<? extends Hasher32> hasher) {
+    return new Candidate(name, 32, () -> {
+      Hasher32 hash = hasher.get();
+      return key -> hash.hash(key, 0) & 0xFFFFFFFFL;
+    });
+  }
+
+  public static Candidate of64(String name, Supplier<? extends Hasher64> hasher) {
+    return new Candidate(name, 64, () -> {
+      Hasher64 hash = hasher.get();
+      return key -> hash.hash(key, 0L);
+    });
+  }
+
+  public static Candidate ofHashCode(String name, Supplier<? extends HashCodeI> hasher) {
+    return new Candidate(name, 32, () -> {
+      HashCodeI hash = hasher.get();
+      return key -> hash.hash(ByteBuffer.wrap(key)) & 0xFFFFFFFFL;
+    });
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public int bits() {
+    return bits;
+  }
+
+  /**
+   * A hasher of keys to the hash in the low {@link #bits()} bits of a long, the rest being zero.
+   */
+  public ToLongFunction<byte[]> newHasher() {
+    return hasher.get();
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,287 @@
+package uk.co.openkappa.xxhash.quality;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Checks of a hash's output after SMHasher. Each fails when its worst statistic strays further from
+ * what a random function would give than sampling noise explains, {@link #SIGMAS} standard
+ * deviations, so the more keys a check hashes the smaller the flaw it can find. Keys come from a
+ * fixed seed, so a check gives the same score every run.
+ */
+public enum QualityCheck {
+
+  /**
+   * Flips each bit of random keys of 4 to 64 bytes: every bit of the hash should flip half the
+   * time. Reports the worst bias, 0% for a fair coin and 100% for a bit which always or never flips.
+   */
+  AVALANCHE("avalanche") {
+    @Override
+    Score run(ToLongFunction<byte[]> hasher, int bits, double scale) {
+      int samples = samples(10_000, scale);
+      var random = new SplittableRandom(SEED);
+      double worst = 0;
+      for (int length : new int[] {4, 8, 16, 32, 64}) {
+        byte[] key = new byte[length];
+        int[] flips = new int[length * 8 * bits];
+        for (int sample = 0; sample < samples; ++sample) {
+          random.nextBytes(key);
+          long hash = hasher.applyAsLong(key);
+          for (int bit = 0; bit < length * 8; ++bit) {
+            flip(key, bit);
+            long diff = hash ^ hasher.applyAsLong(key);
+            flip(key, bit);
+            for (; diff != 0; diff &= diff - 1) {
+              ++flips[bit * bits + Long.numberOfTrailingZeros(diff)];
+            }
+          }
+        }
+        for (int flipped : flips) {
+          worst = Math.max(worst, Math.abs(2.0 * flipped / samples - 1));
+        }
+      }
+      // a count of flips has a standard deviation of sqrt(samples) / 2
+      return new Score(this, worst * Math.sqrt(samples) <= SIGMAS, String.format("%.1f%%", worst * 100));
+    }
+  },
+
+  /**
+   * Flips each bit of random 8 byte keys: whether one bit of the hash flips should say nothing of
+   * whether another does. Reports the worst correlation between two bits' flips.
+   */
+  BIT_INDEPENDENCE("bic") {
+    @Override
+    Score run(ToLongFunction<byte[]> hasher, int bits, double scale) {
+      int samples = samples(2_000, scale);
+      var random = new SplittableRandom(SEED);
+      byte[] key = new byte[8];
+      int[] ones = new int[bits];
+      int[] both = new int[bits * bits];
+      double worst = 0;
+      for (int bit = 0; bit < key.length * 8; ++bit) {
+        Arrays.fill(ones, 0);
+        Arrays.fill(both, 0);
+        for (int sample = 0; sample < samples; ++sample) {
+          random.nextBytes(key);
+          long hash = hasher.applyAsLong(key);
+          flip(key, bit);
+          long diff = hash ^ hasher.applyAsLong(key);
+          for (; diff != 0; diff &= diff - 1) {
+            int first = Long.numberOfTrailingZeros(diff);
+            ++ones[first];
+            for (long rest = diff & (diff - 1); rest != 0; rest &= rest - 1) {
+              ++both[first * bits + Long.numberOfTrailingZeros(rest)];
+            }
+          }
+        }
+        for (int first = 0; first < bits; ++first) {
+          for (int second = first + 1; second < bits; ++second) {
+            worst = Math.max(worst,
+                    Math.abs(correlation(ones[first], ones[second], both[first * bits + second], samples)));
+          }
+        }
+      }
+      // samples times the squared correlation of independent bits is chi-squared with one degree of freedom
+      return new Score(this, worst * Math.sqrt(samples) <= SIGMAS, String.format("%.3f", worst));
+    }
+  },
+
+  /**
+   * Spreads sequential ints, longs in steps of 4096 and decimal strings over tables of 2^8, 2^12
+   * and 2^16 buckets, indexed by the hash's low bits as power-of-two tables are. Reports the worst
+   * chi-squared statistic in standard deviations above its expectation, negative when the keys
+   * spread more evenly than random ones would.
+   */
+  BUCKETS("buckets") {
+    @Override
+    Score run(ToLongFunction<byte[]> hasher, int bits, double scale) {
+      int keys = samples(1 << 19, scale);
+      double worst = Double.NEGATIVE_INFINITY;
+      for (IntFunction<byte[]> keySet : TABLE_KEYS) {
+        long[] hashes = new long[keys];
+        for (int i = 0; i < keys; ++i) {
+          hashes[i] = hasher.applyAsLong(keySet.apply(i));
+        }
+        // at least 8 keys a bucket, for the chi-squared approximation to hold
+        for (int tableBits = 8; tableBits <= Math.min(16, bits) && keys >= 8 << tableBits; tableBits += 4) {
+          worst = Math.max(worst, chiSquared(hashes, tableBits));
+        }
+      }
+      return new Score(this, worst <= SIGMAS, String.format("%.1f", worst));
+    }
+  },
+
+  /**
+   * Hashes keys of 4, 8, 32 and 128 bytes with at most 5, 4, 2 and 2 bits set, fewest bits first.
+   * Reports the collisions against those expected of a random function.
+   */
+  SPARSE_KEYS("sparse") {
+    @Override
+    Score run(ToLongFunction<byte[]> hasher, int bits, double scale) {
+      int limit = samples(1_000_000, scale);
+      long observed = 0;
+      double expected = 0;
+      for (int[] set : new int[][] {{4, 5}, {8, 4}, {32, 2}, {128, 2}}) {
+        byte[] key = new byte[set[0]];
+        long count = 0;
+        for (int setBits = 0; setBits <= set[1]; ++setBits) {
+          count += binomial(key.length * 8, setBits);
+        }
+        long[] hashes = new long[(int) Math.min(limit, count)];
+        for (int setBits = 0, filled = 0; setBits <= set[1]; ++setBits) {
+          filled = sparse(hasher, key, 0, setBits, hashes, filled);
+        }
+        observed += collisions(hashes);
+        expected += expectedCollisions(hashes.length, bits);
+      }
+      return collisionScore(this, observed, expected);
+    }
+  },
+
+  /**
+   * Hashes distinct blocks of 4 and 8 bytes, each repeated 8 times. Reports the collisions against
+   * those expected of a random function.
+   */
+  CYCLIC_KEYS("cyclic") {
+    @Override
+    Score run(ToLongFunction<byte[]> hasher, int bits, double scale) {
+      int keys = samples(500_000, scale);
+      long observed = 0;
+      double expected = 0;
+      for (int cycle : new int[] {4, 8}) {
+        byte[] key = new byte[cycle * 8];
+        long[] hashes = new long[keys];
+        for (int i = 0; i < keys; ++i) {
+          // multiplying by an odd constant is a bijection, on the low 32 bits as on all 64
+          long block = i * 0x9E3779B97F4A7C15L;
+          for (int at = 0; at < key.length; ++at) {
+            key[at] = (byte) (block >>> (at % cycle * 8));
+          }
+          hashes[i] = hasher.applyAsLong(key);
+        }
+        observed += collisions(hashes);
+        expected += expectedCollisions(keys, bits);
+      }
+      return collisionScore(this, observed, expected);
+    }
+  };
+
+  public static final double SIGMAS = 6;
+
+  private static final long SEED = 0x5EED;
+  // however small the scale, enough keys for each statistic to mean something
+  private static final int MIN_SAMPLES = 1 << 11;
+
+  private static final List<IntFunction<byte[]>> TABLE_KEYS = List.of(
+          i -> littleEndian(i, 4),
+          i -> littleEndian((long) i << 12, 8),
+          i -> ("key:" + i).getBytes(StandardCharsets.UTF_8));
+
+  private final String label;
+
+  QualityCheck(String label) {
+    this.label = label;
+  }
+
+  public String label() {
+    return label;
+  }
+
+  /**
+   * Scores the candidate, hashing as many keys as the check does by default times the scale.
+   */
+  public Score run(Candidate candidate, double scale) {
+    return run(candidate.newHasher(), candidate.bits(), scale);
+  }
+
+  abstract Score run(ToLongFunction<byte[]> hasher, int bits, double scale);
+
+  static int samples(int samples, double scale) {
+    return Math.max(MIN_SAMPLES, (int) (samples * scale));
+  }
+
+  // the phi coefficient of two bits' flips, taken to be 1 when either always or never flips
+  static double correlation(int first, int second, int both, int samples) {
+    double p = (double) first / samples;
+    double q = (double) second / samples;
+    double variance = p * (1 - p) * q * (1 - q);
+    return variance == 0 ? 1 : ((double) both / samples - p * q) / Math.sqrt(variance);
+  }
+
+  // the chi-squared statistic of the hashes' spread over the buckets, less its mean over its standard deviation
+  static double chiSquared(long[] hashes, int tableBits) {
+    int[] counts = new int[1 << tableBits];
+    for (long hash : hashes) {
+      ++counts[(int) hash & (counts.length - 1)];
+    }
+    double expected = (double) hashes.length / counts.length;
+    double statistic = 0;
+    for (int count : counts) {
+      statistic += (count - expected) * (count - expected) / expected;
+    }
+    int freedom = counts.length - 1;
+    return (statistic - freedom) / Math.sqrt(2.0 * freedom);
+  }
+
+  // sorts the hashes, counting each which equals the one before
+  static long collisions(long[] hashes) {
+    Arrays.sort(hashes);
+    long collisions = 0;
+    for (int i = 1; i < hashes.length; ++i) {
+      if (hashes[i] == hashes[i - 1]) {
+        ++collisions;
+      }
+    }
+    return collisions;
+  }
+
+  static double expectedCollisions(long keys, int bits) {
+    return keys * (keys - 1) / 2.0 / Math.pow(2, bits);
+  }
+
+  // collisions are close to Poisson, with a variance equal to their mean
+  private static Score collisionScore(QualityCheck check, long observed, double expected) {
+    return new Score(check, observed <= expected + SIGMAS * Math.sqrt(expected),
+            String.format("%d/%.1f", observed, expected));
+  }
+
+  // hashes each key with exactly bits more bits set above from, until the hashes are full
+  private static int sparse(ToLongFunction<byte[]> hasher, byte[] key, int from, int bits, long[] hashes, int filled) {
+    if (bits == 0) {
+      if (filled < hashes.length) {
+        hashes[filled++] = hasher.applyAsLong(key);
+      }
+      return filled;
+    }
+    for (int bit = from; bit <= key.length * 8 - bits && filled < hashes.length; ++bit) {
+      flip(key, bit);
+      filled = sparse(hasher, key, bit + 1, bits - 1, hashes, filled);
+      flip(key, bit);
+    }
+    return filled;
+  }
+
+  private static long binomial(int n, int k) {
+    long binomial = 1;
+    for (int i = 0; i < k; ++i) {
+      binomial = binomial * (n - i) / (i + 1);
+    }
+    return binomial;
+  }
+
+  private static void flip(byte[] key, int bit) {
+    key[bit >>> 3] ^= (byte) (1 << (bit & 7));
+  }
+
+  private static byte[] littleEndian(long value, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; ++i) {
+      bytes[i] = (byte) (value >>> (i * 8));
+    }
+    return bytes;
+  }
+}
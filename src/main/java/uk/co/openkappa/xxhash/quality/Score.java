@@ -0,0 +1,36 @@
+package uk.co.openkappa.xxhash.quality;
+
+/**
+ * The outcome of one check of one candidate: whether it passed, and its worst statistic, formatted
+ * as the check reports it.
+ */
+public final class Score {
+
+  private final QualityCheck check;
+  private final boolean passed;
+  private final String summary;
+
+  public Score(QualityCheck check, boolean passed, String summary) {
+    this.check = check;
+    this.passed = passed;
+    this.summary = summary;
+  }
+
+  public QualityCheck check() {
+    return check;
+  }
+
+  public boolean passed() {
+    return passed;
+  }
+
+  public String summary() {
+    return summary;
+  }
+
+  // failures are marked with a *, as in the allocation table
+  @Override
+  public String toString() {
+    return passed ? summary : summary + "*";
+  }
+}
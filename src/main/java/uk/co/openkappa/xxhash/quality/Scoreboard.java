@@ -0,0 +1,127 @@
+package uk.co.openkappa.xxhash.quality;
+
+import uk.co.openkappa.xxhash.results.Result;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Every check's score for each of a list of candidates, run in parallel, one task per candidate and
+ * check. Renders as a table of quality beside throughput, the fastest hashes first.
+ */
+public final class Scoreboard {
+
+  private static final String BENCHMARK = "XXHashBenchmark";
+
+  private final Map<Candidate, List<Score>> scores;
+
+  private Scoreboard(Map<Candidate, List<Score>> scores) {
+    this.scores = scores;
+  }
+
+  public static Scoreboard run(List<Candidate> candidates, double scale, int threads) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      Map<Candidate, List<Future<Score>>> futures = new LinkedHashMap<>();
+      for (Candidate candidate : candidates) {
+        for (QualityCheck check : QualityCheck.values()) {
+          futures.computeIfAbsent(candidate, key -> new ArrayList<>())
+                  .add(executor.submit(() -> check.run(candidate, scale)));
+        }
+      }
+      Map<Candidate, List<Score>> scores = new LinkedHashMap<>();
+      for (var candidate : futures.entrySet()) {
+        List<Score> row = new ArrayList<>();
+        for (Future<Score> score : candidate.getValue()) {
+          try {
+            row.add(score.get());
+          } catch (ExecutionException e) {
+            throw new IllegalStateException("checking " + candidate.getKey() + " failed", e.getCause());
+          }
+        }
+        scores.put(candidate.getKey(), List.copyOf(row));
+      }
+      return new Scoreboard(scores);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public List<Candidate> candidates() {
+    return List.copyOf(scores.keySet());
+  }
+
+  /**
+   * The candidate's scores, in the order of {@link QualityCheck#values()}.
+   */
+  public List<Score> scores(Candidate candidate) {
+    return scores.get(candidate);
+  }
+
+  public boolean passed(Candidate candidate) {
+    return scores.get(candidate).stream().allMatch(Score::passed);
+  }
+
+  /**
+   * Each candidate's throughput in XXHashBenchmark at one size, keyed by candidate name, which is
+   * the benchmark method and impl, such as {@code xxhash64 VECTOR}. Where the benchmark has a
+   * layout or buffer kind, only arrays and heap buffers count, so each hash reads the same input.
+   */
+  public static Map<String, Result> throughput(List<Result> results, String size) {
+    Map<String, Result> throughput = new LinkedHashMap<>();
+    for (Result result : results) {
+      String benchmark = result.benchmark();
+      int method = benchmark.lastIndexOf('.');
+      if (!result.higherIsBetter() || result.threads() != 1 || benchmark.indexOf(':') >= 0
+              || !benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1, method).equals(BENCHMARK)
+              || result.param("impl") == null || !size.equals(result.param("size"))
+              || !isNullOr(result.param("layout"), "ARRAY") || !isNullOr(result.param("bufferKind"), "HEAP")) {
+        continue;
+      }
+      throughput.put(benchmark.substring(method + 1) + " " + result.param("impl"), result);
+    }
+    return throughput;
+  }
+
+  /**
+   * A row per candidate, those with a throughput first, fastest first, and the rest in the order
+   * they were run. Failed checks are marked with a *.
+   */
+  public String render(Map<String, Result> throughput) {
+    List<Candidate> rows = new ArrayList<>(scores.keySet());
+    rows.sort(Comparator.comparingDouble(candidate -> {
+      Result result = throughput.get(candidate.name());
+      return result == null ? Double.POSITIVE_INFINITY : -result.score();
+    }));
+    String unit = throughput.values().stream().map(Result::unit).findFirst().orElse("throughput");
+    int width = Math.max(4, rows.stream().mapToInt(candidate -> candidate.name().length()).max().orElse(0));
+    var out = new StringBuilder(String.format("%-" + width + "s %4s", "hash", "bits"));
+    for (QualityCheck check : QualityCheck.values()) {
+      out.append(String.format(" %12s", check.label()));
+    }
+    out.append(String.format(" %6s %10s%n", "passed", unit));
+    for (Candidate candidate : rows) {
+      out.append(String.format("%-" + width + "s %4d", candidate.name(), candidate.bits()));
+      int passed = 0;
+      for (Score score : scores.get(candidate)) {
+        out.append(String.format(" %12s", score));
+        passed += score.passed() ? 1 : 0;
+      }
+      Result result = throughput.get(candidate.name());
+      out.append(String.format(" %6s %10s%n", passed + "/" + QualityCheck.values().length,
+              result == null ? "-" : String.format("%.2f", result.score())));
+    }
+    return out.toString();
+  }
+
+  private static boolean isNullOr(String value, String expected) {
+    return value == null || value.equals(expected);
+  }
+}
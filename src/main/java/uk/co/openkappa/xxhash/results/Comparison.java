@@ -0,0 +1,121 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A run's results against a baseline's, matched by benchmark, mode, threads and params. A change is
+ * significant when the two scores' 99.9% confidence intervals, score ± error, don't overlap and
+ * the scores differ by at least a threshold; a result without an interval, from too few samples,
+ * is never significantly changed.
+ */
+public class Comparison {
+
+  public enum Verdict {
+    IMPROVED, REGRESSED, UNCHANGED
+  }
+
+  public static final class Change {
+
+    private final Result baseline;
+    private final Result current;
+    private final Verdict verdict;
+
+    Change(Result baseline, Result current, Verdict verdict) {
+      this.baseline = baseline;
+      this.current = current;
+      this.verdict = verdict;
+    }
+
+    public Result baseline() {
+      return baseline;
+    }
+
+    public Result current() {
+      return current;
+    }
+
+    public Verdict verdict() {
+      return verdict;
+    }
+
+    /**
+     * How many times better the current result is, so above one is an improvement in any mode.
+     */
+    public double speedup() {
+      return baseline.higherIsBetter() ? current.score() / baseline.score() : baseline.score() / current.score();
+    }
+  }
+
+  private final List<Change> changes = new ArrayList<>();
+  private final List<Result> unmatched = new ArrayList<>();
+
+  public Comparison(Run baseline, Run current, double threshold) {
+    Map<String, Result> base = new LinkedHashMap<>();
+    for (Result result : baseline.results()) {
+      base.put(result.key(), result);
+    }
+    for (Result result : current.results()) {
+      Result before = base.get(result.key());
+      if (before == null || !before.unit().equals(result.unit())) {
+        unmatched.add(result);
+      } else {
+        changes.add(new Change(before, result, verdict(before, result, threshold)));
+      }
+    }
+  }
+
+  public List<Change> changes() {
+    return changes;
+  }
+
+  public List<Change> regressions() {
+    return changes.stream().filter(change -> change.verdict() == Verdict.REGRESSED).toList();
+  }
+
+  /**
+   * Results of the current run with nothing to compare them with in the baseline.
+   */
+  public List<Result> unmatched() {
+    return unmatched;
+  }
+
+  public String render() {
+    var out = new StringBuilder();
+    int width = 9;
+    for (Change change : changes) {
+      width = Math.max(width, change.current().key().length());
+    }
+    out.append(String.format("%-" + width + "s %24s %24s %9s  %s%n", "benchmark", "baseline", "current", "speedup", ""));
+    for (Change change : changes) {
+      out.append(String.format("%-" + width + "s %24s %24s %8.3fx  %s%n", change.current().key(),
+              score(change.baseline()), score(change.current()), change.speedup(),
+              change.verdict() == Verdict.UNCHANGED ? "" : change.verdict()));
+    }
+    out.append(String.format("%d compared, %d regressed, %d improved, %d not in the baseline%n",
+            changes.size(), regressions().size(),
+            changes.stream().filter(change -> change.verdict() == Verdict.IMPROVED).count(), unmatched.size()));
+    return out.toString();
+  }
+
+  private static String score(Result result) {
+    return Double.isNaN(result.error())
+            ? String.format("%.3f %s", result.score(), result.unit())
+            : String.format("%.3f ± %.3f %s", result.score(), result.error(), result.unit());
+  }
+
+  static Verdict verdict(Result baseline, Result current, double threshold) {
+    if (Double.isNaN(baseline.error()) || Double.isNaN(current.error())) {
+      return Verdict.UNCHANGED;
+    }
+    boolean overlap = current.score() - current.error() <= baseline.score() + baseline.error()
+            && baseline.score() - baseline.error() <= current.score() + current.error();
+    if (overlap || Math.abs(current.score() / baseline.score() - 1) < threshold) {
+      return Verdict.UNCHANGED;
+    }
+    boolean higher = current.score() > baseline.score();
+    return higher == baseline.higherIsBetter() ? Verdict.IMPROVED : Verdict.REGRESSED;
+  }
+}
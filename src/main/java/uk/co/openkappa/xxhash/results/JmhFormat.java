@@ -0,0 +1,305 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the CSV and JSON that JMH writes with {@code -rf csv} and {@code -rf json}, and writes CSV
+ * in the same layout, one {@code Param: name} column per param, as in results.csv. A JSON
+ * benchmark's secondary metrics, such as the percentiles of sample mode, become rows of their own
+ * named {@code benchmark:metric}, as JMH names them in CSV.
+ */
+public final class JmhFormat {
+
+  private static final String PARAM = "Param: ";
+  private static final List<String> COLUMNS =
+          List.of("Benchmark", "Mode", "Threads", "Samples", "Score", "Score Error (99.9%)", "Unit");
+
+  private JmhFormat() {
+  }
+
+  public static List<Result> read(Path file) throws IOException {
+    String text = Files.readString(file, StandardCharsets.UTF_8);
+    return text.stripLeading().startsWith("[") ? readJson(text) : readCsv(text);
+  }
+
+  /**
+   * The JDK version JMH recorded in a JSON file, or null if there's none, as in CSV.
+   */
+  public static String jdkVersion(Path file) throws IOException {
+    String text = Files.readString(file, StandardCharsets.UTF_8);
+    if (!text.stripLeading().startsWith("[")) {
+      return null;
+    }
+    for (Object benchmark : (List<?>) new Json(text).value()) {
+      if (((Map<?, ?>) benchmark).get("jdkVersion") instanceof String version) {
+        return version;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Lines starting with # are skipped, so a file may carry comments above its header.
+   */
+  public static List<Result> readCsv(String text) {
+    List<Result> results = new ArrayList<>();
+    List<String> header = null;
+    for (String line : text.split("\r?\n")) {
+      if (line.isBlank() || line.startsWith("#")) {
+        continue;
+      }
+      List<String> fields = fields(line);
+      if (header == null) {
+        header = fields;
+        if (!header.subList(0, Math.min(header.size(), COLUMNS.size())).equals(COLUMNS)) {
+          throw new IllegalArgumentException("not JMH CSV, the header is " + header);
+        }
+        continue;
+      }
+      if (fields.size() != header.size()) {
+        throw new IllegalArgumentException("expected " + header.size() + " fields: " + line);
+      }
+      Map<String, String> params = new LinkedHashMap<>();
+      for (int i = COLUMNS.size(); i < header.size(); ++i) {
+        // JMH leaves a param empty in rows of benchmarks which don't have it
+        if (header.get(i).startsWith(PARAM) && !fields.get(i).isEmpty()) {
+          params.put(header.get(i).substring(PARAM.length()), fields.get(i));
+        }
+      }
+      results.add(new Result(fields.get(0), fields.get(1), Integer.parseInt(fields.get(2)),
+              Long.parseLong(fields.get(3)), Double.parseDouble(fields.get(4)), Double.parseDouble(fields.get(5)),
+              fields.get(6), params));
+    }
+    return results;
+  }
+
+  public static List<Result> readJson(String text) {
+    List<Result> results = new ArrayList<>();
+    for (Object element : (List<?>) new Json(text).value()) {
+      Map<?, ?> benchmark = (Map<?, ?>) element;
+      String name = (String) benchmark.get("benchmark");
+      String mode = (String) benchmark.get("mode");
+      int threads = (int) number(benchmark.get("threads"));
+      Map<String, String> params = new LinkedHashMap<>();
+      if (benchmark.get("params") instanceof Map<?, ?> map) {
+        map.forEach((key, value) -> params.put((String) key, String.valueOf(value)));
+      }
+      results.add(metric(name, mode, threads, params, (Map<?, ?>) benchmark.get("primaryMetric")));
+      if (benchmark.get("secondaryMetrics") instanceof Map<?, ?> secondary) {
+        secondary.forEach((metric, value) ->
+                results.add(metric(name + ":" + metric, mode, threads, params, (Map<?, ?>) value)));
+      }
+    }
+    return results;
+  }
+
+  public static void writeCsv(List<Result> results, Appendable out) throws IOException {
+    Set<String> params = new LinkedHashSet<>();
+    for (Result result : results) {
+      params.addAll(result.params().keySet());
+    }
+    List<String> header = new ArrayList<>();
+    for (String column : COLUMNS) {
+      header.add(quote(column));
+    }
+    for (String param : params) {
+      header.add(quote(PARAM + param));
+    }
+    out.append(String.join(",", header)).append('\n');
+    for (Result result : results) {
+      List<String> fields = new ArrayList<>(List.of(quote(result.benchmark()), quote(result.mode()),
+              Integer.toString(result.threads()), Long.toString(result.samples()),
+              Double.toString(result.score()), Double.toString(result.error()),
+              quote(result.unit())));
+      for (String param : params) {
+        String value = result.param(param);
+        fields.add(value == null ? "" : value.contains(",") || value.contains("\"") ? quote(value) : value);
+      }
+      out.append(String.join(",", fields)).append('\n');
+    }
+  }
+
+  private static Result metric(String name, String mode, int threads, Map<String, String> params, Map<?, ?> metric) {
+    long samples = 0;
+    if (metric.get("rawData") instanceof List<?> forks) {
+      for (Object fork : forks) {
+        samples += ((List<?>) fork).size();
+      }
+    }
+    return new Result(name, mode, threads, samples, number(metric.get("score")), number(metric.get("scoreError")),
+            (String) metric.get("scoreUnit"), params);
+  }
+
+  // JMH writes NaN as a string
+  private static double number(Object value) {
+    return value instanceof Double number ? number : value instanceof String string ? Double.parseDouble(string) : Double.NaN;
+  }
+
+  private static String quote(String value) {
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  private static List<String> fields(String line) {
+    List<String> fields = new ArrayList<>();
+    var field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); ++i) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          ++i;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  // just enough JSON for JMH's output: objects, arrays, strings, numbers, booleans and null
+  private static final class Json {
+
+    private final String text;
+    private int position;
+
+    Json(String text) {
+      this.text = text;
+    }
+
+    Object value() {
+      skipSpace();
+      if (position >= text.length()) {
+        throw error("unexpected end");
+      }
+      char c = text.charAt(position);
+      switch (c) {
+        case '{' -> {
+          ++position;
+          Map<String, Object> object = new LinkedHashMap<>();
+          skipSpace();
+          if (peek('}')) {
+            return object;
+          }
+          do {
+            skipSpace();
+            String key = string();
+            skipSpace();
+            expect(':');
+            object.put(key, value());
+            skipSpace();
+          } while (peek(','));
+          expect('}');
+          return object;
+        }
+        case '[' -> {
+          ++position;
+          List<Object> array = new ArrayList<>();
+          skipSpace();
+          if (peek(']')) {
+            return array;
+          }
+          do {
+            array.add(value());
+            skipSpace();
+          } while (peek(','));
+          expect(']');
+          return array;
+        }
+        case '"' -> {
+          return string();
+        }
+        default -> {
+          for (String literal : new String[] {"true", "false", "null"}) {
+            if (text.startsWith(literal, position)) {
+              position += literal.length();
+              return literal.equals("null") ? null : Boolean.valueOf(literal);
+            }
+          }
+          int start = position;
+          while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+            ++position;
+          }
+          if (start == position) {
+            throw error("unexpected '" + c + "'");
+          }
+          return Double.parseDouble(text.substring(start, position));
+        }
+      }
+    }
+
+    private String string() {
+      expect('"');
+      var string = new StringBuilder();
+      while (true) {
+        if (position >= text.length()) {
+          throw error("unterminated string");
+        }
+        char c = text.charAt(position++);
+        if (c == '"') {
+          return string.toString();
+        }
+        if (c != '\\') {
+          string.append(c);
+          continue;
+        }
+        char escape = text.charAt(position++);
+        switch (escape) {
+          case 'b' -> string.append('\b');
+          case 'f' -> string.append('\f');
+          case 'n' -> string.append('\n');
+          case 'r' -> string.append('\r');
+          case 't' -> string.append('\t');
+          case 'u' -> {
+            string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            position += 4;
+          }
+          default -> string.append(escape);
+        }
+      }
+    }
+
+    private boolean peek(char c) {
+      if (position < text.length() && text.charAt(position) == c) {
+        ++position;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!peek(c)) {
+        throw error("expected '" + c + "'");
+      }
+    }
+
+    private void skipSpace() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+        ++position;
+      }
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException("bad JSON at " + position + ": " + message);
+    }
+  }
+}
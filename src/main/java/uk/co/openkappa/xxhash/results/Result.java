@@ -0,0 +1,119 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * One row of JMH's results: a benchmark's score under one set of params, with the half-width of its
+ * 99.9% confidence interval, which is NaN when there were too few samples to compute one.
+ */
+public final class Result {
+
+  private final String benchmark;
+  private final String mode;
+  private final int threads;
+  private final long samples;
+  private final double score;
+  private final double error;
+  private final String unit;
+  private final Map<String, String> params;
+
+  public Result(String benchmark, String mode, int threads, long samples, double score, double error,
+                String unit, Map<String, String> params) {
+    this.benchmark = benchmark;
+    this.mode = mode;
+    this.threads = threads;
+    this.samples = samples;
+    this.score = score;
+    this.error = error;
+    this.unit = unit;
+    this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+  }
+
+  public String benchmark() {
+    return benchmark;
+  }
+
+  public String mode() {
+    return mode;
+  }
+
+  public int threads() {
+    return threads;
+  }
+
+  public long samples() {
+    return samples;
+  }
+
+  public double score() {
+    return score;
+  }
+
+  public double error() {
+    return error;
+  }
+
+  public String unit() {
+    return unit;
+  }
+
+  public Map<String, String> params() {
+    return params;
+  }
+
+  public String param(String name) {
+    return params.get(name);
+  }
+
+  /**
+   * Throughputs are better higher; times, from every other mode, lower.
+   */
+  public boolean higherIsBetter() {
+    return "thrpt".equals(mode);
+  }
+
+  /**
+   * The benchmark without its package, and its params sorted by name, which identify the result
+   * within a run, whichever order a file lists the params in.
+   */
+  public String key() {
+    // secondary metrics, such as percentiles, follow the method after a colon and may have dots
+    int colon = benchmark.indexOf(':');
+    int method = benchmark.lastIndexOf('.', colon < 0 ? benchmark.length() : colon);
+    var key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+    key.append(' ').append(mode);
+    if (threads != 1) {
+      key.append(" threads=").append(threads);
+    }
+    new TreeMap<>(params).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+    return key.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Result other)) {
+      return false;
+    }
+    return threads == other.threads && samples == other.samples
+            && Double.compare(score, other.score) == 0 && Double.compare(error, other.error) == 0
+            && benchmark.equals(other.benchmark) && mode.equals(other.mode) && unit.equals(other.unit)
+            && params.equals(other.params);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(benchmark, mode, threads, score, params);
+  }
+
+  @Override
+  public String toString() {
+    return key() + ": " + score + " ± " + error + " " + unit;
+  }
+}
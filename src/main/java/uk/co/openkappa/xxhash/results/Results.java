@@ -0,0 +1,124 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps JMH's results in a {@link ResultsStore} and compares them. A run is selected by its JDK,
+ * CPU and commit prefix, any of which may be left out to take the latest run matching the rest;
+ * compare selects its baseline with the same options prefixed by {@code baseline-}, and exits
+ * with 1 if anything regressed.
+ * <pre>
+ * java -cp target/benchmarks.jar uk.co.openkappa.xxhash.results.Results
+ *   ingest results.csv [--jdk 21.0.1] [--cpu "..."] [--commit abc1234]
+ *   list
+ *   compare --baseline-commit abc1234 [--commit def5678] [--threshold 0.01]
+ *   speedup [--commit def5678] [--reference JNI]
+ * </pre>
+ * Every command takes {@code --store dir}, by default {@code results}. Ingest defaults the JDK to
+ * the one recorded in JSON, or else this JVM's, the CPU to this machine's and the commit to git's
+ * HEAD.
+ */
+public class Results {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length == 0) {
+      throw new IllegalArgumentException("expected one of ingest, list, compare or speedup");
+    }
+    Map<String, String> options = new HashMap<>();
+    String file = null;
+    for (int i = 1; i < args.length; ++i) {
+      if (args[i].startsWith("--") && i + 1 < args.length) {
+        options.put(args[i].substring(2), args[++i]);
+      } else if (file == null && !args[i].startsWith("--")) {
+        file = args[i];
+      } else {
+        throw new IllegalArgumentException("unexpected " + args[i]);
+      }
+    }
+    var store = new ResultsStore(Path.of(options.getOrDefault("store", "results")));
+    switch (args[0]) {
+      case "ingest" -> {
+        if (file == null) {
+          throw new IllegalArgumentException("ingest expects a JMH CSV or JSON file");
+        }
+        Path path = Path.of(file);
+        String jdk = options.get("jdk");
+        if (jdk == null) {
+          jdk = JmhFormat.jdkVersion(path);
+        }
+        var run = new Run(jdk == null ? System.getProperty("java.version") : jdk,
+                options.getOrDefault("cpu", cpu()),
+                options.containsKey("commit") ? options.get("commit") : commit(),
+                JmhFormat.read(path));
+        store.save(run);
+        System.out.println("saved " + run);
+      }
+      case "list" -> store.find(null, null, null).forEach(System.out::println);
+      case "compare" -> {
+        Run baseline = select(store, options, "baseline-");
+        Run current = select(store, options, "");
+        var comparison = new Comparison(baseline, current,
+                Double.parseDouble(options.getOrDefault("threshold", "0.01")));
+        System.out.println(baseline + " -> " + current);
+        System.out.print(comparison.render());
+        if (!comparison.regressions().isEmpty()) {
+          System.exit(1);
+        }
+      }
+      case "speedup" -> {
+        Run run = select(store, options, "");
+        System.out.println(run);
+        System.out.print(SpeedupTable.render(run, options.getOrDefault("reference", SpeedupTable.REFERENCE)));
+      }
+      default -> throw new IllegalArgumentException("unknown command " + args[0]);
+    }
+  }
+
+  private static Run select(ResultsStore store, Map<String, String> options, String prefix) throws IOException {
+    String jdk = options.get(prefix + "jdk");
+    String cpu = options.get(prefix + "cpu");
+    String commit = options.get(prefix + "commit");
+    List<Run> runs = store.find(jdk, cpu, commit);
+    if (runs.isEmpty()) {
+      throw new IllegalArgumentException("no run matches jdk=" + jdk + " cpu=" + cpu + " commit=" + commit);
+    }
+    return runs.get(runs.size() - 1);
+  }
+
+  private static String cpu() throws IOException {
+    Path cpuinfo = Path.of("/proc/cpuinfo");
+    if (Files.isReadable(cpuinfo)) {
+      for (String line : Files.readAllLines(cpuinfo)) {
+        if (line.startsWith("model name")) {
+          return line.substring(line.indexOf(':') + 1).trim();
+        }
+      }
+    }
+    return System.getProperty("os.arch");
+  }
+
+  private static String commit() throws IOException, InterruptedException {
+    try {
+      Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+              .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+      String head;
+      try (var out = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+        head = out.readLine();
+      }
+      if (git.waitFor() == 0 && head != null && !head.isBlank()) {
+        return head.trim();
+      }
+    } catch (IOException e) {
+      // no git
+    }
+    throw new IllegalArgumentException("can't find the commit from git, give it with --commit");
+  }
+}
@@ -0,0 +1,111 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A directory of runs, one CSV file per JDK, CPU and commit at {@code jdk/cpu/commit.csv}, each
+ * in JMH's layout below comments naming its key, so the files can be read by anything that reads
+ * JMH's CSV. Saving a run with the same key replaces it.
+ */
+public class ResultsStore {
+
+  private final Path root;
+
+  public ResultsStore(Path root) {
+    this.root = root;
+  }
+
+  public void save(Run run) throws IOException {
+    Path file = file(run.jdk(), run.cpu(), run.commit());
+    Files.createDirectories(file.getParent());
+    var text = new StringBuilder()
+            .append("# jdk: ").append(run.jdk()).append('\n')
+            .append("# cpu: ").append(run.cpu()).append('\n')
+            .append("# commit: ").append(run.commit()).append('\n');
+    JmhFormat.writeCsv(run.results(), text);
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.writeString(temporary, text, StandardCharsets.UTF_8);
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * The run with this key, or null if there's none.
+   */
+  public Run load(String jdk, String cpu, String commit) throws IOException {
+    Path file = file(jdk, cpu, commit);
+    return Files.exists(file) ? read(file) : null;
+  }
+
+  /**
+   * Every run whose key matches the given fields, a null field matching anything, oldest first.
+   */
+  public List<Run> find(String jdk, String cpu, String commit) throws IOException {
+    List<Run> runs = new ArrayList<>();
+    if (!Files.isDirectory(root)) {
+      return runs;
+    }
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(root, 3)) {
+      files = walk.filter(path -> path.toString().endsWith(".csv"))
+              .sorted(Comparator.comparing(ResultsStore::modified))
+              .toList();
+    }
+    for (Path file : files) {
+      Run run = read(file);
+      if ((jdk == null || jdk.equals(run.jdk())) && (cpu == null || cpu.equals(run.cpu()))
+              && (commit == null || run.commit().startsWith(commit))) {
+        runs.add(run);
+      }
+    }
+    return runs;
+  }
+
+  private Run read(Path file) throws IOException {
+    String text = Files.readString(file, StandardCharsets.UTF_8);
+    String jdk = null;
+    String cpu = null;
+    String commit = null;
+    for (String line : text.split("\n")) {
+      if (!line.startsWith("#")) {
+        break;
+      }
+      String[] field = line.substring(1).split(":", 2);
+      switch (field[0].strip()) {
+        case "jdk" -> jdk = field[1].strip();
+        case "cpu" -> cpu = field[1].strip();
+        case "commit" -> commit = field[1].strip();
+        default -> { }
+      }
+    }
+    if (jdk == null || cpu == null || commit == null) {
+      throw new IllegalArgumentException(file + " doesn't name its JDK, CPU and commit");
+    }
+    return new Run(jdk, cpu, commit, JmhFormat.readCsv(text));
+  }
+
+  private Path file(String jdk, String cpu, String commit) {
+    return root.resolve(name(jdk)).resolve(name(cpu)).resolve(name(commit) + ".csv");
+  }
+
+  // anything which isn't safe in a file name on every platform becomes an underscore
+  private static String name(String field) {
+    return field.strip().replaceAll("[^A-Za-z0-9._+-]", "_");
+  }
+
+  private static long modified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.util.List;
+
+/**
+ * The results of one run of the benchmarks, and the JDK, CPU and commit they ran on, which key the
+ * run in a {@link ResultsStore}.
+ */
+public final class Run {
+
+  private final String jdk;
+  private final String cpu;
+  private final String commit;
+  private final List<Result> results;
+
+  public Run(String jdk, String cpu, String commit, List<Result> results) {
+    if (jdk.isBlank() || cpu.isBlank() || commit.isBlank()) {
+      throw new IllegalArgumentException("a run needs a JDK, a CPU and a commit");
+    }
+    this.jdk = jdk;
+    this.cpu = cpu;
+    this.commit = commit;
+    this.results = List.copyOf(results);
+  }
+
+  public String jdk() {
+    return jdk;
+  }
+
+  public String cpu() {
+    return cpu;
+  }
+
+  public String commit() {
+    return commit;
+  }
+
+  public List<Result> results() {
+    return results;
+  }
+
+  @Override
+  public String toString() {
+    return jdk + " " + cpu + " " + commit + " (" + results.size() + " results)";
+  }
+}
@@ -0,0 +1,73 @@
+package uk.co.openkappa.xxhash.results;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Renders a run's results as one table per benchmark, with a row per {@code impl} and a column per
+ * {@code size}, each cell the speedup over a reference impl at the same size, JNI by default. Any
+ * other params split a benchmark into several tables.
+ */
+public final class SpeedupTable {
+
+  public static final String REFERENCE = "JNI";
+
+  private SpeedupTable() {
+  }
+
+  public static String render(Run run) {
+    return render(run, REFERENCE);
+  }
+
+  public static String render(Run run, String reference) {
+    Map<String, List<Result>> tables = new LinkedHashMap<>();
+    for (Result result : run.results()) {
+      if (result.param("impl") != null && result.param("size") != null) {
+        tables.computeIfAbsent(table(result), key -> new ArrayList<>()).add(result);
+      }
+    }
+    var out = new StringBuilder();
+    for (var table : tables.entrySet()) {
+      Set<String> impls = new LinkedHashSet<>();
+      Set<Long> sizes = new TreeSet<>();
+      Map<String, Result> cells = new LinkedHashMap<>();
+      for (Result result : table.getValue()) {
+        impls.add(result.param("impl"));
+        sizes.add(Long.parseLong(result.param("size")));
+        cells.put(result.param("impl") + "@" + Long.parseLong(result.param("size")), result);
+      }
+      out.append(table.getKey()).append(", speedup over ").append(reference).append('\n');
+      out.append(String.format("%-12s", "impl"));
+      for (long size : sizes) {
+        out.append(String.format(" %9d", size));
+      }
+      out.append('\n');
+      for (String impl : impls) {
+        out.append(String.format("%-12s", impl));
+        for (long size : sizes) {
+          Result result = cells.get(impl + "@" + size);
+          Result base = cells.get(reference + "@" + size);
+          out.append(result == null || base == null ? String.format(" %9s", "-")
+                  : String.format(" %8.2fx", result.higherIsBetter()
+                          ? result.score() / base.score() : base.score() / result.score()));
+        }
+        out.append('\n');
+      }
+      out.append('\n');
+    }
+    return out.toString();
+  }
+
+  // the result's key without its impl and size
+  private static String table(Result result) {
+    Map<String, String> others = new LinkedHashMap<>(result.params());
+    others.remove("impl");
+    others.remove("size");
+    return new Result(result.benchmark(), result.mode(), result.threads(), 0, 0, 0, result.unit(), others).key();
+  }
+}
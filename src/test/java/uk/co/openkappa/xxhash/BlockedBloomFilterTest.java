@@ -0,0 +1,110 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+
+public class BlockedBloomFilterTest {
+
+  @DataProvider
+  public static Object[][] rates() {
+    return new Object[][] {{0.1}, {0.01}, {0.001}};
+  }
+
+  @Test(dataProvider = "rates")
+  public void testNoFalseNegativesAndFalsePositiveRate(double rate) {
+    int count = 100_000;
+    var filter = new BlockedBloomFilter(count, rate, new UnsafeXXHash64());
+    byte[][] present = keys(new SplittableRandom(7), count);
+    for (byte[] key : present) {
+      filter.put(key);
+    }
+    for (byte[] key : present) {
+      Assert.assertTrue(filter.mightContain(key));
+    }
+    // the keys are distinct with overwhelming probability
+    int falsePositives = 0;
+    for (byte[] key : keys(new SplittableRandom(8), count)) {
+      if (filter.mightContain(key)) {
+        ++falsePositives;
+      }
+    }
+    // the filter is sized for an expected rate of at most the target, so allow for noise
+    Assert.assertTrue(falsePositives < count * rate * 1.3 + 10, falsePositives + " false positives");
+  }
+
+  @Test
+  public void testBatchAgreesWithSingleLookups() {
+    var filter = new BlockedBloomFilter(1000, 0.05, new VarHandleXXHash64());
+    var random = new SplittableRandom(9);
+    for (byte[] key : keys(random, 1000)) {
+      filter.put(key);
+    }
+    byte[][] keys = keys(random, 1001);
+    boolean[] results = new boolean[keys.length];
+    filter.mightContainAll(keys, results);
+    for (int i = 0; i < keys.length; ++i) {
+      Assert.assertEquals(results[i], filter.mightContain(keys[i]));
+    }
+  }
+
+  @Test
+  public void testWrapSerialisedFilter() {
+    var hasher = new UnsafeXXHash64();
+    var filter = new BlockedBloomFilter(10_000, 0.01, hasher);
+    byte[][] keys = keys(new SplittableRandom(10), 10_000);
+    for (byte[] key : keys) {
+      filter.put(key);
+    }
+    try (Arena arena = Arena.ofConfined()) {
+      MemorySegment off = arena.allocate(filter.serializedSize());
+      filter.writeTo(off);
+      // and once more on the heap, where the vector path may not apply
+      MemorySegment heap = MemorySegment.ofArray(new long[(int) (filter.serializedSize() / 8)]);
+      filter.writeTo(heap);
+      // as read from a file into an array, and mapped at an offset which isn't a multiple of 8
+      MemorySegment bytes = MemorySegment.ofArray(new byte[(int) filter.serializedSize()]);
+      filter.writeTo(bytes);
+      MemorySegment unaligned = arena.allocate(filter.serializedSize() + 3, 8).asSlice(3);
+      filter.writeTo(unaligned);
+      MemorySegment unalignedBytes = MemorySegment.ofArray(new byte[(int) filter.serializedSize() + 5]).asSlice(5);
+      filter.writeTo(unalignedBytes);
+      for (MemorySegment segment : new MemorySegment[] {off, heap, off.asReadOnly(), bytes, unaligned, unalignedBytes}) {
+        var wrapped = BlockedBloomFilter.wrap(segment, hasher);
+        for (byte[] key : keys) {
+          Assert.assertTrue(wrapped.mightContain(key));
+        }
+        for (byte[] key : keys(new SplittableRandom(11), 1000)) {
+          Assert.assertEquals(wrapped.mightContain(key), filter.mightContain(key));
+        }
+      }
+      // puts write through to an unaligned segment too
+      var wrapped = BlockedBloomFilter.wrap(unaligned, hasher);
+      byte[][] more = keys(new SplittableRandom(12), 100);
+      for (byte[] key : more) {
+        wrapped.put(key);
+      }
+      var rewrapped = BlockedBloomFilter.wrap(unaligned, hasher);
+      for (byte[] key : more) {
+        Assert.assertTrue(rewrapped.mightContain(key));
+      }
+      Assert.assertThrows(IllegalArgumentException.class,
+              () -> BlockedBloomFilter.wrap(off.asSlice(0, filter.serializedSize() - 64), hasher));
+      Assert.assertThrows(IllegalArgumentException.class,
+              () -> BlockedBloomFilter.wrap(arena.allocate(filter.serializedSize()), hasher));
+    }
+  }
+
+  private static byte[][] keys(SplittableRandom random, int count) {
+    byte[][] keys = new byte[count][];
+    for (int i = 0; i < count; ++i) {
+      keys[i] = new byte[random.nextInt(8, 48)];
+      random.nextBytes(keys[i]);
+    }
+    return keys;
+  }
+}
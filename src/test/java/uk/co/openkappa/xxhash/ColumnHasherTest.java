@@ -0,0 +1,84 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.SplittableRandom;
+
+public class ColumnHasherTest {
+
+  private final Hasher64 hasher64 = new UnsafeXXHash64();
+  private final Hasher32 hasher32 = new UnsafeXXHash32();
+
+  @Test
+  public void testFixedWidthColumnsMatchRowHashes() {
+    var random = new SplittableRandom(13);
+    for (int rows = 0; rows < 70; ++rows) {
+      long[] longs = random.longs(rows).toArray();
+      int[] ints = random.ints(rows).toArray();
+      long seed = random.nextLong();
+      long[] out64 = new long[rows];
+      int[] out32 = new int[rows];
+
+      ColumnHasher.hashLongs(longs, seed, out64);
+      long[] combined64 = out64.clone();
+      ColumnHasher.hashInts(ints, combined64);
+      for (int i = 0; i < rows; ++i) {
+        Assert.assertEquals(out64[i], hasher64.hashLong(longs[i], seed), "rows " + rows);
+        Assert.assertEquals(combined64[i], hasher64.hashInt(ints[i], out64[i]), "rows " + rows);
+      }
+      ColumnHasher.hashInts(ints, seed, out64);
+      combined64 = out64.clone();
+      ColumnHasher.hashLongs(longs, combined64);
+      for (int i = 0; i < rows; ++i) {
+        Assert.assertEquals(out64[i], hasher64.hashInt(ints[i], seed), "rows " + rows);
+        Assert.assertEquals(combined64[i], hasher64.hashLong(longs[i], out64[i]), "rows " + rows);
+      }
+
+      ColumnHasher.hashInts(ints, (int) seed, out32);
+      int[] combined32 = out32.clone();
+      ColumnHasher.hashLongs(longs, combined32);
+      for (int i = 0; i < rows; ++i) {
+        Assert.assertEquals(out32[i], hasher32.hashInt(ints[i], (int) seed), "rows " + rows);
+        Assert.assertEquals(combined32[i], hasher32.hashLong(longs[i], out32[i]), "rows " + rows);
+      }
+      ColumnHasher.hashLongs(longs, (int) seed, out32);
+      combined32 = out32.clone();
+      ColumnHasher.hashInts(ints, combined32);
+      for (int i = 0; i < rows; ++i) {
+        Assert.assertEquals(out32[i], hasher32.hashLong(longs[i], (int) seed), "rows " + rows);
+        Assert.assertEquals(combined32[i], hasher32.hashInt(ints[i], out32[i]), "rows " + rows);
+      }
+    }
+  }
+
+  @Test
+  public void testVariableWidthColumnsMatchRowHashes() {
+    var random = new SplittableRandom(29);
+    int rows = 200;
+    int[] offsets = new int[rows + 1];
+    for (int i = 0; i < rows; ++i) {
+      offsets[i + 1] = offsets[i] + random.nextInt(80);
+    }
+    byte[] data = BenchmarkUtils.newByteArray(offsets[rows]);
+    long[] out64 = new long[rows];
+    long[] fromSegment = new long[rows];
+    int[] out32 = new int[rows];
+    ColumnHasher.hashBytes(data, offsets, 5L, out64);
+    ColumnHasher.hashBytes(MemorySegment.ofArray(data), offsets, 5L, fromSegment);
+    ColumnHasher.hashBytes(data, offsets, 5, out32);
+    long[] combined64 = out64.clone();
+    ColumnHasher.hashBytes(data, offsets, combined64);
+    int[] combined32 = out32.clone();
+    ColumnHasher.hashBytes(data, offsets, combined32);
+    for (int i = 0; i < rows; ++i) {
+      int length = offsets[i + 1] - offsets[i];
+      Assert.assertEquals(out64[i], hasher64.hash(data, offsets[i], length, 5L));
+      Assert.assertEquals(fromSegment[i], out64[i]);
+      Assert.assertEquals(out32[i], hasher32.hash(data, offsets[i], length, 5));
+      Assert.assertEquals(combined64[i], hasher64.hash(data, offsets[i], length, out64[i]));
+      Assert.assertEquals(combined32[i], hasher32.hash(data, offsets[i], length, out32[i]));
+    }
+  }
+}
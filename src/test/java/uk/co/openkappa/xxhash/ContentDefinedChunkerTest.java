@@ -0,0 +1,150 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ContentDefinedChunkerTest {
+
+  private final Hasher64 hasher = FastestXXHash.hasher64();
+
+  @DataProvider
+  public static Object[][] sizes() {
+    return new Object[][] {{0}, {1}, {31}, {2048}, {2049}, {100_003}, {3_000_017}};
+  }
+
+  @DataProvider
+  public static Object[][] parameters() {
+    return new Object[][] {{2048, 8192, 65536}, {64, 256, 1024}, {1, 8, 8}, {4096, 4096, 4096}};
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testChunksCoverInputAndFingerprintsMatchXXH64(int size) {
+    byte[] data = BenchmarkUtils.newByteArray(size);
+    var chunker = new ContentDefinedChunker();
+    List<long[]> chunks = chunks(chunker, MemorySegment.ofArray(data));
+    long offset = 0;
+    for (int i = 0; i < chunks.size(); ++i) {
+      long[] chunk = chunks.get(i);
+      Assert.assertEquals(chunk[0], offset);
+      if (i < chunks.size() - 1) {
+        Assert.assertTrue(chunk[1] >= ContentDefinedChunker.DEFAULT_MIN_SIZE, "chunk of " + chunk[1]);
+      }
+      Assert.assertTrue(chunk[1] > 0 && chunk[1] <= ContentDefinedChunker.DEFAULT_MAX_SIZE, "chunk of " + chunk[1]);
+      Assert.assertEquals(chunk[2], hasher.hash(data, (int) chunk[0], (int) chunk[1], 0));
+      offset += chunk[1];
+    }
+    Assert.assertEquals(offset, size);
+  }
+
+  @Test(dataProvider = "parameters")
+  public void testSizesRespectParameters(int min, int average, int max) {
+    byte[] data = BenchmarkUtils.newByteArray(1 << 20);
+    List<long[]> chunks = chunks(new ContentDefinedChunker(min, average, max), MemorySegment.ofArray(data));
+    long total = 0;
+    for (int i = 0; i < chunks.size(); ++i) {
+      long[] chunk = chunks.get(i);
+      Assert.assertTrue(chunk[1] <= max && (chunk[1] >= min || i == chunks.size() - 1), "chunk of " + chunk[1]);
+      Assert.assertEquals(chunk[2], hasher.hash(data, (int) chunk[0], (int) chunk[1], 0));
+      total += chunk[1];
+    }
+    Assert.assertEquals(total, data.length);
+    // normalised chunking keeps the mean near the target, it's shifted up by the minimum size
+    double mean = (double) data.length / chunks.size();
+    Assert.assertTrue(mean >= min && mean <= Math.max(min, 2 * average), "mean chunk of " + mean);
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testStreamsChunkLikeSegments(int size) throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(size);
+    var chunker = new ContentDefinedChunker();
+    List<long[]> expected = chunks(chunker, MemorySegment.ofArray(data));
+    assertSameChunks(chunks(chunker, new ByteArrayInputStream(data)), expected);
+    assertSameChunks(chunks(chunker, trickle(new ByteArrayInputStream(data))), expected);
+    assertSameChunks(chunks(chunker, Channels.newChannel(trickle(new ByteArrayInputStream(data)))), expected);
+  }
+
+  @Test
+  public void testDataOnlyValidDuringCallbackMatchesChunk() throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(500_000);
+    new ContentDefinedChunker().chunk(trickle(new ByteArrayInputStream(data)), (offset, length, fingerprint, chunk) -> {
+      Assert.assertEquals(chunk.byteSize(), length);
+      Assert.assertEquals(MemorySegment.ofArray(data).asSlice(offset, length).mismatch(chunk), -1L);
+    });
+  }
+
+  @Test
+  public void testInsertionOnlyChangesNearbyChunks() {
+    byte[] data = BenchmarkUtils.newByteArray(4 << 20);
+    byte[] edited = new byte[data.length + 100];
+    System.arraycopy(data, 0, edited, 0, 1 << 20);
+    System.arraycopy(BenchmarkUtils.newByteArray(100), 0, edited, 1 << 20, 100);
+    System.arraycopy(data, 1 << 20, edited, (1 << 20) + 100, data.length - (1 << 20));
+    var chunker = new ContentDefinedChunker();
+    Set<Long> before = new HashSet<>();
+    for (long[] chunk : chunks(chunker, MemorySegment.ofArray(data))) {
+      before.add(chunk[2]);
+    }
+    List<long[]> after = chunks(chunker, MemorySegment.ofArray(edited));
+    int changed = 0;
+    for (long[] chunk : after) {
+      changed += before.contains(chunk[2]) ? 0 : 1;
+    }
+    Assert.assertTrue(changed >= 1 && changed <= 3, changed + " of " + after.size() + " chunks changed");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testAverageMustBePowerOfTwo() {
+    new ContentDefinedChunker(1024, 3000, 8192);
+  }
+
+  private static void assertSameChunks(List<long[]> actual, List<long[]> expected) {
+    Assert.assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < actual.size(); ++i) {
+      Assert.assertEquals(actual.get(i), expected.get(i));
+    }
+  }
+
+  private static List<long[]> chunks(ContentDefinedChunker chunker, MemorySegment data) {
+    List<long[]> chunks = new ArrayList<>();
+    chunker.chunk(data, (offset, length, fingerprint, chunk) -> chunks.add(new long[] {offset, length, fingerprint}));
+    return chunks;
+  }
+
+  private static List<long[]> chunks(ContentDefinedChunker chunker, InputStream in) throws IOException {
+    List<long[]> chunks = new ArrayList<>();
+    chunker.chunk(in, (offset, length, fingerprint, chunk) -> chunks.add(new long[] {offset, length, fingerprint}));
+    return chunks;
+  }
+
+  private static List<long[]> chunks(ContentDefinedChunker chunker, ReadableByteChannel in) throws IOException {
+    List<long[]> chunks = new ArrayList<>();
+    chunker.chunk(in, (offset, length, fingerprint, chunk) -> chunks.add(new long[] {offset, length, fingerprint}));
+    return chunks;
+  }
+
+  // short, uneven reads, so chunks straddle refills
+  private static InputStream trickle(InputStream in) {
+    return new FilterInputStream(in) {
+      int next = 1;
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        next = next * 7 % 10_007;
+        return super.read(buffer, offset, Math.min(length, next));
+      }
+    };
+  }
+}
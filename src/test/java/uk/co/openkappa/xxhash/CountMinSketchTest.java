@@ -0,0 +1,145 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class CountMinSketchTest {
+
+  @DataProvider
+  public static Object[][] sketches() {
+    return new Object[][] {
+            {1, false}, {1, true}, {4, false}, {4, true}
+    };
+  }
+
+  @Test(dataProvider = "sketches")
+  public void testEstimatesBoundCounts(int stripes, boolean conservative) {
+    var sketch = new CountMinSketch(4, 1 << 12, stripes, conservative);
+    int[] counts = zipfCounts(10_000, 200_000);
+    for (int key = 0; key < counts.length; ++key) {
+      for (int i = 0; i < counts[key]; ++i) {
+        sketch.add(key(key));
+      }
+    }
+    long total = 200_000;
+    int bad = 0;
+    for (int key = 0; key < counts.length; ++key) {
+      long estimate = sketch.estimate(key(key));
+      Assert.assertTrue(estimate >= counts[key]);
+      // e / width * total with probability 1 - e^-depth per key
+      if (estimate - counts[key] > Math.E * total / (1 << 12)) {
+        ++bad;
+      }
+    }
+    Assert.assertTrue(bad < counts.length / 50, bad + " estimates out of bounds");
+  }
+
+  @Test
+  public void testConservativeUpdateIsTighter() {
+    var plain = new CountMinSketch(3, 1 << 8);
+    var conservative = new CountMinSketch(3, 1 << 8, 1, true);
+    int[] counts = zipfCounts(5000, 100_000);
+    for (int key = 0; key < counts.length; ++key) {
+      plain.add(key(key), counts[key]);
+      conservative.add(key(key), counts[key]);
+    }
+    long plainError = 0;
+    long conservativeError = 0;
+    for (int key = 0; key < counts.length; ++key) {
+      long estimate = conservative.estimate(key(key));
+      Assert.assertTrue(estimate >= counts[key]);
+      Assert.assertTrue(estimate <= plain.estimate(key(key)));
+      plainError += plain.estimate(key(key)) - counts[key];
+      conservativeError += estimate - counts[key];
+    }
+    Assert.assertTrue(conservativeError < plainError * 3 / 4, conservativeError + " vs " + plainError);
+  }
+
+  @Test(dataProvider = "sketches")
+  public void testConcurrentUpdates(int stripes, boolean conservative) throws Exception {
+    if (conservative) {
+      // racing conservative updates of the same key may lose counts by design
+      return;
+    }
+    var sketch = new CountMinSketch(4, 1 << 10, stripes, false);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 4; ++thread) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 100_000; ++i) {
+            sketch.add(key(i & 7));
+          }
+        }));
+      }
+      for (var future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    for (int key = 0; key < 8; ++key) {
+      Assert.assertEquals(sketch.estimate(key(key)), 50_000);
+    }
+  }
+
+  @Test
+  public void testHeavyHitters() {
+    var hitters = new HeavyHitters(new CountMinSketch(4, 1 << 12, 1, true), 10);
+    int[] counts = zipfCounts(10_000, 500_000);
+    // shuffled so that heavy keys have to displace early light ones
+    int[] stream = new int[500_000];
+    int length = 0;
+    for (int key = 0; key < counts.length; ++key) {
+      for (int i = 0; i < counts[key] && length < stream.length; ++i) {
+        stream[length++] = key;
+      }
+    }
+    var random = new SplittableRandom(3);
+    for (int i = length - 1; i > 0; --i) {
+      int j = random.nextInt(i + 1);
+      int key = stream[i];
+      stream[i] = stream[j];
+      stream[j] = key;
+    }
+    for (int i = 0; i < length; ++i) {
+      hitters.add(key(stream[i]));
+    }
+    Set<String> top = new HashSet<>();
+    for (var entry : hitters.top()) {
+      top.add(new String(entry.key()));
+    }
+    Assert.assertEquals(top.size(), 10);
+    // zipfCounts gives the lowest keys the highest counts
+    for (int key = 0; key < 10; ++key) {
+      Assert.assertTrue(top.contains(new String(key(key))), "missing " + key);
+    }
+  }
+
+  // counts following Zipf's law with exponent 1, summing to about total
+  private static int[] zipfCounts(int keys, int total) {
+    double harmonic = 0;
+    for (int i = 1; i <= keys; ++i) {
+      harmonic += 1.0 / i;
+    }
+    int[] counts = new int[keys];
+    for (int i = 0; i < keys; ++i) {
+      counts[i] = (int) Math.round(total / harmonic / (i + 1));
+    }
+    return counts;
+  }
+
+  private static byte[] key(int key) {
+    return ("key-" + key).getBytes();
+  }
+}
@@ -0,0 +1,147 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FileHasherTest {
+
+  private final UnsafeXXHash64 hasher = new UnsafeXXHash64();
+  private final FileHasher fileHasher = new FileHasher(hasher);
+
+  @DataProvider
+  public static Object[][] sizes() {
+    return new Object[][] {{0}, {1}, {31}, {4096}, {100_003}};
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testSequentialMatchesArrayHash(int size) throws IOException {
+    Path file = file(size);
+    try {
+      Assert.assertEquals(fileHasher.hash(file, 7), hasher.hash(Files.readAllBytes(file), 7));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test(dataProvider = "sizes")
+  public void testParallelCombinesChunksInTreeOrder(int size) throws IOException {
+    Path file = file(size);
+    try {
+      byte[] data = Files.readAllBytes(file);
+      long chunkSize = 4096;
+      long[] level = new long[Math.max(1, (int) ((size + chunkSize - 1) / chunkSize))];
+      for (int i = 0; i < level.length; ++i) {
+        int offset = (int) (i * chunkSize);
+        level[i] = hasher.hash(data, offset, (int) Math.min(chunkSize, size - offset), 3);
+      }
+      long expected = hasher.hashLongs(tree(level, 0, level.length), size, 3);
+      for (int parallelism : new int[] {1, 4}) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+          Assert.assertEquals(fileHasher.hashParallel(file, 3, chunkSize, pool), expected);
+        } finally {
+          pool.shutdown();
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testParallelFailureWaitsForOtherChunks() throws IOException {
+    Path file = file(16 * 4096);
+    AtomicInteger reading = new AtomicInteger();
+    // the first chunk fails once the others have had time to start, and they take a while
+    Hasher64 failing = new UnsafeXXHash64() {
+      @Override
+      public long hash(MemorySegment input, long offset, long length, long seed) {
+        reading.incrementAndGet();
+        try {
+          Thread.sleep(20);
+          if (offset == 0) {
+            throw new IllegalStateException("first chunk failed");
+          }
+          return super.hash(input, offset, length, seed);
+        } catch (InterruptedException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          reading.decrementAndGet();
+        }
+      }
+    };
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Assert.assertThrows(IllegalStateException.class,
+              () -> new FileHasher(failing).hashParallel(file, 3, 4096, pool));
+      // nothing may still be reading the mapping once it's closed
+      Assert.assertEquals(reading.get(), 0);
+    } finally {
+      pool.shutdown();
+      Files.delete(file);
+    }
+  }
+
+  // a sparse file of 2GB and a few bytes, more than a JNI hasher can be given as a buffer, hashed
+  // whole and as one 2GB chunk and the rest
+  @Test
+  public void testFilesOver2GB() throws IOException {
+    long chunkSize = 1L << 31;
+    byte[] tail = BenchmarkUtils.newByteArray(100);
+    Path file = Files.createTempFile("xxhash", ".bin");
+    try {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        channel.write(ByteBuffer.wrap(tail), chunkSize);
+      }
+      var streaming = hasher.newStreamingHash(3);
+      byte[] zeros = new byte[1 << 20];
+      for (long offset = 0; offset < chunkSize; offset += zeros.length) {
+        streaming.update(zeros, 0, zeros.length);
+      }
+      long firstChunk = streaming.digest();
+      streaming.update(tail, 0, tail.length);
+      long whole = streaming.digest();
+      long parallel = hasher.hashLongs(hasher.hashLongs(firstChunk, hasher.hash(tail, 3), 3), chunkSize + tail.length, 3);
+      for (Hasher64 large : new Hasher64[] {new JNIXXHash64(), FastestXXHash.hasher64()}) {
+        var fileHasher = new FileHasher(large);
+        Assert.assertEquals(fileHasher.hash(file, 3), whole, large.toString());
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+          Assert.assertEquals(fileHasher.hashParallel(file, 3, chunkSize, pool), parallel, large.toString());
+        } finally {
+          pool.shutdown();
+        }
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private long tree(long[] leaves, int from, int to) {
+    if (to - from == 1) {
+      return leaves[from];
+    }
+    int split = from + Integer.highestOneBit(to - from - 1);
+    return hasher.hashLongs(tree(leaves, from, split), tree(leaves, split, to), 3);
+  }
+
+  private static Path file(int size) throws IOException {
+    byte[] data = new byte[size];
+    new SplittableRandom(size).nextBytes(data);
+    Path file = Files.createTempFile("xxhash", ".bin");
+    Files.write(file, data);
+    return file;
+  }
+}
@@ -0,0 +1,96 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+
+public class FixedWidthHashTest {
+
+  @DataProvider
+  public static Object[][] hasher64() {
+    return new Object[][] {
+            {new UnsafeXXHash64()},
+            {new VarHandleXXHash64()},
+            {new VectorXXHash64()},
+            {new JNIXXHash64()},
+            {new BucketedHasher64(new UnsafeXXHash64(), new VectorXXHash64(), new JNIXXHash64(), new VarHandleXXHash64())},
+            {new UnsafeXXHash3()},
+            {new VectorXXHash3()}
+    };
+  }
+
+  @DataProvider
+  public static Object[][] hasher32() {
+    return new Object[][] {
+            {new UnsafeXXHash32()},
+            {new VarHandleXXHash32()},
+            {new VectorXXHash32()},
+            {new JNIXXHash32()},
+            {new BucketedHasher32(new UnsafeXXHash32(), new VectorXXHash32(), new JNIXXHash32(), new VarHandleXXHash32())}
+    };
+  }
+
+  @Test(dataProvider = "hasher64")
+  public void testHasher64MatchesEncoding(Hasher64 hasher) {
+    var random = new SplittableRandom(64);
+    for (int i = 0; i < 100; ++i) {
+      long seed = random.nextLong();
+      int i1 = random.nextInt();
+      long l1 = random.nextLong();
+      long l2 = random.nextLong();
+      Assert.assertEquals(hasher.hashInt(i1, seed), hasher.hash(bytes(i1), seed));
+      Assert.assertEquals(hasher.hashLong(l1, seed), hasher.hash(bytes(l1), seed));
+      Assert.assertEquals(hasher.hashLongs(l1, l2, seed), hasher.hash(bytes(l1, l2), seed));
+    }
+    for (int length = 0; length < 80; ++length) {
+      long[] longs = random.longs(length + 3).toArray();
+      int[] ints = random.ints(length + 3).toArray();
+      Assert.assertEquals(hasher.hashLongArray(longs, 2, length, length), hasher.hash(bytes(longs, 2, length), length), "length " + length);
+      Assert.assertEquals(hasher.hashIntArray(ints, 1, length, length), hasher.hash(bytes(ints, 1, length), length), "length " + length);
+    }
+  }
+
+  @Test(dataProvider = "hasher32")
+  public void testHasher32MatchesEncoding(Hasher32 hasher) {
+    var random = new SplittableRandom(32);
+    for (int i = 0; i < 100; ++i) {
+      int seed = random.nextInt();
+      int i1 = random.nextInt();
+      long l1 = random.nextLong();
+      long l2 = random.nextLong();
+      Assert.assertEquals(hasher.hashInt(i1, seed), hasher.hash(bytes(i1), seed));
+      Assert.assertEquals(hasher.hashLong(l1, seed), hasher.hash(bytes(l1), seed));
+      Assert.assertEquals(hasher.hashLongs(l1, l2, seed), hasher.hash(bytes(l1, l2), seed));
+    }
+    for (int length = 0; length < 80; ++length) {
+      long[] longs = random.longs(length + 3).toArray();
+      int[] ints = random.ints(length + 3).toArray();
+      Assert.assertEquals(hasher.hashLongArray(longs, 2, length, length), hasher.hash(bytes(longs, 2, length), length), "length " + length);
+      Assert.assertEquals(hasher.hashIntArray(ints, 1, length, length), hasher.hash(bytes(ints, 1, length), length), "length " + length);
+    }
+  }
+
+  private static byte[] bytes(int value) {
+    return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+  }
+
+  private static byte[] bytes(long... values) {
+    return bytes(values, 0, values.length);
+  }
+
+  private static byte[] bytes(long[] values, int offset, int length) {
+    var buffer = ByteBuffer.allocate(length * 8).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asLongBuffer().put(values, offset, length);
+    return buffer.array();
+  }
+
+  private static byte[] bytes(int[] values, int offset, int length) {
+    var buffer = ByteBuffer.allocate(length * 4).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.asIntBuffer().put(values, offset, length);
+    return buffer.array();
+  }
+}
@@ -0,0 +1,90 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class HyperLogLogTest {
+
+  @DataProvider
+  public static Object[][] sketches() {
+    return new Object[][] {
+            {4, 1000}, {8, 100}, {8, 100_000},
+            {11, 10}, {11, 1000}, {11, 1_000_000},
+            {14, 100}, {14, 5000}, {14, 1_000_000},
+            {18, 50_000}, {18, 2_000_000}
+    };
+  }
+
+  @Test(dataProvider = "sketches")
+  public void testEstimateWithinError(int precision, int cardinality) {
+    var sketch = new HyperLogLog(precision);
+    for (int i = 0; i < cardinality; ++i) {
+      // each key added twice
+      sketch.add(key(i));
+      sketch.add(key(i));
+    }
+    // four standard errors, the dense registers' 1.04 / sqrt(m) bounding the sparse phase's too
+    double error = 4 * 1.04 / Math.sqrt(1 << precision);
+    Assert.assertEquals(sketch.estimate(), cardinality, cardinality * error + 1);
+  }
+
+  @Test
+  public void testMergeIsUnion() {
+    int[][] splits = {{100, 200}, {100, 50_000}, {50_000, 100}, {80_000, 90_000}};
+    for (int[] split : splits) {
+      var left = new HyperLogLog(12);
+      var right = new HyperLogLog(12);
+      var union = new HyperLogLog(12);
+      for (int i = 0; i < split[0]; ++i) {
+        left.add(key(i));
+        union.add(key(i));
+      }
+      // the halves overlap
+      for (int i = split[0] / 2; i < split[0] / 2 + split[1]; ++i) {
+        right.add(key(i));
+        union.add(key(i));
+      }
+      left.merge(right);
+      Assert.assertEquals(left.isSparse(), union.isSparse());
+      Assert.assertEquals(left.estimate(), union.estimate());
+      Assert.assertEquals(left.toBytes(), union.toBytes());
+    }
+    Assert.assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(13)));
+  }
+
+  @Test
+  public void testSerialisationRoundTrip() {
+    for (int cardinality : new int[] {0, 10, 3000, 100_000}) {
+      var sketch = new HyperLogLog(14);
+      for (int i = 0; i < cardinality; ++i) {
+        sketch.add(key(i));
+      }
+      var copy = HyperLogLog.fromBytes(sketch.toBytes());
+      Assert.assertEquals(copy.isSparse(), sketch.isSparse());
+      Assert.assertEquals(copy.estimate(), sketch.estimate());
+      for (int i = cardinality; i < cardinality + 1000; ++i) {
+        sketch.add(key(i));
+        copy.add(key(i));
+      }
+      Assert.assertEquals(copy.toBytes(), sketch.toBytes());
+    }
+  }
+
+  @Test
+  public void testAddAllMatchesAdd() {
+    var one = new HyperLogLog(11);
+    var all = new HyperLogLog(11);
+    byte[][] keys = new byte[5000][];
+    for (int i = 0; i < keys.length; ++i) {
+      keys[i] = key(i);
+      one.add(keys[i]);
+    }
+    all.addAll(keys);
+    Assert.assertEquals(all.toBytes(), one.toBytes());
+  }
+
+  private static byte[] key(int i) {
+    return ("key-" + i).getBytes();
+  }
+}
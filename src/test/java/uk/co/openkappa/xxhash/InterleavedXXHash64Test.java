@@ -0,0 +1,39 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.SplittableRandom;
+
+public class InterleavedXXHash64Test {
+
+  @DataProvider
+  public static Object[][] batches() {
+    return new Object[][] {
+            {0, 8}, {1, 8}, {2, 64}, {7, 16}, {33, 40}, {100, 100}, {257, 3}
+    };
+  }
+
+  @Test(dataProvider = "batches")
+  public void testInterleaved64AgainstScalar(int count, int maxLength) {
+    var random = new SplittableRandom(count);
+    byte[][] keys = new byte[count][];
+    for (int i = 0; i < count; ++i) {
+      keys[i] = BenchmarkUtils.newByteArray(random.nextInt(maxLength + 1));
+    }
+    long[] seeds = random.longs(count).toArray();
+    var reference = new UnsafeXXHash64();
+    long[] out = new long[count];
+    new InterleavedXXHash64().hashBatch(keys, seeds, out);
+    for (int i = 0; i < count; ++i) {
+      Assert.assertEquals(out[i], reference.hash(keys[i], seeds[i]), "length " + keys[i].length);
+    }
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testRejectsShortOutput() {
+    byte[][] keys = {new byte[10], new byte[20], new byte[30]};
+    new InterleavedXXHash64().hashBatch(keys, new long[3], new long[2]);
+  }
+}
@@ -0,0 +1,93 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class OffHeapHashMapTest {
+
+  @DataProvider
+  public static Object[][] maps() {
+    return new Object[][] {
+            {new UnsafeXXHash64(), OffHeapHashMap.Probing.LINEAR},
+            {new UnsafeXXHash64(), OffHeapHashMap.Probing.ROBIN_HOOD},
+            {new VarHandleXXHash3(), OffHeapHashMap.Probing.ROBIN_HOOD}
+    };
+  }
+
+  @Test(dataProvider = "maps")
+  public void testAgainstHashMapWhileGrowing(Hasher64 hasher, OffHeapHashMap.Probing probing) {
+    var random = new SplittableRandom(41);
+    Map<ByteBuffer, Long> expected = new HashMap<>();
+    try (var map = new OffHeapHashMap(hasher, probing, 16)) {
+      for (int i = 0; i < 50_000; ++i) {
+        // few enough distinct short keys that many puts are updates
+        byte[] key = new byte[random.nextInt(1, 40)];
+        random.nextBytes(key);
+        if (key.length < 3) {
+          key = new byte[] {(byte) random.nextInt(4)};
+        }
+        long value = random.nextLong();
+        map.put(key, value);
+        expected.put(ByteBuffer.wrap(key), value);
+        if ((i & 127) == 0) {
+          for (var entry : expected.entrySet()) {
+            if (random.nextInt(64) == 0) {
+              Assert.assertEquals(map.get(entry.getKey().array(), -1), (long) entry.getValue());
+            }
+          }
+        }
+      }
+      Assert.assertEquals(map.size(), expected.size());
+      for (var entry : expected.entrySet()) {
+        Assert.assertEquals(map.get(entry.getKey().array(), -1), (long) entry.getValue());
+        Assert.assertTrue(map.containsKey(entry.getKey().array()));
+      }
+      for (int i = 0; i < 10_000; ++i) {
+        byte[] key = new byte[random.nextInt(1, 40)];
+        random.nextBytes(key);
+        if (!expected.containsKey(ByteBuffer.wrap(key))) {
+          Assert.assertEquals(map.get(key, -1), -1L);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReadsFinishMigration() {
+    try (var map = new OffHeapHashMap(new UnsafeXXHash64())) {
+      int count = 0;
+      while (!map.migrating()) {
+        map.put(Integer.toString(count).getBytes(), count);
+        ++count;
+      }
+      int reads = 0;
+      while (map.migrating()) {
+        Assert.assertTrue(map.containsKey(Integer.toString(reads % count).getBytes()));
+        Assert.assertTrue(++reads <= count);
+      }
+      for (int i = 0; i < count; ++i) {
+        Assert.assertEquals(map.get(Integer.toString(i).getBytes(), -1), i);
+      }
+      Assert.assertFalse(map.containsKey("missing".getBytes()));
+    }
+  }
+
+  @Test
+  public void testRangeKeys() {
+    try (var map = new OffHeapHashMap(new UnsafeXXHash64())) {
+      byte[] buffer = "xxabcdefghijyy".getBytes();
+      map.put(buffer, 2, 10, 7);
+      Assert.assertEquals(map.get("abcdefghij".getBytes(), -1), 7);
+      Assert.assertEquals(map.get(buffer, -1), -1);
+      Assert.assertEquals(map.get(buffer, 2, 10, -1), 7);
+      Assert.assertTrue(map.containsKey(buffer, 2, 10));
+      Assert.assertFalse(map.containsKey(buffer, 1, 10));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+public class ShardRouterTest {
+
+  private static final Hasher64 HASHER = new UnsafeXXHash64();
+
+  @DataProvider
+  public static Object[][] routers() {
+    IntFunction<ShardRouter> jump = nodes -> new JumpHashRouter(HASHER, nodes);
+    IntFunction<ShardRouter> rendezvous = nodes -> new RendezvousRouter(HASHER, seeds(nodes));
+    IntFunction<ShardRouter> ring = nodes -> new RingRouter(HASHER, seeds(nodes), 200);
+    return new Object[][] {
+            {jump, 1}, {jump, 7}, {jump, 64}, {jump, 1000},
+            {rendezvous, 1}, {rendezvous, 7}, {rendezvous, 64}, {rendezvous, 1000},
+            {ring, 1}, {ring, 7}, {ring, 64}, {ring, 1000}
+    };
+  }
+
+  @Test(dataProvider = "routers")
+  public void testBalanceAndBatch(IntFunction<ShardRouter> factory, int nodes) {
+    ShardRouter router = factory.apply(nodes);
+    byte[][] keys = keys(200 * nodes);
+    int[] out = new int[keys.length];
+    router.route(keys, out);
+    int[] load = new int[nodes];
+    for (int i = 0; i < keys.length; ++i) {
+      Assert.assertEquals(out[i], router.route(keys[i]));
+      ++load[out[i]];
+    }
+    // sampling alone spreads the loads by 7%, and a ring with 200 points per node as much again
+    for (int count : load) {
+      Assert.assertEquals(count, 200, 200 * 0.5, Arrays.toString(load));
+    }
+  }
+
+  @Test(dataProvider = "routers")
+  public void testAddingANodeOnlyMovesKeysToIt(IntFunction<ShardRouter> factory, int nodes) {
+    ShardRouter before = factory.apply(nodes);
+    ShardRouter after = factory.apply(nodes + 1);
+    byte[][] keys = keys(20_000);
+    int moved = 0;
+    for (byte[] key : keys) {
+      int from = before.route(key);
+      int to = after.route(key);
+      if (from != to) {
+        Assert.assertEquals(to, nodes);
+        ++moved;
+      }
+    }
+    double expected = keys.length / (nodes + 1.0);
+    Assert.assertEquals(moved, expected, expected * 0.3 + 50);
+  }
+
+  @Test
+  public void testRendezvousVectorMatchesScalar() {
+    long[] seeds = seeds(37);
+    var router = new RendezvousRouter(HASHER, seeds);
+    var random = new SplittableRandom(5);
+    for (int i = 0; i < 10_000; ++i) {
+      long hash = random.nextLong();
+      int expected = 0;
+      for (int node = 1; node < seeds.length; ++node) {
+        if (XXH64.avalanche(hash ^ seeds[node]) > XXH64.avalanche(hash ^ seeds[expected])) {
+          expected = node;
+        }
+      }
+      Assert.assertEquals(router.routeHash(hash), expected);
+    }
+  }
+
+  // seeds depend only on the node's number, so growing the array keeps the existing nodes
+  private static long[] seeds(int nodes) {
+    long[] seeds = new long[nodes];
+    for (int i = 0; i < nodes; ++i) {
+      seeds[i] = XXH64.hashInt(i, 0);
+    }
+    return seeds;
+  }
+
+  private static byte[][] keys(int count) {
+    var random = new SplittableRandom(count);
+    byte[][] keys = new byte[count][];
+    for (int i = 0; i < count; ++i) {
+      keys[i] = new byte[random.nextInt(4, 32)];
+      random.nextBytes(keys[i]);
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,177 @@
+package uk.co.openkappa.xxhash;
+
+import net.jpountz.xxhash.XXHashFactory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+
+public class StreamingXXHashTest {
+
+  @DataProvider
+  public static Object[][] streaming64() {
+    return new Object[][] {
+            args64("NoSWARXXHash64", new NoSWARXXHash64()::newStreamingHash),
+            args64("UnsafeXXHash64", new UnsafeXXHash64()::newStreamingHash),
+            args64("VarHandleXXHash64", new VarHandleXXHash64()::newStreamingHash),
+            args64("VectorXXHash64", new VectorXXHash64()::newStreamingHash)
+    };
+  }
+
+  @DataProvider
+  public static Object[][] streaming32() {
+    return new Object[][] {
+            args32("NoSWARXXHash32", new NoSWARXXHash32()::newStreamingHash),
+            args32("UnsafeXXHash32", new UnsafeXXHash32()::newStreamingHash),
+            args32("VarHandleXXHash32", new VarHandleXXHash32()::newStreamingHash),
+            args32("VectorXXHash32", new VectorXXHash32()::newStreamingHash)
+    };
+  }
+
+  @Test(dataProvider = "streaming64")
+  public void testStreamingXXHash64AgainstReference(String name, LongFunction<StreamingXXHash64> factory) {
+    var random = new SplittableRandom(42);
+    var streaming = factory.apply(0L);
+    for (int length = 0; length < 600; ++length) {
+      byte[] data = BenchmarkUtils.newByteArray(length);
+      long seed = random.nextLong();
+      var reference = XXHashFactory.fastestInstance().newStreamingHash64(seed);
+      streaming.reset(seed);
+      for (int offset = 0; offset < length; ) {
+        int chunk = Math.min(length - offset, random.nextInt(70));
+        reference.update(data, offset, chunk);
+        streaming.update(data, offset, chunk);
+        offset += chunk;
+        Assert.assertEquals(streaming.digest(), reference.getValue(), "length " + length);
+      }
+      Assert.assertEquals(streaming.digest(), reference.getValue(), "length " + length);
+    }
+  }
+
+  @Test(dataProvider = "streaming64")
+  public void testStreamingXXHash64Sources(String name, LongFunction<StreamingXXHash64> factory) {
+    var random = new SplittableRandom(7);
+    var oneShot = new JNIXXHash64();
+    var streaming = factory.apply(0L);
+    try (Arena arena = Arena.ofConfined()) {
+      for (int length = 0; length < 300; ++length) {
+        byte[] data = BenchmarkUtils.newByteArray(length);
+        long expected = oneShot.hash(data, 123L);
+        var direct = ByteBuffer.allocateDirect(length).put(data).flip();
+        var bigEndian = ByteBuffer.allocateDirect(length).order(ByteOrder.BIG_ENDIAN).put(data).flip();
+        var readOnly = ByteBuffer.wrap(data).asReadOnlyBuffer();
+        var segment = arena.allocate(Math.max(length, 1)).asSlice(0, length).copyFrom(MemorySegment.ofArray(data));
+        for (Object source : new Object[] {ByteBuffer.wrap(data), direct, bigEndian, readOnly, segment,
+                MemorySegment.ofArray(data), XXHashTest.longs(data)}) {
+          streaming.reset(123L);
+          for (int offset = 0; offset < length; ) {
+            int chunk = Math.min(length - offset, random.nextInt(50));
+            if (source instanceof ByteBuffer buffer) {
+              streaming.update(buffer.slice(offset, chunk).order(buffer.order()));
+            } else {
+              streaming.update(((MemorySegment) source).asSlice(offset, chunk));
+            }
+            offset += chunk;
+          }
+          Assert.assertEquals(streaming.digest(), expected, source + " length " + length);
+        }
+      }
+    }
+  }
+
+  @Test(dataProvider = "streaming32")
+  public void testStreamingXXHash32AgainstReference(String name, IntFunction<StreamingXXHash32> factory) {
+    var random = new SplittableRandom(42);
+    var streaming = factory.apply(0);
+    for (int length = 0; length < 300; ++length) {
+      byte[] data = BenchmarkUtils.newByteArray(length);
+      int seed = random.nextInt();
+      var reference = XXHashFactory.fastestInstance().newStreamingHash32(seed);
+      streaming.reset(seed);
+      for (int offset = 0; offset < length; ) {
+        int chunk = Math.min(length - offset, random.nextInt(40));
+        reference.update(data, offset, chunk);
+        streaming.update(data, offset, chunk);
+        offset += chunk;
+      }
+      Assert.assertEquals(streaming.digest(), reference.getValue(), "length " + length);
+    }
+  }
+
+  @Test(dataProvider = "streaming32")
+  public void testStreamingXXHash32Sources(String name, IntFunction<StreamingXXHash32> factory) {
+    var random = new SplittableRandom(7);
+    var oneShot = new JNIXXHash32();
+    var streaming = factory.apply(0);
+    for (int length = 0; length < 200; ++length) {
+      byte[] data = BenchmarkUtils.newByteArray(length);
+      int expected = oneShot.hash(data, 123);
+      var direct = ByteBuffer.allocateDirect(length).put(data).flip();
+      for (Object source : new Object[] {direct, MemorySegment.ofArray(data), XXHashTest.longs(data)}) {
+        streaming.reset(123);
+        for (int offset = 0; offset < length; ) {
+          int chunk = Math.min(length - offset, random.nextInt(30));
+          if (source instanceof ByteBuffer buffer) {
+            streaming.update(buffer.slice(offset, chunk));
+          } else {
+            streaming.update(((MemorySegment) source).asSlice(offset, chunk));
+          }
+          offset += chunk;
+        }
+        Assert.assertEquals(streaming.digest(), expected, source + " length " + length);
+      }
+    }
+  }
+
+  @Test(dataProvider = "streaming64")
+  public void testStreamingXXHash64ReusedBuffer(String name, LongFunction<StreamingXXHash64> factory) {
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    var streaming = factory.apply(123L);
+    // refilled between updates, as a channel's buffer is, and read a window at a time
+    var direct = ByteBuffer.allocateDirect(64).order(ByteOrder.BIG_ENDIAN);
+    for (int offset = 0; offset < data.length; ) {
+      int chunk = Math.min(data.length - offset, 1 + offset % 61);
+      direct.clear().position(offset % 3);
+      direct.put(data, offset, chunk).flip().position(offset % 3);
+      streaming.update(direct);
+      Assert.assertEquals(direct.order(), ByteOrder.BIG_ENDIAN);
+      Assert.assertFalse(direct.hasRemaining());
+      if (offset % 5 == 0) {
+        streaming.update(ByteBuffer.wrap(data, 0, 0).asReadOnlyBuffer());
+      }
+      offset += chunk;
+    }
+    Assert.assertEquals(streaming.digest(), new JNIXXHash64().hash(data, 123L));
+  }
+
+  @Test(dataProvider = "streaming32")
+  public void testStreamingXXHash32ReusedBuffer(String name, IntFunction<StreamingXXHash32> factory) {
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    var streaming = factory.apply(123);
+    var direct = ByteBuffer.allocateDirect(64).order(ByteOrder.BIG_ENDIAN);
+    for (int offset = 0; offset < data.length; ) {
+      int chunk = Math.min(data.length - offset, 1 + offset % 61);
+      direct.clear().position(offset % 3);
+      direct.put(data, offset, chunk).flip().position(offset % 3);
+      streaming.update(direct);
+      Assert.assertEquals(direct.order(), ByteOrder.BIG_ENDIAN);
+      offset += chunk;
+    }
+    Assert.assertEquals(streaming.digest(), new JNIXXHash32().hash(data, 123));
+  }
+
+  private static Object[] args64(String name, LongFunction<StreamingXXHash64> factory) {
+    return new Object[] {name, factory};
+  }
+
+  private static Object[] args32(String name, IntFunction<StreamingXXHash32> factory) {
+    return new Object[] {name, factory};
+  }
+}
@@ -0,0 +1,55 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+public class StringHashTest {
+
+  // ASCII, Latin-1, BMP, supplementary and an unpaired surrogate
+  private static final String ALPHABET = "abcXYZ019 éüß€漢字😀\uD800";
+
+  @DataProvider
+  public static Object[][] hashers() {
+    return new Object[][] {
+            {new UnsafeXXHash64()},
+            {new VarHandleXXHash64()},
+            {new VectorXXHash64()},
+            {new JNIXXHash64()},
+            {new BucketedHasher64(new UnsafeXXHash64(), new VectorXXHash64(), new JNIXXHash64(), new VarHandleXXHash64())},
+            {new UnsafeXXHash3()},
+            {new VectorXXHash3()}
+    };
+  }
+
+  @Test(dataProvider = "hashers")
+  public void testStringsMatchEncodings(Hasher64 hasher) {
+    var random = new SplittableRandom(8);
+    for (int length = 0; length < 100; ++length) {
+      for (int alphabet : new int[] {9, 13, ALPHABET.length()}) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; ++i) {
+          builder.append(ALPHABET.charAt(random.nextInt(alphabet)));
+        }
+        String string = builder.toString();
+        byte[] utf16 = codeUnits(string);
+        Assert.assertEquals(hasher.hashChars(string, length), hasher.hash(utf16, length), string);
+        Assert.assertEquals(hasher.hashChars(builder, length), hasher.hash(utf16, length), string);
+        Assert.assertEquals(hasher.hashString(string, length), hasher.hash(string.getBytes(StandardCharsets.UTF_8), length), string);
+      }
+    }
+  }
+
+  // getBytes(UTF_16LE) would replace the unpaired surrogate, but code units are hashed as they are
+  private static byte[] codeUnits(String string) {
+    byte[] bytes = new byte[2 * string.length()];
+    for (int i = 0; i < string.length(); ++i) {
+      bytes[2 * i] = (byte) string.charAt(i);
+      bytes[2 * i + 1] = (byte) (string.charAt(i) >>> 8);
+    }
+    return bytes;
+  }
+}
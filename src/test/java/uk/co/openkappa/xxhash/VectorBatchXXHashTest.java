@@ -0,0 +1,81 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.SplittableRandom;
+
+public class VectorBatchXXHashTest {
+
+  @DataProvider
+  public static Object[][] batches() {
+    return new Object[][] {
+            {1, 8}, {7, 16}, {33, 40}, {100, 100}, {257, 3}
+    };
+  }
+
+  @Test(dataProvider = "batches")
+  public void testBatch32AgainstScalar(int count, int maxLength) {
+    var random = new SplittableRandom(count);
+    byte[][] keys = keys(random, count, maxLength);
+    int[] offsets = offsets(keys);
+    byte[] packed = pack(keys, offsets);
+    int[] seeds = random.ints(count).toArray();
+    var reference = new UnsafeXXHash32();
+    var batch = new VectorBatchXXHash32();
+    int[] fromKeys = new int[count];
+    int[] fromPacked = new int[count];
+    batch.hashBatch(keys, seeds, fromKeys);
+    batch.hashBatch(packed, offsets, seeds, fromPacked);
+    for (int i = 0; i < count; ++i) {
+      int expected = reference.hash(keys[i], seeds[i]);
+      Assert.assertEquals(fromKeys[i], expected, "length " + keys[i].length);
+      Assert.assertEquals(fromPacked[i], expected, "length " + keys[i].length);
+    }
+  }
+
+  @Test(dataProvider = "batches")
+  public void testBatch64AgainstScalar(int count, int maxLength) {
+    var random = new SplittableRandom(count);
+    byte[][] keys = keys(random, count, maxLength);
+    int[] offsets = offsets(keys);
+    byte[] packed = pack(keys, offsets);
+    long[] seeds = random.longs(count).toArray();
+    var reference = new UnsafeXXHash64();
+    var batch = new VectorBatchXXHash64();
+    long[] fromKeys = new long[count];
+    long[] fromPacked = new long[count];
+    batch.hashBatch(keys, seeds, fromKeys);
+    batch.hashBatch(packed, offsets, seeds, fromPacked);
+    for (int i = 0; i < count; ++i) {
+      long expected = reference.hash(keys[i], seeds[i]);
+      Assert.assertEquals(fromKeys[i], expected, "length " + keys[i].length);
+      Assert.assertEquals(fromPacked[i], expected, "length " + keys[i].length);
+    }
+  }
+
+  private static byte[][] keys(SplittableRandom random, int count, int maxLength) {
+    byte[][] keys = new byte[count][];
+    for (int i = 0; i < count; ++i) {
+      keys[i] = BenchmarkUtils.newByteArray(random.nextInt(maxLength + 1));
+    }
+    return keys;
+  }
+
+  private static int[] offsets(byte[][] keys) {
+    int[] offsets = new int[keys.length + 1];
+    for (int i = 0; i < keys.length; ++i) {
+      offsets[i + 1] = offsets[i] + keys[i].length;
+    }
+    return offsets;
+  }
+
+  private static byte[] pack(byte[][] keys, int[] offsets) {
+    byte[] packed = new byte[offsets[keys.length]];
+    for (int i = 0; i < keys.length; ++i) {
+      System.arraycopy(keys[i], 0, packed, offsets[i], keys[i].length);
+    }
+    return packed;
+  }
+}
@@ -0,0 +1,79 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class VectorHashCodeTest {
+
+  private final VectorHashCode hashCode = new VectorHashCode();
+
+  @Test
+  public void testMatchesArraysHashCode() {
+    var random = new SplittableRandom(31);
+    for (int length = 0; length < 300; ++length) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      char[] chars = new char[length];
+      for (int i = 0; i < length; ++i) {
+        chars[i] = (char) random.nextInt();
+      }
+      int[] ints = random.ints(length).toArray();
+      Assert.assertEquals(hashCode.hash(bytes), Arrays.hashCode(bytes), "length " + length);
+      Assert.assertEquals(hashCode.hash(chars), Arrays.hashCode(chars), "length " + length);
+      Assert.assertEquals(hashCode.hash(ints), Arrays.hashCode(ints), "length " + length);
+      Assert.assertEquals(hashCode.stringHashCode(chars, 0, length), new String(chars).hashCode(), "length " + length);
+    }
+  }
+
+  @Test
+  public void testRangesMatchArraysHashCode() {
+    var random = new SplittableRandom(17);
+    byte[] data = new byte[400];
+    random.nextBytes(data);
+    char[] chars = new String(data, StandardCharsets.ISO_8859_1).toCharArray();
+    for (int length = 0; length < 300; ++length) {
+      int offset = random.nextInt(data.length - length + 1);
+      int expected = Arrays.hashCode(Arrays.copyOfRange(data, offset, offset + length));
+      Assert.assertEquals(hashCode.hash(data, offset, length), expected, "length " + length);
+      Assert.assertEquals(hashCode.stringHashCode(chars, offset, length),
+              new String(chars, offset, length).hashCode(), "length " + length);
+    }
+  }
+
+  @Test
+  public void testBuffersAndSegmentsMatchArraysHashCode() {
+    var random = new SplittableRandom(7);
+    try (Arena arena = Arena.ofConfined()) {
+      for (int length = 0; length < 300; ++length) {
+        byte[] data = new byte[length + 5];
+        random.nextBytes(data);
+        int expected = Arrays.hashCode(Arrays.copyOfRange(data, 3, 3 + length));
+
+        var heap = ByteBuffer.wrap(data, 3, length);
+        Assert.assertEquals(hashCode.hash(heap), expected, "heap length " + length);
+        Assert.assertEquals(heap.position(), 3);
+        Assert.assertEquals(hashCode.hash(heap.slice()), expected, "slice length " + length);
+        Assert.assertEquals(hashCode.hash(heap.asReadOnlyBuffer()), expected, "read only length " + length);
+
+        var direct = ByteBuffer.allocateDirect(data.length).put(data).position(3).limit(3 + length);
+        Assert.assertEquals(hashCode.hash(direct), expected, "direct length " + length);
+
+        var segment = MemorySegment.ofArray(data).asSlice(3, length);
+        Assert.assertEquals(hashCode.hash(segment), expected, "segment length " + length);
+        var dataNative = arena.allocate(length);
+        dataNative.copyFrom(segment);
+        Assert.assertEquals(hashCode.hash(dataNative), expected, "native length " + length);
+        var longs = MemorySegment.ofArray(new long[(length + 7) / 8]).asSlice(0, length);
+        longs.copyFrom(segment);
+        Assert.assertEquals(hashCode.hash(longs), expected, "long[] segment length " + length);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package uk.co.openkappa.xxhash;
+
+import net.openhft.hashing.LongHashFunction;
+import net.openhft.hashing.LongTupleHashFunction;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+public class XXHash3Test {
+
+  private static final long[] SEEDS = {0L, 1L, -1L, 0x9E3779B97F4A7C15L};
+
+  @DataProvider
+  public static Object[][] xxhash3() {
+    return new Object[][] {
+            {new UnsafeXXHash3()},
+            {new VarHandleXXHash3()},
+            {new VectorXXHash3()}
+    };
+  }
+
+  @Test(dataProvider = "xxhash3")
+  public void testXXHash3AgainstReference(BaseXXHash3 hasher) {
+    byte[] data = BenchmarkUtils.newByteArray(2100);
+    Hash128 result = new Hash128();
+    for (long seed : SEEDS) {
+      var reference64 = LongHashFunction.xx3(seed);
+      var reference128 = LongTupleHashFunction.xx128(seed);
+      for (int length = 0; length <= data.length; ++length) {
+        Assert.assertEquals(hasher.hash(data, 0, length, seed), reference64.hashBytes(data, 0, length),
+                "length " + length + " seed " + seed);
+        long[] expected = reference128.hashBytes(data, 0, length);
+        hasher.hash(data, 0, length, seed, result);
+        Assert.assertEquals(result, new Hash128(expected[0], expected[1]), "length " + length + " seed " + seed);
+      }
+    }
+  }
+
+  @Test(dataProvider = "xxhash3")
+  public void testXXHash3Segments(BaseXXHash3 hasher) {
+    byte[] data = BenchmarkUtils.newByteArray(1500);
+    Hash128 expected = new Hash128();
+    Hash128 result = new Hash128();
+    try (Arena arena = Arena.ofConfined()) {
+      MemorySegment nativeSegment = arena.allocate(data.length + 7).asSlice(7);
+      nativeSegment.copyFrom(MemorySegment.ofArray(data));
+      MemorySegment heapSegment = MemorySegment.ofArray(data);
+      for (int length = 0; length < data.length; length += 13) {
+        long expected64 = hasher.hash(data, 3, Math.max(length - 3, 0), 42L);
+        hasher.hash(data, 3, Math.max(length - 3, 0), 42L, expected);
+        for (MemorySegment segment : new MemorySegment[] {nativeSegment, heapSegment}) {
+          Assert.assertEquals(hasher.hash(segment, 3, Math.max(length - 3, 0), 42L), expected64, "length " + length);
+          Assert.assertEquals(hasher.hash(segment, 3, Math.max(length - 3, 0), 42L, result), expected, "length " + length);
+        }
+      }
+    }
+  }
+}
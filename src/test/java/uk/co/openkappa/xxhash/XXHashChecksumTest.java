@@ -0,0 +1,175 @@
+package uk.co.openkappa.xxhash;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.zip.CheckedOutputStream;
+
+public class XXHashChecksumTest {
+
+  private static final int SEED = 0x1234;
+
+  @DataProvider
+  public static Object[][] checksums() {
+    return new Object[][] {
+            {"xxh32", (Supplier<XXHashChecksum>) () -> XXHashChecksum.xxh32(SEED),
+                    (ToLongFunction<byte[]>) data -> new UnsafeXXHash32().hash(data, SEED) & 0xFFFFFFFFL},
+            {"vector xxh32", (Supplier<XXHashChecksum>) () -> XXHashChecksum.xxh32(new VectorXXHash32()::newStreamingHash, SEED),
+                    (ToLongFunction<byte[]>) data -> new UnsafeXXHash32().hash(data, SEED) & 0xFFFFFFFFL},
+            {"xxh64", (Supplier<XXHashChecksum>) () -> XXHashChecksum.xxh64(SEED),
+                    (ToLongFunction<byte[]>) data -> new UnsafeXXHash64().hash(data, SEED)},
+            {"vector xxh64", (Supplier<XXHashChecksum>) () -> XXHashChecksum.xxh64(new VectorXXHash64()::newStreamingHash, SEED),
+                    (ToLongFunction<byte[]>) data -> new UnsafeXXHash64().hash(data, SEED)}
+    };
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testChecksum(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference) {
+    var random = new SplittableRandom(42);
+    XXHashChecksum checksum = factory.get();
+    for (int length : new int[] {0, 1, 15, 16, 31, 32, 33, 100, 1000}) {
+      byte[] data = BenchmarkUtils.newByteArray(length);
+      checksum.reset();
+      int offset = 0;
+      while (offset < length) {
+        int piece = Math.min(length - offset, random.nextInt(40));
+        switch (random.nextInt(4)) {
+          case 0 -> checksum.update(data, offset, piece);
+          case 1 -> {
+            for (int i = offset; i < offset + piece; ++i) {
+              checksum.update(data[i]);
+            }
+          }
+          case 2 -> {
+            ByteBuffer direct = ByteBuffer.allocateDirect(piece + 3).position(3);
+            direct.put(data, offset, piece).position(3);
+            checksum.update(direct);
+            Assert.assertFalse(direct.hasRemaining());
+          }
+          default -> checksum.update(ByteBuffer.wrap(data, offset, piece).asReadOnlyBuffer());
+        }
+        offset += piece;
+      }
+      Assert.assertEquals(checksum.getValue(), reference.applyAsLong(data), name + " length " + length);
+    }
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testCheckedOutputStream(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference)
+          throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(777);
+    var checked = new CheckedOutputStream(OutputStream.nullOutputStream(), factory.get());
+    checked.write(data, 0, 100);
+    checked.write(data[100]);
+    checked.write(data, 101, 676);
+    Assert.assertEquals(checked.getChecksum().getValue(), reference.applyAsLong(data));
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testOutputStream(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference)
+          throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    var sink = new ByteArrayOutputStream();
+    try (var out = new XXHashOutputStream(sink, factory.get())) {
+      out.write(data, 0, 10);
+      out.write(data[10]);
+      out.write(data, 11, 989);
+      Assert.assertEquals(out.getChecksum().getValue(), reference.applyAsLong(data));
+    }
+    Assert.assertEquals(sink.toByteArray(), data);
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testInputStream(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference)
+          throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(2000);
+    try (var in = new XXHashInputStream(new ByteArrayInputStream(data), factory.get())) {
+      Assert.assertFalse(in.markSupported());
+      Assert.assertEquals(in.read(), data[0] & 0xFF);
+      byte[] read = new byte[100];
+      Assert.assertEquals(in.readNBytes(read, 0, read.length), read.length);
+      Assert.assertEquals(in.skip(1000), 1000);
+      Assert.assertEquals(in.readAllBytes().length, 899);
+      Assert.assertEquals(in.read(), -1);
+      Assert.assertEquals(in.skip(10), 0);
+      Assert.assertEquals(in.getChecksum().getValue(), reference.applyAsLong(data));
+    }
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testWritableChannel(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference)
+          throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    var sink = new ByteArrayOutputStream();
+    WritableByteChannel delegate = Channels.newChannel(sink);
+    // takes at most 7 bytes a write, as a non-blocking channel might
+    WritableByteChannel partial = new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) throws IOException {
+        int limit = src.limit();
+        src.limit(Math.min(limit, src.position() + 7));
+        int written = delegate.write(src);
+        src.limit(limit);
+        return written;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return delegate.isOpen();
+      }
+
+      @Override
+      public void close() throws IOException {
+        delegate.close();
+      }
+    };
+    try (var channel = new XXHashWritableChannel(partial, factory.get())) {
+      ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 5).position(5);
+      direct.put(data).flip().position(5);
+      while (direct.hasRemaining()) {
+        Assert.assertTrue(channel.write(direct) <= 7);
+        Assert.assertEquals(direct.limit(), data.length + 5);
+      }
+      Assert.assertEquals(channel.getChecksum().getValue(), reference.applyAsLong(data));
+    }
+    Assert.assertEquals(sink.toByteArray(), data);
+  }
+
+  @Test(dataProvider = "checksums")
+  public void testReadableChannel(String name, Supplier<XXHashChecksum> factory, ToLongFunction<byte[]> reference)
+          throws IOException {
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    byte[] copy = new byte[data.length];
+    try (var channel = new XXHashReadableChannel(Channels.newChannel(new ByteArrayInputStream(data)), factory.get())) {
+      ByteBuffer direct = ByteBuffer.allocateDirect(64);
+      int copied = 0;
+      while (true) {
+        // starts each read part way into the buffer
+        int start = copied % 5;
+        direct.clear().position(start);
+        int read = channel.read(direct);
+        if (read < 0) {
+          break;
+        }
+        Assert.assertEquals(direct.position(), start + read);
+        direct.flip().position(start);
+        direct.get(copy, copied, read);
+        copied += read;
+      }
+      Assert.assertEquals(copied, data.length);
+      Assert.assertEquals(channel.getChecksum().getValue(), reference.applyAsLong(data));
+    }
+    Assert.assertEquals(copy, data);
+  }
+}
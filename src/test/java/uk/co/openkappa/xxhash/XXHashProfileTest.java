@@ -0,0 +1,69 @@
+package uk.co.openkappa.xxhash;
+
+import net.jpountz.xxhash.XXHashFactory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class XXHashProfileTest {
+
+  @DataProvider
+  public static Object[][] profiles() {
+    return new Object[][] {
+            {"defaults", XXHashProfile.defaults()},
+            {"calibrated", XXHashProfile.calibrate(1)},
+            {"fastest", FastestXXHash.profile()}
+    };
+  }
+
+  @Test(dataProvider = "profiles")
+  public void testHashersAgainstReference(String name, XXHashProfile profile) {
+    var reference32 = XXHashFactory.fastestInstance().hash32();
+    var reference64 = XXHashFactory.fastestInstance().hash64();
+    Hasher32 hasher32 = profile.hasher32();
+    Hasher64 hasher64 = profile.hasher64();
+    byte[] data = BenchmarkUtils.newByteArray(600);
+    for (int length = 0; length < data.length; ++length) {
+      Assert.assertEquals(hasher32.hash(data, 0, length, 7), reference32.hash(data, 0, length, 7), profile + " " + length);
+      Assert.assertEquals(hasher64.hash(data, 0, length, 7L), reference64.hash(data, 0, length, 7L), profile + " " + length);
+    }
+  }
+
+  @Test
+  public void testStoreAndLoad() throws Exception {
+    XXHashProfile profile = XXHashProfile.calibrate(1);
+    Path path = Files.createTempFile("xxhash", ".properties");
+    try {
+      profile.store(path);
+      XXHashProfile loaded = XXHashProfile.load(path);
+      for (int bucket = 0; bucket < XXHashProfile.BUCKETS; ++bucket) {
+        Assert.assertEquals(loaded.engine32(bucket), profile.engine32(bucket));
+        Assert.assertEquals(loaded.engine64(bucket), profile.engine64(bucket));
+      }
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  @Test
+  public void testUnreadableProfileFallsBackToDefaults() throws Exception {
+    XXHashProfile defaults = XXHashProfile.defaults();
+    Path directory = Files.createTempDirectory("xxhash");
+    Path malformed = Files.writeString(directory.resolve("malformed.properties"), "xxh64.tiny=\\uZZZZ");
+    try {
+      for (Path path : new Path[] {directory, malformed}) {
+        XXHashProfile profile = FastestXXHash.selectProfile(path, false);
+        for (int bucket = 0; bucket < XXHashProfile.BUCKETS; ++bucket) {
+          Assert.assertEquals(profile.engine32(bucket), defaults.engine32(bucket), path.toString());
+          Assert.assertEquals(profile.engine64(bucket), defaults.engine64(bucket), path.toString());
+        }
+      }
+    } finally {
+      Files.delete(malformed);
+      Files.delete(directory);
+    }
+  }
+}
@@ -5,6 +5,15 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 public class XXHashTest {
 
   @DataProvider
@@ -12,8 +21,9 @@ public class XXHashTest {
     return new Object[][] {
             args(new NoSWARXXHash64()),
             args(new UnsafeXXHash64()),
-            args(new VarHandleXXHash64())
-            // doesn't produce correct result :(, args(new VectorXXHash64())
+            args(new VarHandleXXHash64()),
+            args(new JNIXXHash64()),
+            args(new VectorXXHash64())
     };
   }
 
@@ -23,7 +33,8 @@ public class XXHashTest {
             args(new NoSWARXXHash32()),
             args(new UnsafeXXHash32()),
             args(new VarHandleXXHash32()),
-            args(new VectorXXHash32())
+            args(new VectorXXHash32()),
+            args(new JNIXXHash32())
     };
   }
 
@@ -38,6 +49,25 @@ public class XXHashTest {
     Assert.assertEquals(testedHash, referenceHash);
   }
 
+  @Test(dataProvider = "xxhash64")
+  public void testXXHash64TailsAgainstReference(String name, Hasher64 hasher) {
+    var reference = XXHashFactory.fastestInstance().hash64();
+    for (int length = 0; length < 200; ++length) {
+      byte[] data = BenchmarkUtils.newByteArray(length);
+      Assert.assertEquals(hasher.hash(data, -1L), reference.hash(data, 0, length, -1L), "length " + length);
+    }
+  }
+
+  @Test
+  public void testVectorXXHash64UpTo4K() {
+    var reference = new JNIXXHash64();
+    var vector = new VectorXXHash64();
+    byte[] data = BenchmarkUtils.newByteArray(4096);
+    for (int length = 0; length <= data.length; ++length) {
+      Assert.assertEquals(vector.hash(data, 0, length, length), reference.hash(data, 0, length, length), "length " + length);
+    }
+  }
+
   @Test(dataProvider = "xxhash32")
   public void testXXHash32AgainstReference(String name, Hasher32 hasher) {
     byte[] data = BenchmarkUtils.newByteArray(16 * 200);
@@ -47,6 +77,119 @@ public class XXHashTest {
     Assert.assertEquals(testedHash, referenceHash);
   }
 
+  @Test(dataProvider = "xxhash64")
+  public void testXXHash64InputLayouts(String name, Hasher64 hasher) {
+    var reference = XXHashFactory.fastestInstance().hash64();
+    try (Arena arena = Arena.ofConfined()) {
+      for (int length = 0; length < 300; ++length) {
+        byte[] page = BenchmarkUtils.newByteArray(length + 26);
+        long expected = reference.hash(page, 13, length, 7L);
+        var native_ = arena.allocate(page.length).copyFrom(MemorySegment.ofArray(page));
+        var direct = ByteBuffer.allocateDirect(page.length).put(page).position(13).limit(13 + length);
+        Assert.assertEquals(hasher.hash(page, 13, length, 7L), expected, "array length " + length);
+        Assert.assertEquals(hasher.hash(ByteBuffer.wrap(page, 13, length), 7L), expected, "heap buffer length " + length);
+        Assert.assertEquals(hasher.hash(ByteBuffer.wrap(page, 13, length).asReadOnlyBuffer(), 7L), expected, "read-only buffer length " + length);
+        Assert.assertEquals(hasher.hash(direct, 7L), expected, "direct buffer length " + length);
+        Assert.assertEquals(direct.position(), 13);
+        Assert.assertEquals(hasher.hash(native_, 13, length, 7L), expected, "native segment length " + length);
+        Assert.assertEquals(hasher.hash(MemorySegment.ofArray(page), 13, length, 7L), expected, "heap segment length " + length);
+        Assert.assertEquals(hasher.hash(longs(page), 13, length, 7L), expected, "long[] segment length " + length);
+      }
+    }
+  }
+
+  @Test(dataProvider = "xxhash32")
+  public void testXXHash32InputLayouts(String name, Hasher32 hasher) {
+    var reference = XXHashFactory.fastestInstance().hash32();
+    try (Arena arena = Arena.ofConfined()) {
+      for (int length = 0; length < 300; ++length) {
+        byte[] page = BenchmarkUtils.newByteArray(length + 26);
+        int expected = reference.hash(page, 13, length, 7);
+        var native_ = arena.allocate(page.length).copyFrom(MemorySegment.ofArray(page));
+        var direct = ByteBuffer.allocateDirect(page.length).put(page).position(13).limit(13 + length);
+        Assert.assertEquals(hasher.hash(page, 13, length, 7), expected, "array length " + length);
+        Assert.assertEquals(hasher.hash(ByteBuffer.wrap(page, 13, length), 7), expected, "heap buffer length " + length);
+        Assert.assertEquals(hasher.hash(ByteBuffer.wrap(page, 13, length).asReadOnlyBuffer(), 7), expected, "read-only buffer length " + length);
+        Assert.assertEquals(hasher.hash(direct, 7), expected, "direct buffer length " + length);
+        Assert.assertEquals(direct.position(), 13);
+        Assert.assertEquals(hasher.hash(native_, 13, length, 7), expected, "native segment length " + length);
+        Assert.assertEquals(hasher.hash(MemorySegment.ofArray(page), 13, length, 7), expected, "heap segment length " + length);
+        Assert.assertEquals(hasher.hash(longs(page), 13, length, 7), expected, "long[] segment length " + length);
+      }
+    }
+  }
+
+  // the JNI hashers can only give native code byte[] backed segments and native ones no other thread
+  // can free, under 2GB, and must hash every other shape in Java
+  @Test
+  public void testJNISegmentShapes() {
+    var hasher64 = new JNIXXHash64();
+    var hasher32 = new JNIXXHash32();
+    var reference64 = XXHashFactory.fastestInstance().hash64();
+    var reference32 = XXHashFactory.fastestInstance().hash32();
+    byte[] data = BenchmarkUtils.newByteArray(1000);
+    var longs = MemorySegment.ofArray(new long[data.length / Long.BYTES]).copyFrom(MemorySegment.ofArray(data));
+    try (Arena shared = Arena.ofShared()) {
+      var native_ = shared.allocate(data.length).copyFrom(MemorySegment.ofArray(data));
+      var auto = Arena.ofAuto().allocate(data.length).copyFrom(MemorySegment.ofArray(data));
+      for (MemorySegment segment : new MemorySegment[] {longs, MemorySegment.ofArray(data).asReadOnly(), native_, auto}) {
+        Assert.assertEquals(hasher64.hash(segment, 3, 990, 7L), reference64.hash(data, 3, 990, 7L), segment.toString());
+        Assert.assertEquals(hasher32.hash(segment, 3, 990, 7), reference32.hash(data, 3, 990, 7), segment.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testJNISegmentOver2GB() throws IOException {
+    long size = (1L << 31) + 100;
+    byte[] tail = BenchmarkUtils.newByteArray(100);
+    Path file = Files.createTempFile("xxhash", ".bin");
+    try (Arena arena = Arena.ofConfined();
+         FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // sparse, so only the tail takes space
+      channel.write(ByteBuffer.wrap(tail), size - tail.length);
+      MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena);
+      var streaming64 = new UnsafeXXHash64().newStreamingHash(7L);
+      var streaming32 = new UnsafeXXHash32().newStreamingHash(7);
+      byte[] zeros = new byte[1 << 20];
+      for (long offset = 0; offset < size - tail.length; offset += zeros.length) {
+        streaming64.update(zeros, 0, zeros.length);
+        streaming32.update(zeros, 0, zeros.length);
+      }
+      streaming64.update(tail, 0, tail.length);
+      streaming32.update(tail, 0, tail.length);
+      Assert.assertEquals(new JNIXXHash64().hash(segment, 0, size, 7L), streaming64.digest());
+      Assert.assertEquals(new JNIXXHash32().hash(segment, 0, size, 7), streaming32.digest());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  // a closed segment must fail as the FFM API fails, not read freed memory
+  @Test(dataProvider = "xxhash64")
+  public void testXXHash64ClosedSegment(String name, Hasher64 hasher) {
+    MemorySegment segment;
+    try (Arena arena = Arena.ofConfined()) {
+      segment = arena.allocate(100);
+    }
+    Assert.assertThrows(IllegalStateException.class, () -> hasher.hash(segment, 0, 100, 0L));
+  }
+
+  @Test(dataProvider = "xxhash32")
+  public void testXXHash32ClosedSegment(String name, Hasher32 hasher) {
+    MemorySegment segment;
+    try (Arena arena = Arena.ofConfined()) {
+      segment = arena.allocate(100);
+    }
+    Assert.assertThrows(IllegalStateException.class, () -> hasher.hash(segment, 0, 100, 0));
+  }
+
+  // a heap segment over a long[], which the vector API can't load from
+  static MemorySegment longs(byte[] data) {
+    return MemorySegment.ofArray(new long[(data.length + 7) / 8]).copyFrom(MemorySegment.ofArray(data))
+            .asSlice(0, data.length);
+  }
+
   private static Object[] args(Hasher64 hash) {
     return new Object[] {hash.getClass().getName(), hash};
   }
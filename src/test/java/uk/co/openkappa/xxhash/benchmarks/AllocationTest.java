@@ -0,0 +1,146 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Hashes with every impl, layout and a range of sizes until the JIT has compiled the hash, then
+ * fails if a batch of calls allocates anything, such as vectors escape analysis didn't eliminate.
+ * Each hash and impl runs in its own JVM, as under a JMH fork, since what the JIT makes of a hasher
+ * depends on everything else the JVM has run. The JIT may take a while, or recompile when a later
+ * size takes a new path, so a batch is retried until it's within budget or the JIT has had long
+ * enough. The JVMs compile in the foreground, as with background compilation the code C2 produces
+ * for the vector hashers depends on which calls happened to run while it compiled, and in some
+ * orders the vectors are boxed.
+ */
+public class AllocationTest {
+
+  private static final int[] SIZES = {7, 25, 100, 1000};
+  private static final int WARMUP = 200_000;
+  private static final int CALLS = 10_000;
+  private static final int ATTEMPTS = 200;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+          (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  static long sink;
+
+  @DataProvider
+  public static Object[][] hashers() {
+    List<Object[]> hashers = new ArrayList<>();
+    for (XXHash64State.Impl impl : XXHash64State.Impl.values()) {
+      hashers.add(new Object[] {"xxhash64", impl.name()});
+    }
+    for (XXHash32State.Impl impl : XXHash32State.Impl.values()) {
+      hashers.add(new Object[] {"xxhash32", impl.name()});
+    }
+    for (XXHash3State.Impl impl : XXHash3State.Impl.values()) {
+      hashers.add(new Object[] {"xxh3", impl.name()});
+      hashers.add(new Object[] {"xxh128", impl.name()});
+    }
+    return hashers.toArray(Object[][]::new);
+  }
+
+  @Test(dataProvider = "hashers")
+  public void testSteadyStateDoesNotAllocate(String hash, String impl) throws IOException, InterruptedException {
+    if (!THREADS.isThreadAllocatedMemorySupported() || !THREADS.isThreadAllocatedMemoryEnabled()) {
+      throw new SkipException("this JVM doesn't count allocated bytes per thread");
+    }
+    List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-Xbatch");
+    command.addAll(List.of("-cp", System.getProperty("java.class.path"), AllocationTest.class.getName(), hash, impl));
+    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    List<String> failures = new ArrayList<>();
+    try (var out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+      for (String line = out.readLine(); line != null; line = out.readLine()) {
+        failures.add(line);
+      }
+    }
+    Assert.assertEquals(process.waitFor(), 0, hash + " " + impl + " failed");
+    Assert.assertTrue(failures.isEmpty(), String.join("\n", failures));
+  }
+
+  /**
+   * Measures one hash and impl, printing a line for each layout and size which allocates.
+   */
+  public static void main(String[] args) {
+    String hash = args[0];
+    String impl = args[1];
+    for (Layout layout : hash.equals("xxh128") ? new Layout[] {Layout.ARRAY} : Layout.values()) {
+      for (int size : SIZES) {
+        LongUnaryOperator hasher = hasher(hash, impl, layout, size);
+        calls(hasher, WARMUP);
+        long allocated = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < ATTEMPTS && allocated > 0; ++attempt) {
+          allocated = calls(hasher, CALLS);
+        }
+        if (allocated > 0) {
+          System.out.printf("%s %s %s at size %d allocates %.1f bytes per call%n",
+                  hash, impl, layout, size, (double) allocated / CALLS);
+        }
+      }
+    }
+  }
+
+  private static LongUnaryOperator hasher(String hash, String impl, Layout layout, int size) {
+    switch (hash) {
+      case "xxhash64" -> {
+        var state = new XXHash64State();
+        state.impl = XXHash64State.Impl.valueOf(impl);
+        state.layout = layout;
+        state.size = size;
+        state.init();
+        return state::hash;
+      }
+      case "xxhash32" -> {
+        var state = new XXHash32State();
+        state.impl = XXHash32State.Impl.valueOf(impl);
+        state.layout = layout;
+        state.size = size;
+        state.init();
+        return seed -> state.hash((int) seed);
+      }
+      case "xxh3" -> {
+        var state = new XXHash3State();
+        state.impl = XXHash3State.Impl.valueOf(impl);
+        state.layout = layout;
+        state.size = size;
+        state.init();
+        return state::hash;
+      }
+      case "xxh128" -> {
+        var state = new XXHash128State();
+        state.impl = XXHash3State.Impl.valueOf(impl);
+        state.size = size;
+        state.init();
+        return seed -> state.hasher.hash(state.data, seed, state.result).low();
+      }
+      default -> throw new IllegalArgumentException("unknown hash " + hash);
+    }
+  }
+
+  // bytes allocated by this thread over the calls
+  private static long calls(LongUnaryOperator hasher, int calls) {
+    long before = THREADS.getCurrentThreadAllocatedBytes();
+    long hash = 0;
+    for (int i = 0; i < calls; ++i) {
+      hash ^= hasher.applyAsLong(i);
+    }
+    long after = THREADS.getCurrentThreadAllocatedBytes();
+    sink ^= hash;
+    return after - before;
+  }
+}
@@ -0,0 +1,77 @@
+package uk.co.openkappa.xxhash.benchmarks;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class LatencyHistogramTest {
+
+  @DataProvider
+  public static Object[][] percentiles() {
+    return new Object[][] {{0}, {50}, {90}, {99}, {99.9}, {100}};
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    var histogram = new LatencyHistogram();
+    for (int value = 0; value < 256; ++value) {
+      histogram.record(value);
+    }
+    Assert.assertEquals(histogram.valueAtPercentile(50), 127);
+    Assert.assertEquals(histogram.valueAtPercentile(100), 255);
+    Assert.assertEquals(histogram.max(), 255);
+    Assert.assertEquals(histogram.mean(), 127.5);
+  }
+
+  @Test
+  public void testBucketsAreContiguous() {
+    for (long value = 0; value < 1 << 20; ++value) {
+      int index = LatencyHistogram.index(value);
+      Assert.assertTrue(LatencyHistogram.highest(index) >= value);
+      Assert.assertTrue(index == 0 || LatencyHistogram.highest(index - 1) < value);
+    }
+    Assert.assertEquals(LatencyHistogram.highest(LatencyHistogram.index(Long.MAX_VALUE)), Long.MAX_VALUE);
+  }
+
+  @Test(dataProvider = "percentiles")
+  public void testPercentilesWithinOnePercent(double percentile) {
+    var random = new SplittableRandom(percentile > 0 ? (long) (percentile * 10) : 1);
+    long[] values = new long[100_000];
+    var histogram = new LatencyHistogram();
+    for (int i = 0; i < values.length; ++i) {
+      // log-normal-ish, like latencies, from tens of nanoseconds to milliseconds
+      values[i] = (long) Math.exp(3 + 4 * Math.abs(random.nextGaussian()));
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    long expected = values[(int) Math.max(0, Math.ceil(percentile / 100 * values.length) - 1)];
+    long actual = histogram.valueAtPercentile(percentile);
+    Assert.assertTrue(actual >= expected && actual <= expected + expected / 100, actual + " for " + expected);
+    Assert.assertEquals(histogram.max(), values[values.length - 1]);
+  }
+
+  @Test
+  public void testAddMerges() {
+    var low = new LatencyHistogram();
+    var high = new LatencyHistogram();
+    for (int i = 0; i < 1000; ++i) {
+      low.record(10);
+      high.record(1_000_000);
+    }
+    low.add(high);
+    Assert.assertEquals(low.count(), 2000);
+    Assert.assertEquals(low.valueAtPercentile(50), 10);
+    Assert.assertEquals(low.valueAtPercentile(50.1), low.max());
+    low.reset();
+    Assert.assertEquals(low.count(), 0);
+    Assert.assertEquals(low.valueAtPercentile(99), 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeLatencyRejected() {
+    new LatencyHistogram().record(-1);
+  }
+}
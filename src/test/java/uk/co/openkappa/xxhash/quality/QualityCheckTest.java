@@ -0,0 +1,105 @@
+package uk.co.openkappa.xxhash.quality;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import uk.co.openkappa.xxhash.UnsafeXXHash64;
+import uk.co.openkappa.xxhash.VarHandleXXHash32;
+import uk.co.openkappa.xxhash.VectorXXHash3;
+import uk.co.openkappa.xxhash.results.JmhFormat;
+import uk.co.openkappa.xxhash.results.Result;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class QualityCheckTest {
+
+  private static final double SCALE = 0.05;
+
+  private static final Candidate POLYNOMIAL = Candidate.ofHashCode("ByteBuffer HASH_CODE", () -> ByteBuffer::hashCode);
+
+  @DataProvider
+  public Object[][] checks() {
+    List<Object[]> cases = new ArrayList<>();
+    for (Candidate candidate : List.of(Candidate.of64("xxhash64", UnsafeXXHash64::new),
+            Candidate.of32("xxhash32", VarHandleXXHash32::new), Candidate.of64("xxh3", VectorXXHash3::new))) {
+      for (QualityCheck check : QualityCheck.values()) {
+        cases.add(new Object[] {candidate, check});
+      }
+    }
+    return cases.toArray(Object[][]::new);
+  }
+
+  @Test(dataProvider = "checks")
+  public void testXXHashPasses(Candidate candidate, QualityCheck check) {
+    Score score = check.run(candidate, SCALE);
+    Assert.assertTrue(score.passed(), candidate + " " + score);
+  }
+
+  @Test
+  public void testPolynomialFails() {
+    for (QualityCheck check : List.of(QualityCheck.AVALANCHE, QualityCheck.BIT_INDEPENDENCE, QualityCheck.SPARSE_KEYS)) {
+      Assert.assertFalse(check.run(POLYNOMIAL, SCALE).passed(), check.label());
+    }
+  }
+
+  @Test
+  public void testLowBitsOfStridedKeysFillOneBucket() {
+    var firstInt = Candidate.ofHashCode("first int", () -> buffer -> buffer.getInt(buffer.position()));
+    Score score = QualityCheck.BUCKETS.run(firstInt, SCALE);
+    Assert.assertFalse(score.passed());
+    Assert.assertEquals(score.toString(), score.summary() + "*");
+  }
+
+  @Test
+  public void testStatistics() {
+    long[] even = new long[1 << 12];
+    for (int i = 0; i < even.length; ++i) {
+      even[i] = i;
+    }
+    Assert.assertEquals(QualityCheck.chiSquared(even, 8), -255 / Math.sqrt(510), 1e-9);
+    Assert.assertEquals(QualityCheck.collisions(new long[] {3, 1, 3, 2, 3, 1}), 3);
+    Assert.assertEquals(QualityCheck.expectedCollisions(1 << 16, 32), 0.5, 1e-4);
+    Assert.assertEquals(QualityCheck.correlation(500, 500, 250, 1000), 0, 1e-9);
+    Assert.assertEquals(QualityCheck.correlation(500, 500, 500, 1000), 1, 1e-9);
+    Assert.assertEquals(QualityCheck.correlation(1000, 500, 500, 1000), 1, 1e-9);
+  }
+
+  @Test
+  public void testScoreboard() throws InterruptedException {
+    var xxhash = Candidate.of64("xxhash64 UNSAFE", UnsafeXXHash64::new);
+    var missing = Candidate.of64("xxhash64 JNI", UnsafeXXHash64::new);
+    var scoreboard = Scoreboard.run(List.of(missing, POLYNOMIAL, xxhash), 0.01, 2);
+    Assert.assertTrue(scoreboard.passed(xxhash));
+    Assert.assertFalse(scoreboard.passed(POLYNOMIAL));
+    Assert.assertEquals(scoreboard.scores(xxhash).size(), QualityCheck.values().length);
+
+    List<Result> results = JmhFormat.readCsv("""
+            "Benchmark","Mode","Threads","Samples","Score","Score Error (99.9%)","Unit","Param: bufferKind","Param: impl","Param: layout","Param: size"
+            "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,30.0,0.1,"ops/us",,UNSAFE,ARRAY,100
+            "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,99.0,0.1,"ops/us",,UNSAFE,SEGMENT,100
+            "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,3.0,0.1,"ops/us",,UNSAFE,ARRAY,1000
+            "uk.co.openkappa.xxhash.benchmarks.ScalingBenchmark.xxhash64","thrpt",1,5,99.0,0.1,"ops/us",,JNI,,100
+            "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.ByteBuffer","thrpt",1,5,40.0,0.1,"ops/us",HEAP,HASH_CODE,,100
+            "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.ByteBuffer","thrpt",1,5,99.0,0.1,"ops/us",DIRECT,HASH_CODE,,100
+            """);
+    Map<String, Result> throughput = Scoreboard.throughput(results, "100");
+    Assert.assertEquals(throughput.keySet(), Set.of("xxhash64 UNSAFE", "ByteBuffer HASH_CODE"));
+
+    String[] lines = scoreboard.render(throughput).split("\\R");
+    Assert.assertEquals(lines.length, 4);
+    Assert.assertTrue(lines[0].startsWith("hash"));
+    Assert.assertTrue(lines[0].endsWith("ops/us"));
+    Assert.assertTrue(lines[1].startsWith("ByteBuffer HASH_CODE"));
+    Assert.assertTrue(lines[1].contains("*"));
+    Assert.assertTrue(lines[1].endsWith("40.00"));
+    Assert.assertTrue(lines[2].startsWith("xxhash64 UNSAFE"));
+    Assert.assertTrue(lines[2].contains(" 5/5 "));
+    Assert.assertTrue(lines[2].endsWith("30.00"));
+    Assert.assertTrue(lines[3].startsWith("xxhash64 JNI"));
+    Assert.assertTrue(lines[3].endsWith("-"));
+  }
+}
@@ -0,0 +1,221 @@
+package uk.co.openkappa.xxhash.results;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ResultsTest {
+
+  private static final String BENCHMARK = "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64";
+
+  private static final String CSV = """
+          "Benchmark","Mode","Threads","Samples","Score","Score Error (99.9%)","Unit","Param: impl","Param: size"
+          "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,20.5,0.25,"ops/us",JNI,100
+          "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,41.0,0.5,"ops/us",VECTOR,100
+          "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,2.0,0.01,"ops/us",JNI,1000
+          "uk.co.openkappa.xxhash.benchmarks.XXHashBenchmark.xxhash64","thrpt",1,5,3.0,0.01,"ops/us",VECTOR,1000
+          "uk.co.openkappa.xxhash.benchmarks.LatencyBenchmark.xxhash64:xxhash64·p0.99","sample",1,1000,50.0,NaN,"ns/op",JNI,100
+          "uk.co.openkappa.xxhash.benchmarks.LatencyBenchmark.xxhash64:xxhash64·p0.99","sample",1,1000,25.0,NaN,"ns/op",VECTOR,100
+          "uk.co.openkappa.xxhash.benchmarks.CdcBenchmark.segment","thrpt",1,5,1.5,0.1,"ops/s",,
+          """;
+
+  private static final String JSON = """
+          [
+              {
+                  "jmhVersion" : "1.37",
+                  "benchmark" : "uk.co.openkappa.xxhash.benchmarks.LatencyBenchmark.xxhash64",
+                  "mode" : "sample",
+                  "threads" : 1,
+                  "forks" : 1,
+                  "jdkVersion" : "21.0.1",
+                  "params" : {
+                      "impl" : "JNI",
+                      "size" : "100"
+                  },
+                  "primaryMetric" : {
+                      "score" : 42.5,
+                      "scoreError" : 1.25,
+                      "scoreConfidence" : [41.25, 43.75],
+                      "scoreUnit" : "ns/op",
+                      "rawData" : [[42.0, 43.0, 42.5]]
+                  },
+                  "secondaryMetrics" : {
+                      "xxhash64·p0.99" : {
+                          "score" : 60.0,
+                          "scoreError" : "NaN",
+                          "scoreUnit" : "ns/op",
+                          "rawData" : [[60.0]]
+                      }
+                  }
+              }
+          ]
+          """;
+
+  @DataProvider
+  public static Object[][] verdicts() {
+    return new Object[][] {
+            // disjoint intervals, slower
+            {"thrpt", 100, 1, 90, 1, Comparison.Verdict.REGRESSED},
+            {"thrpt", 100, 1, 110, 1, Comparison.Verdict.IMPROVED},
+            {"avgt", 100, 1, 90, 1, Comparison.Verdict.IMPROVED},
+            {"avgt", 100, 1, 110, 1, Comparison.Verdict.REGRESSED},
+            // overlapping intervals
+            {"thrpt", 100, 10, 90, 5, Comparison.Verdict.UNCHANGED},
+            // disjoint but within the threshold
+            {"thrpt", 100, 0.1, 99.5, 0.1, Comparison.Verdict.UNCHANGED},
+            // no interval
+            {"thrpt", 100, Double.NaN, 50, 1, Comparison.Verdict.UNCHANGED},
+    };
+  }
+
+  @Test
+  public void testReadCsv() {
+    List<Result> results = JmhFormat.readCsv(CSV);
+    Assert.assertEquals(results.size(), 7);
+    Result first = results.get(0);
+    Assert.assertEquals(first.benchmark(), BENCHMARK);
+    Assert.assertEquals(first.mode(), "thrpt");
+    Assert.assertEquals(first.samples(), 5);
+    Assert.assertEquals(first.score(), 20.5);
+    Assert.assertEquals(first.error(), 0.25);
+    Assert.assertEquals(first.params(), Map.of("impl", "JNI", "size", "100"));
+    Assert.assertEquals(first.key(), "XXHashBenchmark.xxhash64 thrpt impl=JNI size=100");
+    Assert.assertEquals(results.get(4).key(), "LatencyBenchmark.xxhash64:xxhash64·p0.99 sample impl=JNI size=100");
+    Assert.assertTrue(Double.isNaN(results.get(4).error()));
+    Assert.assertEquals(results.get(6).params(), Map.of());
+  }
+
+  @Test
+  public void testCsvRoundTrip() throws IOException {
+    List<Result> results = JmhFormat.readCsv(CSV);
+    var csv = new StringBuilder();
+    JmhFormat.writeCsv(results, csv);
+    Assert.assertEquals(JmhFormat.readCsv(csv.toString()), results);
+  }
+
+  @Test
+  public void testKeyIgnoresParamOrder() {
+    Map<String, String> sizeFirst = new LinkedHashMap<>();
+    sizeFirst.put("size", "100");
+    sizeFirst.put("impl", "JNI");
+    Map<String, String> implFirst = new LinkedHashMap<>();
+    implFirst.put("impl", "JNI");
+    implFirst.put("size", "100");
+    var first = new Result(BENCHMARK, "thrpt", 1, 5, 20.5, 0.25, "ops/us", sizeFirst);
+    var second = new Result(BENCHMARK, "thrpt", 1, 5, 21.5, 0.25, "ops/us", implFirst);
+    Assert.assertEquals(first.key(), "XXHashBenchmark.xxhash64 thrpt impl=JNI size=100");
+    Assert.assertEquals(first.key(), second.key());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRejectsOtherCsv() {
+    JmhFormat.readCsv("name,score\nfoo,1\n");
+  }
+
+  @Test
+  public void testReadJson() throws IOException {
+    List<Result> results = JmhFormat.readJson(JSON);
+    Assert.assertEquals(results.size(), 2);
+    Assert.assertEquals(results.get(0), new Result(BENCHMARK.replace("XXHashBenchmark", "LatencyBenchmark"),
+            "sample", 1, 3, 42.5, 1.25, "ns/op", Map.of("impl", "JNI", "size", "100")));
+    Assert.assertEquals(results.get(1).key(), "LatencyBenchmark.xxhash64:xxhash64·p0.99 sample impl=JNI size=100");
+    Assert.assertTrue(Double.isNaN(results.get(1).error()));
+    Path file = Files.createTempFile("results", ".json");
+    try {
+      Files.writeString(file, JSON);
+      Assert.assertEquals(JmhFormat.read(file), results);
+      Assert.assertEquals(JmhFormat.jdkVersion(file), "21.0.1");
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testStoreRoundTrip() throws IOException {
+    Path root = Files.createTempDirectory("results");
+    try {
+      var store = new ResultsStore(root);
+      var first = new Run("21.0.1", "Intel(R) Xeon(R) CPU @ 2.00GHz", "abc1234", JmhFormat.readCsv(CSV));
+      var second = new Run("22", "Intel(R) Xeon(R) CPU @ 2.00GHz", "def5678", JmhFormat.readCsv(CSV).subList(0, 2));
+      store.save(first);
+      store.save(second);
+      Run loaded = store.load("21.0.1", "Intel(R) Xeon(R) CPU @ 2.00GHz", "abc1234");
+      Assert.assertEquals(loaded.jdk(), first.jdk());
+      Assert.assertEquals(loaded.cpu(), first.cpu());
+      Assert.assertEquals(loaded.commit(), first.commit());
+      Assert.assertEquals(loaded.results(), first.results());
+      Assert.assertNull(store.load("21.0.1", "Intel(R) Xeon(R) CPU @ 2.00GHz", "fff0000"));
+      Assert.assertEquals(store.find(null, null, "def").size(), 1);
+      Assert.assertEquals(store.find("22", null, null).get(0).results(), second.results());
+      Assert.assertEquals(store.find(null, null, null).size(), 2);
+      // same key replaces
+      store.save(new Run("22", "Intel(R) Xeon(R) CPU @ 2.00GHz", "def5678", first.results()));
+      Assert.assertEquals(store.find(null, null, null).size(), 2);
+      Assert.assertEquals(store.find("22", null, null).get(0).results(), first.results());
+    } finally {
+      try (Stream<Path> walk = Files.walk(root)) {
+        for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  @Test(dataProvider = "verdicts")
+  public void testVerdict(String mode, double baseline, double baselineError, double current, double currentError,
+                          Comparison.Verdict expected) {
+    Assert.assertEquals(Comparison.verdict(result(mode, baseline, baselineError), result(mode, current, currentError), 0.01),
+            expected);
+  }
+
+  @Test
+  public void testComparison() {
+    List<Result> base = JmhFormat.readCsv(CSV);
+    var baseline = new Run("21.0.1", "x86_64", "abc1234", base);
+    var current = new Run("21.0.1", "x86_64", "def5678", List.of(
+            result(base.get(0), 10, 0.25),
+            result(base.get(1), 45, 0.5),
+            result(base.get(2), 2.001, 0.01),
+            new Result(BENCHMARK, "thrpt", 1, 5, 1, 0.1, "ops/us", Map.of("impl", "UNSAFE", "size", "100"))));
+    var comparison = new Comparison(baseline, current, 0.01);
+    Assert.assertEquals(comparison.changes().size(), 3);
+    Assert.assertEquals(comparison.changes().get(0).verdict(), Comparison.Verdict.REGRESSED);
+    Assert.assertEquals(comparison.changes().get(0).speedup(), 10 / 20.5);
+    Assert.assertEquals(comparison.changes().get(1).verdict(), Comparison.Verdict.IMPROVED);
+    Assert.assertEquals(comparison.changes().get(2).verdict(), Comparison.Verdict.UNCHANGED);
+    Assert.assertEquals(comparison.regressions().size(), 1);
+    Assert.assertEquals(comparison.unmatched().size(), 1);
+    Assert.assertTrue(comparison.render().contains("1 regressed, 1 improved, 1 not in the baseline"));
+  }
+
+  @Test
+  public void testSpeedupTable() {
+    var run = new Run("21.0.1", "x86_64", "abc1234", JmhFormat.readCsv(CSV));
+    String[] lines = SpeedupTable.render(run).split("\n");
+    Assert.assertEquals(lines[0], "XXHashBenchmark.xxhash64 thrpt, speedup over JNI");
+    Assert.assertEquals(lines[1].split("\\s+"), new String[] {"impl", "100", "1000"});
+    Assert.assertEquals(lines[2].split("\\s+"), new String[] {"JNI", "1.00x", "1.00x"});
+    Assert.assertEquals(lines[3].split("\\s+"), new String[] {"VECTOR", "2.00x", "1.50x"});
+    // times are inverted, so faster is still above one
+    Assert.assertEquals(lines[5], "LatencyBenchmark.xxhash64:xxhash64·p0.99 sample, speedup over JNI");
+    Assert.assertEquals(lines[8].split("\\s+"), new String[] {"VECTOR", "2.00x"});
+  }
+
+  private static Result result(String mode, double score, double error) {
+    return new Result(BENCHMARK, mode, 1, 5, score, error, "ops/us", Map.of());
+  }
+
+  private static Result result(Result like, double score, double error) {
+    return new Result(like.benchmark(), like.mode(), like.threads(), like.samples(), score, error, like.unit(),
+            like.params());
+  }
+}